@@ -23,6 +23,8 @@ import com.blazebit.expression.DomainModelException;
 import com.blazebit.expression.ExpressionInterpreter;
 import com.blazebit.expression.spi.ComparisonOperatorInterpreter;
 import com.blazebit.expression.spi.DomainOperatorInterpreter;
+import com.blazebit.expression.spi.EqualityKeyOperatorInterpreter;
+import com.blazebit.expression.spi.PrimitiveNumericOperatorInterpreter;
 
 import java.io.Serializable;
 
@@ -30,9 +32,11 @@ import java.io.Serializable;
  * @author Christian Beikov
  * @since 1.0.0
  */
-public class ApproximateNumericOperatorInterpreter implements ComparisonOperatorInterpreter, DomainOperatorInterpreter, Serializable {
+public class ApproximateNumericOperatorInterpreter implements ComparisonOperatorInterpreter, DomainOperatorInterpreter, EqualityKeyOperatorInterpreter, PrimitiveNumericOperatorInterpreter, Serializable {
 
     public static final ApproximateNumericOperatorInterpreter INSTANCE = new ApproximateNumericOperatorInterpreter();
+    private static final long MAX_EXACT_LONG = 1L << 53;
+    private static final long NEGATIVE_ZERO_BITS = Double.doubleToRawLongBits(-0.0d);
 
     private ApproximateNumericOperatorInterpreter() {
     }
@@ -75,6 +79,23 @@ public class ApproximateNumericOperatorInterpreter implements ComparisonOperator
         throw new DomainModelException("Can't handle the operator " + operator + " for the arguments [" + leftValue + ", " + rightValue + "]!");
     }
 
+    @Override
+    public Object getEqualityKey(DomainType type, Object value) {
+        // Longs are compared with doubles by converting them to double, so only longs that are exactly representable have a key
+        if (value instanceof Long) {
+            long longValue = (Long) value;
+            return longValue >= -MAX_EXACT_LONG && longValue <= MAX_EXACT_LONG ? value : null;
+        } else if (value instanceof Double) {
+            double doubleValue = (Double) value;
+            // Double.compareTo distinguishes -0.0 from 0.0, so only positive zero is normalized
+            if (doubleValue >= -MAX_EXACT_LONG && doubleValue <= MAX_EXACT_LONG && doubleValue == Math.rint(doubleValue) && Double.doubleToRawLongBits(doubleValue) != NEGATIVE_ZERO_BITS) {
+                return (long) doubleValue;
+            }
+            return value;
+        }
+        return null;
+    }
+
     @Override
     public Object interpret(ExpressionInterpreter.Context context, DomainType targetType, DomainType leftType, DomainType rightType, Object leftValue, Object rightValue, DomainOperator operator) {
         if (rightValue == null) {
@@ -96,23 +117,7 @@ public class ApproximateNumericOperatorInterpreter implements ComparisonOperator
             if (rightValue instanceof String) {
                 return leftValue + rightValue.toString();
             } else if (leftValue instanceof Long && rightValue instanceof Long) {
-                long l = (Long) leftValue;
-                long r = (Long) rightValue;
-
-                switch (operator) {
-                    case PLUS:
-                        return l + r;
-                    case MINUS:
-                        return l - r;
-                    case MULTIPLICATION:
-                        return l * r;
-                    case DIVISION:
-                        return l / r;
-                    case MODULO:
-                        return l % r;
-                    default:
-                        break;
-                }
+                return interpret((long) (Long) leftValue, (long) (Long) rightValue, operator);
             } else {
                 double l;
                 double r;
@@ -129,23 +134,85 @@ public class ApproximateNumericOperatorInterpreter implements ComparisonOperator
                     throw new DomainModelException("Can't handle the operator " + operator + " for the arguments [" + leftValue + ", " + rightValue + "]!");
                 }
 
-                switch (operator) {
-                    case PLUS:
-                        return l + r;
-                    case MINUS:
-                        return l - r;
-                    case MULTIPLICATION:
-                        return l * r;
-                    case DIVISION:
-                        return l / r;
-                    case MODULO:
-                        return l % r;
-                    default:
-                        break;
-                }
+                return interpret(l, r, operator);
             }
         }
 
         throw new DomainModelException("Can't handle the operator " + operator + " for the arguments [" + leftValue + ", " + rightValue + "]!");
     }
+
+    @Override
+    public long interpret(long leftValue, long rightValue, DomainOperator operator) {
+        switch (operator) {
+            case PLUS:
+                return leftValue + rightValue;
+            case MINUS:
+                return leftValue - rightValue;
+            case MULTIPLICATION:
+                return leftValue * rightValue;
+            case DIVISION:
+                return leftValue / rightValue;
+            case MODULO:
+                return leftValue % rightValue;
+            case UNARY_MINUS:
+                return -leftValue;
+            default:
+                break;
+        }
+
+        throw new DomainModelException("Can't handle the operator " + operator + " for the arguments [" + leftValue + ", " + rightValue + "]!");
+    }
+
+    @Override
+    public double interpret(double leftValue, double rightValue, DomainOperator operator) {
+        switch (operator) {
+            case PLUS:
+                return leftValue + rightValue;
+            case MINUS:
+                return leftValue - rightValue;
+            case MULTIPLICATION:
+                return leftValue * rightValue;
+            case DIVISION:
+                return leftValue / rightValue;
+            case MODULO:
+                return leftValue % rightValue;
+            case UNARY_MINUS:
+                return -leftValue;
+            default:
+                break;
+        }
+
+        throw new DomainModelException("Can't handle the operator " + operator + " for the arguments [" + leftValue + ", " + rightValue + "]!");
+    }
+
+    @Override
+    public boolean interpret(long leftValue, long rightValue, ComparisonOperator operator) {
+        return compare(Long.compare(leftValue, rightValue), operator);
+    }
+
+    @Override
+    public boolean interpret(double leftValue, double rightValue, ComparisonOperator operator) {
+        return compare(Double.compare(leftValue, rightValue), operator);
+    }
+
+    private static boolean compare(int comparison, ComparisonOperator operator) {
+        switch (operator) {
+            case EQUAL:
+                return comparison == 0;
+            case NOT_EQUAL:
+                return comparison != 0;
+            case GREATER_OR_EQUAL:
+                return comparison > -1;
+            case GREATER:
+                return comparison > 0;
+            case LOWER_OR_EQUAL:
+                return comparison < 1;
+            case LOWER:
+                return comparison < 0;
+            default:
+                break;
+        }
+
+        throw new DomainModelException("Can't handle the operator " + operator + "!");
+    }
 }
@@ -22,6 +22,7 @@ import com.blazebit.expression.ComparisonOperator;
 import com.blazebit.expression.DomainModelException;
 import com.blazebit.expression.ExpressionInterpreter;
 import com.blazebit.expression.spi.DomainOperatorInterpreter;
+import com.blazebit.expression.spi.EqualityKeyOperatorInterpreter;
 import com.blazebit.expression.spi.ComparisonOperatorInterpreter;
 
 import java.io.Serializable;
@@ -30,7 +31,7 @@ import java.io.Serializable;
  * @author Christian Beikov
  * @since 1.0.0
  */
-public class BooleanOperatorInterpreter implements ComparisonOperatorInterpreter, DomainOperatorInterpreter, Serializable {
+public class BooleanOperatorInterpreter implements ComparisonOperatorInterpreter, DomainOperatorInterpreter, EqualityKeyOperatorInterpreter, Serializable {
 
     public static final BooleanOperatorInterpreter INSTANCE = new BooleanOperatorInterpreter();
 
@@ -58,6 +59,11 @@ public class BooleanOperatorInterpreter implements ComparisonOperatorInterpreter
         throw new DomainModelException("Can't handle the operator " + operator + " for the arguments [" + leftValue + ", " + rightValue + "]!");
     }
 
+    @Override
+    public Object getEqualityKey(DomainType type, Object value) {
+        return value instanceof Boolean ? value : null;
+    }
+
     @Override
     public Object interpret(ExpressionInterpreter.Context context, DomainType targetType, DomainType leftType, DomainType rightType, Object leftValue, Object rightValue, DomainOperator operator) {
         if (operator == DomainOperator.NOT) {
@@ -24,6 +24,7 @@ import com.blazebit.expression.DomainModelException;
 import com.blazebit.expression.ExpressionInterpreter;
 import com.blazebit.expression.spi.ComparisonOperatorInterpreter;
 import com.blazebit.expression.spi.DomainOperatorInterpreter;
+import com.blazebit.expression.spi.EqualityKeyOperatorInterpreter;
 
 import java.io.Serializable;
 import java.time.Instant;
@@ -36,7 +37,7 @@ import java.time.temporal.Temporal;
  * @since 1.0.0
  */
 public class DateOperatorInterpreter
-        implements ComparisonOperatorInterpreter, DomainOperatorInterpreter, Serializable {
+        implements ComparisonOperatorInterpreter, DomainOperatorInterpreter, EqualityKeyOperatorInterpreter, Serializable {
 
     public static final DateOperatorInterpreter INSTANCE = new DateOperatorInterpreter();
 
@@ -84,6 +85,16 @@ public class DateOperatorInterpreter
                         + "]!");
     }
 
+    @Override
+    public Object getEqualityKey(DomainType type, Object value) {
+        if (value instanceof LocalDate) {
+            return ((LocalDate) value).atStartOfDay().toInstant(ZoneOffset.UTC);
+        } else if (value instanceof Instant) {
+            return value;
+        }
+        return null;
+    }
+
     @Override
     public Object interpret(ExpressionInterpreter.Context context, DomainType targetType, DomainType leftType,
                             DomainType rightType, Object leftValue, Object rightValue, DomainOperator operator) {
@@ -23,6 +23,8 @@ import com.blazebit.expression.DomainModelException;
 import com.blazebit.expression.ExpressionInterpreter;
 import com.blazebit.expression.spi.ComparisonOperatorInterpreter;
 import com.blazebit.expression.spi.DomainOperatorInterpreter;
+import com.blazebit.expression.spi.EqualityKeyOperatorInterpreter;
+import com.blazebit.expression.spi.NaturalOrderComparisonOperatorInterpreter;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
@@ -33,7 +35,7 @@ import java.math.RoundingMode;
  * @author Christian Beikov
  * @since 1.0.0
  */
-public class ExactNumericOperatorInterpreter implements ComparisonOperatorInterpreter, DomainOperatorInterpreter, Serializable {
+public class ExactNumericOperatorInterpreter implements ComparisonOperatorInterpreter, DomainOperatorInterpreter, EqualityKeyOperatorInterpreter, NaturalOrderComparisonOperatorInterpreter, Serializable {
 
     public static final ExactNumericOperatorInterpreter INSTANCE = new ExactNumericOperatorInterpreter();
 
@@ -78,6 +80,16 @@ public class ExactNumericOperatorInterpreter implements ComparisonOperatorInterp
         throw new DomainModelException("Can't handle the operator " + operator + " for the arguments [" + leftValue + ", " + rightValue + "]!");
     }
 
+    @Override
+    public Object getEqualityKey(DomainType type, Object value) {
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).stripTrailingZeros();
+        } else if (value instanceof BigInteger) {
+            return new BigDecimal((BigInteger) value).stripTrailingZeros();
+        }
+        return null;
+    }
+
     @Override
     public Object interpret(ExpressionInterpreter.Context context, DomainType targetType, DomainType leftType, DomainType rightType, Object leftValue, Object rightValue, DomainOperator operator) {
         if (rightValue == null) {
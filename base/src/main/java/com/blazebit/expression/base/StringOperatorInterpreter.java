@@ -23,6 +23,7 @@ import com.blazebit.expression.DomainModelException;
 import com.blazebit.expression.ExpressionInterpreter;
 import com.blazebit.expression.spi.ComparisonOperatorInterpreter;
 import com.blazebit.expression.spi.DomainOperatorInterpreter;
+import com.blazebit.expression.spi.EqualityKeyOperatorInterpreter;
 
 import java.io.Serializable;
 
@@ -30,7 +31,7 @@ import java.io.Serializable;
  * @author Christian Beikov
  * @since 1.0.0
  */
-public class StringOperatorInterpreter implements ComparisonOperatorInterpreter, DomainOperatorInterpreter, Serializable {
+public class StringOperatorInterpreter implements ComparisonOperatorInterpreter, DomainOperatorInterpreter, EqualityKeyOperatorInterpreter, Serializable {
 
     public static final StringOperatorInterpreter INSTANCE = new StringOperatorInterpreter();
 
@@ -73,6 +74,18 @@ public class StringOperatorInterpreter implements ComparisonOperatorInterpreter,
         throw new DomainModelException("Can't handle the operator " + operator + " for the arguments [" + leftValue + ", " + rightValue + "]!");
     }
 
+    @Override
+    public Object getEqualityKey(DomainType type, Object value) {
+        if (value instanceof String) {
+            return value;
+        }
+        StringlyTypeHandler<Object> stringlyTypeHandler = type.getMetadata(StringlyTypeHandler.class);
+        if (stringlyTypeHandler == null) {
+            return null;
+        }
+        return stringlyTypeHandler.destruct(value);
+    }
+
     @Override
     public Object interpret(ExpressionInterpreter.Context context, DomainType targetType, DomainType leftType, DomainType rightType, Object leftValue, Object rightValue, DomainOperator operator) {
         if (operator == DomainOperator.PLUS) {
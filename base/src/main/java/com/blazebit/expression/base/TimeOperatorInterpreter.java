@@ -24,6 +24,7 @@ import com.blazebit.expression.DomainModelException;
 import com.blazebit.expression.ExpressionInterpreter;
 import com.blazebit.expression.spi.ComparisonOperatorInterpreter;
 import com.blazebit.expression.spi.DomainOperatorInterpreter;
+import com.blazebit.expression.spi.EqualityKeyOperatorInterpreter;
 
 import java.io.Serializable;
 import java.time.LocalTime;
@@ -32,7 +33,7 @@ import java.time.LocalTime;
  * @author Christian Beikov
  * @since 1.0.0
  */
-public class TimeOperatorInterpreter implements ComparisonOperatorInterpreter, DomainOperatorInterpreter, Serializable {
+public class TimeOperatorInterpreter implements ComparisonOperatorInterpreter, DomainOperatorInterpreter, EqualityKeyOperatorInterpreter, Serializable {
 
     public static final TimeOperatorInterpreter INSTANCE = new TimeOperatorInterpreter();
 
@@ -67,6 +68,11 @@ public class TimeOperatorInterpreter implements ComparisonOperatorInterpreter, D
         throw new DomainModelException("Can't handle the operator " + operator + " for the arguments [" + leftValue + ", " + rightValue + "]!");
     }
 
+    @Override
+    public Object getEqualityKey(DomainType type, Object value) {
+        return value instanceof LocalTime ? value : null;
+    }
+
     @Override
     public Object interpret(ExpressionInterpreter.Context context, DomainType targetType, DomainType leftType, DomainType rightType, Object leftValue, Object rightValue, DomainOperator operator) {
         if (leftValue instanceof TemporalInterval && rightValue instanceof TemporalInterval) {
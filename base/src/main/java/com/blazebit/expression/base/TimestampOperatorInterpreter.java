@@ -23,6 +23,7 @@ import com.blazebit.expression.ComparisonOperator;
 import com.blazebit.expression.DomainModelException;
 import com.blazebit.expression.ExpressionInterpreter;
 import com.blazebit.expression.spi.DomainOperatorInterpreter;
+import com.blazebit.expression.spi.EqualityKeyOperatorInterpreter;
 import com.blazebit.expression.spi.ComparisonOperatorInterpreter;
 
 import java.io.Serializable;
@@ -34,7 +35,7 @@ import java.time.ZoneOffset;
  * @author Christian Beikov
  * @since 1.0.0
  */
-public class TimestampOperatorInterpreter implements ComparisonOperatorInterpreter, DomainOperatorInterpreter, Serializable {
+public class TimestampOperatorInterpreter implements ComparisonOperatorInterpreter, DomainOperatorInterpreter, EqualityKeyOperatorInterpreter, Serializable {
 
     public static final TimestampOperatorInterpreter INSTANCE = new TimestampOperatorInterpreter();
 
@@ -74,6 +75,16 @@ public class TimestampOperatorInterpreter implements ComparisonOperatorInterpret
         throw new DomainModelException("Can't handle the operator " + operator + " for the arguments [" + leftValue + ", " + rightValue + "]!");
     }
 
+    @Override
+    public Object getEqualityKey(DomainType type, Object value) {
+        if (value instanceof Instant) {
+            return value;
+        } else if (value instanceof LocalDate) {
+            return ((LocalDate) value).atStartOfDay().toInstant(ZoneOffset.UTC);
+        }
+        return null;
+    }
+
     @Override
     public Object interpret(ExpressionInterpreter.Context context, DomainType targetType, DomainType leftType, DomainType rightType, Object leftValue, Object rightValue, DomainOperator operator) {
         if (leftValue instanceof TemporalInterval && rightValue instanceof TemporalInterval) {
@@ -67,9 +67,11 @@ public class CurrentTimestampFunction implements FunctionInvoker, Serializable {
         if (o instanceof Instant) {
             return (Instant) o;
         }
-        o = Instant.now();
-        context.setProperty(INSTANT_PROPERTY, o);
-        return (Instant) o;
+        Instant instant = Instant.now();
+        context.setProperty(INSTANT_PROPERTY, instant);
+        // A context that is shared by concurrent evaluations might keep the instant that was set first
+        o = context.getProperty(INSTANT_PROPERTY);
+        return o instanceof Instant ? (Instant) o : instant;
     }
 
     @Override
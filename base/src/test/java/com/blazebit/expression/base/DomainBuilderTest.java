@@ -23,13 +23,20 @@ import com.blazebit.domain.runtime.model.DomainFunctionArgument;
 import com.blazebit.domain.runtime.model.DomainModel;
 import com.blazebit.domain.runtime.model.DomainType;
 import com.blazebit.expression.DocumentationMetadataDefinition;
+import com.blazebit.expression.ExpressionService;
+import com.blazebit.expression.Expressions;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -97,4 +104,55 @@ public class DomainBuilderTest {
         Assert.assertEquals(integerType, resolveFunctionType("abs", integerType));
         Assert.assertEquals(decimalType, resolveFunctionType("abs", decimalType));
     }
+
+    @Test
+    public void testJsonSerializationCaching() {
+        ExpressionService expressionService = Expressions.forModel(domainModel);
+        Map<String, Object> properties = Collections.singletonMap(DocumentationMetadataDefinition.LOCALE_PROPERTY, Locale.ENGLISH);
+        String json = expressionService.serialize(String.class, "json", properties);
+        Assert.assertNotNull(json);
+        Assert.assertSame(json, expressionService.serialize(String.class, "json", new HashMap<>(properties)));
+        String etag = expressionService.serialize(String.class, "json-etag", properties);
+        Assert.assertEquals(64, etag.length());
+        Assert.assertEquals(etag, expressionService.serialize(String.class, "json-etag", properties));
+
+        DomainBuilder subDomainBuilder = Domain.getDefaultProvider().createBuilder(domainModel);
+        subDomainBuilder.createEntityType("user").build();
+        ExpressionService subExpressionService = expressionService.withSubDomainModel(subDomainBuilder.build());
+        String delta = subExpressionService.serialize(expressionService, String.class, "json", properties);
+        Assert.assertTrue(delta.contains("user"));
+        Assert.assertTrue(delta.length() < subExpressionService.serialize(String.class, "json", properties).length());
+        Assert.assertNotEquals(etag, subExpressionService.serialize(expressionService, String.class, "json-etag", properties));
+    }
+
+    @Test
+    public void testJsonSerializationCacheIsBounded() {
+        ExpressionService expressionService = Expressions.forModel(domainModel);
+        Map<String, Object> properties = Collections.singletonMap(DocumentationMetadataDefinition.LOCALE_PROPERTY, Locale.ENGLISH);
+        String json = expressionService.serialize(String.class, "json", properties);
+        // Client controlled properties like arbitrary locales must not grow the cache without bounds
+        for (int i = 0; i < 100; i++) {
+            Map<String, Object> otherProperties = Collections.singletonMap(DocumentationMetadataDefinition.LOCALE_PROPERTY, new Locale("x" + i));
+            String otherJson = expressionService.serialize(String.class, "json", otherProperties);
+            Assert.assertSame(otherJson, expressionService.serialize(String.class, "json", otherProperties));
+        }
+        String recomputedJson = expressionService.serialize(String.class, "json", properties);
+        Assert.assertNotSame(json, recomputedJson);
+        Assert.assertEquals(json, recomputedJson);
+    }
+
+    @Test
+    public void testJsonStreamingSerialization() throws IOException {
+        ExpressionService expressionService = Expressions.forModel(domainModel);
+        Map<String, Object> properties = Collections.singletonMap(DocumentationMetadataDefinition.LOCALE_PROPERTY, Locale.GERMAN);
+        StringWriter writer = new StringWriter();
+        Assert.assertTrue(expressionService.serializeTo(null, writer, "json", properties));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Assert.assertTrue(expressionService.serializeTo(null, outputStream, "json", properties));
+        Assert.assertFalse(expressionService.serializeTo(null, new StringWriter(), "unknown", properties));
+
+        String json = expressionService.serialize(String.class, "json", properties);
+        Assert.assertEquals(json, writer.toString());
+        Assert.assertEquals(json, new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+    }
 }
@@ -12,11 +12,13 @@ import com.blazebit.domain.runtime.model.EntityDomainTypeAttribute;
 import com.blazebit.domain.runtime.model.EnumDomainType;
 import com.blazebit.domain.runtime.model.EnumDomainTypeValue;
 import com.blazebit.domain.runtime.model.TemporalInterval;
+import com.blazebit.expression.Expression;
 import com.blazebit.expression.ExpressionCompiler;
 import com.blazebit.expression.ExpressionInterpreter;
 import com.blazebit.expression.ExpressionInterpreterContext;
 import com.blazebit.expression.ExpressionService;
 import com.blazebit.expression.Expressions;
+import com.blazebit.expression.Predicate;
 import com.blazebit.expression.SyntaxErrorException;
 import com.blazebit.expression.base.function.CurrentTimestampFunction;
 import com.blazebit.expression.base.function.FunctionInvokerMetadataDefinition;
@@ -34,10 +36,23 @@ import java.math.BigInteger;
 import java.time.Instant;
 import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.Currency;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * @author Christian Beikov
@@ -55,6 +70,7 @@ public class ExpressionInterpreterTest {
     private final ExpressionInterpreter interpreter;
     private final Map<String, DomainType> testTypes = new HashMap<>();
     private final Map<String, Object> testData = new HashMap<>();
+    private final Set<Object> recordedInstants = ConcurrentHashMap.newKeySet();
 
     public class User {
         String status;
@@ -190,6 +206,11 @@ public class ExpressionInterpreterTest {
             .withArgument("value", BaseContributor.BOOLEAN_TYPE_NAME)
             .withResultType(BaseContributor.BOOLEAN_TYPE_NAME)
             .build();
+        domainBuilder.createFunction("record_instant")
+            .withMetadata(new FunctionInvokerMetadataDefinition((context, function, arguments) -> recordedInstants.add(arguments.getValue(0)) || true))
+            .withArgument("instant", BaseContributor.TIMESTAMP_TYPE_NAME)
+            .withResultType(BaseContributor.BOOLEAN_TYPE_NAME)
+            .build();
         domainBuilder.createEntityType("user")
                 .addAttribute("status", BaseContributor.BOOLEAN_TYPE_NAME, statusAttributeMetadata)
                 .addAttribute("language", "Language", languageAttributeMetadata)
@@ -213,7 +234,6 @@ public class ExpressionInterpreterTest {
         ExpressionInterpreterContext<ExpressionInterpreter.Context> context = ExpressionInterpreterContext.create(expressionService);
         if (instant != null) {
             context.setProperty(CurrentTimestampFunction.INSTANT_PROPERTY, instant);
-            instant = null;
         }
         for (Map.Entry<String, Object> entry : testData.entrySet()) {
             context.withRoot(entry.getKey(), entry.getValue());
@@ -221,25 +241,32 @@ public class ExpressionInterpreterTest {
         return context;
     }
     private Object testExpression(String expr) {
-        return interpreter.evaluate(
-                compiler.createExpression(expr, compiler.createContext(testTypes)),
-                createInterpreterContext());
+        Expression expression = compiler.createExpression(expr, compiler.createContext(testTypes));
+        return assertEvaluatorResult(
+                interpreter.evaluate(expression, createInterpreterContext()),
+                expressionService.createEvaluator(expression).evaluate(createInterpreterContext()));
     }
     private Object testPredicate(String expr) {
-        return interpreter.evaluate(
-                compiler.createPredicate(expr, compiler.createContext(testTypes)),
-                createInterpreterContext());
+        Predicate predicate = compiler.createPredicate(expr, compiler.createContext(testTypes));
+        return assertEvaluatorResult(
+                interpreter.evaluate(predicate, createInterpreterContext()),
+                expressionService.createEvaluator(predicate).test(createInterpreterContext()));
     }
     private Object testExpressionModelType(String expr) {
-        return interpreter.evaluateAsModelType(
-            compiler.createExpression(expr, compiler.createContext(testTypes)),
-            createInterpreterContext());
+        Expression expression = compiler.createExpression(expr, compiler.createContext(testTypes));
+        return assertEvaluatorResult(
+                interpreter.evaluateAsModelType(expression, createInterpreterContext()),
+                expressionService.createEvaluator(expression).evaluateAsModelType(createInterpreterContext()));
     }
     private <T> T testExpressionAs(String expr, Class<T> clazz) {
-        return interpreter.evaluateAs(
-            compiler.createExpression(expr, compiler.createContext(testTypes)),
-            createInterpreterContext(),
-            clazz);
+        Expression expression = compiler.createExpression(expr, compiler.createContext(testTypes));
+        return assertEvaluatorResult(
+                interpreter.evaluateAs(expression, createInterpreterContext(), clazz),
+                expressionService.createEvaluator(expression).evaluateAs(createInterpreterContext(), clazz));
+    }
+    private <T> T assertEvaluatorResult(T interpreterResult, T evaluatorResult) {
+        Assert.assertEquals(interpreterResult, evaluatorResult);
+        return interpreterResult;
     }
 
     @Test
@@ -305,6 +332,17 @@ public class ExpressionInterpreterTest {
         }
     }
 
+    @Test
+    public void testBasic9() {
+        Object result = testExpression("7 / 2 * 2.5 - -(3 % 2)");
+        if (!exact) {
+            Assert.assertEquals(8.5, result);
+        }
+        Assert.assertEquals(Boolean.TRUE, testPredicate("1 + 2.5 > 3"));
+        Assert.assertEquals(Boolean.TRUE, testPredicate("-(2 * 3) < -5"));
+        Assert.assertEquals(Boolean.FALSE, testPredicate("NOT(2 * 3 = 6.0)"));
+    }
+
     @Test
     public void testBooleanLiteralTrue() {
         Assert.assertEquals(Boolean.TRUE, testExpression("true"));
@@ -434,4 +472,155 @@ public class ExpressionInterpreterTest {
             Assert.assertEquals(1.0D, testExpressionAs("abs(1)", Double.class), 0.0);
         }
     }
+
+    @Test
+    public void testSharedInterpreterConcurrently() throws Exception {
+        Expression expression = compiler.createExpression("user.currency", compiler.createContext(testTypes));
+        Predicate predicate = compiler.createPredicate("user.language = 'de' and user.status", compiler.createContext(testTypes));
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executorService.submit(() -> {
+                    for (int j = 0; j < 1000; j++) {
+                        ExpressionInterpreterContext<ExpressionInterpreter.Context> context = ExpressionInterpreterContext.create(expressionService);
+                        for (Map.Entry<String, Object> entry : testData.entrySet()) {
+                            context.withRoot(entry.getKey(), entry.getValue());
+                        }
+                        if (!Currency.getInstance("EUR").equals(expressionService.createInterpreter().evaluateAsModelType(expression, context))
+                            || !expressionService.createInterpreter().evaluate(predicate, context)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                Assert.assertTrue(future.get());
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void testEvaluateWithoutContext() {
+        this.instant = null;
+        Assert.assertEquals(Boolean.TRUE, interpreter.evaluate(compiler.createPredicate("CURRENT_TIMESTAMP() = CURRENT_TIMESTAMP()")));
+    }
+
+    @Test
+    public void testEvaluateBatch() {
+        List<User> users = new ArrayList<>();
+        users.add(new User(true, new Locale("de"), Currency.getInstance("EUR")));
+        users.add(new User(false, new Locale("de"), Currency.getInstance("USD")));
+        users.add(new User(true, new Locale("en"), Currency.getInstance("USD")));
+        users.add(new User(false, new Locale("en"), Currency.getInstance("EUR")));
+        String[] predicates = {
+            "user.language = 'de' and user.status",
+            "user.status or user.currency = Currency.USD",
+            "not(user.status) and user.language = 'en' or user.currency = Currency.EUR",
+            "user.language IN ('de', 'fr') and is_true(user.status)",
+            "user.language NOT IN ('fr', user.language)"
+        };
+        for (String predicateString : predicates) {
+            Predicate predicate = compiler.createPredicate(predicateString, compiler.createContext(testTypes));
+            BitSet bitSet = interpreter.evaluateToBitSet(predicate, createInterpreterContext(), "user", users);
+            for (int i = 0; i < users.size(); i++) {
+                ExpressionInterpreter.Context context = createInterpreterContext();
+                ((ExpressionInterpreterContext<?>) context).withRoot("user", users.get(i));
+                Assert.assertEquals(predicateString + " for user " + i, interpreter.evaluate(predicate, context), bitSet.get(i));
+            }
+        }
+        List<Object> currencies = interpreter.evaluateBatch(compiler.createExpression("user.currency", compiler.createContext(testTypes)), null, "user", users);
+        EnumDomainType currencyType = domainModel.getEnumType("Currency");
+        Assert.assertEquals(Arrays.asList(currencyType.getEnumValues().get("EUR"), currencyType.getEnumValues().get("USD"), currencyType.getEnumValues().get("USD"), currencyType.getEnumValues().get("EUR")), currencies);
+    }
+
+    @Test
+    public void testFilter() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            users.add(new User(i % 3 == 0, new Locale(i % 2 == 0 ? "de" : "en"), Currency.getInstance(i % 5 == 0 ? "EUR" : "USD")));
+        }
+        Predicate predicate = compiler.createPredicate("user.language = 'de' and user.status or user.currency = Currency.EUR", compiler.createContext(testTypes));
+        List<User> expected = new ArrayList<>();
+        for (User user : users) {
+            ExpressionInterpreter.Context context = createInterpreterContext();
+            ((ExpressionInterpreterContext<?>) context).withRoot("user", user);
+            if (interpreter.evaluate(predicate, context)) {
+                expected.add(user);
+            }
+        }
+        Assert.assertEquals(expected, expressionService.filter(predicate, createInterpreterContext(), "user", users));
+        ForkJoinPool forkJoinPool = new ForkJoinPool(3);
+        try {
+            Assert.assertEquals(expected, expressionService.filter(predicate, null, "user", users, forkJoinPool));
+            Assert.assertEquals(expected.subList(0, 1), expressionService.filter(predicate, null, "user", users.subList(0, 1), forkJoinPool));
+        } finally {
+            forkJoinPool.shutdown();
+        }
+    }
+
+    @Test
+    public void testFilterUsesSingleCurrentTimestamp() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            users.add(new User(true, new Locale("de"), Currency.getInstance("EUR")));
+        }
+        Predicate predicate = compiler.createPredicate("record_instant(CURRENT_TIMESTAMP())", compiler.createContext(testTypes));
+        ForkJoinPool forkJoinPool = new ForkJoinPool(3);
+        try {
+            Assert.assertEquals(users, expressionService.filter(predicate, null, "user", users, forkJoinPool));
+        } finally {
+            forkJoinPool.shutdown();
+        }
+        Assert.assertEquals(1, recordedInstants.size());
+    }
+
+    @Test
+    public void testJavaStreamAdapters() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            users.add(new User(i % 3 == 0, new Locale(i % 2 == 0 ? "de" : "en"), Currency.getInstance(i % 5 == 0 ? "EUR" : "USD")));
+        }
+        Predicate predicate = compiler.createPredicate("user.language = 'de' and user.status", compiler.createContext(testTypes));
+        java.util.function.Predicate<User> javaPredicate = expressionService.asJavaPredicate(predicate, "user");
+        List<User> expected = new ArrayList<>();
+        for (int i = 0; i < users.size(); i += 6) {
+            expected.add(users.get(i));
+        }
+        Assert.assertEquals(expected, users.parallelStream().filter(javaPredicate).collect(Collectors.toList()));
+
+        Expression expression = compiler.createExpression("TO_STRING(user.language)", compiler.createContext(testTypes));
+        Function<User, String> javaFunction = expressionService.asJavaFunction(expression, "user", String.class);
+        Assert.assertEquals(Arrays.asList("de", "en", "de"), users.parallelStream().limit(3).map(javaFunction).collect(Collectors.toList()));
+
+        Predicate recordingPredicate = compiler.createPredicate("record_instant(CURRENT_TIMESTAMP())", compiler.createContext(testTypes));
+        ExpressionInterpreterContext<ExpressionInterpreter.Context> context = ExpressionInterpreterContext.create(expressionService);
+        context.setProperty(CurrentTimestampFunction.INSTANT_PROPERTY, Instant.EPOCH);
+        Assert.assertEquals(users.size(), users.parallelStream().filter(expressionService.asJavaPredicate(recordingPredicate, context, "user")).count());
+        Assert.assertEquals(Collections.singleton(Instant.EPOCH), recordedInstants);
+
+        Expression timestampExpression = compiler.createExpression("CURRENT_TIMESTAMP()", compiler.createContext(testTypes));
+        Function<User, Instant> timestampFunction = expressionService.asJavaFunction(timestampExpression, context, "user", Instant.class);
+        Assert.assertEquals(Collections.singletonList(Instant.EPOCH), users.parallelStream().map(timestampFunction).distinct().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testJavaStreamAdaptersDontRetainProperties() throws InterruptedException {
+        User user = new User(true, new Locale("de"), Currency.getInstance("EUR"));
+        Expression timestampExpression = compiler.createExpression("CURRENT_TIMESTAMP()", compiler.createContext(testTypes));
+        Function<User, Instant> timestampFunction = expressionService.asJavaFunction(timestampExpression, "user", Instant.class);
+        Instant first = timestampFunction.apply(user);
+        Thread.sleep(10L);
+        Assert.assertTrue(timestampFunction.apply(user).isAfter(first));
+
+        Predicate recordingPredicate = compiler.createPredicate("record_instant(CURRENT_TIMESTAMP())", compiler.createContext(testTypes));
+        java.util.function.Predicate<User> javaPredicate = expressionService.asJavaPredicate(recordingPredicate, "user");
+        javaPredicate.test(user);
+        Thread.sleep(10L);
+        javaPredicate.test(user);
+        Assert.assertEquals(2, recordedInstants.size());
+    }
 }
@@ -0,0 +1,216 @@
+package com.blazebit.expression.base;
+
+import com.blazebit.domain.Domain;
+import com.blazebit.domain.boot.model.DomainBuilder;
+import com.blazebit.domain.boot.model.MetadataDefinition;
+import com.blazebit.domain.boot.model.MetadataDefinitionHolder;
+import com.blazebit.domain.runtime.model.DomainModel;
+import com.blazebit.domain.runtime.model.DomainType;
+import com.blazebit.domain.runtime.model.EntityDomainTypeAttribute;
+import com.blazebit.expression.ArithmeticFactor;
+import com.blazebit.expression.ComparisonPredicate;
+import com.blazebit.expression.CompoundPredicate;
+import com.blazebit.expression.Expression;
+import com.blazebit.expression.ExpressionCompiler;
+import com.blazebit.expression.ExpressionInterpreter;
+import com.blazebit.expression.ExpressionInterpreterContext;
+import com.blazebit.expression.ExpressionOptimizer;
+import com.blazebit.expression.ExpressionPredicate;
+import com.blazebit.expression.ExpressionService;
+import com.blazebit.expression.Expressions;
+import com.blazebit.expression.FunctionInvocation;
+import com.blazebit.expression.Literal;
+import com.blazebit.expression.Path;
+import com.blazebit.expression.Predicate;
+import com.blazebit.expression.base.function.CurrentTimestampFunction;
+import com.blazebit.expression.spi.AttributeAccessor;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+@RunWith(Parameterized.class)
+public class ExpressionOptimizerTest {
+
+    private final boolean exact;
+    private final ExpressionService expressionService;
+    private final ExpressionService optimizingExpressionService;
+    private final Map<String, DomainType> testTypes;
+
+    public static class MapAttributeAccessor implements MetadataDefinition<AttributeAccessor>, AttributeAccessor {
+        @Override
+        public Object getAttribute(ExpressionInterpreter.Context context, Object value, EntityDomainTypeAttribute attribute) {
+            return ((Map<?, ?>) value).get(attribute.getName());
+        }
+        @Override
+        public Class<AttributeAccessor> getJavaType() {
+            return AttributeAccessor.class;
+        }
+        @Override
+        public AttributeAccessor build(MetadataDefinitionHolder definitionHolder) {
+            return this;
+        }
+    }
+
+    public ExpressionOptimizerTest(boolean exact) {
+        DomainBuilder domainBuilder = Domain.getDefaultProvider().createEmptyBuilder();
+        domainBuilder.setProperty(BaseContributor.CONFIGURATION_NUMERIC_EXACT, exact);
+        domainBuilder.withDefaults();
+        domainBuilder.createEntityType("user")
+            .addAttribute("age", BaseContributor.INTEGER_TYPE_NAME, new MapAttributeAccessor())
+            .addAttribute("active", BaseContributor.BOOLEAN_TYPE_NAME, new MapAttributeAccessor())
+            .build();
+        DomainModel domainModel = domainBuilder.build();
+        this.exact = exact;
+        this.expressionService = Expressions.forModel(domainModel);
+        this.optimizingExpressionService = Expressions.getDefaultProvider().createBuilder(expressionService)
+            .withExpressionOptimization(true)
+            .build();
+        this.testTypes = Collections.singletonMap("user", domainModel.getType("user"));
+    }
+
+    @Parameterized.Parameters
+    public static Object[] parameters() {
+        return new Object[]{ true, false };
+    }
+
+    private Expression optimize(String expr) {
+        ExpressionCompiler compiler = optimizingExpressionService.createCompiler();
+        return compiler.createExpressionOrPredicate(expr, compiler.createContext(testTypes));
+    }
+
+    private Map<String, Object> user(Integer age, Boolean active) {
+        Map<String, Object> user = new HashMap<>();
+        user.put("age", age == null ? null : exact ? BigInteger.valueOf(age) : (Object) age.longValue());
+        user.put("active", active);
+        return user;
+    }
+
+    private Object evaluate(ExpressionService expressionService, String expr, Map<String, Object> user) {
+        ExpressionCompiler compiler = expressionService.createCompiler();
+        Expression expression = compiler.createExpressionOrPredicate(expr, compiler.createContext(testTypes));
+        ExpressionInterpreterContext<ExpressionInterpreter.Context> context = ExpressionInterpreterContext.create(expressionService);
+        context.withRoot("user", user);
+        return expressionService.createInterpreter().evaluate(expression, context);
+    }
+
+    @Test
+    public void testConstantFolding() {
+        Expression expression = optimize("1 + 2 * 3");
+        Assert.assertTrue(expression instanceof Literal);
+        Assert.assertEquals(7, ((Number) ((Literal) expression).getValue()).intValue());
+
+        expression = optimize("-(-(user.age))");
+        Assert.assertEquals(optimize("user.age"), expression);
+
+        expression = optimize("user.age > 1 + 2");
+        Assert.assertTrue(expression instanceof ComparisonPredicate);
+        Assert.assertTrue(((ComparisonPredicate) expression).getRight() instanceof Literal);
+    }
+
+    @Test
+    public void testArithmeticFactorKeepsType() {
+        ExpressionCompiler compiler = expressionService.createCompiler();
+        Path age = (Path) compiler.createExpression("user.age", compiler.createContext(testTypes));
+        DomainType numericType = expressionService.getDomainModel().getType(BaseContributor.NUMERIC_TYPE_NAME);
+        ExpressionOptimizer optimizer = optimizingExpressionService.createOptimizer();
+
+        Expression expression = optimizer.optimize(new ArithmeticFactor(numericType, age, false));
+        Assert.assertSame(numericType, expression.getType());
+
+        expression = optimizer.optimize(new ArithmeticFactor(numericType, new ArithmeticFactor(age.getType(), age, true), true));
+        Assert.assertSame(numericType, expression.getType());
+        Assert.assertTrue(expression instanceof ArithmeticFactor);
+    }
+
+    @Test
+    public void testCompoundSimplification() {
+        Assert.assertTrue(optimize("user.age > 1 AND 1 = 1") instanceof ComparisonPredicate);
+        Assert.assertTrue(optimize("1 = 2 OR user.age > 1") instanceof ComparisonPredicate);
+
+        Expression expression = optimize("user.age > 1 OR 1 = 1");
+        Assert.assertTrue(expression instanceof CompoundPredicate);
+        Assert.assertEquals(2, ((CompoundPredicate) expression).getPredicates().size());
+
+        expression = optimize("1 = 1 OR user.age > 1");
+        Assert.assertTrue(expression instanceof ExpressionPredicate);
+        Assert.assertEquals(Boolean.TRUE, ((Literal) ((ExpressionPredicate) expression).getExpression()).getValue());
+
+        expression = optimize("user.age > 1 AND (user.age < 10 AND user.active)");
+        Assert.assertTrue(expression instanceof CompoundPredicate);
+        Assert.assertEquals(3, ((CompoundPredicate) expression).getPredicates().size());
+
+        expression = optimize("NOT(user.age > 1 OR user.age < 0) AND user.active");
+        Assert.assertTrue(expression instanceof CompoundPredicate);
+        Assert.assertTrue(((CompoundPredicate) expression).isConjunction());
+        Assert.assertEquals(3, ((CompoundPredicate) expression).getPredicates().size());
+
+        Assert.assertTrue(optimize("user.age IN (1 + 1)") instanceof ComparisonPredicate);
+        Assert.assertTrue(optimize("user.age BETWEEN 2 AND 1 + 1") instanceof ComparisonPredicate);
+    }
+
+    @Test
+    public void testVolatileFunctionsNotFolded() {
+        Expression expression = optimize("RANDOM() < 2");
+        Assert.assertTrue(((ComparisonPredicate) expression).getLeft() instanceof FunctionInvocation);
+
+        Predicate predicate = (Predicate) optimize("CURRENT_TIMESTAMP() = CURRENT_TIMESTAMP()");
+        Assert.assertTrue(predicate instanceof ComparisonPredicate);
+
+        ExpressionInterpreter.Context context = ExpressionInterpreterContext.create(optimizingExpressionService);
+        context.setProperty(CurrentTimestampFunction.INSTANT_PROPERTY, Instant.now());
+        predicate = optimizingExpressionService.createOptimizer().optimize(predicate, context);
+        Assert.assertTrue(predicate instanceof ExpressionPredicate);
+        Assert.assertEquals(Boolean.TRUE, optimizingExpressionService.createInterpreter().evaluate(predicate, context));
+    }
+
+    @Test
+    public void testSameResults() {
+        List<String> expressions = Arrays.asList(
+            "user.age * (2 + 3) - -(-1)",
+            "user.age > 1 AND 1 = 1",
+            "user.age > 1 OR 1 = 1",
+            "1 = 1 OR user.age > 1",
+            "NOT(1 = 1 AND user.age > 1)",
+            "user.active AND (user.age < 10 OR 1 = 2)",
+            "NOT(user.age > 1 OR user.age < 0) AND user.active",
+            "NOT(NOT(user.active) AND NOT(1 = 1))",
+            "user.age IN (1 + 1)",
+            "user.age NOT IN (1 + 1)",
+            "user.age BETWEEN 2 AND 1 + 1",
+            "user.age NOT BETWEEN 2 AND 2",
+            "user.age > 1 / 0 OR 1 = 1",
+            "user.age IS NULL OR 1 IS NULL"
+        );
+        List<Map<String, Object>> users = Arrays.asList(user(2, true), user(20, false), user(-1, null), user(null, true));
+        for (String expression : expressions) {
+            for (Map<String, Object> user : users) {
+                Object expected;
+                try {
+                    expected = evaluate(expressionService, expression, user);
+                } catch (RuntimeException ex) {
+                    expected = ex.getClass();
+                }
+                Object actual;
+                try {
+                    actual = evaluate(optimizingExpressionService, expression, user);
+                } catch (RuntimeException ex) {
+                    actual = ex.getClass();
+                }
+                Assert.assertEquals(expression + " for " + user, expected, actual);
+            }
+        }
+    }
+}
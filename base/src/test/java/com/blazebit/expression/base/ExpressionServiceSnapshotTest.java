@@ -0,0 +1,220 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazebit.expression.base;
+
+import com.blazebit.domain.Domain;
+import com.blazebit.domain.boot.model.DomainBuilder;
+import com.blazebit.domain.boot.model.MetadataDefinition;
+import com.blazebit.domain.boot.model.MetadataDefinitionHolder;
+import com.blazebit.domain.runtime.model.DomainModel;
+import com.blazebit.domain.runtime.model.EntityDomainTypeAttribute;
+import com.blazebit.expression.ExpressionCompiler;
+import com.blazebit.expression.ExpressionInterpreter;
+import com.blazebit.expression.ExpressionInterpreterContext;
+import com.blazebit.expression.ExpressionService;
+import com.blazebit.expression.Expressions;
+import com.blazebit.expression.Predicate;
+import com.blazebit.expression.PredicateReordering;
+import com.blazebit.expression.SubDomainModelStore;
+import com.blazebit.expression.spi.AttributeAccessor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.DecimalFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public class ExpressionServiceSnapshotTest {
+
+    private final ExpressionService expressionService;
+
+    public ExpressionServiceSnapshotTest() {
+        DomainBuilder domainBuilder = Domain.getDefaultProvider().createEmptyBuilder();
+        domainBuilder.setProperty(BaseContributor.CONFIGURATION_NUMERIC_EXACT, true);
+        domainBuilder.withDefaults();
+        domainBuilder.createEntityType("user")
+            .addAttribute("age", BaseContributor.INTEGER_TYPE_NAME, new MapAttributeAccessor())
+            .addAttribute("name", BaseContributor.STRING_TYPE_NAME, new MapAttributeAccessor())
+            .build();
+        DomainModel domainModel = domainBuilder.build();
+        this.expressionService = Expressions.getDefaultProvider().createDefaultBuilder(domainModel)
+            .withExpressionCache(16)
+            .withPredicateReordering(PredicateReordering.ADAPTIVE)
+            .build();
+    }
+
+    public static class MapAttributeAccessor implements MetadataDefinition<AttributeAccessor>, AttributeAccessor, Serializable {
+        @Override
+        public Object getAttribute(ExpressionInterpreter.Context context, Object value, EntityDomainTypeAttribute attribute) {
+            return ((Map<?, ?>) value).get(attribute.getName());
+        }
+        @Override
+        public Class<AttributeAccessor> getJavaType() {
+            return AttributeAccessor.class;
+        }
+        @Override
+        public AttributeAccessor build(MetadataDefinitionHolder definitionHolder) {
+            return this;
+        }
+    }
+
+    private byte[] snapshot(String fingerprint) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Expressions.writeSnapshot(expressionService, fingerprint, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    private static ExpressionService readSnapshot(Path file, String fingerprint) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            return Expressions.readSnapshot(inputStream, fingerprint);
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        ExpressionService snapshotExpressionService = Expressions.readSnapshot(new ByteArrayInputStream(snapshot("v1")), "v1");
+        Assert.assertNotNull(snapshotExpressionService);
+        Assert.assertNotNull(snapshotExpressionService.getDomainModel().getType("user"));
+        Assert.assertEquals(16, snapshotExpressionService.getExpressionCacheStatistics().getMaximumSize());
+        Assert.assertEquals(PredicateReordering.ADAPTIVE, snapshotExpressionService.getPredicateReordering());
+
+        ExpressionCompiler compiler = snapshotExpressionService.createCompiler();
+        ExpressionCompiler.Context compilerContext = compiler.createContext(Collections.singletonMap("user", snapshotExpressionService.getDomainModel().getType("user")));
+        String expressionString = "user.age > 18 AND UPPER(user.name) = 'ABC'";
+        Predicate predicate = compiler.createPredicate(expressionString, compilerContext);
+        Map<String, Object> user = new HashMap<>();
+        user.put("age", BigInteger.valueOf(20));
+        user.put("name", "abc");
+        ExpressionInterpreterContext<ExpressionInterpreter.Context> interpreterContext = ExpressionInterpreterContext.create(snapshotExpressionService);
+        interpreterContext.withRoot("user", user);
+        Assert.assertEquals(Boolean.TRUE, snapshotExpressionService.createInterpreter().evaluate(predicate, interpreterContext));
+        Assert.assertEquals(Boolean.TRUE, snapshotExpressionService.createEvaluator(predicate).evaluate(interpreterContext));
+
+        ExpressionCompiler originalCompiler = expressionService.createCompiler();
+        Predicate originalPredicate = originalCompiler.createPredicate(expressionString, originalCompiler.createContext(Collections.singletonMap("user", expressionService.getDomainModel().getType("user"))));
+        Assert.assertEquals(expressionService.serialize(originalPredicate), snapshotExpressionService.serialize(predicate));
+    }
+
+    @Test
+    public void testStaleFingerprint() throws IOException {
+        Assert.assertNull(Expressions.readSnapshot(new ByteArrayInputStream(snapshot("v1")), "v2"));
+    }
+
+    @Test
+    public void testSubDomainModelStore() throws IOException {
+        Map<String, DomainModel> subDomainModels = new HashMap<>();
+        for (String tenant : Arrays.asList("tenant1", "tenant2")) {
+            DomainBuilder domainBuilder = Domain.getDefaultProvider().createBuilder(expressionService.getDomainModel());
+            domainBuilder.createEntityType(tenant + "_order")
+                .addAttribute("amount", BaseContributor.INTEGER_TYPE_NAME, new MapAttributeAccessor())
+                .build();
+            subDomainModels.put(tenant, domainBuilder.build());
+        }
+        Path file = Files.createTempFile("sub-domain-models", ".bin");
+        try {
+            SubDomainModelStore.write(expressionService, subDomainModels, file);
+            SubDomainModelStore store = SubDomainModelStore.open(expressionService, file);
+            Assert.assertEquals(subDomainModels.keySet(), store.getKeys());
+            Assert.assertNull(store.getExpressionService("tenant3"));
+
+            ExpressionService tenantExpressionService = store.getExpressionService("tenant2");
+            Assert.assertSame(tenantExpressionService, store.getExpressionService("tenant2"));
+            DomainModel tenantModel = tenantExpressionService.getDomainModel();
+            Assert.assertSame(expressionService.getDomainModel(), tenantModel.getParentDomainModel());
+            Assert.assertNull(tenantModel.getType("tenant1_order"));
+            Assert.assertSame(expressionService.getDomainModel().getType("user"), tenantModel.getType("user"));
+
+            ExpressionCompiler compiler = tenantExpressionService.createCompiler();
+            Predicate predicate = compiler.createPredicate("order.amount > 1", compiler.createContext(Collections.singletonMap("order", tenantModel.getType("tenant2_order"))));
+            ExpressionInterpreterContext<ExpressionInterpreter.Context> interpreterContext = ExpressionInterpreterContext.create(tenantExpressionService);
+            interpreterContext.withRoot("order", Collections.singletonMap("amount", BigInteger.valueOf(2)));
+            Assert.assertEquals(Boolean.TRUE, tenantExpressionService.createInterpreter().evaluate(predicate, interpreterContext));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testClassesOutsideAllowedPackages() throws IOException {
+        DomainBuilder domainBuilder = Domain.getDefaultProvider().createEmptyBuilder();
+        domainBuilder.withDefaults();
+        domainBuilder.createEntityType("user")
+            .withMetadata(new FormatMetadataDefinition())
+            .build();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Expressions.writeSnapshot(Expressions.forModel(domainBuilder.build()), "v1", outputStream);
+        byte[] snapshot = outputStream.toByteArray();
+
+        Assert.assertNull(Expressions.readSnapshot(new ByteArrayInputStream(snapshot), "v1"));
+        ExpressionService snapshotExpressionService = Expressions.readSnapshot(new ByteArrayInputStream(snapshot), "v1", Collections.singleton("java.text."));
+        Assert.assertEquals(new DecimalFormat("0.00"), snapshotExpressionService.getDomainModel().getType("user").getMetadata(DecimalFormat.class));
+    }
+
+    @Test
+    public void testUnreadableSnapshotIsRebuilt() throws IOException {
+        Path file = Files.createTempFile("expression-service", ".snapshot");
+        try {
+            Files.write(file, "not a snapshot".getBytes(StandardCharsets.UTF_8));
+            Assert.assertSame(expressionService, Expressions.forSnapshot(file, "v1", () -> expressionService));
+            Assert.assertNotNull(readSnapshot(file, "v1"));
+
+            byte[] snapshot = snapshot("v1");
+            Files.write(file, Arrays.copyOf(snapshot, snapshot.length / 2));
+            Assert.assertSame(expressionService, Expressions.forSnapshot(file, "v1", () -> expressionService));
+            Assert.assertNotNull(readSnapshot(file, "v1"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testWriteFailureIsNotFatal() throws IOException {
+        Path file = Files.createTempFile("expression-service", ".snapshot");
+        try {
+            // The snapshot can't be written, because its parent directory is a regular file
+            Assert.assertSame(expressionService, Expressions.forSnapshot(file.resolve("snapshot"), "v1", () -> expressionService));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    public static class FormatMetadataDefinition implements MetadataDefinition<DecimalFormat>, Serializable {
+        @Override
+        public Class<DecimalFormat> getJavaType() {
+            return DecimalFormat.class;
+        }
+        @Override
+        public DecimalFormat build(MetadataDefinitionHolder definitionHolder) {
+            return new DecimalFormat("0.00");
+        }
+    }
+}
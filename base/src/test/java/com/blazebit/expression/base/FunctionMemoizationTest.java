@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazebit.expression.base;
+
+import com.blazebit.domain.Domain;
+import com.blazebit.domain.boot.model.DomainBuilder;
+import com.blazebit.domain.runtime.model.DomainFunctionVolatility;
+import com.blazebit.domain.runtime.model.DomainModel;
+import com.blazebit.expression.ExpressionCompiler;
+import com.blazebit.expression.ExpressionEvaluator;
+import com.blazebit.expression.ExpressionInterpreter;
+import com.blazebit.expression.ExpressionInterpreterContext;
+import com.blazebit.expression.ExpressionService;
+import com.blazebit.expression.Expressions;
+import com.blazebit.expression.Predicate;
+import com.blazebit.expression.base.function.FunctionInvokerMetadataDefinition;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public class FunctionMemoizationTest {
+
+    private final ExpressionService expressionService;
+    private int immutableInvocationCount;
+    private int volatileInvocationCount;
+
+    public FunctionMemoizationTest() {
+        DomainBuilder domainBuilder = Domain.getDefaultProvider().createEmptyBuilder();
+        domainBuilder.withDefaults();
+        domainBuilder.createFunction("immutable_lower")
+            .withMetadata(new FunctionInvokerMetadataDefinition((context, function, arguments) -> {
+                immutableInvocationCount++;
+                Object value = arguments.getValue(0);
+                return value == null ? null : value.toString().toLowerCase();
+            }))
+            .withVolatility(DomainFunctionVolatility.IMMUTABLE)
+            .withArgument("value", BaseContributor.STRING_TYPE_NAME)
+            .withResultType(BaseContributor.STRING_TYPE_NAME)
+            .build();
+        domainBuilder.createFunction("volatile_lower")
+            .withMetadata(new FunctionInvokerMetadataDefinition((context, function, arguments) -> {
+                volatileInvocationCount++;
+                Object value = arguments.getValue(0);
+                return value == null ? null : value.toString().toLowerCase();
+            }))
+            .withVolatility(DomainFunctionVolatility.VOLATILE)
+            .withArgument("value", BaseContributor.STRING_TYPE_NAME)
+            .withResultType(BaseContributor.STRING_TYPE_NAME)
+            .build();
+        domainBuilder.createEntityType("address")
+            .addAttribute("city", BaseContributor.STRING_TYPE_NAME, new ExpressionOptimizerTest.MapAttributeAccessor())
+            .build();
+        domainBuilder.createEntityType("user")
+            .addAttribute("address", "address", new ExpressionOptimizerTest.MapAttributeAccessor())
+            .build();
+        DomainModel domainModel = domainBuilder.build();
+        this.expressionService = Expressions.forModel(domainModel);
+    }
+
+    private Object evaluate(ExpressionEvaluator evaluator, Map<String, Object> address) {
+        ExpressionInterpreterContext<ExpressionInterpreter.Context> context = ExpressionInterpreterContext.create(expressionService);
+        context.withRoot("user", Collections.singletonMap("address", address));
+        return evaluator.evaluate(context);
+    }
+
+    private ExpressionEvaluator createEvaluator(String expressionString) {
+        ExpressionCompiler compiler = expressionService.createCompiler();
+        ExpressionCompiler.Context compilerContext = compiler.createContext(Collections.singletonMap("user", expressionService.getDomainModel().getType("user")));
+        Predicate predicate = compiler.createPredicate(expressionString, compilerContext);
+        return expressionService.createEvaluator(predicate);
+    }
+
+    @Test
+    public void testRepeatedFunctionInvocationEvaluatedOnce() {
+        ExpressionEvaluator evaluator = createEvaluator("immutable_lower(user.address.city) = 'x' OR immutable_lower(user.address.city) = 'a'");
+        Map<String, Object> address = Collections.singletonMap("city", "A");
+
+        Assert.assertEquals(Boolean.TRUE, evaluate(evaluator, address));
+        Assert.assertEquals(1, immutableInvocationCount);
+        Assert.assertEquals(Boolean.TRUE, evaluate(evaluator, address));
+        Assert.assertEquals(2, immutableInvocationCount);
+    }
+
+    @Test
+    public void testVolatileFunctionInvocationNotMemoized() {
+        ExpressionEvaluator evaluator = createEvaluator("immutable_lower(volatile_lower(user.address.city)) = 'x' OR immutable_lower(volatile_lower(user.address.city)) = 'a'");
+
+        Assert.assertEquals(Boolean.TRUE, evaluate(evaluator, Collections.singletonMap("city", "A")));
+        Assert.assertEquals(2, immutableInvocationCount);
+        Assert.assertEquals(2, volatileInvocationCount);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazebit.expression.base;
+
+import com.blazebit.domain.Domain;
+import com.blazebit.domain.boot.model.DomainBuilder;
+import com.blazebit.domain.boot.model.MetadataDefinition;
+import com.blazebit.domain.boot.model.MetadataDefinitionHolder;
+import com.blazebit.domain.runtime.model.DomainModel;
+import com.blazebit.domain.runtime.model.EntityDomainTypeAttribute;
+import com.blazebit.expression.ExpressionCompiler;
+import com.blazebit.expression.ExpressionEvaluator;
+import com.blazebit.expression.ExpressionInterpreter;
+import com.blazebit.expression.ExpressionInterpreterContext;
+import com.blazebit.expression.ExpressionService;
+import com.blazebit.expression.Expressions;
+import com.blazebit.expression.Predicate;
+import com.blazebit.expression.spi.AttributeAccessor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public class PathMemoizationTest {
+
+    private final ExpressionService expressionService;
+    private final CountingAttributeAccessor addressAccessor = new CountingAttributeAccessor();
+
+    public PathMemoizationTest() {
+        DomainBuilder domainBuilder = Domain.getDefaultProvider().createEmptyBuilder();
+        domainBuilder.withDefaults();
+        domainBuilder.createEntityType("address")
+            .addAttribute("city", BaseContributor.STRING_TYPE_NAME, new ExpressionOptimizerTest.MapAttributeAccessor())
+            .addAttribute("zip", BaseContributor.STRING_TYPE_NAME, new ExpressionOptimizerTest.MapAttributeAccessor())
+            .build();
+        domainBuilder.createEntityType("user")
+            .addAttribute("address", "address", addressAccessor)
+            .build();
+        DomainModel domainModel = domainBuilder.build();
+        this.expressionService = Expressions.forModel(domainModel);
+    }
+
+    public static class CountingAttributeAccessor implements MetadataDefinition<AttributeAccessor>, AttributeAccessor {
+        private int accessCount;
+        @Override
+        public Object getAttribute(ExpressionInterpreter.Context context, Object value, EntityDomainTypeAttribute attribute) {
+            accessCount++;
+            return ((Map<?, ?>) value).get(attribute.getName());
+        }
+        @Override
+        public Class<AttributeAccessor> getJavaType() {
+            return AttributeAccessor.class;
+        }
+        @Override
+        public AttributeAccessor build(MetadataDefinitionHolder definitionHolder) {
+            return this;
+        }
+    }
+
+    private Object evaluate(ExpressionEvaluator evaluator, Map<String, Object> address) {
+        ExpressionInterpreterContext<ExpressionInterpreter.Context> context = ExpressionInterpreterContext.create(expressionService);
+        context.withRoot("user", Collections.singletonMap("address", address));
+        return evaluator.evaluate(context);
+    }
+
+    @Test
+    public void testSharedPrefixNavigatedOnce() {
+        ExpressionCompiler compiler = expressionService.createCompiler();
+        ExpressionCompiler.Context compilerContext = compiler.createContext(Collections.singletonMap("user", expressionService.getDomainModel().getType("user")));
+        Predicate predicate = compiler.createPredicate("user.address.city = 'X' OR user.address.zip = 'Y' OR user.address.city = 'Z'", compilerContext);
+        ExpressionEvaluator evaluator = expressionService.createEvaluator(predicate);
+        Map<String, Object> address = new HashMap<>();
+        address.put("city", "A");
+        address.put("zip", "Y");
+
+        Assert.assertEquals(Boolean.TRUE, evaluate(evaluator, address));
+        Assert.assertEquals(1, addressAccessor.accessCount);
+
+        address.put("zip", "B");
+        Assert.assertEquals(Boolean.FALSE, evaluate(evaluator, address));
+        Assert.assertEquals(2, addressAccessor.accessCount);
+
+        Assert.assertNull(evaluate(evaluator, null));
+        Assert.assertEquals(3, addressAccessor.accessCount);
+    }
+}
@@ -57,11 +57,15 @@ public class PredicateInterpreterTest {
         ExpressionInterpreter interpreter = expressionService.createInterpreter();
         Predicate expression = compiler.createPredicate(expr);
         ExpressionInterpreter.Context context = ExpressionInterpreterContext.create(expressionService);
+        ExpressionInterpreter.Context evaluatorContext = ExpressionInterpreterContext.create(expressionService);
         if (instant != null) {
             context.setProperty(CurrentTimestampFunction.INSTANT_PROPERTY, instant);
+            evaluatorContext.setProperty(CurrentTimestampFunction.INSTANT_PROPERTY, instant);
             instant = null;
         }
-        return interpreter.evaluate(expression, context);
+        Boolean result = interpreter.evaluate(expression, context);
+        Assert.assertEquals(result, expressionService.createEvaluator(expression).test(evaluatorContext));
+        return result;
     }
 
     @Test
@@ -104,6 +108,26 @@ public class PredicateInterpreterTest {
         Assert.assertEquals(true, testPredicate("'EUR' = Currency.EUR"));
     }
 
+    @Test
+    public void testLargeInList1() {
+        Assert.assertEquals(true, testPredicate("3 IN (1, 2, 3.0, 4, 5, 6, 7, 8)"));
+    }
+
+    @Test
+    public void testLargeInList2() {
+        Assert.assertEquals(false, testPredicate("9 IN (1, 2, 3, 4, 5, 6, 7, 8.5)"));
+    }
+
+    @Test
+    public void testLargeInList3() {
+        Assert.assertEquals(true, testPredicate("'h' IN ('a', 'b', 'c', 'd', 'e', 'f', 'g', 'h')"));
+    }
+
+    @Test
+    public void testLargeInList4() {
+        Assert.assertEquals(true, testPredicate("TIMESTAMP(2020-01-05) IN (DATE(2020-01-01), DATE(2020-01-02), DATE(2020-01-03), DATE(2020-01-04), DATE(2020-01-05), DATE(2020-01-06), DATE(2020-01-07), DATE(2020-01-08))"));
+    }
+
     @Test
     public void testTemporal1() {
         Assert.assertEquals(true, testPredicate("TIMESTAMP(2020-01-01) = DATE(2020-01-01)"));
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazebit.expression.base;
+
+import com.blazebit.domain.Domain;
+import com.blazebit.domain.boot.model.DomainBuilder;
+import com.blazebit.domain.runtime.model.DomainModel;
+import com.blazebit.domain.runtime.model.DomainType;
+import com.blazebit.domain.runtime.model.EntityDomainTypeAttribute;
+import com.blazebit.expression.CompoundPredicate;
+import com.blazebit.expression.Expression;
+import com.blazebit.expression.ExpressionCompiler;
+import com.blazebit.expression.ExpressionEvaluator;
+import com.blazebit.expression.ExpressionInterpreter;
+import com.blazebit.expression.ExpressionInterpreterContext;
+import com.blazebit.expression.ExpressionService;
+import com.blazebit.expression.Expressions;
+import com.blazebit.expression.Predicate;
+import com.blazebit.expression.PredicateReordering;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+@RunWith(Parameterized.class)
+public class PredicateReorderingTest {
+
+    private final ExpressionService expressionService;
+    private final ExpressionService reorderingExpressionService;
+    private final Map<String, DomainType> testTypes;
+    private final CountingAttributeAccessor nameAccessor = new CountingAttributeAccessor();
+
+    public PredicateReorderingTest(PredicateReordering predicateReordering) {
+        DomainBuilder domainBuilder = Domain.getDefaultProvider().createEmptyBuilder();
+        domainBuilder.setProperty(BaseContributor.CONFIGURATION_NUMERIC_EXACT, true);
+        domainBuilder.withDefaults();
+        domainBuilder.createEntityType("user")
+            .addAttribute("age", BaseContributor.INTEGER_TYPE_NAME, new ExpressionOptimizerTest.MapAttributeAccessor())
+            .addAttribute("name", BaseContributor.STRING_TYPE_NAME, nameAccessor)
+            .addAttribute("active", BaseContributor.BOOLEAN_TYPE_NAME, new ExpressionOptimizerTest.MapAttributeAccessor())
+            .build();
+        DomainModel domainModel = domainBuilder.build();
+        this.expressionService = Expressions.forModel(domainModel);
+        this.reorderingExpressionService = Expressions.getDefaultProvider().createBuilder(expressionService)
+            .withPredicateReordering(predicateReordering)
+            .build();
+        this.testTypes = Collections.singletonMap("user", domainModel.getType("user"));
+    }
+
+    @Parameterized.Parameters
+    public static Object[] parameters() {
+        return new Object[]{ PredicateReordering.STATIC, PredicateReordering.ADAPTIVE };
+    }
+
+    private Map<String, Object> user(Integer age, String name, Boolean active) {
+        Map<String, Object> user = new HashMap<>();
+        user.put("age", age == null ? null : BigInteger.valueOf(age));
+        user.put("name", name);
+        user.put("active", active);
+        return user;
+    }
+
+    private Object evaluate(ExpressionInterpreter.Context context, ExpressionCallable callable) {
+        try {
+            return callable.call(context);
+        } catch (RuntimeException ex) {
+            return ex.getClass();
+        }
+    }
+
+    private interface ExpressionCallable {
+        Object call(ExpressionInterpreter.Context context);
+    }
+
+    /**
+     * Evaluates compound predicates with three valued logic and all other expressions through the interpreter.
+     */
+    private Object evaluateThreeValued(Expression expression, ExpressionInterpreter interpreter, ExpressionInterpreter.Context context) {
+        if (!(expression instanceof CompoundPredicate)) {
+            return interpreter.evaluate(expression, context);
+        }
+        CompoundPredicate compoundPredicate = (CompoundPredicate) expression;
+        Boolean result = compoundPredicate.isConjunction() != compoundPredicate.isNegated();
+        for (Predicate predicate : compoundPredicate.getPredicates()) {
+            Object predicateResult = evaluateThreeValued(predicate, interpreter, context);
+            if (predicateResult == null) {
+                result = null;
+            } else if (Boolean.TRUE.equals(predicateResult) != compoundPredicate.isConjunction()) {
+                return compoundPredicate.isConjunction() == compoundPredicate.isNegated();
+            }
+        }
+        return result;
+    }
+
+    private static class CountingAttributeAccessor extends ExpressionOptimizerTest.MapAttributeAccessor {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Object getAttribute(ExpressionInterpreter.Context context, Object value, EntityDomainTypeAttribute attribute) {
+            count.incrementAndGet();
+            return super.getAttribute(context, value, attribute);
+        }
+    }
+
+    @Test
+    public void testSameResults() {
+        List<String> expressions = Arrays.asList(
+            "UPPER(LOWER(user.name)) = 'A' AND user.active",
+            "UPPER(LOWER(user.name)) = 'A' OR user.active",
+            "user.age > 1 AND UPPER(user.name) = 'A' AND user.active",
+            "!(SUBSTRING(user.name, 1) = 'a' OR user.age IS NULL)",
+            "LENGTH(user.name) > 0 AND user.age > 1 AND NOT (user.active)",
+            "user.age > 1 OR user.active",
+            "LENGTH(user.name) > 0 OR (user.age > 1 AND user.active)"
+        );
+        List<Map<String, Object>> users = Arrays.asList(
+            user(2, "a", true),
+            user(20, "b", false),
+            user(null, "a", null),
+            user(3, null, true),
+            user(null, null, false)
+        );
+        ExpressionCompiler compiler = expressionService.createCompiler();
+        ExpressionInterpreter interpreter = expressionService.createInterpreter();
+        for (String expressionString : expressions) {
+            Expression expression = compiler.createExpressionOrPredicate(expressionString, compiler.createContext(testTypes));
+            ExpressionEvaluator evaluator = reorderingExpressionService.createEvaluator(expression);
+            // Evaluate often enough to trigger adaptive reordering
+            for (int i = 0; i < 3000; i++) {
+                Map<String, Object> user = users.get(i % users.size());
+                ExpressionInterpreterContext<ExpressionInterpreter.Context> context = ExpressionInterpreterContext.create(expressionService);
+                context.withRoot("user", user);
+                Object expected = evaluate(context, c -> evaluateThreeValued(expression, interpreter, c));
+                Object actual = evaluate(context, evaluator::evaluate);
+                Assert.assertEquals(expressionString + " for " + user, expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testSameResultsWhenEvaluatedConcurrently() throws Exception {
+        String expressionString = "UPPER(LOWER(user.name)) = 'A' AND user.age > 1 AND user.active";
+        List<Map<String, Object>> users = Arrays.asList(
+            user(2, "a", true),
+            user(20, "b", false),
+            user(null, "a", null),
+            user(3, null, true)
+        );
+        ExpressionCompiler compiler = expressionService.createCompiler();
+        ExpressionInterpreter interpreter = expressionService.createInterpreter();
+        Expression expression = compiler.createExpressionOrPredicate(expressionString, compiler.createContext(testTypes));
+        // All threads share the evaluator and thus the statistics of adaptive reordering
+        ExpressionEvaluator evaluator = reorderingExpressionService.createEvaluator(expression);
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executorService.submit(() -> {
+                    for (int i = 0; i < 5000; i++) {
+                        Map<String, Object> user = users.get(i % users.size());
+                        ExpressionInterpreterContext<ExpressionInterpreter.Context> context = ExpressionInterpreterContext.create(expressionService);
+                        context.withRoot("user", user);
+                        Object expected = evaluate(context, c -> evaluateThreeValued(expression, interpreter, c));
+                        Object actual = evaluate(context, evaluator::evaluate);
+                        Assert.assertEquals(expressionString + " for " + user, expected, actual);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void testThreeValuedLogic() {
+        ExpressionCompiler compiler = expressionService.createCompiler();
+        ExpressionInterpreter interpreter = expressionService.createInterpreter();
+        Expression conjunction = compiler.createExpressionOrPredicate("user.age > 1 AND user.name = 'a'", compiler.createContext(testTypes));
+        Expression disjunction = compiler.createExpressionOrPredicate("user.age > 1 OR user.name = 'a'", compiler.createContext(testTypes));
+        ExpressionInterpreterContext<ExpressionInterpreter.Context> context = ExpressionInterpreterContext.create(expressionService);
+        context.withRoot("user", user(null, "b", null));
+
+        // In source order, the null operand determines the result
+        Assert.assertNull(interpreter.evaluate(conjunction, context));
+        Assert.assertEquals(false, reorderingExpressionService.createEvaluator(conjunction).evaluate(context));
+        Assert.assertNull(reorderingExpressionService.createEvaluator(disjunction).evaluate(context));
+        context.withRoot("user", user(null, "a", null));
+        Assert.assertNull(reorderingExpressionService.createEvaluator(conjunction).evaluate(context));
+        Assert.assertEquals(true, reorderingExpressionService.createEvaluator(disjunction).evaluate(context));
+    }
+
+    @Test
+    public void testSkipOperandsAfterDecidingOperand() {
+        ExpressionCompiler compiler = expressionService.createCompiler();
+        // The expensive operand comes first in source order, but the cheap operand is evaluated first
+        Expression expression = compiler.createExpressionOrPredicate("UPPER(LOWER(user.name)) = 'A' AND user.active", compiler.createContext(testTypes));
+        ExpressionEvaluator evaluator = reorderingExpressionService.createEvaluator(expression);
+        ExpressionInterpreterContext<ExpressionInterpreter.Context> context = ExpressionInterpreterContext.create(expressionService);
+        int evaluations = 3000;
+
+        context.withRoot("user", user(2, "a", false));
+        nameAccessor.count.set(0);
+        for (int i = 0; i < evaluations; i++) {
+            Assert.assertEquals(false, evaluator.evaluate(context));
+        }
+        Assert.assertEquals(0, nameAccessor.count.get());
+
+        // An unknown operand doesn't determine the result, so the other operand must be evaluated
+        context.withRoot("user", user(2, "b", null));
+        nameAccessor.count.set(0);
+        for (int i = 0; i < evaluations; i++) {
+            Assert.assertEquals(false, evaluator.evaluate(context));
+        }
+        Assert.assertEquals(evaluations, nameAccessor.count.get());
+    }
+
+    @Test
+    public void testExceptionOnlyForEvaluatedOperands() {
+        ExpressionCompiler compiler = expressionService.createCompiler();
+        Expression expression = compiler.createExpressionOrPredicate("user.age / 0 > 1 AND user.active", compiler.createContext(testTypes));
+        ExpressionEvaluator evaluator = reorderingExpressionService.createEvaluator(expression);
+        ExpressionInterpreterContext<ExpressionInterpreter.Context> context = ExpressionInterpreterContext.create(expressionService);
+
+        context.withRoot("user", user(2, "a", false));
+        Assert.assertEquals(false, evaluator.evaluate(context));
+        context.withRoot("user", user(2, "a", true));
+        Assert.assertEquals(ArithmeticException.class, evaluate(context, evaluator::evaluate));
+    }
+}
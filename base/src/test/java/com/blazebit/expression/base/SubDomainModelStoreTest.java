@@ -0,0 +1,195 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazebit.expression.base;
+
+import com.blazebit.domain.Domain;
+import com.blazebit.domain.boot.model.DomainBuilder;
+import com.blazebit.domain.runtime.model.DomainModel;
+import com.blazebit.domain.runtime.model.DomainType;
+import com.blazebit.domain.runtime.model.EntityDomainType;
+import com.blazebit.expression.ExpressionService;
+import com.blazebit.expression.Expressions;
+import com.blazebit.expression.SubDomainModelStore;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public class SubDomainModelStoreTest {
+
+    private Path file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = Files.createTempFile("sub-domain-models", ".bin");
+    }
+
+    @After
+    public void deleteFile() throws IOException {
+        Files.delete(file);
+    }
+
+    private static ExpressionService createBaseExpressionService(boolean withUser) {
+        DomainBuilder domainBuilder = Domain.getDefaultProvider().createDefaultBuilder();
+        if (withUser) {
+            domainBuilder.createEntityType("user")
+                .addAttribute("age", BaseContributor.INTEGER_TYPE_NAME)
+                .build();
+        }
+        return Expressions.forModel(domainBuilder.build());
+    }
+
+    private static Map<String, DomainModel> createSubDomainModels(ExpressionService baseExpressionService, String... tenants) {
+        Map<String, DomainModel> subDomainModels = new HashMap<>();
+        for (String tenant : tenants) {
+            DomainBuilder domainBuilder = Domain.getDefaultProvider().createBuilder(baseExpressionService.getDomainModel());
+            domainBuilder.createEntityType(tenant + "_order")
+                .addAttribute("amount", BaseContributor.INTEGER_TYPE_NAME)
+                .addAttribute("user", "user")
+                .build();
+            subDomainModels.put(tenant, domainBuilder.build());
+        }
+        return subDomainModels;
+    }
+
+    @Test
+    public void testUnknownKey() throws IOException {
+        ExpressionService baseExpressionService = createBaseExpressionService(true);
+        SubDomainModelStore.write(baseExpressionService, createSubDomainModels(baseExpressionService, "tenant1"), file);
+        SubDomainModelStore store = SubDomainModelStore.open(baseExpressionService, file);
+
+        Assert.assertEquals(Collections.singleton("tenant1"), store.getKeys());
+        Assert.assertNull(store.getExpressionService("tenant2"));
+        Assert.assertNull(store.getExpressionService(""));
+        Assert.assertNotNull(store.getExpressionService("tenant1"));
+    }
+
+    @Test
+    public void testStaleBaseModel() throws IOException {
+        ExpressionService baseExpressionService = createBaseExpressionService(true);
+        SubDomainModelStore.write(baseExpressionService, createSubDomainModels(baseExpressionService, "tenant1"), file);
+        // The base model that is used for reading lacks the user type to which the sub domain model refers
+        SubDomainModelStore store = SubDomainModelStore.open(createBaseExpressionService(false), file);
+
+        Assert.assertEquals(Collections.singleton("tenant1"), store.getKeys());
+        try {
+            store.getExpressionService("tenant1");
+            Assert.fail("Expected the decoding to fail");
+        } catch (UncheckedIOException ex) {
+            Assert.assertEquals("Could not decode the sub domain model for key: tenant1", ex.getMessage());
+            Assert.assertEquals("The base domain model does not contain the referenced element: user", ex.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void testTruncatedFile() throws IOException {
+        ExpressionService baseExpressionService = createBaseExpressionService(true);
+        SubDomainModelStore.write(baseExpressionService, createSubDomainModels(baseExpressionService, "tenant1", "tenant2"), file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+        try {
+            SubDomainModelStore.open(baseExpressionService, file);
+            Assert.fail("Expected the truncated store to be rejected");
+        } catch (IOException ex) {
+            Assert.assertEquals("The sub domain model store is truncated: " + file, ex.getMessage());
+        }
+    }
+
+    @Test
+    public void testDecodeAgainAfterSoftReferenceIsCleared() throws IOException {
+        ExpressionService baseExpressionService = createBaseExpressionService(true);
+        SubDomainModelStore.write(baseExpressionService, createSubDomainModels(baseExpressionService, "tenant1"), file);
+        SubDomainModelStore store = SubDomainModelStore.open(baseExpressionService, file);
+        WeakReference<ExpressionService> decoded = new WeakReference<>(store.getExpressionService("tenant1"));
+
+        // The JVM clears all soft references before it throws an OutOfMemoryError
+        List<long[]> memory = new ArrayList<>();
+        try {
+            while (decoded.get() != null) {
+                memory.add(new long[1024 * 1024]);
+            }
+        } catch (OutOfMemoryError ex) {
+            // All soft references are cleared at this point
+        }
+        memory = null;
+        System.gc();
+        Assert.assertNull(decoded.get());
+
+        ExpressionService expressionService = store.getExpressionService("tenant1");
+        Assert.assertSame(baseExpressionService.getDomainModel(), expressionService.getDomainModel().getParentDomainModel());
+        Assert.assertSame(baseExpressionService.getDomainModel().getType("user"), ((EntityDomainType) expressionService.getDomainModel().getType("tenant1_order")).getAttribute("user").getType());
+        Assert.assertSame(expressionService, store.getExpressionService("tenant1"));
+    }
+
+    @Test
+    public void testClose() throws IOException {
+        ExpressionService baseExpressionService = createBaseExpressionService(true);
+        SubDomainModelStore.write(baseExpressionService, createSubDomainModels(baseExpressionService, "tenant1"), file);
+        SubDomainModelStore store = SubDomainModelStore.open(baseExpressionService, file);
+        ExpressionService expressionService = store.getExpressionService("tenant1");
+        store.close();
+
+        Assert.assertNotNull(expressionService.getDomainModel().getType("tenant1_order"));
+        try {
+            store.getExpressionService("tenant1");
+            Assert.fail("Expected the closed store to be rejected");
+        } catch (IllegalStateException ex) {
+            Assert.assertEquals("The sub domain model store is closed", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void testClassesOutsideAllowedPackages() throws IOException {
+        ExpressionService baseExpressionService = createBaseExpressionService(true);
+        DomainBuilder domainBuilder = Domain.getDefaultProvider().createBuilder(baseExpressionService.getDomainModel());
+        domainBuilder.createEntityType("tenant1_order")
+            .withMetadata(new ExpressionServiceSnapshotTest.FormatMetadataDefinition())
+            .build();
+        SubDomainModelStore.write(baseExpressionService, Collections.singletonMap("tenant1", domainBuilder.build()), file);
+
+        try (SubDomainModelStore store = SubDomainModelStore.open(baseExpressionService, file)) {
+            store.getExpressionService("tenant1");
+            Assert.fail("Expected the decoding to fail");
+        } catch (UncheckedIOException ex) {
+            Assert.assertTrue(ex.getCause() instanceof InvalidClassException);
+        }
+        try (SubDomainModelStore store = SubDomainModelStore.open(baseExpressionService, file, Collections.singleton("java.text."))) {
+            DomainType orderType = store.getExpressionService("tenant1").getDomainModel().getType("tenant1_order");
+            Assert.assertEquals(new DecimalFormat("0.00"), orderType.getMetadata(DecimalFormat.class));
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.blazebit.expression.benchmarks;
+
+import com.blazebit.domain.Domain;
+import com.blazebit.domain.boot.model.DomainBuilder;
+import com.blazebit.domain.boot.model.MetadataDefinition;
+import com.blazebit.domain.boot.model.MetadataDefinitionHolder;
+import com.blazebit.domain.runtime.model.DomainModel;
+import com.blazebit.domain.runtime.model.DomainType;
+import com.blazebit.domain.runtime.model.EntityDomainTypeAttribute;
+import com.blazebit.expression.ExpressionInterpreter;
+import com.blazebit.expression.ExpressionInterpreterContext;
+import com.blazebit.expression.ExpressionService;
+import com.blazebit.expression.Expressions;
+import com.blazebit.expression.base.BaseContributor;
+import com.blazebit.expression.benchmarks.model.Comment;
+import com.blazebit.expression.benchmarks.model.Post;
+import com.blazebit.expression.benchmarks.model.User;
+import com.blazebit.expression.persistence.PersistenceExpressionRenderer;
+import com.blazebit.expression.persistence.PersistenceExpressionSerializer;
+import com.blazebit.expression.spi.AttributeAccessor;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A User/Post/Comment domain model like the one of the web-editor example, along with sample data and expressions.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public class BenchmarkDomain {
+
+    public static final String ROOT_ALIAS = "post";
+    public static final String SHORT_PREDICATE = "post.score > 10";
+    public static final String LONG_PREDICATE = "post.name <> 'Draft' AND post.writer.age >= 18 AND post.writer.active = true"
+        + " AND post.score * 2 + 1 > 10 AND UPPER(post.writer.name) <> 'ADMIN' AND post.createdAt < TIMESTAMP(2030-01-01)"
+        + " AND post.id BETWEEN 1 AND 1000 AND post.name IN ('Hello', 'World', 'Benchmark')";
+    public static final String NESTED_PREDICATE = createNestedPredicate(16);
+    public static final String ARITHMETIC_EXPRESSION = "post.score * 1.5 + post.writer.age * 2 - post.id / 3 + SIZE(post.comments)";
+
+    private final boolean exact;
+    private final DomainModel domainModel;
+    private final ExpressionService expressionService;
+    private final Map<String, DomainType> rootDomainTypes;
+    private final Post post;
+
+    public BenchmarkDomain(boolean exact) {
+        this.exact = exact;
+        this.domainModel = createDomainModel(exact);
+        this.expressionService = Expressions.forModel(domainModel);
+        this.rootDomainTypes = Collections.singletonMap(ROOT_ALIAS, domainModel.getType("Post"));
+        this.post = createPost();
+    }
+
+    /**
+     * Returns the predicate for the given input name which is one of <code>short</code>, <code>long</code> or <code>nested</code>.
+     *
+     * @param input The input name
+     * @return the predicate string
+     */
+    public static String getPredicate(String input) {
+        switch (input) {
+            case "short":
+                return SHORT_PREDICATE;
+            case "long":
+                return LONG_PREDICATE;
+            case "nested":
+                return NESTED_PREDICATE;
+            default:
+                throw new IllegalArgumentException("Unknown input: " + input);
+        }
+    }
+
+    private static String createNestedPredicate(int depth) {
+        StringBuilder sb = new StringBuilder("post.score > 0");
+        for (int i = 1; i < depth; i++) {
+            sb.insert(0, '(');
+            sb.append(" AND (post.writer.age > ").append(i).append(" OR post.score < ").append(i).append("))");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Creates the domain model with either exact or approximate numeric types.
+     *
+     * @param exact Whether to use exact numeric types
+     * @return the domain model
+     */
+    public static DomainModel createDomainModel(boolean exact) {
+        DomainBuilder domainBuilder = Domain.getDefaultProvider().createEmptyBuilder();
+        domainBuilder.setProperty(BaseContributor.CONFIGURATION_NUMERIC_EXACT, exact);
+        domainBuilder.withDefaults();
+        domainBuilder.createEntityType("User")
+            .addAttribute("id", BaseContributor.INTEGER_TYPE_NAME, accessor(User::getId), renderer("id"))
+            .addAttribute("name", BaseContributor.STRING_TYPE_NAME, accessor(User::getName), renderer("name"))
+            .addAttribute("age", BaseContributor.INTEGER_TYPE_NAME, accessor(User::getAge), renderer("age"))
+            .addAttribute("active", BaseContributor.BOOLEAN_TYPE_NAME, accessor(User::isActive), renderer("active"))
+            .build();
+        domainBuilder.createEntityType("Comment")
+            .addAttribute("id", BaseContributor.INTEGER_TYPE_NAME, accessor(Comment::getId), renderer("id"))
+            .addAttribute("content", BaseContributor.STRING_TYPE_NAME, accessor(Comment::getContent), renderer("content"))
+            .addAttribute("writer", "User", accessor(Comment::getWriter), renderer("writer"))
+            .addAttribute("likes", BaseContributor.INTEGER_TYPE_NAME, accessor(Comment::getLikes), renderer("likes"))
+            .build();
+        domainBuilder.createEntityType("Post")
+            .addAttribute("id", BaseContributor.INTEGER_TYPE_NAME, accessor(Post::getId), renderer("id"))
+            .addAttribute("name", BaseContributor.STRING_TYPE_NAME, accessor(Post::getName), renderer("name"))
+            .addAttribute("writer", "User", accessor(Post::getWriter), renderer("writer"))
+            .addAttribute("score", BaseContributor.NUMERIC_TYPE_NAME, accessor(Post::getScore), renderer("score"))
+            .addAttribute("createdAt", BaseContributor.TIMESTAMP_TYPE_NAME, accessor(Post::getCreatedAt), renderer("createdAt"))
+            .addCollectionAttribute("comments", "Comment", accessor(Post::getComments))
+            .build();
+        return domainBuilder.build();
+    }
+
+    private static <T> MetadataDefinition<AttributeAccessor> accessor(Function<T, Object> getter) {
+        return new Accessor((Function<Object, Object>) getter);
+    }
+
+    private static MetadataDefinition<PersistenceExpressionRenderer> renderer(String attributeName) {
+        return new Renderer("." + attributeName);
+    }
+
+    private Post createPost() {
+        User writer = new User(integer(1), "Benchmark User", integer(42), true);
+        List<Comment> comments = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            comments.add(new Comment(integer(i), "Comment " + i, writer, integer(i * 3)));
+        }
+        return new Post(integer(7), "Hello", writer, numeric(12.5), Instant.parse("2020-01-01T00:00:00Z"), comments);
+    }
+
+    private Number integer(long value) {
+        return exact ? BigInteger.valueOf(value) : (Number) value;
+    }
+
+    private Number numeric(double value) {
+        return exact ? BigDecimal.valueOf(value) : (Number) value;
+    }
+
+    /**
+     * Creates a new interpreter context with the sample post as root object.
+     *
+     * @return a new interpreter context
+     */
+    public ExpressionInterpreter.Context createInterpreterContext() {
+        return ExpressionInterpreterContext.create(expressionService).withRoot(ROOT_ALIAS, post);
+    }
+
+    public boolean isExact() {
+        return exact;
+    }
+
+    public DomainModel getDomainModel() {
+        return domainModel;
+    }
+
+    public ExpressionService getExpressionService() {
+        return expressionService;
+    }
+
+    public Map<String, DomainType> getRootDomainTypes() {
+        return rootDomainTypes;
+    }
+
+    public Post getPost() {
+        return post;
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    private static class Accessor implements MetadataDefinition<AttributeAccessor>, AttributeAccessor {
+
+        private final Function<Object, Object> getter;
+
+        public Accessor(Function<Object, Object> getter) {
+            this.getter = getter;
+        }
+
+        @Override
+        public Object getAttribute(ExpressionInterpreter.Context context, Object value, EntityDomainTypeAttribute attribute) {
+            return getter.apply(value);
+        }
+
+        @Override
+        public Class<AttributeAccessor> getJavaType() {
+            return AttributeAccessor.class;
+        }
+
+        @Override
+        public AttributeAccessor build(MetadataDefinitionHolder definitionHolder) {
+            return this;
+        }
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    private static class Renderer implements MetadataDefinition<PersistenceExpressionRenderer>, PersistenceExpressionRenderer {
+
+        private final String path;
+
+        public Renderer(String path) {
+            this.path = path;
+        }
+
+        @Override
+        public void render(StringBuilder sb, PersistenceExpressionSerializer serializer) {
+            sb.append(path);
+        }
+
+        @Override
+        public Class<PersistenceExpressionRenderer> getJavaType() {
+            return PersistenceExpressionRenderer.class;
+        }
+
+        @Override
+        public PersistenceExpressionRenderer build(MetadataDefinitionHolder definitionHolder) {
+            return this;
+        }
+    }
+}
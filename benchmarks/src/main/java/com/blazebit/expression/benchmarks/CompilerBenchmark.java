@@ -0,0 +1,69 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.blazebit.expression.benchmarks;
+
+import com.blazebit.expression.ExpressionCompiler;
+import com.blazebit.expression.Predicate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing and type checking of predicates of different size and nesting depth.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompilerBenchmark {
+
+    @Param({ "short", "long", "nested" })
+    public String input;
+
+    private ExpressionCompiler compiler;
+    private ExpressionCompiler.Context compilerContext;
+    private String predicate;
+
+    @Setup
+    public void setup() {
+        BenchmarkDomain domain = new BenchmarkDomain(false);
+        compiler = domain.getExpressionService().createCompiler();
+        compilerContext = compiler.createContext(domain.getRootDomainTypes());
+        predicate = BenchmarkDomain.getPredicate(input);
+    }
+
+    @Benchmark
+    public Predicate createPredicate() {
+        return compiler.createPredicate(predicate, compilerContext);
+    }
+}
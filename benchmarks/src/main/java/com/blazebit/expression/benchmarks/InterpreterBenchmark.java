@@ -0,0 +1,98 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.blazebit.expression.benchmarks;
+
+import com.blazebit.expression.Expression;
+import com.blazebit.expression.ExpressionCompiler;
+import com.blazebit.expression.ExpressionEvaluator;
+import com.blazebit.expression.ExpressionInterpreter;
+import com.blazebit.expression.ExpressionService;
+import com.blazebit.expression.Predicate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the evaluation of a predicate and an arithmetic expression with exact and approximate numerics,
+ * through the {@link ExpressionInterpreter} as well as through a pre-built {@link ExpressionEvaluator}.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InterpreterBenchmark {
+
+    @Param({ "true", "false" })
+    public boolean exact;
+
+    private ExpressionInterpreter interpreter;
+    private ExpressionInterpreter.Context interpreterContext;
+    private Predicate predicate;
+    private Expression arithmetic;
+    private ExpressionEvaluator predicateEvaluator;
+    private ExpressionEvaluator arithmeticEvaluator;
+
+    @Setup
+    public void setup() {
+        BenchmarkDomain domain = new BenchmarkDomain(exact);
+        ExpressionService expressionService = domain.getExpressionService();
+        ExpressionCompiler compiler = expressionService.createCompiler();
+        ExpressionCompiler.Context compilerContext = compiler.createContext(domain.getRootDomainTypes());
+        interpreter = expressionService.createInterpreter();
+        interpreterContext = domain.createInterpreterContext();
+        predicate = compiler.createPredicate(BenchmarkDomain.LONG_PREDICATE, compilerContext);
+        arithmetic = compiler.createExpression(BenchmarkDomain.ARITHMETIC_EXPRESSION, compilerContext);
+        predicateEvaluator = expressionService.createEvaluator(predicate);
+        arithmeticEvaluator = expressionService.createEvaluator(arithmetic);
+    }
+
+    @Benchmark
+    public Boolean interpretPredicate() {
+        return interpreter.evaluate(predicate, interpreterContext);
+    }
+
+    @Benchmark
+    public Object interpretArithmetic() {
+        return interpreter.evaluate(arithmetic, interpreterContext);
+    }
+
+    @Benchmark
+    public boolean evaluatePredicate() {
+        return predicateEvaluator.test(interpreterContext);
+    }
+
+    @Benchmark
+    public Object evaluateArithmetic() {
+        return arithmeticEvaluator.evaluate(interpreterContext);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.blazebit.expression.benchmarks;
+
+import com.blazebit.expression.ExpressionCompiler;
+import com.blazebit.expression.ExpressionSerializer;
+import com.blazebit.expression.ExpressionService;
+import com.blazebit.expression.Predicate;
+import com.blazebit.expression.excel.ExcelExpressionSerializerContext;
+import com.blazebit.expression.persistence.PersistenceExpressionSerializerContext;
+import com.blazebit.persistence.MultipleSubqueryInitiator;
+import com.blazebit.persistence.WhereBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the serialization of a predicate to the expression syntax, JPQL.Next and Excel formulas.
+ * Serializers are stateful, so every benchmark thread has its own state.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerBenchmark {
+
+    private final StringBuilder sb = new StringBuilder();
+    private ExpressionCompiler compiler;
+    private ExpressionCompiler.Context compilerContext;
+    private Predicate predicate;
+    private ExpressionSerializer<StringBuilder> expressionSerializer;
+    private ExpressionSerializer<WhereBuilder> persistenceSerializer;
+    private ExpressionSerializer.Context persistenceContext;
+    private CapturingWhereBuilderHandler whereBuilderHandler;
+    private WhereBuilder<?> whereBuilder;
+    private ExpressionSerializer<StringBuilder> excelSerializer;
+    private ExpressionSerializer.Context excelContext;
+
+    @Setup
+    public void setup() {
+        BenchmarkDomain domain = new BenchmarkDomain(false);
+        ExpressionService expressionService = domain.getExpressionService();
+        compiler = expressionService.createCompiler();
+        compilerContext = compiler.createContext(domain.getRootDomainTypes());
+        predicate = compiler.createPredicate(BenchmarkDomain.LONG_PREDICATE, compilerContext);
+        expressionSerializer = expressionService.createSerializer();
+        persistenceSerializer = expressionService.createSerializer(WhereBuilder.class);
+        persistenceContext = new PersistenceExpressionSerializerContext<>(expressionService, null)
+            .withAlias(BenchmarkDomain.ROOT_ALIAS, "p");
+        whereBuilderHandler = new CapturingWhereBuilderHandler();
+        whereBuilder = (WhereBuilder<?>) Proxy.newProxyInstance(
+            SerializerBenchmark.class.getClassLoader(),
+            new Class[]{ WhereBuilder.class, MultipleSubqueryInitiator.class },
+            whereBuilderHandler
+        );
+        excelSerializer = expressionService.createSerializer(StringBuilder.class, "excel");
+        excelContext = new ExcelExpressionSerializerContext(expressionService, 1)
+            .withExcelColumn("post.id", 1)
+            .withExcelColumn("post.name", 2)
+            .withExcelColumn("post.score", 3)
+            .withExcelColumn("post.createdAt", 4)
+            .withExcelColumn("post.writer.name", 5)
+            .withExcelColumn("post.writer.age", 6)
+            .withExcelColumn("post.writer.active", 7);
+    }
+
+    @Benchmark
+    public Predicate roundTrip() {
+        sb.setLength(0);
+        expressionSerializer.serializeTo(predicate, sb);
+        return compiler.createPredicate(sb.toString(), compilerContext);
+    }
+
+    @Benchmark
+    public String renderJpql() {
+        persistenceSerializer.serializeTo(persistenceContext, predicate, whereBuilder);
+        return whereBuilderHandler.expression;
+    }
+
+    @Benchmark
+    public String renderExcel() {
+        sb.setLength(0);
+        excelSerializer.serializeTo(excelContext, predicate, sb);
+        return sb.toString();
+    }
+
+    /**
+     * A minimal {@link WhereBuilder} that captures the rendered JPQL.Next predicate.
+     *
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    private static class CapturingWhereBuilderHandler implements InvocationHandler {
+
+        private String expression;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "whereExpressionSubqueries":
+                    expression = (String) args[0];
+                    return proxy;
+                case "end":
+                    return proxy;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.blazebit.expression.benchmarks.model;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public class Post {
+
+    private final Number id;
+    private final String name;
+    private final User writer;
+    private final Number score;
+    private final Instant createdAt;
+    private final List<Comment> comments;
+
+    public Post(Number id, String name, User writer, Number score, Instant createdAt, List<Comment> comments) {
+        this.id = id;
+        this.name = name;
+        this.writer = writer;
+        this.score = score;
+        this.createdAt = createdAt;
+        this.comments = comments;
+    }
+
+    public Number getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public User getWriter() {
+        return writer;
+    }
+
+    public Number getScore() {
+        return score;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public List<Comment> getComments() {
+        return comments;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.blazebit.expression.benchmarks.model;
+
+/**
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public class User {
+
+    private final Number id;
+    private final String name;
+    private final Number age;
+    private final boolean active;
+
+    public User(Number id, String name, Number age, boolean active) {
+        this.id = id;
+        this.name = name;
+        this.age = age;
+        this.active = active;
+    }
+
+    public Number getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Number getAge() {
+        return age;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazebit.expression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An object input stream that only resolves classes of allowed packages, which are the packages of blaze-expression and blaze-domain,
+ * the basic JDK packages and the additionally allowed packages. Classes are resolved through the thread context class loader if possible.
+ * A class that is not allowed is rejected with an {@link InvalidClassException} before it is loaded.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+class AllowListObjectInputStream extends ObjectInputStream {
+
+    private static final List<String> DEFAULT_ALLOWED_PACKAGES = Arrays.asList("com.blazebit.", "java.lang.", "java.util.", "java.math.", "java.sql.", "java.time.");
+
+    private final Collection<String> allowedPackages;
+
+    /**
+     * Creates an object input stream for the given stream that additionally allows classes of the given packages.
+     *
+     * @param in The stream to read from
+     * @param allowedPackages The additionally allowed package prefixes, e.g. <code>com.example.</code>
+     * @throws IOException if reading the stream header fails
+     */
+    public AllowListObjectInputStream(InputStream in, Collection<String> allowedPackages) throws IOException {
+        super(in);
+        this.allowedPackages = allowedPackages;
+    }
+
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+        checkAllowed(desc.getName());
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (classLoader != null) {
+            try {
+                return Class.forName(desc.getName(), false, classLoader);
+            } catch (ClassNotFoundException ex) {
+                // Fall back to the default resolution
+            }
+        }
+        return super.resolveClass(desc);
+    }
+
+    @Override
+    protected Class<?> resolveProxyClass(String[] interfaces) throws IOException, ClassNotFoundException {
+        for (String interfaceName : interfaces) {
+            checkAllowed(interfaceName);
+        }
+        return super.resolveProxyClass(interfaces);
+    }
+
+    private void checkAllowed(String className) throws InvalidClassException {
+        String name = className;
+        if (name.startsWith("[")) {
+            // Arrays of primitives are always allowed, arrays of objects are allowed if the element class is allowed
+            int dimensions = name.lastIndexOf('[') + 1;
+            if (name.charAt(dimensions) != 'L') {
+                return;
+            }
+            name = name.substring(dimensions + 1, name.length() - 1);
+        }
+        if (!isAllowed(name, DEFAULT_ALLOWED_PACKAGES) && !isAllowed(name, allowedPackages)) {
+            throw new InvalidClassException(className, "The class is not allowed to be deserialized");
+        }
+    }
+
+    private static boolean isAllowed(String className, Collection<String> packages) {
+        for (String allowedPackage : packages) {
+            if (className.startsWith(allowedPackage)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
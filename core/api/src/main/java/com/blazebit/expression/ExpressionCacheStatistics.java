@@ -0,0 +1,67 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.blazebit.expression;
+
+/**
+ * Statistics of the compiled expression cache of an {@link ExpressionService}.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public interface ExpressionCacheStatistics {
+
+    /**
+     * Returns the maximum amount of compiled expressions that are retained.
+     *
+     * @return the maximum amount of compiled expressions
+     */
+    public int getMaximumSize();
+
+    /**
+     * Returns the amount of compiled expressions that are currently cached.
+     *
+     * @return the amount of cached compiled expressions
+     */
+    public int getSize();
+
+    /**
+     * Returns the amount of compile requests that could be served from the cache.
+     *
+     * @return the hit count
+     */
+    public long getHitCount();
+
+    /**
+     * Returns the amount of compile requests that required compiling the expression string.
+     *
+     * @return the miss count
+     */
+    public long getMissCount();
+
+    /**
+     * Returns the amount of compiled expressions that were evicted from the cache due to the size bound.
+     *
+     * @return the eviction count
+     */
+    public long getEvictionCount();
+
+    /**
+     * Removes all compiled expressions from the cache.
+     */
+    public void clear();
+}
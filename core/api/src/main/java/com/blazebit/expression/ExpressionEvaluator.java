@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.blazebit.expression;
+
+/**
+ * An evaluator for a single expression that was prepared through {@link ExpressionService#createEvaluator(Expression)}.
+ * All domain model metadata that is needed for the evaluation is resolved once when the evaluator is created.
+ * Path prefixes that are shared by multiple paths of the expression are navigated only once per evaluation.
+ * Evaluators are immutable and thread-safe, so they may be reused for many evaluations by multiple threads.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public interface ExpressionEvaluator {
+
+    /**
+     * Returns the expression that is evaluated.
+     *
+     * @return the expression
+     */
+    public Expression getExpression();
+
+    /**
+     * Evaluates the expression to the call site defined type with an empty interpreter context.
+     *
+     * @param <T> The result type
+     * @return The evaluation result
+     */
+    public default <T> T evaluate() {
+        return evaluate(null);
+    }
+
+    /**
+     * Evaluates the expression to the call site defined type based on the given interpreter context.
+     *
+     * @param interpreterContext The interpreter context to evaluate the expression against
+     * @param <T> The result type
+     * @return The evaluation result
+     */
+    public <T> T evaluate(ExpressionInterpreter.Context interpreterContext);
+
+    /**
+     * Evaluates the expression to the call site defined type based on the given interpreter context and converts it using the {@link com.blazebit.expression.spi.TypeAdapter} defined for the returned attribute.
+     *
+     * @param interpreterContext The interpreter context to evaluate the expression against
+     * @param <T> The result type
+     * @return The evaluation result
+     */
+    public <T> T evaluateAsModelType(ExpressionInterpreter.Context interpreterContext);
+
+    /**
+     * Evaluates the expression to the given type, converting the result if necessary, based on the given interpreter context.
+     *
+     * @param interpreterContext The interpreter context to evaluate the expression against
+     * @param resultClass The requested result class
+     * @param <T> The result type
+     * @return The evaluation result
+     */
+    public <T> T evaluateAs(ExpressionInterpreter.Context interpreterContext, Class<T> resultClass);
+
+    /**
+     * Evaluates the expression based on the given interpreter context and returns whether the result is {@link Boolean#TRUE}.
+     *
+     * @param interpreterContext The interpreter context to evaluate the expression against
+     * @return <code>true</code> if the expression evaluates to {@link Boolean#TRUE}, <code>false</code> otherwise
+     */
+    public default boolean test(ExpressionInterpreter.Context interpreterContext) {
+        return Boolean.TRUE.equals(evaluate(interpreterContext));
+    }
+}
@@ -16,8 +16,15 @@
 
 package com.blazebit.expression;
 
+import java.util.BitSet;
+import java.util.List;
+
 /**
  * An interpreter for expressions based on a set of root variable object assignments.
+ * Implementations keep the evaluation state per invocation, so an interpreter is safe for concurrent use.
+ * An interpreter context on the other hand is mutable and must not be shared between concurrent evaluations.
+ * Every path is navigated on its own, even if it shares a prefix with other paths of the expression.
+ * Use an {@link ExpressionEvaluator} for expressions that are evaluated repeatedly to navigate shared path prefixes only once per evaluation.
  *
  * @author Christian Beikov
  * @since 1.0.0
@@ -108,6 +115,34 @@ public interface ExpressionInterpreter {
      */
     public Boolean evaluate(Predicate expression, Context interpreterContext);
 
+    /**
+     * Evaluates the given expression for every root object of the given list, which is bound to the given root variable name.
+     * The expression tree is walked once per node for the whole batch instead of once per root object.
+     * The result for a root object is the same as if {@link #evaluate(Expression, Context)} was invoked with the interpreter context
+     * that has the root object bound to the given root variable name.
+     *
+     * @param expression The expression to evaluate
+     * @param interpreterContext The interpreter context to evaluate the expression against, may be <code>null</code>
+     * @param alias The root variable name to bind the root objects to
+     * @param roots The root objects
+     * @param <T> The result type
+     * @return The evaluation results in the order of the root objects
+     */
+    public <T> List<T> evaluateBatch(Expression expression, Context interpreterContext, String alias, List<?> roots);
+
+    /**
+     * Evaluates the given predicate for every root object of the given list, which is bound to the given root variable name,
+     * and returns a bit set that has the bits set of the indexes of the root objects for which the predicate evaluates to <code>true</code>.
+     * The predicate tree is walked once per node for the whole batch instead of once per root object.
+     *
+     * @param predicate The predicate to evaluate
+     * @param interpreterContext The interpreter context to evaluate the predicate against, may be <code>null</code>
+     * @param alias The root variable name to bind the root objects to
+     * @param roots The root objects
+     * @return The bit set of the indexes of the matching root objects
+     */
+    public BitSet evaluateToBitSet(Predicate predicate, Context interpreterContext, String alias, List<?> roots);
+
     /**
      * An interpreter context that gives access to root variable domain type mappings, root variable object assignments and configuration properties.
      *
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.blazebit.expression;
+
+/**
+ * An optimizer that simplifies compiled expressions without changing their evaluation result.
+ * Sub-expressions that only consist of literals and deterministic functions are folded into literals,
+ * nested compound predicates of the same kind are flattened and trivially <code>true</code> or <code>false</code> branches are pruned.
+ * Functions with a {@link com.blazebit.domain.runtime.model.DomainFunctionVolatility#VOLATILE} volatility are never folded,
+ * functions with a {@link com.blazebit.domain.runtime.model.DomainFunctionVolatility#STABLE} volatility are only folded
+ * when an interpreter context is given, since their result is only constant for a single evaluation context.
+ * The optimizer is stateless and thread-safe.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public interface ExpressionOptimizer {
+
+    /**
+     * Returns an optimized version of the given expression or the expression itself if it can't be optimized.
+     *
+     * @param expression The expression to optimize
+     * @return the optimized expression
+     */
+    public default Expression optimize(Expression expression) {
+        return optimize(expression, null);
+    }
+
+    /**
+     * Returns an optimized version of the given predicate or the predicate itself if it can't be optimized.
+     *
+     * @param predicate The predicate to optimize
+     * @return the optimized predicate
+     */
+    public default Predicate optimize(Predicate predicate) {
+        return optimize(predicate, null);
+    }
+
+    /**
+     * Returns an optimized version of the given expression or the expression itself if it can't be optimized.
+     * Functions with a {@link com.blazebit.domain.runtime.model.DomainFunctionVolatility#STABLE} volatility are folded
+     * based on the given interpreter context, so the result must only be evaluated against the same context.
+     *
+     * @param expression The expression to optimize
+     * @param interpreterContext The interpreter context to use for folding or <code>null</code>
+     * @return the optimized expression
+     */
+    public Expression optimize(Expression expression, ExpressionInterpreter.Context interpreterContext);
+
+    /**
+     * Returns an optimized version of the given predicate or the predicate itself if it can't be optimized.
+     * Functions with a {@link com.blazebit.domain.runtime.model.DomainFunctionVolatility#STABLE} volatility are folded
+     * based on the given interpreter context, so the result must only be evaluated against the same context.
+     *
+     * @param predicate The predicate to optimize
+     * @param interpreterContext The interpreter context to use for folding or <code>null</code>
+     * @return the optimized predicate
+     */
+    public default Predicate optimize(Predicate predicate, ExpressionInterpreter.Context interpreterContext) {
+        return (Predicate) optimize((Expression) predicate, interpreterContext);
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazebit.expression;
+
+/**
+ * The parser implementations an {@link ExpressionCompiler} can use to parse expression strings.
+ * Both implementations produce the same expression model for the same input.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public enum ExpressionParserType {
+
+    /**
+     * Expressions are parsed by an ANTLR generated parser into a parse tree, which is then transformed into the expression model.
+     */
+    ANTLR,
+    /**
+     * Expressions are parsed by a hand-written recursive descent parser, which creates the expression model directly in a single pass.
+     * Inputs that are ambiguous for this parser, and invalid inputs, are parsed again with the {@link #ANTLR} parser,
+     * which reports errors, so error messages are the same for both parser types.
+     */
+    RECURSIVE_DESCENT;
+}
@@ -21,6 +21,7 @@ import com.blazebit.expression.spi.BooleanLiteralResolver;
 import com.blazebit.expression.spi.CollectionLiteralResolver;
 import com.blazebit.expression.spi.EntityLiteralResolver;
 import com.blazebit.expression.spi.EnumLiteralResolver;
+import com.blazebit.expression.spi.ExpressionEvaluatorFactory;
 import com.blazebit.expression.spi.ExpressionSerializerFactory;
 import com.blazebit.expression.spi.ExpressionServiceSerializer;
 import com.blazebit.expression.spi.NumericLiteralResolver;
@@ -28,8 +29,17 @@ import com.blazebit.expression.spi.StringLiteralResolver;
 import com.blazebit.expression.spi.TemporalLiteralResolver;
 import com.blazebit.expression.spi.TypeConverter;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 
 /**
  * A factory for expression related functionality based on a domain model.
@@ -78,12 +88,172 @@ public interface ExpressionService {
     public ExpressionCompiler createCompiler();
 
     /**
-     * Creates and returns an expression interpreter to interpret a compiled expression.
+     * Returns the statistics of the compiled expression cache or <code>null</code> if no cache is configured.
+     * The cache is shared by all compilers created through {@link #createCompiler()}.
+     *
+     * @return the compiled expression cache statistics or <code>null</code>
+     * @see ExpressionServiceBuilder#withExpressionCache(int)
+     */
+    public ExpressionCacheStatistics getExpressionCacheStatistics();
+
+    /**
+     * Returns the factory that is used for creating evaluators through {@link #createEvaluator(Expression)}
+     * or <code>null</code> if the default evaluator implementation is used.
+     *
+     * @return the expression evaluator factory or <code>null</code>
+     * @see ExpressionServiceBuilder#withExpressionEvaluatorFactory(ExpressionEvaluatorFactory)
+     */
+    public ExpressionEvaluatorFactory getExpressionEvaluatorFactory();
+
+    /**
+     * Returns the strategy for reordering the operands of compound predicates in evaluators created through {@link #createEvaluator(Expression)}.
+     *
+     * @return the predicate reordering strategy
+     * @see ExpressionServiceBuilder#withPredicateReordering(PredicateReordering)
+     */
+    public PredicateReordering getPredicateReordering();
+
+    /**
+     * Returns the parser implementation that compilers created through {@link #createCompiler()} use to parse expression strings.
+     *
+     * @return the parser implementation
+     * @see ExpressionServiceBuilder#withExpressionParserType(ExpressionParserType)
+     */
+    public ExpressionParserType getExpressionParserType();
+
+    /**
+     * Returns an expression optimizer to simplify compiled expressions.
+     * The optimizer is stateless and thread-safe, so it may be shared by multiple threads.
+     *
+     * @return the expression optimizer
+     */
+    public ExpressionOptimizer createOptimizer();
+
+    /**
+     * Returns whether compilers created through {@link #createCompiler()} optimize compiled expressions.
+     *
+     * @return <code>true</code> if compiled expressions are optimized, <code>false</code> otherwise
+     * @see ExpressionServiceBuilder#withExpressionOptimization(boolean)
+     */
+    public boolean isExpressionOptimization();
+
+    /**
+     * Returns an expression interpreter to interpret a compiled expression.
+     * The interpreter is stateless and thread-safe, so it may be shared by multiple threads.
      *
      * @return the expression interpreter
      */
     public ExpressionInterpreter createInterpreter();
 
+    /**
+     * Creates and returns a reusable and thread-safe evaluator for the given compiled expression.
+     * Contrary to the {@link ExpressionInterpreter}, the evaluator resolves all domain model metadata upfront,
+     * which makes it a better fit for evaluating the same expression many times.
+     *
+     * @param expression The expression to create an evaluator for
+     * @return the expression evaluator
+     */
+    public ExpressionEvaluator createEvaluator(Expression expression);
+
+    /**
+     * Returns the root objects for which the given predicate evaluates to <code>true</code>, in the encounter order of the given collection.
+     * Every root object is bound to the given root variable name. The collection is split into partitions,
+     * which are evaluated in parallel in the {@link ForkJoinPool#commonPool()} by an evaluator created through {@link #createEvaluator(Expression)}.
+     *
+     * @param predicate The predicate to evaluate
+     * @param interpreterContext The interpreter context to evaluate the predicate against, may be <code>null</code>
+     * @param alias The root variable name to bind the root objects to
+     * @param roots The root objects
+     * @param <T> The root object type
+     * @return The matching root objects
+     * @see #filter(Predicate, ExpressionInterpreter.Context, String, Collection, ForkJoinPool)
+     */
+    default <T> List<T> filter(Predicate predicate, ExpressionInterpreter.Context interpreterContext, String alias, Collection<? extends T> roots) {
+        return filter(predicate, interpreterContext, alias, roots, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns the root objects for which the given predicate evaluates to <code>true</code>, in the encounter order of the given collection.
+     * Every root object is bound to the given root variable name. The collection is split into partitions,
+     * which are evaluated in parallel in the given fork join pool by an evaluator created through {@link #createEvaluator(Expression)}.
+     * Each partition binds its root objects in a partition local interpreter context, which reads properties and other roots from the given interpreter context.
+     * Properties that are set during the evaluation are not written to the given interpreter context, but are shared by all partitions of one invocation,
+     * so that e.g. <code>CURRENT_TIMESTAMP</code> is the same for all root objects. The given interpreter context must be safe for concurrent reads.
+     * The parallelism is controlled through the fork join pool, e.g. <code>new ForkJoinPool(parallelism)</code>.
+     *
+     * @param predicate The predicate to evaluate
+     * @param interpreterContext The interpreter context to evaluate the predicate against, may be <code>null</code>
+     * @param alias The root variable name to bind the root objects to
+     * @param roots The root objects
+     * @param forkJoinPool The fork join pool to evaluate the partitions in
+     * @param <T> The root object type
+     * @return The matching root objects
+     */
+    public <T> List<T> filter(Predicate predicate, ExpressionInterpreter.Context interpreterContext, String alias, Collection<? extends T> roots, ForkJoinPool forkJoinPool);
+
+    /**
+     * Returns a {@link java.util.function.Predicate} that evaluates the given predicate with the tested object bound to the given root variable name.
+     *
+     * @param predicate The predicate to evaluate
+     * @param alias The root variable name to bind the tested objects to
+     * @param <T> The root object type
+     * @return the java predicate
+     * @see #asJavaPredicate(Predicate, ExpressionInterpreter.Context, String)
+     */
+    default <T> java.util.function.Predicate<T> asJavaPredicate(Predicate predicate, String alias) {
+        return asJavaPredicate(predicate, null, alias);
+    }
+
+    /**
+     * Returns a {@link java.util.function.Predicate} that evaluates the given predicate with the tested object bound to the given root variable name.
+     * The predicate is evaluated by an evaluator created through {@link #createEvaluator(Expression)} once, against an interpreter context per test,
+     * which reads properties and other roots from the given interpreter context. Properties that are set during the evaluation are not written to the given
+     * interpreter context and only live for a single test, so e.g. <code>CURRENT_TIMESTAMP</code> is determined per tested object,
+     * unless the instant is set in the given interpreter context.
+     * The returned predicate is thread-safe and may be used in parallel streams, as long as the given interpreter context is safe for concurrent reads.
+     *
+     * @param predicate The predicate to evaluate
+     * @param interpreterContext The interpreter context to evaluate the predicate against, may be <code>null</code>
+     * @param alias The root variable name to bind the tested objects to
+     * @param <T> The root object type
+     * @return the java predicate
+     */
+    public <T> java.util.function.Predicate<T> asJavaPredicate(Predicate predicate, ExpressionInterpreter.Context interpreterContext, String alias);
+
+    /**
+     * Returns a {@link Function} that evaluates the given expression to the given result class with the argument bound to the given root variable name.
+     *
+     * @param expression The expression to evaluate
+     * @param alias The root variable name to bind the arguments to
+     * @param resultClass The result class to convert the evaluation result to
+     * @param <R> The root object type
+     * @param <T> The result type
+     * @return the java function
+     * @see #asJavaFunction(Expression, ExpressionInterpreter.Context, String, Class)
+     */
+    default <R, T> Function<R, T> asJavaFunction(Expression expression, String alias, Class<T> resultClass) {
+        return asJavaFunction(expression, null, alias, resultClass);
+    }
+
+    /**
+     * Returns a {@link Function} that evaluates the given expression to the given result class with the argument bound to the given root variable name.
+     * The expression is evaluated like through {@link ExpressionEvaluator#evaluateAs(ExpressionInterpreter.Context, Class)}
+     * by an evaluator created through {@link #createEvaluator(Expression)} once, against an interpreter context per application,
+     * which reads properties and other roots from the given interpreter context. Properties that are set during the evaluation are not written to the given
+     * interpreter context and only live for a single application, so e.g. <code>CURRENT_TIMESTAMP</code> is determined per argument,
+     * unless the instant is set in the given interpreter context.
+     * The returned function is thread-safe and may be used in parallel streams, as long as the given interpreter context is safe for concurrent reads.
+     *
+     * @param expression The expression to evaluate
+     * @param interpreterContext The interpreter context to evaluate the expression against, may be <code>null</code>
+     * @param alias The root variable name to bind the arguments to
+     * @param resultClass The result class to convert the evaluation result to
+     * @param <R> The root object type
+     * @param <T> The result type
+     * @return the java function
+     */
+    public <R, T> Function<R, T> asJavaFunction(Expression expression, ExpressionInterpreter.Context interpreterContext, String alias, Class<T> resultClass);
+
     /**
      * Creates and returns an expression serializer that produces an expression, which can be compiled again.
      *
@@ -199,6 +369,39 @@ public interface ExpressionService {
      */
     public <T> T serialize(ExpressionService baseModel, Class<T> targetType, String format, Map<String, Object> properties);
 
+    /**
+     * Serializes the expression service with the given format to the given appendable, e.g. a {@link Writer}.
+     * It only serializes elements that do not belong to the given base model already or are overridden.
+     * Serializers that support streaming write their output directly to the appendable without materializing it as a whole.
+     *
+     * @param baseModel The base expression service or <code>null</code>
+     * @param target The appendable to write to
+     * @param format The serialization format
+     * @param properties Serialization properties
+     * @return <code>true</code> if the format is supported, <code>false</code> otherwise
+     * @throws IOException if writing to the appendable fails
+     */
+    public boolean serializeTo(ExpressionService baseModel, Appendable target, String format, Map<String, Object> properties) throws IOException;
+
+    /**
+     * Serializes the expression service with the given format to the given output stream in UTF-8 encoding.
+     * It only serializes elements that do not belong to the given base model already or are overridden.
+     * The output stream is flushed, but not closed.
+     *
+     * @param baseModel The base expression service or <code>null</code>
+     * @param outputStream The output stream to write to
+     * @param format The serialization format
+     * @param properties Serialization properties
+     * @return <code>true</code> if the format is supported, <code>false</code> otherwise
+     * @throws IOException if writing to the output stream fails
+     */
+    default boolean serializeTo(ExpressionService baseModel, OutputStream outputStream, String format, Map<String, Object> properties) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        boolean supported = serializeTo(baseModel, writer, format, properties);
+        writer.flush();
+        return supported;
+    }
+
     /**
      * Serializes the given compiled expression to a string.
      *
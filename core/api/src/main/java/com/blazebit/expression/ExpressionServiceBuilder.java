@@ -21,6 +21,7 @@ import com.blazebit.expression.spi.BooleanLiteralResolver;
 import com.blazebit.expression.spi.CollectionLiteralResolver;
 import com.blazebit.expression.spi.EntityLiteralResolver;
 import com.blazebit.expression.spi.EnumLiteralResolver;
+import com.blazebit.expression.spi.ExpressionEvaluatorFactory;
 import com.blazebit.expression.spi.ExpressionSerializerFactory;
 import com.blazebit.expression.spi.ExpressionServiceSerializer;
 import com.blazebit.expression.spi.NumericLiteralResolver;
@@ -171,6 +172,110 @@ public interface ExpressionServiceBuilder {
      */
     public Map<Class<?>, Map<Class<?>, TypeConverter<?, ?>>> getConverters();
 
+    /**
+     * Enables caching of compiled expressions with the given maximum size.
+     * Compiling the same expression string against the same compile context root types will then return the cached expression.
+     * The least recently used expressions are evicted once the maximum size is exceeded.
+     * A value of <code>0</code> disables the cache, which is the default.
+     *
+     * @param maximumSize The maximum amount of compiled expressions to cache
+     * @return this for chaining
+     */
+    public ExpressionServiceBuilder withExpressionCache(int maximumSize);
+
+    /**
+     * Returns the maximum size of the compiled expression cache or <code>0</code> if caching is disabled.
+     *
+     * @return the maximum size of the compiled expression cache
+     */
+    public int getExpressionCacheMaximumSize();
+
+    /**
+     * Sets the factory for expression evaluators created through {@link ExpressionService#createEvaluator(Expression)}.
+     * A value of <code>null</code> selects the default evaluator implementation.
+     *
+     * @param expressionEvaluatorFactory The expression evaluator factory
+     * @return this for chaining
+     */
+    public ExpressionServiceBuilder withExpressionEvaluatorFactory(ExpressionEvaluatorFactory expressionEvaluatorFactory);
+
+    /**
+     * Returns the factory for expression evaluators or <code>null</code> if the default evaluator implementation is used.
+     *
+     * @return the expression evaluator factory
+     */
+    public ExpressionEvaluatorFactory getExpressionEvaluatorFactory();
+
+    /**
+     * Sets the strategy for reordering the operands of compound predicates in evaluators created through {@link ExpressionService#createEvaluator(Expression)}.
+     * Reordering evaluates cheap operands first to short-circuit expensive ones and evaluates compound predicates with three valued logic,
+     * which can produce <code>false</code> or <code>true</code> where source order evaluation produces <code>null</code>, see {@link PredicateReordering}.
+     * A value of <code>null</code> is treated like {@link PredicateReordering#NONE}, which is the default.
+     *
+     * @param predicateReordering The predicate reordering strategy
+     * @return this for chaining
+     */
+    public ExpressionServiceBuilder withPredicateReordering(PredicateReordering predicateReordering);
+
+    /**
+     * Returns the strategy for reordering the operands of compound predicates.
+     *
+     * @return the predicate reordering strategy
+     */
+    public PredicateReordering getPredicateReordering();
+
+    /**
+     * Enables or disables the optimization of compiled expressions through the {@link ExpressionOptimizer}.
+     * When enabled, compilers fold constant sub-expressions and simplify predicates right after parsing,
+     * so that the optimized expression is cached and evaluated. Optimization is disabled by default.
+     *
+     * @param expressionOptimization Whether to optimize compiled expressions
+     * @return this for chaining
+     */
+    public ExpressionServiceBuilder withExpressionOptimization(boolean expressionOptimization);
+
+    /**
+     * Returns whether compiled expressions are optimized.
+     *
+     * @return <code>true</code> if compiled expressions are optimized, <code>false</code> otherwise
+     */
+    public boolean isExpressionOptimization();
+
+    /**
+     * Enables or disables warming up the expression parser when building the expression service.
+     * The warm up parses inputs that cover the whole grammar once, so that the prediction cache of the parser, which is shared by all compilers,
+     * is already populated for the first compilations. The warm up is disabled by default.
+     *
+     * @param parserWarmUp Whether to warm up the expression parser
+     * @return this for chaining
+     */
+    public ExpressionServiceBuilder withParserWarmUp(boolean parserWarmUp);
+
+    /**
+     * Returns whether the expression parser is warmed up when building the expression service.
+     *
+     * @return <code>true</code> if the expression parser is warmed up, <code>false</code> otherwise
+     */
+    public boolean isParserWarmUp();
+
+    /**
+     * Sets the parser implementation that compilers use to parse expression strings.
+     * The recursive descent parser creates the expression model without building a parse tree first, which reduces the compilation overhead.
+     * A value of <code>null</code> is treated like {@link ExpressionParserType#ANTLR}, which is the default.
+     * The parser warm up only applies to the ANTLR parser.
+     *
+     * @param expressionParserType The parser implementation
+     * @return this for chaining
+     */
+    public ExpressionServiceBuilder withExpressionParserType(ExpressionParserType expressionParserType);
+
+    /**
+     * Returns the parser implementation that compilers use to parse expression strings.
+     *
+     * @return the parser implementation
+     */
+    public ExpressionParserType getExpressionParserType();
+
     /**
      * Adds the given expression serializer factory.
      *
@@ -19,8 +19,29 @@ package com.blazebit.expression;
 import com.blazebit.domain.runtime.model.DomainModel;
 import com.blazebit.expression.spi.ExpressionServiceBuilderProvider;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.ServiceLoader;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Bootstrap class that is used to obtain a {@linkplain ExpressionService}.
@@ -30,6 +51,9 @@ import java.util.ServiceLoader;
  */
 public final class Expressions {
 
+    private static final Logger LOG = Logger.getLogger(Expressions.class.getName());
+    private static final int SNAPSHOT_MAGIC = 0x424C5A45;
+    private static final int SNAPSHOT_VERSION = 1;
     private static volatile ExpressionServiceBuilderProvider defaultProvider;
 
     private Expressions() {
@@ -63,4 +87,137 @@ public final class Expressions {
         return provider;
     }
 
+    /**
+     * Writes a snapshot of the given fully built expression service to the given stream.
+     * The snapshot contains the domain model and the configuration of the expression service and can be loaded with {@link #readSnapshot(InputStream, String)}
+     * to skip building the domain model and running the contributors on startup.
+     * The fingerprint should identify the inputs that were used to build the expression service, e.g. the application version,
+     * so that a snapshot of a stale model is detected when reading it. All parts of the domain model and expression service must be {@link java.io.Serializable}.
+     *
+     * @param expressionService The expression service
+     * @param fingerprint The fingerprint of the inputs of the expression service
+     * @param outputStream The stream to write the snapshot to
+     * @throws IOException if writing fails
+     */
+    public static void writeSnapshot(ExpressionService expressionService, String fingerprint, OutputStream outputStream) throws IOException {
+        GZIPOutputStream gzipOutputStream = new GZIPOutputStream(new BufferedOutputStream(outputStream));
+        DataOutputStream dataOutputStream = new DataOutputStream(gzipOutputStream);
+        dataOutputStream.writeInt(SNAPSHOT_MAGIC);
+        dataOutputStream.writeInt(SNAPSHOT_VERSION);
+        dataOutputStream.writeUTF(fingerprint);
+        ObjectOutputStream objectOutputStream = new ObjectOutputStream(dataOutputStream);
+        objectOutputStream.writeObject(expressionService);
+        objectOutputStream.flush();
+        gzipOutputStream.finish();
+        gzipOutputStream.flush();
+    }
+
+    /**
+     * Reads a snapshot of an expression service from the given stream that was written with {@link #writeSnapshot(ExpressionService, String, OutputStream)}.
+     * Returns <code>null</code> if the snapshot is stale, i.e. if it was written with a different fingerprint or by incompatible classes.
+     * Only classes of blaze-expression, blaze-domain and basic JDK packages are deserialized, see {@link #readSnapshot(InputStream, String, Collection)}.
+     *
+     * @param inputStream The stream to read the snapshot from
+     * @param fingerprint The fingerprint of the inputs of the expected expression service
+     * @return the expression service or <code>null</code> if the snapshot is stale
+     * @throws IOException if reading fails
+     */
+    public static ExpressionService readSnapshot(InputStream inputStream, String fingerprint) throws IOException {
+        return readSnapshot(inputStream, fingerprint, Collections.<String>emptyList());
+    }
+
+    /**
+     * Reads a snapshot of an expression service from the given stream that was written with {@link #writeSnapshot(ExpressionService, String, OutputStream)}.
+     * Returns <code>null</code> if the snapshot is stale, i.e. if it was written with a different fingerprint or by incompatible classes.
+     * Only classes of the packages <code>com.blazebit</code>, <code>java.lang</code>, <code>java.util</code>, <code>java.math</code>, <code>java.sql</code>, <code>java.time</code>
+     * and the given additionally allowed packages are deserialized. A snapshot that contains other classes is treated as stale.
+     * The classes are resolved through the thread context class loader if possible.
+     *
+     * @param inputStream The stream to read the snapshot from
+     * @param fingerprint The fingerprint of the inputs of the expected expression service
+     * @param allowedPackages The additionally allowed package prefixes of classes in the snapshot, e.g. <code>com.example.</code>
+     * @return the expression service or <code>null</code> if the snapshot is stale
+     * @throws IOException if reading fails
+     */
+    public static ExpressionService readSnapshot(InputStream inputStream, String fingerprint, Collection<String> allowedPackages) throws IOException {
+        DataInputStream dataInputStream = new DataInputStream(new GZIPInputStream(new BufferedInputStream(inputStream)));
+        if (dataInputStream.readInt() != SNAPSHOT_MAGIC) {
+            throw new IOException("The stream does not contain an expression service snapshot");
+        }
+        if (dataInputStream.readInt() != SNAPSHOT_VERSION || !dataInputStream.readUTF().equals(fingerprint)) {
+            return null;
+        }
+        try {
+            return (ExpressionService) new AllowListObjectInputStream(dataInputStream, allowedPackages).readObject();
+        } catch (ClassNotFoundException | InvalidClassException | ClassCastException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the expression service from the snapshot file at the given path if it exists and matches the given fingerprint,
+     * or builds the expression service with the given supplier and writes it to a snapshot file at the given path otherwise.
+     * Only classes of blaze-expression, blaze-domain and basic JDK packages are deserialized, see {@link #readSnapshot(InputStream, String, Collection)}.
+     * A snapshot file that can't be read, e.g. because it is truncated or not a snapshot at all, is treated like a stale snapshot.
+     * Failing to write the snapshot file is only logged, as the expression service can still be used.
+     *
+     * @param snapshotFile The path of the snapshot file
+     * @param fingerprint The fingerprint of the inputs of the expression service
+     * @param expressionServiceSupplier The supplier to build the expression service if no valid snapshot exists
+     * @return the expression service
+     * @see #writeSnapshot(ExpressionService, String, OutputStream)
+     */
+    public static ExpressionService forSnapshot(Path snapshotFile, String fingerprint, Supplier<ExpressionService> expressionServiceSupplier) {
+        return forSnapshot(snapshotFile, fingerprint, Collections.<String>emptyList(), expressionServiceSupplier);
+    }
+
+    /**
+     * Returns the expression service from the snapshot file at the given path if it exists and matches the given fingerprint,
+     * or builds the expression service with the given supplier and writes it to a snapshot file at the given path otherwise.
+     * A snapshot file that can't be read, e.g. because it is truncated or not a snapshot at all, is treated like a stale snapshot.
+     * Failing to write the snapshot file is only logged, as the expression service can still be used.
+     *
+     * @param snapshotFile The path of the snapshot file
+     * @param fingerprint The fingerprint of the inputs of the expression service
+     * @param allowedPackages The additionally allowed package prefixes of classes in the snapshot, e.g. <code>com.example.</code>
+     * @param expressionServiceSupplier The supplier to build the expression service if no valid snapshot exists
+     * @return the expression service
+     * @see #readSnapshot(InputStream, String, Collection)
+     * @see #writeSnapshot(ExpressionService, String, OutputStream)
+     */
+    public static ExpressionService forSnapshot(Path snapshotFile, String fingerprint, Collection<String> allowedPackages, Supplier<ExpressionService> expressionServiceSupplier) {
+        try (InputStream inputStream = Files.newInputStream(snapshotFile)) {
+            ExpressionService expressionService = readSnapshot(inputStream, fingerprint, allowedPackages);
+            if (expressionService != null) {
+                return expressionService;
+            }
+        } catch (NoSuchFileException ex) {
+            // Build the expression service below
+        } catch (IOException ex) {
+            LOG.log(Level.WARNING, "Could not read the expression service snapshot, rebuilding it: " + snapshotFile, ex);
+        }
+        ExpressionService expressionService = expressionServiceSupplier.get();
+        try {
+            Path parent = snapshotFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            // Write to a temporary file first so that concurrently starting processes never read a partially written snapshot
+            Path temporaryFile = Files.createTempFile(parent, snapshotFile.getFileName().toString(), ".tmp");
+            try {
+                try (OutputStream outputStream = Files.newOutputStream(temporaryFile)) {
+                    writeSnapshot(expressionService, fingerprint, outputStream);
+                }
+                try {
+                    Files.move(temporaryFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException ex) {
+                    Files.move(temporaryFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temporaryFile);
+            }
+        } catch (IOException ex) {
+            LOG.log(Level.WARNING, "Could not write the expression service snapshot: " + snapshotFile, ex);
+        }
+        return expressionService;
+    }
+
 }
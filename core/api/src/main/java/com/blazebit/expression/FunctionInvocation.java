@@ -19,6 +19,9 @@ import com.blazebit.domain.runtime.model.DomainFunction;
 import com.blazebit.domain.runtime.model.DomainFunctionArgument;
 import com.blazebit.domain.runtime.model.DomainType;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -30,6 +33,7 @@ import java.util.Map;
 public final class FunctionInvocation extends AbstractExpression implements ArithmeticExpression {
     private final DomainFunction function;
     private final Map<DomainFunctionArgument, Expression> arguments;
+    private final List<Expression> positionalArguments;
     private final int hash;
 
     /**
@@ -43,6 +47,11 @@ public final class FunctionInvocation extends AbstractExpression implements Arit
         super(type);
         this.function = function;
         this.arguments = arguments;
+        Expression[] positionalArguments = new Expression[function.getArguments().size()];
+        for (Map.Entry<DomainFunctionArgument, Expression> entry : arguments.entrySet()) {
+            positionalArguments[entry.getKey().getPosition()] = entry.getValue();
+        }
+        this.positionalArguments = Collections.unmodifiableList(Arrays.asList(positionalArguments));
         this.hash = computeHashCode();
     }
 
@@ -64,6 +73,16 @@ public final class FunctionInvocation extends AbstractExpression implements Arit
         return arguments;
     }
 
+    /**
+     * Returns the function argument assignments indexed by the position of the function argument.
+     * The list has an element for every argument of the function, which is <code>null</code> for arguments that are not assigned.
+     *
+     * @return the function argument assignments indexed by position
+     */
+    public List<Expression> getPositionalArguments() {
+        return positionalArguments;
+    }
+
     /**
      * {@inheritDoc}
      */
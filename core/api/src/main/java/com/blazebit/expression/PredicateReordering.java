@@ -0,0 +1,48 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazebit.expression;
+
+/**
+ * The strategies for reordering the operands of a {@link CompoundPredicate} during evaluation through an {@link ExpressionEvaluator}.
+ * Compound predicates that may be reordered are evaluated with three valued logic, so the first operand that is <code>false</code>
+ * for a conjunction or <code>true</code> for a disjunction determines the result and the remaining operands are skipped.
+ * The result is <code>null</code> only if no operand determines the result and at least one operand is <code>null</code>.
+ * Without reordering, the first operand in source order that is <code>null</code> determines the result to be <code>null</code>,
+ * so e.g. <code>NULL AND FALSE</code> is <code>null</code> in source order, but <code>false</code> with reordering.
+ * Since skipped operands are not evaluated, exceptions are only raised for operands that are evaluated before the result is determined.
+ * Compound predicates with more than 64 operands or with operands that invoke {@link com.blazebit.domain.runtime.model.DomainFunctionVolatility#VOLATILE} functions
+ * are never reordered and are evaluated in source order.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public enum PredicateReordering {
+
+    /**
+     * Operands are evaluated in source order.
+     */
+    NONE,
+    /**
+     * Operands are evaluated in the order of their estimated static cost, based on the kind of the expression nodes.
+     */
+    STATIC,
+    /**
+     * Operands are initially evaluated in the order of their estimated static cost
+     * and reordered periodically based on how often an operand determined the result at runtime.
+     */
+    ADAPTIVE;
+}
@@ -0,0 +1,439 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazebit.expression;
+
+import com.blazebit.domain.runtime.model.DomainFunction;
+import com.blazebit.domain.runtime.model.DomainModel;
+import com.blazebit.domain.runtime.model.DomainType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.lang.ref.SoftReference;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A read only store for many sub domain models of a common base expression service, e.g. tenant specific domain models.
+ * The sub domain models are stored as binary images in a file that is memory mapped, and a sub domain model is only
+ * decoded into objects on first access through {@link #getExpressionService(String)}.
+ * Decoded expression services are only softly referenced, so rarely used sub domain models cost almost no heap.
+ * Types, functions and the domain model of the base expression service are not part of the images,
+ * but are stored as references that are resolved against the base expression service when decoding.
+ * All parts of the sub domain models that are not shared with the base domain model must be {@link Serializable}.
+ * Since offsets into the file are stored as <code>int</code>, a store file must not be larger than {@link Integer#MAX_VALUE} bytes.
+ * Only classes of blaze-expression, blaze-domain, basic JDK packages and explicitly allowed packages are decoded,
+ * see {@link Expressions#readSnapshot(InputStream, String, Collection)}.
+ * A store should be closed when it isn't used anymore. Since Java 8 has no way to explicitly unmap a file,
+ * the mapping is released once the garbage collector reclaims the buffer, which is only referenced by the store.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public final class SubDomainModelStore implements Closeable {
+
+    private static final int MAGIC = 0x424C5A53;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 12;
+
+    private final ExpressionService baseExpressionService;
+    private final Collection<String> allowedPackages;
+    private final Map<String, int[]> index;
+    private final ConcurrentHashMap<String, SoftReference<ExpressionService>> expressionServices = new ConcurrentHashMap<>();
+    private volatile ByteBuffer buffer;
+
+    private SubDomainModelStore(ExpressionService baseExpressionService, Collection<String> allowedPackages, ByteBuffer buffer, Map<String, int[]> index) {
+        this.baseExpressionService = baseExpressionService;
+        this.allowedPackages = allowedPackages;
+        this.buffer = buffer;
+        this.index = index;
+    }
+
+    /**
+     * Writes the given sub domain models of the domain model of the given base expression service to a file at the given path.
+     *
+     * @param baseExpressionService The base expression service
+     * @param subDomainModels The sub domain models by key
+     * @param file The path of the file to write
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if a sub domain model doesn't extend the base domain model or the file would be larger than {@link Integer#MAX_VALUE} bytes
+     */
+    public static void write(ExpressionService baseExpressionService, Map<String, DomainModel> subDomainModels, Path file) throws IOException {
+        BaseModelReferences references = new BaseModelReferences(baseExpressionService.getDomainModel());
+        List<String> keys = new ArrayList<>(subDomainModels.keySet());
+        List<byte[]> images = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            DomainModel subDomainModel = subDomainModels.get(key);
+            if (!references.isExtendedBy(subDomainModel)) {
+                throw new IllegalArgumentException("The domain model for key '" + key + "' is not an extension to the domain model of the base expression service!");
+            }
+            ByteArrayOutputStream imageStream = new ByteArrayOutputStream();
+            try (ObjectOutputStream objectOutputStream = new ReferenceReplacingObjectOutputStream(imageStream, references)) {
+                objectOutputStream.writeObject(subDomainModel);
+            }
+            images.add(imageStream.toByteArray());
+        }
+
+        ByteArrayOutputStream headerStream = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(headerStream);
+        header.writeInt(MAGIC);
+        header.writeInt(VERSION);
+        header.writeInt(keys.size());
+        List<byte[]> keyBytes = new ArrayList<>(keys.size());
+        long headerSize = HEADER_SIZE;
+        for (String key : keys) {
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xFFFF) {
+                throw new IllegalArgumentException("The key is too long: " + key);
+            }
+            keyBytes.add(bytes);
+            // Length prefix, key bytes, offset and length
+            headerSize += 2 + bytes.length + 4 + 4;
+        }
+        long fileSize = headerSize;
+        for (byte[] image : images) {
+            fileSize += image.length;
+        }
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The sub domain models require " + fileSize + " bytes, but a sub domain model store must not be larger than " + Integer.MAX_VALUE + " bytes!");
+        }
+        int offset = (int) headerSize;
+        for (int i = 0; i < keys.size(); i++) {
+            header.writeShort(keyBytes.get(i).length);
+            header.write(keyBytes.get(i));
+            header.writeInt(offset);
+            header.writeInt(images.get(i).length);
+            offset += images.get(i).length;
+        }
+        header.flush();
+
+        try (OutputStream outputStream = Files.newOutputStream(file)) {
+            headerStream.writeTo(outputStream);
+            for (byte[] image : images) {
+                outputStream.write(image);
+            }
+        }
+    }
+
+    /**
+     * Opens the store at the given path for the given base expression service, which must be equivalent to the one used to write the store.
+     *
+     * @param baseExpressionService The base expression service
+     * @param file The path of the file to read
+     * @return the store
+     * @throws IOException if reading fails or the file is not a valid sub domain model store
+     */
+    public static SubDomainModelStore open(ExpressionService baseExpressionService, Path file) throws IOException {
+        return open(baseExpressionService, file, Collections.<String>emptyList());
+    }
+
+    /**
+     * Opens the store at the given path for the given base expression service, which must be equivalent to the one used to write the store.
+     * Classes of the given packages are decoded in addition to the classes of the packages that are allowed by default.
+     *
+     * @param baseExpressionService The base expression service
+     * @param file The path of the file to read
+     * @param allowedPackages The additionally allowed package prefixes of classes in the sub domain models, e.g. <code>com.example.</code>
+     * @return the store
+     * @throws IOException if reading fails or the file is not a valid sub domain model store
+     */
+    public static SubDomainModelStore open(ExpressionService baseExpressionService, Path file, Collection<String> allowedPackages) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IOException("The sub domain model store is larger than " + Integer.MAX_VALUE + " bytes: " + file);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+        }
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException("The file does not contain a sub domain model store: " + file);
+        }
+        if (buffer.getInt() != VERSION) {
+            throw new IOException("Unsupported sub domain model store version in file: " + file);
+        }
+        int size = buffer.getInt();
+        Map<String, int[]> index = new HashMap<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                byte[] keyBytes = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(keyBytes);
+                int offset = buffer.getInt();
+                int length = buffer.getInt();
+                // Compare through subtraction to avoid an int overflow
+                if (offset < buffer.position() || length < 0 || offset > buffer.capacity() - length) {
+                    throw new IOException("The sub domain model store is truncated: " + file);
+                }
+                index.put(new String(keyBytes, StandardCharsets.UTF_8), new int[]{ offset, length });
+            }
+        } catch (BufferUnderflowException ex) {
+            throw new IOException("The sub domain model store is truncated: " + file, ex);
+        }
+        return new SubDomainModelStore(baseExpressionService, allowedPackages, buffer, Collections.unmodifiableMap(index));
+    }
+
+    /**
+     * Returns the keys of the sub domain models in this store.
+     *
+     * @return the keys of the sub domain models
+     */
+    public Set<String> getKeys() {
+        return index.keySet();
+    }
+
+    /**
+     * Returns the base expression service.
+     *
+     * @return the base expression service
+     */
+    public ExpressionService getBaseExpressionService() {
+        return baseExpressionService;
+    }
+
+    /**
+     * Returns the expression service for the sub domain model with the given key or <code>null</code> if there is no such sub domain model.
+     * The sub domain model is decoded on first access or if the previously decoded expression service was reclaimed by the garbage collector.
+     *
+     * @param key The key of the sub domain model
+     * @return the expression service or <code>null</code>
+     * @throws UncheckedIOException if the sub domain model can't be decoded, e.g. because the base domain model lacks a referenced type or function
+     * @throws IllegalStateException if the store is closed
+     */
+    public ExpressionService getExpressionService(String key) {
+        ByteBuffer buffer = this.buffer;
+        if (buffer == null) {
+            throw new IllegalStateException("The sub domain model store is closed");
+        }
+        int[] entry = index.get(key);
+        if (entry == null) {
+            return null;
+        }
+        SoftReference<ExpressionService> reference = expressionServices.get(key);
+        ExpressionService expressionService = reference == null ? null : reference.get();
+        if (expressionService == null) {
+            expressionService = baseExpressionService.withSubDomainModel(decode(buffer, key, entry[0], entry[1]));
+            expressionServices.put(key, new SoftReference<>(expressionService));
+        }
+        return expressionService;
+    }
+
+    /**
+     * Closes the store by dropping the references to the mapped file and the decoded expression services.
+     * Expression services that were obtained before remain usable.
+     */
+    @Override
+    public void close() {
+        buffer = null;
+        expressionServices.clear();
+    }
+
+    private DomainModel decode(ByteBuffer buffer, String key, int offset, int length) {
+        ByteBuffer image = buffer.duplicate();
+        image.position(offset);
+        image.limit(offset + length);
+        try (ObjectInputStream objectInputStream = new ReferenceResolvingObjectInputStream(new ByteBufferInputStream(image.slice()), allowedPackages, baseExpressionService.getDomainModel())) {
+            return (DomainModel) objectInputStream.readObject();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not decode the sub domain model for key: " + key, ex);
+        } catch (ClassNotFoundException ex) {
+            throw new IllegalStateException("Could not decode the sub domain model for key: " + key, ex);
+        }
+    }
+
+    /**
+     * The objects of a base domain model that are stored as references.
+     *
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    private static final class BaseModelReferences {
+
+        private final DomainModel baseModel;
+        private final Map<Object, BaseModelReference> references = new IdentityHashMap<>();
+
+        public BaseModelReferences(DomainModel baseModel) {
+            this.baseModel = baseModel;
+            references.put(baseModel, new BaseModelReference(BaseModelReference.MODEL, null));
+            for (DomainType domainType : baseModel.getTypes().values()) {
+                references.put(domainType, new BaseModelReference(BaseModelReference.TYPE, domainType.getName()));
+            }
+            for (DomainFunction domainFunction : baseModel.getFunctions().values()) {
+                references.put(domainFunction, new BaseModelReference(BaseModelReference.FUNCTION, domainFunction.getName()));
+            }
+        }
+
+        public boolean isExtendedBy(DomainModel domainModel) {
+            DomainModel model = domainModel;
+            while (model != null) {
+                if (model == baseModel) {
+                    return true;
+                }
+                model = model.getParentDomainModel();
+            }
+            return false;
+        }
+
+        public Object replace(Object object) {
+            BaseModelReference reference = references.get(object);
+            return reference == null ? object : reference;
+        }
+    }
+
+    /**
+     * A reference to the base domain model or one of its types or functions.
+     *
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    private static final class BaseModelReference implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+        private static final int MODEL = 0;
+        private static final int TYPE = 1;
+        private static final int FUNCTION = 2;
+
+        private final int kind;
+        private final String name;
+
+        public BaseModelReference(int kind, String name) {
+            this.kind = kind;
+            this.name = name;
+        }
+
+        public Object resolve(DomainModel baseModel) throws IOException {
+            Object object;
+            switch (kind) {
+                case MODEL:
+                    return baseModel;
+                case TYPE:
+                    object = baseModel.getType(name);
+                    break;
+                case FUNCTION:
+                    object = baseModel.getFunction(name);
+                    break;
+                default:
+                    object = null;
+                    break;
+            }
+            if (object == null) {
+                throw new IOException("The base domain model does not contain the referenced element: " + name);
+            }
+            return object;
+        }
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    private static final class ReferenceReplacingObjectOutputStream extends ObjectOutputStream {
+
+        private final BaseModelReferences references;
+
+        public ReferenceReplacingObjectOutputStream(OutputStream out, BaseModelReferences references) throws IOException {
+            super(out);
+            this.references = references;
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            return references.replace(obj);
+        }
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    private static final class ReferenceResolvingObjectInputStream extends AllowListObjectInputStream {
+
+        private final DomainModel baseModel;
+
+        public ReferenceResolvingObjectInputStream(InputStream in, Collection<String> allowedPackages, DomainModel baseModel) throws IOException {
+            super(in, allowedPackages);
+            this.baseModel = baseModel;
+            enableResolveObject(true);
+        }
+
+        @Override
+        protected Object resolveObject(Object obj) throws IOException {
+            if (obj instanceof BaseModelReference) {
+                return ((BaseModelReference) obj).resolve(baseModel);
+            }
+            return obj;
+        }
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        public ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -21,6 +21,8 @@ import com.blazebit.domain.runtime.model.DomainType;
 
 /**
  * An interface that gives access to the domain function argument values.
+ * Instances are only valid during a {@link FunctionInvoker#invoke} call and may be reused for subsequent invocations,
+ * so function invokers must not retain them.
  *
  * @author Christian Beikov
  * @since 1.0.0
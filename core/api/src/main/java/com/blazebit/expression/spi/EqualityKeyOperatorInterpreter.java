@@ -0,0 +1,43 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazebit.expression.spi;
+
+import com.blazebit.domain.runtime.model.DomainType;
+import com.blazebit.expression.ComparisonOperator;
+
+/**
+ * A {@link ComparisonOperatorInterpreter} that implements this interface allows evaluators to check a value against many constant values
+ * with a hash lookup instead of interpreting {@link ComparisonOperator#EQUAL} for every constant, e.g. for large <code>IN</code> lists.
+ *
+ * Implementations must return keys such that two values produce equal keys if and only if the {@link ComparisonOperator#EQUAL} interpretation
+ * of the values returns <code>true</code>. Values that can't be represented in such a way must produce a <code>null</code> key,
+ * in which case the comparison is interpreted as usual.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public interface EqualityKeyOperatorInterpreter {
+
+    /**
+     * Returns the normalized key for the given value with respect to {@link ComparisonOperator#EQUAL} or <code>null</code>.
+     *
+     * @param type The domain type of the value
+     * @param value The value, never <code>null</code>
+     * @return the normalized key or <code>null</code> if the value has no key
+     */
+    public Object getEqualityKey(DomainType type, Object value);
+}
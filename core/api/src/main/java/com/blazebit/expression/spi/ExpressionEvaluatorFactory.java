@@ -0,0 +1,53 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.blazebit.expression.spi;
+
+import com.blazebit.expression.Expression;
+import com.blazebit.expression.ExpressionEvaluator;
+import com.blazebit.expression.ExpressionService;
+
+/**
+ * A factory for expression evaluators that replaces the default evaluator implementation.
+ * Interface implemented by the expression implementation provider or extension provider.
+ *
+ * Implementations are instantiated via {@link java.util.ServiceLoader}.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public interface ExpressionEvaluatorFactory {
+
+    /**
+     * Returns a new evaluator for the given expression.
+     *
+     * @param expressionService The expression service the evaluator should be based on
+     * @param expression The expression to evaluate
+     * @return a new evaluator for the given expression
+     */
+    public ExpressionEvaluator createEvaluator(ExpressionService expressionService, Expression expression);
+
+    /**
+     * Returns a priority(lower means higher priority) of the factory.
+     * The default priority is 1000.
+     *
+     * @return the priority
+     */
+    default int priority() {
+        return 1000;
+    }
+}
@@ -18,6 +18,7 @@ package com.blazebit.expression.spi;
 
 import com.blazebit.expression.ExpressionService;
 
+import java.io.IOException;
 import java.util.Map;
 
 /**
@@ -69,4 +70,28 @@ public interface ExpressionServiceSerializer<X> {
         return serialize(expressionService, element, targetType, format, properties);
     }
 
+    /**
+     * Serializes the expression service with the given format to the given appendable.
+     * It only serializes elements that do not belong to the given base model already or are overridden.
+     * The default implementation appends the serialized form of the {@link String} target type,
+     * serializers for large elements should override this to write directly to the appendable.
+     *
+     * @param expressionService The expression service
+     * @param baseModel The base expression service
+     * @param element The element to serialize
+     * @param target The appendable to write to
+     * @param format The serialization format
+     * @param properties Serialization properties
+     * @return <code>true</code> if the format is supported, <code>false</code> otherwise
+     * @throws IOException if writing to the appendable fails
+     */
+    default boolean serializeTo(ExpressionService expressionService, ExpressionService baseModel, X element, Appendable target, String format, Map<String, Object> properties) throws IOException {
+        String serialized = serialize(expressionService, baseModel, element, String.class, format, properties);
+        if (serialized == null) {
+            return false;
+        }
+        target.append(serialized);
+        return true;
+    }
+
 }
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazebit.expression.spi;
+
+import com.blazebit.expression.ComparisonOperator;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * A {@link ComparisonOperatorInterpreter} that implements this interface allows evaluators to compare two {@link BigDecimal}
+ * or two {@link BigInteger} values directly through {@link Comparable#compareTo(Object)} instead of interpreting the {@link ComparisonOperator}.
+ *
+ * Implementations must interpret every {@link ComparisonOperator} on two such values of the same class like the respective comparison
+ * of the <code>compareTo</code> result with zero. Values of other classes are interpreted as usual.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public interface NaturalOrderComparisonOperatorInterpreter {
+}
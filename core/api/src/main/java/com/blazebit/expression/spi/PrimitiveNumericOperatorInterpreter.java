@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.blazebit.expression.spi;
+
+import com.blazebit.domain.runtime.model.DomainOperator;
+import com.blazebit.expression.ComparisonOperator;
+
+/**
+ * An interpreter for domain and comparison operators on numeric domain types whose values are represented as {@link Long} or {@link Double}.
+ * A {@link DomainOperatorInterpreter} or {@link ComparisonOperatorInterpreter} that implements this interface allows evaluators
+ * to evaluate numeric sub-expressions on primitive values without boxing intermediate results.
+ *
+ * Implementations must produce the same results as the respective boxed interpretation.
+ * A <code>long</code> operation is only used when both values are {@link Long} values.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public interface PrimitiveNumericOperatorInterpreter {
+
+    /**
+     * Interprets the domain operator as applied on the given <code>long</code> values.
+     * For {@link DomainOperator#UNARY_MINUS} the right value is ignored.
+     *
+     * @param leftValue The left value
+     * @param rightValue The right value
+     * @param operator The domain operator
+     * @return the interpretation result
+     */
+    public long interpret(long leftValue, long rightValue, DomainOperator operator);
+
+    /**
+     * Interprets the domain operator as applied on the given <code>double</code> values.
+     * For {@link DomainOperator#UNARY_MINUS} the right value is ignored.
+     *
+     * @param leftValue The left value
+     * @param rightValue The right value
+     * @param operator The domain operator
+     * @return the interpretation result
+     */
+    public double interpret(double leftValue, double rightValue, DomainOperator operator);
+
+    /**
+     * Interprets the comparison operator as applied on the given <code>long</code> values.
+     *
+     * @param leftValue The left value
+     * @param rightValue The right value
+     * @param operator The comparison operator
+     * @return the comparison result
+     */
+    public boolean interpret(long leftValue, long rightValue, ComparisonOperator operator);
+
+    /**
+     * Interprets the comparison operator as applied on the given <code>double</code> values.
+     *
+     * @param leftValue The left value
+     * @param rightValue The right value
+     * @param operator The comparison operator
+     * @return the comparison result
+     */
+    public boolean interpret(double leftValue, double rightValue, ComparisonOperator operator);
+}
@@ -0,0 +1,830 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.blazebit.expression.bytecode;
+
+import com.blazebit.domain.runtime.model.DomainFunction;
+import com.blazebit.domain.runtime.model.DomainFunctionArgument;
+import com.blazebit.domain.runtime.model.DomainOperator;
+import com.blazebit.domain.runtime.model.DomainType;
+import com.blazebit.domain.runtime.model.EntityDomainTypeAttribute;
+import com.blazebit.expression.ArithmeticExpression;
+import com.blazebit.expression.ArithmeticFactor;
+import com.blazebit.expression.BetweenPredicate;
+import com.blazebit.expression.ChainingArithmeticExpression;
+import com.blazebit.expression.ComparisonOperator;
+import com.blazebit.expression.ComparisonPredicate;
+import com.blazebit.expression.CompoundPredicate;
+import com.blazebit.expression.Expression;
+import com.blazebit.expression.ExpressionInterpreter;
+import com.blazebit.expression.ExpressionPredicate;
+import com.blazebit.expression.FunctionInvocation;
+import com.blazebit.expression.InPredicate;
+import com.blazebit.expression.IsNullPredicate;
+import com.blazebit.expression.Literal;
+import com.blazebit.expression.Path;
+import com.blazebit.expression.Predicate;
+import com.blazebit.expression.impl.EvaluatorFrame;
+import com.blazebit.expression.impl.EvaluatorNode;
+import com.blazebit.expression.impl.EvaluatorNodeFactory;
+import com.blazebit.expression.impl.ReusableDomainFunctionArguments;
+import com.blazebit.expression.spi.AttributeAccessor;
+import com.blazebit.expression.spi.ComparisonOperatorInterpreter;
+import com.blazebit.expression.spi.DefaultResolvedLiteral;
+import com.blazebit.expression.spi.DomainFunctionArguments;
+import com.blazebit.expression.spi.DomainOperatorInterpreter;
+import com.blazebit.expression.spi.FunctionInvoker;
+import com.blazebit.expression.spi.NaturalOrderComparisonOperatorInterpreter;
+import com.blazebit.expression.spi.PrimitiveNumericOperatorInterpreter;
+import com.blazebit.expression.spi.ResolvedLiteral;
+import com.blazebit.expression.spi.TypeAdapter;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compiles an expression into a class implementing {@link EvaluatorNode}.
+ * Every expression node is compiled into a dedicated method, value expressions return the boxed value,
+ * whereas predicates return a primitive three valued logic result as defined by {@link BytecodeSupport}.
+ * The domain model metadata is stored in final fields of the generated class and every generated method has its own call sites,
+ * so the call sites of the generated code only ever see a single receiver class.
+ * Comparisons of two {@link Long} or two {@link Double} values are done on primitive values if the comparison operator interpreter
+ * is a {@link PrimitiveNumericOperatorInterpreter} and comparisons of two {@link BigDecimal} or two {@link BigInteger} values
+ * are inlined if it is a {@link NaturalOrderComparisonOperatorInterpreter}.
+ * Compound predicates short-circuit without boxing, unless the operands are reordered. Then every operand is compiled to a dedicated class
+ * and the operands are evaluated by the reordering node of the {@link EvaluatorNodeFactory}.
+ * Nodes that can't be compiled are delegated to {@link EvaluatorNode}s created by the {@link EvaluatorNodeFactory}.
+ *
+ * Every generated class is defined in a dedicated class loader, so it can be unloaded when the evaluator is not referenced anymore.
+ * An instance of the compiler must only be used for compiling a single expression.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public class BytecodeEvaluatorCompiler {
+
+    /**
+     * The maximum number of IN items that are compiled, longer lists are delegated to avoid hitting the method size limit.
+     */
+    public static final int MAX_COMPILED_IN_ITEMS = 256;
+
+    private static final AtomicLong COUNTER = new AtomicLong();
+    private static final String CLASS_NAME_PREFIX = "com/blazebit/expression/bytecode/generated/CompiledExpression$";
+    private static final String OBJECT = Type.getInternalName(Object.class);
+    private static final String OBJECT_DESCRIPTOR = Type.getDescriptor(Object.class);
+    private static final String SUPPORT = Type.getInternalName(BytecodeSupport.class);
+    private static final String CONTEXT = Type.getInternalName(ExpressionInterpreter.Context.class);
+    private static final String CONTEXT_DESCRIPTOR = Type.getDescriptor(ExpressionInterpreter.Context.class);
+    private static final String DOMAIN_TYPE_DESCRIPTOR = Type.getDescriptor(DomainType.class);
+    private static final String FRAME = Type.getInternalName(EvaluatorFrame.class);
+    private static final String NODE = Type.getInternalName(EvaluatorNode.class);
+    private static final String VALUE_METHOD_DESCRIPTOR = "(" + Type.getDescriptor(EvaluatorFrame.class) + ")" + OBJECT_DESCRIPTOR;
+    private static final String PREDICATE_METHOD_DESCRIPTOR = "(" + Type.getDescriptor(EvaluatorFrame.class) + ")I";
+    private static final String ARGUMENTS = Type.getInternalName(ReusableDomainFunctionArguments.class);
+    private static final String ARGUMENTS_DESCRIPTOR = Type.getDescriptor(ReusableDomainFunctionArguments.class);
+    private static final int THIS = 0;
+    private static final int FRAME_VAR = 1;
+    private static final int CONTEXT_VAR = 2;
+    private static final int FIRST_VAR = 3;
+
+    private final String className = CLASS_NAME_PREFIX + COUNTER.incrementAndGet();
+    private final ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES) {
+        @Override
+        protected String getCommonSuperClass(String type1, String type2) {
+            // All locals are typed as interfaces or Object, so there is no need to load classes
+            return OBJECT;
+        }
+    };
+    private final EvaluatorNodeFactory evaluatorNodeFactory;
+    private final List<Object> constants = new ArrayList<>();
+    private final List<Class<?>> constantTypes = new ArrayList<>();
+    private int methodCount;
+
+    /**
+     * Creates a compiler that uses a fresh {@link EvaluatorNodeFactory} for sub-expressions that are not compiled to bytecode.
+     */
+    public BytecodeEvaluatorCompiler() {
+        this(new EvaluatorNodeFactory());
+    }
+
+    /**
+     * Creates a compiler that uses the given factory for sub-expressions that are not compiled to bytecode.
+     *
+     * @param evaluatorNodeFactory The evaluator node factory
+     */
+    public BytecodeEvaluatorCompiler(EvaluatorNodeFactory evaluatorNodeFactory) {
+        this.evaluatorNodeFactory = evaluatorNodeFactory;
+    }
+
+    /**
+     * Compiles the given expression into an evaluator node.
+     *
+     * @param expression The expression to compile
+     * @return the compiled evaluator node
+     */
+    public EvaluatorNode compile(Expression expression) {
+        classWriter.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, className, null, OBJECT, new String[]{ NODE });
+        evaluatorNodeFactory.registerSharedSubexpressions(expression);
+        boolean predicate = expression instanceof Predicate;
+        String rootMethod = predicate ? predicateMethod(expression) : valueMethod(expression);
+
+        MethodVisitor mv = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "evaluate", VALUE_METHOD_DESCRIPTOR, null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, THIS);
+        mv.visitVarInsn(Opcodes.ALOAD, FRAME_VAR);
+        if (predicate) {
+            mv.visitMethodInsn(Opcodes.INVOKESPECIAL, className, rootMethod, PREDICATE_METHOD_DESCRIPTOR, false);
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, SUPPORT, "toBoolean", "(I)Ljava/lang/Boolean;", false);
+        } else {
+            mv.visitMethodInsn(Opcodes.INVOKESPECIAL, className, rootMethod, VALUE_METHOD_DESCRIPTOR, false);
+        }
+        mv.visitInsn(Opcodes.ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        visitConstructor();
+        classWriter.visitEnd();
+
+        byte[] bytes = classWriter.toByteArray();
+        CompiledExpressionClassLoader classLoader = new CompiledExpressionClassLoader(BytecodeEvaluatorCompiler.class.getClassLoader());
+        Class<?> nodeClass = classLoader.define(className.replace('/', '.'), bytes);
+        try {
+            return (EvaluatorNode) nodeClass.getConstructor(Object[].class).newInstance((Object) constants.toArray());
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Could not instantiate compiled expression class for: " + expression, ex);
+        }
+    }
+
+    private void visitConstructor() {
+        MethodVisitor mv = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "([Ljava/lang/Object;)V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, THIS);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, OBJECT, "<init>", "()V", false);
+        for (int i = 0; i < constants.size(); i++) {
+            Class<?> type = constantTypes.get(i);
+            mv.visitVarInsn(Opcodes.ALOAD, THIS);
+            mv.visitVarInsn(Opcodes.ALOAD, 1);
+            pushInt(mv, i);
+            mv.visitInsn(Opcodes.AALOAD);
+            if (type != Object.class) {
+                mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(type));
+            }
+            mv.visitFieldInsn(Opcodes.PUTFIELD, className, "c" + i, Type.getDescriptor(type));
+        }
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private String valueMethod(Expression expression) {
+        if (expression instanceof Predicate) {
+            String predicateMethod = predicateMethod(expression);
+            MethodVisitor mv = beginMethod("v", VALUE_METHOD_DESCRIPTOR);
+            invokePredicate(mv, predicateMethod);
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, SUPPORT, "toBoolean", "(I)Ljava/lang/Boolean;", false);
+            return endMethod(mv, Opcodes.ARETURN);
+        } else if (expression instanceof Path) {
+            return pathMethod((Path) expression);
+        } else if (expression instanceof FunctionInvocation) {
+            return functionMethod((FunctionInvocation) expression);
+        } else if (expression instanceof ChainingArithmeticExpression) {
+            return arithmeticMethod((ChainingArithmeticExpression) expression);
+        } else if (expression instanceof ArithmeticFactor) {
+            ArithmeticFactor arithmeticFactor = (ArithmeticFactor) expression;
+            if (arithmeticFactor.isInvertSignum()) {
+                return negationMethod(arithmeticFactor);
+            }
+            return valueMethod(arithmeticFactor.getExpression());
+        } else if (expression instanceof Literal && expression.getType().getKind() != DomainType.DomainTypeKind.COLLECTION) {
+            return literalMethod((Literal) expression);
+        }
+        return fallbackMethod(expression);
+    }
+
+    private String predicateMethod(Expression expression) {
+        if (expression instanceof CompoundPredicate) {
+            CompoundPredicate compoundPredicate = (CompoundPredicate) expression;
+            if (evaluatorNodeFactory.isReordered(compoundPredicate)) {
+                return reorderingCompoundMethod(compoundPredicate);
+            }
+            return compoundMethod(compoundPredicate);
+        } else if (expression instanceof ComparisonPredicate) {
+            return comparisonMethod((ComparisonPredicate) expression);
+        } else if (expression instanceof BetweenPredicate) {
+            return betweenMethod((BetweenPredicate) expression);
+        } else if (expression instanceof InPredicate && ((InPredicate) expression).getInItems().size() <= MAX_COMPILED_IN_ITEMS
+            && EvaluatorNodeFactory.equalityKeys((InPredicate) expression) == null) {
+            return inMethod((InPredicate) expression);
+        } else if (expression instanceof IsNullPredicate) {
+            return isNullMethod((IsNullPredicate) expression);
+        } else if (expression instanceof ExpressionPredicate) {
+            return expressionPredicateMethod((ExpressionPredicate) expression);
+        }
+        String valueMethod = fallbackMethod(expression);
+        MethodVisitor mv = beginMethod("p", PREDICATE_METHOD_DESCRIPTOR);
+        invokeValue(mv, valueMethod);
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, SUPPORT, "toTriState", "(" + OBJECT_DESCRIPTOR + ")I", false);
+        return endMethod(mv, Opcodes.IRETURN);
+    }
+
+    private String fallbackMethod(Expression expression) {
+        return nodeMethod(evaluatorNodeFactory.create(expression));
+    }
+
+    private String nodeMethod(EvaluatorNode node) {
+        MethodVisitor mv = beginMethod("v", VALUE_METHOD_DESCRIPTOR);
+        loadConstant(mv, node, EvaluatorNode.class);
+        mv.visitVarInsn(Opcodes.ALOAD, FRAME_VAR);
+        mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, NODE, "evaluate", VALUE_METHOD_DESCRIPTOR, true);
+        return endMethod(mv, Opcodes.ARETURN);
+    }
+
+    private String literalMethod(Literal literal) {
+        ResolvedLiteral resolvedLiteral = literal.getResolvedLiteral();
+        MethodVisitor mv = beginMethod("v", VALUE_METHOD_DESCRIPTOR);
+        if (resolvedLiteral instanceof DefaultResolvedLiteral) {
+            loadConstant(mv, resolvedLiteral.getValue(), Object.class);
+        } else {
+            // Other resolved literals might produce the value lazily e.g. entity references
+            loadConstant(mv, resolvedLiteral, ResolvedLiteral.class);
+            mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, Type.getInternalName(ResolvedLiteral.class), "getValue", "()" + OBJECT_DESCRIPTOR, true);
+        }
+        return endMethod(mv, Opcodes.ARETURN);
+    }
+
+    private String pathMethod(Path path) {
+        if (evaluatorNodeFactory.hasSharedPathPrefix(path)) {
+            // Shared path prefixes are memoized in the frame by the evaluator node
+            return fallbackMethod(path);
+        }
+        String baseMethod = path.getBase() == null ? null : valueMethod(path.getBase());
+        MethodVisitor mv = beginMethod("v", VALUE_METHOD_DESCRIPTOR);
+        if (baseMethod == null) {
+            mv.visitVarInsn(Opcodes.ALOAD, CONTEXT_VAR);
+            mv.visitLdcInsn(path.getAlias());
+            mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, CONTEXT, "getRoot", "(Ljava/lang/String;)" + OBJECT_DESCRIPTOR, true);
+        } else {
+            invokeValue(mv, baseMethod);
+        }
+        int valueVar = FIRST_VAR;
+        for (EntityDomainTypeAttribute attribute : path.getAttributes()) {
+            mv.visitVarInsn(Opcodes.ASTORE, valueVar);
+            returnNullIfNull(mv, valueVar);
+            loadConstant(mv, EvaluatorNodeFactory.attributeAccessor(attribute), AttributeAccessor.class);
+            mv.visitVarInsn(Opcodes.ALOAD, CONTEXT_VAR);
+            mv.visitVarInsn(Opcodes.ALOAD, valueVar);
+            loadConstant(mv, attribute, EntityDomainTypeAttribute.class);
+            mv.visitMethodInsn(
+                Opcodes.INVOKEINTERFACE,
+                Type.getInternalName(AttributeAccessor.class),
+                "getAttribute",
+                "(" + CONTEXT_DESCRIPTOR + OBJECT_DESCRIPTOR + Type.getDescriptor(EntityDomainTypeAttribute.class) + ")" + OBJECT_DESCRIPTOR,
+                true
+            );
+            TypeAdapter<?, ?> typeAdapter = attribute.getMetadata(TypeAdapter.class);
+            if (typeAdapter != null) {
+                mv.visitVarInsn(Opcodes.ASTORE, valueVar);
+                invokeTypeAdapter(mv, typeAdapter, attribute.getType(), "toInternalType", valueVar);
+            }
+        }
+        return endMethod(mv, Opcodes.ARETURN);
+    }
+
+    private String functionMethod(FunctionInvocation functionInvocation) {
+        if (evaluatorNodeFactory.isSharedFunctionInvocation(functionInvocation)) {
+            // Repeated function invocations are memoized in the frame by the evaluator node
+            return fallbackMethod(functionInvocation);
+        }
+        DomainFunction function = functionInvocation.getFunction();
+        Map<DomainFunctionArgument, Expression> arguments = functionInvocation.getArguments();
+        List<String> argumentMethods = new ArrayList<>(arguments.size());
+        for (Expression argument : arguments.values()) {
+            argumentMethods.add(valueMethod(argument));
+        }
+        MethodVisitor mv = beginMethod("v", VALUE_METHOD_DESCRIPTOR);
+        int tempVar = FIRST_VAR;
+        int argumentsVar = FIRST_VAR + 1;
+        if (arguments.isEmpty()) {
+            mv.visitFieldInsn(Opcodes.GETSTATIC, Type.getInternalName(DomainFunctionArguments.class), "EMPTY", Type.getDescriptor(DomainFunctionArguments.class));
+            mv.visitVarInsn(Opcodes.ASTORE, argumentsVar);
+        } else {
+            // The frame provides reusable arguments per nesting depth, so invocations don't allocate.
+            // The arguments are released after the invocation, but not on exceptions, which is fine as the depth is only used for reuse
+            mv.visitVarInsn(Opcodes.ALOAD, FRAME_VAR);
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, FRAME, "acquireFunctionArguments", "()" + ARGUMENTS_DESCRIPTOR, false);
+            mv.visitVarInsn(Opcodes.ASTORE, argumentsVar);
+            mv.visitVarInsn(Opcodes.ALOAD, argumentsVar);
+            pushInt(mv, function.getArguments().size());
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, ARGUMENTS, "reset", "(I)V", false);
+            int i = 0;
+            for (Map.Entry<DomainFunctionArgument, Expression> entry : arguments.entrySet()) {
+                DomainFunctionArgument functionArgument = entry.getKey();
+                invokeValue(mv, argumentMethods.get(i++));
+                TypeAdapter<?, ?> argumentAdapter = functionArgument.getMetadata(TypeAdapter.class);
+                if (argumentAdapter != null) {
+                    mv.visitVarInsn(Opcodes.ASTORE, tempVar);
+                    invokeTypeAdapter(mv, argumentAdapter, functionArgument.getType(), "toModelType", tempVar);
+                }
+                mv.visitVarInsn(Opcodes.ASTORE, tempVar);
+                mv.visitVarInsn(Opcodes.ALOAD, argumentsVar);
+                pushInt(mv, functionArgument.getPosition());
+                mv.visitVarInsn(Opcodes.ALOAD, tempVar);
+                loadConstant(mv, entry.getValue().getType(), DomainType.class);
+                mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, ARGUMENTS, "set", "(I" + OBJECT_DESCRIPTOR + DOMAIN_TYPE_DESCRIPTOR + ")V", false);
+            }
+        }
+        loadConstant(mv, EvaluatorNodeFactory.functionInvoker(function), FunctionInvoker.class);
+        mv.visitVarInsn(Opcodes.ALOAD, CONTEXT_VAR);
+        loadConstant(mv, function, DomainFunction.class);
+        mv.visitVarInsn(Opcodes.ALOAD, argumentsVar);
+        mv.visitMethodInsn(
+            Opcodes.INVOKEINTERFACE,
+            Type.getInternalName(FunctionInvoker.class),
+            "invoke",
+            "(" + CONTEXT_DESCRIPTOR + Type.getDescriptor(DomainFunction.class) + Type.getDescriptor(DomainFunctionArguments.class) + ")" + OBJECT_DESCRIPTOR,
+            true
+        );
+        if (!arguments.isEmpty()) {
+            mv.visitVarInsn(Opcodes.ALOAD, FRAME_VAR);
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, FRAME, "releaseFunctionArguments", "()V", false);
+        }
+        TypeAdapter<?, ?> resultAdapter = function.getMetadata(TypeAdapter.class);
+        if (resultAdapter != null) {
+            mv.visitVarInsn(Opcodes.ASTORE, tempVar);
+            invokeTypeAdapter(mv, resultAdapter, function.getResultType(), "toInternalType", tempVar);
+        }
+        return endMethod(mv, Opcodes.ARETURN);
+    }
+
+    private String arithmeticMethod(ChainingArithmeticExpression expression) {
+        String leftMethod = valueMethod(expression.getLeft());
+        String rightMethod = valueMethod(expression.getRight());
+        MethodVisitor mv = beginMethod("v", VALUE_METHOD_DESCRIPTOR);
+        int leftVar = FIRST_VAR;
+        int rightVar = FIRST_VAR + 1;
+        invokeValue(mv, leftMethod);
+        mv.visitVarInsn(Opcodes.ASTORE, leftVar);
+        returnNullIfNull(mv, leftVar);
+        invokeValue(mv, rightMethod);
+        mv.visitVarInsn(Opcodes.ASTORE, rightVar);
+        returnNullIfNull(mv, rightVar);
+        invokeDomainOperator(
+            mv,
+            expression.getType(),
+            expression.getLeft().getType(),
+            expression.getRight().getType(),
+            leftVar,
+            rightVar,
+            expression.getOperator().getDomainOperator()
+        );
+        return endMethod(mv, Opcodes.ARETURN);
+    }
+
+    private String negationMethod(ArithmeticFactor expression) {
+        String valueMethod = valueMethod(expression.getExpression());
+        MethodVisitor mv = beginMethod("v", VALUE_METHOD_DESCRIPTOR);
+        int valueVar = FIRST_VAR;
+        invokeValue(mv, valueMethod);
+        mv.visitVarInsn(Opcodes.ASTORE, valueVar);
+        returnNullIfNull(mv, valueVar);
+        invokeDomainOperator(mv, expression.getType(), expression.getType(), null, valueVar, -1, DomainOperator.UNARY_MINUS);
+        return endMethod(mv, Opcodes.ARETURN);
+    }
+
+    private String compoundMethod(CompoundPredicate predicate) {
+        List<Predicate> predicates = predicate.getPredicates();
+        List<String> predicateMethods = new ArrayList<>(predicates.size());
+        for (Predicate p : predicates) {
+            predicateMethods.add(predicateMethod(p));
+        }
+        int negated = predicate.isNegated() ? BytecodeSupport.TRUE : BytecodeSupport.FALSE;
+        int notNegated = predicate.isNegated() ? BytecodeSupport.FALSE : BytecodeSupport.TRUE;
+        MethodVisitor mv = beginMethod("p", PREDICATE_METHOD_DESCRIPTOR);
+        if (predicates.isEmpty()) {
+            pushInt(mv, predicate.isConjunction() ? negated : notNegated);
+            return endMethod(mv, Opcodes.IRETURN);
+        }
+        int resultVar = FIRST_VAR;
+        for (String predicateMethod : predicateMethods) {
+            invokePredicate(mv, predicateMethod);
+            mv.visitVarInsn(Opcodes.ISTORE, resultVar);
+            returnIntIfUnknown(mv, resultVar);
+            Label next = new Label();
+            mv.visitVarInsn(Opcodes.ILOAD, resultVar);
+            if (predicate.isConjunction()) {
+                mv.visitJumpInsn(Opcodes.IFNE, next);
+                pushInt(mv, negated);
+            } else {
+                mv.visitJumpInsn(Opcodes.IFEQ, next);
+                pushInt(mv, notNegated);
+            }
+            mv.visitInsn(Opcodes.IRETURN);
+            mv.visitLabel(next);
+        }
+        pushInt(mv, predicate.isConjunction() ? notNegated : negated);
+        return endMethod(mv, Opcodes.IRETURN);
+    }
+
+    private String reorderingCompoundMethod(CompoundPredicate predicate) {
+        // The operands are compiled to dedicated classes, so that the reordering node can evaluate them in any order
+        List<Predicate> predicates = predicate.getPredicates();
+        EvaluatorNode[] operands = new EvaluatorNode[predicates.size()];
+        for (int i = 0; i < operands.length; i++) {
+            operands[i] = new BytecodeEvaluatorCompiler(evaluatorNodeFactory).compile(predicates.get(i));
+        }
+        String valueMethod = nodeMethod(evaluatorNodeFactory.createCompoundNode(predicate, operands));
+        MethodVisitor mv = beginMethod("p", PREDICATE_METHOD_DESCRIPTOR);
+        invokeValue(mv, valueMethod);
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, SUPPORT, "toTriState", "(" + OBJECT_DESCRIPTOR + ")I", false);
+        return endMethod(mv, Opcodes.IRETURN);
+    }
+
+    private String comparisonMethod(ComparisonPredicate predicate) {
+        String leftMethod = valueMethod(predicate.getLeft());
+        String rightMethod = valueMethod(predicate.getRight());
+        MethodVisitor mv = beginMethod("p", PREDICATE_METHOD_DESCRIPTOR);
+        int leftVar = FIRST_VAR;
+        int rightVar = FIRST_VAR + 1;
+        invokeValue(mv, leftMethod);
+        mv.visitVarInsn(Opcodes.ASTORE, leftVar);
+        returnUnknownIfNull(mv, leftVar);
+        invokeValue(mv, rightMethod);
+        mv.visitVarInsn(Opcodes.ASTORE, rightVar);
+        returnUnknownIfNull(mv, rightVar);
+        compare(mv, predicate.getLeft().getType(), predicate.getRight().getType(), leftVar, rightVar, predicate.getOperator());
+        if (predicate.isNegated()) {
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, SUPPORT, "not", "(I)I", false);
+        }
+        return endMethod(mv, Opcodes.IRETURN);
+    }
+
+    private String betweenMethod(BetweenPredicate predicate) {
+        String leftMethod = valueMethod(predicate.getLeft());
+        String lowerMethod = valueMethod(predicate.getLower());
+        String upperMethod = valueMethod(predicate.getUpper());
+        MethodVisitor mv = beginMethod("p", PREDICATE_METHOD_DESCRIPTOR);
+        int leftVar = FIRST_VAR;
+        int lowerVar = FIRST_VAR + 1;
+        int upperVar = FIRST_VAR + 2;
+        int resultVar = FIRST_VAR + 3;
+        int testValue = predicate.isNegated() ? BytecodeSupport.TRUE : BytecodeSupport.FALSE;
+        invokeValue(mv, leftMethod);
+        mv.visitVarInsn(Opcodes.ASTORE, leftVar);
+        returnUnknownIfNull(mv, leftVar);
+        invokeValue(mv, lowerMethod);
+        mv.visitVarInsn(Opcodes.ASTORE, lowerVar);
+        returnUnknownIfNull(mv, lowerVar);
+        invokeValue(mv, upperMethod);
+        mv.visitVarInsn(Opcodes.ASTORE, upperVar);
+        returnUnknownIfNull(mv, upperVar);
+
+        compare(mv, predicate.getLeft().getType(), predicate.getLower().getType(), leftVar, lowerVar, ComparisonOperator.GREATER_OR_EQUAL);
+        mv.visitVarInsn(Opcodes.ISTORE, resultVar);
+        returnIntIfUnknownOrEqual(mv, resultVar, testValue);
+        compare(mv, predicate.getLeft().getType(), predicate.getUpper().getType(), leftVar, upperVar, ComparisonOperator.LOWER_OR_EQUAL);
+        mv.visitVarInsn(Opcodes.ISTORE, resultVar);
+        returnIntIfUnknownOrEqual(mv, resultVar, testValue);
+        pushInt(mv, BytecodeSupport.TRUE);
+        return endMethod(mv, Opcodes.IRETURN);
+    }
+
+    private String inMethod(InPredicate predicate) {
+        String leftMethod = valueMethod(predicate.getLeft());
+        List<ArithmeticExpression> inItems = predicate.getInItems();
+        List<String> itemMethods = new ArrayList<>(inItems.size());
+        for (ArithmeticExpression inItem : inItems) {
+            itemMethods.add(valueMethod(inItem));
+        }
+        MethodVisitor mv = beginMethod("p", PREDICATE_METHOD_DESCRIPTOR);
+        int leftVar = FIRST_VAR;
+        int itemVar = FIRST_VAR + 1;
+        int resultVar = FIRST_VAR + 2;
+        int testValue = predicate.isNegated() ? BytecodeSupport.TRUE : BytecodeSupport.FALSE;
+        invokeValue(mv, leftMethod);
+        mv.visitVarInsn(Opcodes.ASTORE, leftVar);
+        returnUnknownIfNull(mv, leftVar);
+        for (int i = 0; i < inItems.size(); i++) {
+            invokeValue(mv, itemMethods.get(i));
+            mv.visitVarInsn(Opcodes.ASTORE, itemVar);
+            returnUnknownIfNull(mv, itemVar);
+            compare(mv, predicate.getLeft().getType(), inItems.get(i).getType(), leftVar, itemVar, ComparisonOperator.EQUAL);
+            mv.visitVarInsn(Opcodes.ISTORE, resultVar);
+            Label next = new Label();
+            mv.visitVarInsn(Opcodes.ILOAD, resultVar);
+            pushInt(mv, testValue);
+            mv.visitJumpInsn(Opcodes.IF_ICMPEQ, next);
+            mv.visitVarInsn(Opcodes.ILOAD, resultVar);
+            mv.visitInsn(Opcodes.IRETURN);
+            mv.visitLabel(next);
+        }
+        pushInt(mv, testValue);
+        return endMethod(mv, Opcodes.IRETURN);
+    }
+
+    private String isNullMethod(IsNullPredicate predicate) {
+        String leftMethod = valueMethod(predicate.getLeft());
+        MethodVisitor mv = beginMethod("p", PREDICATE_METHOD_DESCRIPTOR);
+        Label notNull = new Label();
+        invokeValue(mv, leftMethod);
+        mv.visitJumpInsn(Opcodes.IFNONNULL, notNull);
+        pushInt(mv, predicate.isNegated() ? BytecodeSupport.FALSE : BytecodeSupport.TRUE);
+        mv.visitInsn(Opcodes.IRETURN);
+        mv.visitLabel(notNull);
+        pushInt(mv, predicate.isNegated() ? BytecodeSupport.TRUE : BytecodeSupport.FALSE);
+        return endMethod(mv, Opcodes.IRETURN);
+    }
+
+    private String expressionPredicateMethod(ExpressionPredicate predicate) {
+        String valueMethod = valueMethod(predicate.getExpression());
+        MethodVisitor mv = beginMethod("p", PREDICATE_METHOD_DESCRIPTOR);
+        invokeValue(mv, valueMethod);
+        mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(Boolean.class));
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, SUPPORT, "toTriState", "(Ljava/lang/Boolean;)I", false);
+        if (predicate.isNegated()) {
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, SUPPORT, "not", "(I)I", false);
+        }
+        return endMethod(mv, Opcodes.IRETURN);
+    }
+
+    /**
+     * Pushes the three valued logic result of comparing the two non-null values onto the stack.
+     * Values of the same class are compared inline if the comparison operator interpreter allows it,
+     * all other values are compared through the comparison operator interpreter.
+     */
+    private void compare(MethodVisitor mv, DomainType leftType, DomainType rightType, int leftVar, int rightVar, ComparisonOperator operator) {
+        ComparisonOperatorInterpreter interpreter = EvaluatorNodeFactory.comparisonOperatorInterpreter(leftType);
+        Label end = new Label();
+        if (interpreter instanceof PrimitiveNumericOperatorInterpreter) {
+            comparePrimitive(mv, interpreter, Long.class, "longValue", Type.LONG_TYPE, leftVar, rightVar, operator, end);
+            comparePrimitive(mv, interpreter, Double.class, "doubleValue", Type.DOUBLE_TYPE, leftVar, rightVar, operator, end);
+        }
+        if (interpreter instanceof NaturalOrderComparisonOperatorInterpreter) {
+            compareNaturalOrder(mv, BigDecimal.class, leftVar, rightVar, operator, end);
+            compareNaturalOrder(mv, BigInteger.class, leftVar, rightVar, operator, end);
+        }
+        loadConstant(mv, interpreter, ComparisonOperatorInterpreter.class);
+        mv.visitVarInsn(Opcodes.ALOAD, CONTEXT_VAR);
+        loadConstant(mv, leftType, DomainType.class);
+        loadConstant(mv, rightType, DomainType.class);
+        mv.visitVarInsn(Opcodes.ALOAD, leftVar);
+        mv.visitVarInsn(Opcodes.ALOAD, rightVar);
+        mv.visitFieldInsn(Opcodes.GETSTATIC, Type.getInternalName(ComparisonOperator.class), operator.name(), Type.getDescriptor(ComparisonOperator.class));
+        mv.visitMethodInsn(
+            Opcodes.INVOKEINTERFACE,
+            Type.getInternalName(ComparisonOperatorInterpreter.class),
+            "interpret",
+            "(" + CONTEXT_DESCRIPTOR + DOMAIN_TYPE_DESCRIPTOR + DOMAIN_TYPE_DESCRIPTOR + OBJECT_DESCRIPTOR + OBJECT_DESCRIPTOR + Type.getDescriptor(ComparisonOperator.class) + ")Ljava/lang/Boolean;",
+            true
+        );
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, SUPPORT, "toTriState", "(Ljava/lang/Boolean;)I", false);
+        mv.visitLabel(end);
+    }
+
+    /**
+     * Pushes the result of comparing the unboxed values onto the stack and jumps to the end label if both values are of the given box type.
+     */
+    private void comparePrimitive(MethodVisitor mv, ComparisonOperatorInterpreter interpreter, Class<?> boxType, String unboxMethod, Type primitiveType, int leftVar, int rightVar, ComparisonOperator operator, Label end) {
+        String box = Type.getInternalName(boxType);
+        Label next = new Label();
+        jumpIfNotInstance(mv, leftVar, box, next);
+        jumpIfNotInstance(mv, rightVar, box, next);
+        loadConstant(mv, interpreter, PrimitiveNumericOperatorInterpreter.class);
+        mv.visitVarInsn(Opcodes.ALOAD, leftVar);
+        mv.visitTypeInsn(Opcodes.CHECKCAST, box);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, box, unboxMethod, "()" + primitiveType.getDescriptor(), false);
+        mv.visitVarInsn(Opcodes.ALOAD, rightVar);
+        mv.visitTypeInsn(Opcodes.CHECKCAST, box);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, box, unboxMethod, "()" + primitiveType.getDescriptor(), false);
+        mv.visitFieldInsn(Opcodes.GETSTATIC, Type.getInternalName(ComparisonOperator.class), operator.name(), Type.getDescriptor(ComparisonOperator.class));
+        mv.visitMethodInsn(
+            Opcodes.INVOKEINTERFACE,
+            Type.getInternalName(PrimitiveNumericOperatorInterpreter.class),
+            "interpret",
+            "(" + primitiveType.getDescriptor() + primitiveType.getDescriptor() + Type.getDescriptor(ComparisonOperator.class) + ")Z",
+            true
+        );
+        // The boolean result is already the three valued logic result, because TRUE is 1 and FALSE is 0
+        mv.visitJumpInsn(Opcodes.GOTO, end);
+        mv.visitLabel(next);
+    }
+
+    /**
+     * Pushes the result of comparing the values through {@link Comparable#compareTo(Object)} onto the stack
+     * and jumps to the end label if both values are of the given type.
+     */
+    private static void compareNaturalOrder(MethodVisitor mv, Class<?> type, int leftVar, int rightVar, ComparisonOperator operator, Label end) {
+        String internalName = Type.getInternalName(type);
+        Label next = new Label();
+        Label isTrue = new Label();
+        jumpIfNotInstance(mv, leftVar, internalName, next);
+        jumpIfNotInstance(mv, rightVar, internalName, next);
+        mv.visitVarInsn(Opcodes.ALOAD, leftVar);
+        mv.visitTypeInsn(Opcodes.CHECKCAST, internalName);
+        mv.visitVarInsn(Opcodes.ALOAD, rightVar);
+        mv.visitTypeInsn(Opcodes.CHECKCAST, internalName);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, internalName, "compareTo", "(" + Type.getDescriptor(type) + ")I", false);
+        mv.visitJumpInsn(jumpOpcode(operator), isTrue);
+        pushInt(mv, BytecodeSupport.FALSE);
+        mv.visitJumpInsn(Opcodes.GOTO, end);
+        mv.visitLabel(isTrue);
+        pushInt(mv, BytecodeSupport.TRUE);
+        mv.visitJumpInsn(Opcodes.GOTO, end);
+        mv.visitLabel(next);
+    }
+
+    private static int jumpOpcode(ComparisonOperator operator) {
+        switch (operator) {
+            case EQUAL:
+                return Opcodes.IFEQ;
+            case NOT_EQUAL:
+                return Opcodes.IFNE;
+            case GREATER_OR_EQUAL:
+                return Opcodes.IFGE;
+            case GREATER:
+                return Opcodes.IFGT;
+            case LOWER_OR_EQUAL:
+                return Opcodes.IFLE;
+            case LOWER:
+                return Opcodes.IFLT;
+            default:
+                throw new IllegalArgumentException("Unsupported comparison operator: " + operator);
+        }
+    }
+
+    private void invokeDomainOperator(MethodVisitor mv, DomainType targetType, DomainType leftType, DomainType rightType, int leftVar, int rightVar, DomainOperator operator) {
+        loadConstant(mv, EvaluatorNodeFactory.domainOperatorInterpreter(targetType), DomainOperatorInterpreter.class);
+        mv.visitVarInsn(Opcodes.ALOAD, CONTEXT_VAR);
+        loadConstant(mv, targetType, DomainType.class);
+        loadConstant(mv, leftType, DomainType.class);
+        loadConstant(mv, rightType, DomainType.class);
+        mv.visitVarInsn(Opcodes.ALOAD, leftVar);
+        if (rightVar == -1) {
+            mv.visitInsn(Opcodes.ACONST_NULL);
+        } else {
+            mv.visitVarInsn(Opcodes.ALOAD, rightVar);
+        }
+        mv.visitFieldInsn(Opcodes.GETSTATIC, Type.getInternalName(DomainOperator.class), operator.name(), Type.getDescriptor(DomainOperator.class));
+        mv.visitMethodInsn(
+            Opcodes.INVOKEINTERFACE,
+            Type.getInternalName(DomainOperatorInterpreter.class),
+            "interpret",
+            "(" + CONTEXT_DESCRIPTOR + DOMAIN_TYPE_DESCRIPTOR + DOMAIN_TYPE_DESCRIPTOR + DOMAIN_TYPE_DESCRIPTOR + OBJECT_DESCRIPTOR + OBJECT_DESCRIPTOR + Type.getDescriptor(DomainOperator.class) + ")" + OBJECT_DESCRIPTOR,
+            true
+        );
+    }
+
+    private void invokeTypeAdapter(MethodVisitor mv, TypeAdapter<?, ?> typeAdapter, DomainType domainType, String methodName, int valueVar) {
+        loadConstant(mv, typeAdapter, TypeAdapter.class);
+        mv.visitVarInsn(Opcodes.ALOAD, CONTEXT_VAR);
+        mv.visitVarInsn(Opcodes.ALOAD, valueVar);
+        loadConstant(mv, domainType, DomainType.class);
+        mv.visitMethodInsn(
+            Opcodes.INVOKEINTERFACE,
+            Type.getInternalName(TypeAdapter.class),
+            methodName,
+            "(" + CONTEXT_DESCRIPTOR + OBJECT_DESCRIPTOR + DOMAIN_TYPE_DESCRIPTOR + ")" + OBJECT_DESCRIPTOR,
+            true
+        );
+    }
+
+    private MethodVisitor beginMethod(String prefix, String descriptor) {
+        MethodVisitor mv = classWriter.visitMethod(Opcodes.ACC_PRIVATE, prefix + methodCount++, descriptor, null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, FRAME_VAR);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, FRAME, "getContext", "()" + CONTEXT_DESCRIPTOR, false);
+        mv.visitVarInsn(Opcodes.ASTORE, CONTEXT_VAR);
+        return mv;
+    }
+
+    private String endMethod(MethodVisitor mv, int returnOpcode) {
+        mv.visitInsn(returnOpcode);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        // The method count was incremented when the method was started
+        return (returnOpcode == Opcodes.IRETURN ? "p" : "v") + (methodCount - 1);
+    }
+
+    private void invokeValue(MethodVisitor mv, String methodName) {
+        mv.visitVarInsn(Opcodes.ALOAD, THIS);
+        mv.visitVarInsn(Opcodes.ALOAD, FRAME_VAR);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, className, methodName, VALUE_METHOD_DESCRIPTOR, false);
+    }
+
+    private void invokePredicate(MethodVisitor mv, String methodName) {
+        mv.visitVarInsn(Opcodes.ALOAD, THIS);
+        mv.visitVarInsn(Opcodes.ALOAD, FRAME_VAR);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, className, methodName, PREDICATE_METHOD_DESCRIPTOR, false);
+    }
+
+    private static void returnNullIfNull(MethodVisitor mv, int var) {
+        Label notNull = new Label();
+        mv.visitVarInsn(Opcodes.ALOAD, var);
+        mv.visitJumpInsn(Opcodes.IFNONNULL, notNull);
+        mv.visitInsn(Opcodes.ACONST_NULL);
+        mv.visitInsn(Opcodes.ARETURN);
+        mv.visitLabel(notNull);
+    }
+
+    private static void returnUnknownIfNull(MethodVisitor mv, int var) {
+        Label notNull = new Label();
+        mv.visitVarInsn(Opcodes.ALOAD, var);
+        mv.visitJumpInsn(Opcodes.IFNONNULL, notNull);
+        pushInt(mv, BytecodeSupport.UNKNOWN);
+        mv.visitInsn(Opcodes.IRETURN);
+        mv.visitLabel(notNull);
+    }
+
+    private static void returnIntIfUnknown(MethodVisitor mv, int var) {
+        Label known = new Label();
+        mv.visitVarInsn(Opcodes.ILOAD, var);
+        mv.visitJumpInsn(Opcodes.IFGE, known);
+        pushInt(mv, BytecodeSupport.UNKNOWN);
+        mv.visitInsn(Opcodes.IRETURN);
+        mv.visitLabel(known);
+    }
+
+    private static void returnIntIfUnknownOrEqual(MethodVisitor mv, int var, int value) {
+        returnIntIfUnknown(mv, var);
+        Label next = new Label();
+        mv.visitVarInsn(Opcodes.ILOAD, var);
+        pushInt(mv, value);
+        mv.visitJumpInsn(Opcodes.IF_ICMPNE, next);
+        pushInt(mv, value);
+        mv.visitInsn(Opcodes.IRETURN);
+        mv.visitLabel(next);
+    }
+
+    private static void jumpIfNotInstance(MethodVisitor mv, int var, String internalName, Label label) {
+        mv.visitVarInsn(Opcodes.ALOAD, var);
+        mv.visitTypeInsn(Opcodes.INSTANCEOF, internalName);
+        mv.visitJumpInsn(Opcodes.IFEQ, label);
+    }
+
+    private static void pushInt(MethodVisitor mv, int value) {
+        if (value >= -1 && value <= 5) {
+            mv.visitInsn(Opcodes.ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            mv.visitIntInsn(Opcodes.BIPUSH, value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            mv.visitIntInsn(Opcodes.SIPUSH, value);
+        } else {
+            mv.visitLdcInsn(value);
+        }
+    }
+
+    private void loadConstant(MethodVisitor mv, Object value, Class<?> type) {
+        int index = -1;
+        for (int i = 0; i < constants.size(); i++) {
+            if (constants.get(i) == value && constantTypes.get(i) == type) {
+                index = i;
+                break;
+            }
+        }
+        if (index == -1) {
+            index = constants.size();
+            constants.add(value);
+            constantTypes.add(type);
+            classWriter.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, "c" + index, Type.getDescriptor(type), null, null).visitEnd();
+        }
+        mv.visitVarInsn(Opcodes.ALOAD, THIS);
+        mv.visitFieldInsn(Opcodes.GETFIELD, className, "c" + index, Type.getDescriptor(type));
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    private static final class CompiledExpressionClassLoader extends ClassLoader {
+
+        public CompiledExpressionClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        public Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.blazebit.expression.bytecode;
+
+import com.blazebit.apt.service.ServiceProvider;
+import com.blazebit.expression.Expression;
+import com.blazebit.expression.ExpressionEvaluator;
+import com.blazebit.expression.ExpressionService;
+import com.blazebit.expression.impl.EvaluatorNode;
+import com.blazebit.expression.impl.EvaluatorNodeFactory;
+import com.blazebit.expression.impl.ExpressionEvaluatorImpl;
+import com.blazebit.expression.spi.ExpressionEvaluatorFactory;
+
+import java.io.Serializable;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An expression evaluator factory that compiles expressions to JVM classes.
+ * If the compilation fails, the default evaluator implementation is used.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+@ServiceProvider(ExpressionEvaluatorFactory.class)
+public class BytecodeExpressionEvaluatorFactory implements ExpressionEvaluatorFactory, Serializable {
+
+    private static final Logger LOG = Logger.getLogger(BytecodeExpressionEvaluatorFactory.class.getName());
+
+    @Override
+    public ExpressionEvaluator createEvaluator(ExpressionService expressionService, Expression expression) {
+        EvaluatorNode node;
+        try {
+            node = new BytecodeEvaluatorCompiler(new EvaluatorNodeFactory(expressionService.getPredicateReordering())).compile(expression);
+        } catch (RuntimeException | LinkageError ex) {
+            LOG.log(Level.FINE, "Falling back to the default evaluator for expression: " + expression, ex);
+            node = new EvaluatorNodeFactory(expressionService.getPredicateReordering()).create(expression);
+        }
+        return new ExpressionEvaluatorImpl(expressionService, expression, node, EvaluatorNodeFactory.getModelTypeAdapter(expression));
+    }
+
+    @Override
+    public int priority() {
+        return 500;
+    }
+}
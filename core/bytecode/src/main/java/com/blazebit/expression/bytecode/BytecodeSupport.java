@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.blazebit.expression.bytecode;
+
+/**
+ * Static helpers that are invoked by compiled expression classes.
+ * Predicates are compiled to methods that return a three valued logic result as primitive int,
+ * <code>1</code> for true, <code>0</code> for false and <code>-1</code> for unknown i.e. <code>null</code>.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public final class BytecodeSupport {
+
+    public static final int TRUE = 1;
+    public static final int FALSE = 0;
+    public static final int UNKNOWN = -1;
+
+    private BytecodeSupport() {
+    }
+
+    /**
+     * Converts the given three valued logic result to a {@link Boolean}.
+     *
+     * @param value The three valued logic result
+     * @return the boolean or <code>null</code>
+     */
+    public static Boolean toBoolean(int value) {
+        if (value == UNKNOWN) {
+            return null;
+        }
+        return value == TRUE ? Boolean.TRUE : Boolean.FALSE;
+    }
+
+    /**
+     * Converts the given predicate result to a three valued logic result.
+     *
+     * @param value The predicate result
+     * @return the three valued logic result
+     */
+    public static int toTriState(Boolean value) {
+        if (value == null) {
+            return UNKNOWN;
+        }
+        return value ? TRUE : FALSE;
+    }
+
+    /**
+     * Converts the given value to a three valued logic result, treating everything except {@link Boolean#TRUE} as false.
+     *
+     * @param value The value
+     * @return the three valued logic result
+     */
+    public static int toTriState(Object value) {
+        if (value == null) {
+            return UNKNOWN;
+        }
+        return Boolean.TRUE.equals(value) ? TRUE : FALSE;
+    }
+
+    /**
+     * Negates the given three valued logic result.
+     *
+     * @param value The three valued logic result
+     * @return the negated three valued logic result
+     */
+    public static int not(int value) {
+        return value == UNKNOWN ? UNKNOWN : value ^ 1;
+    }
+}
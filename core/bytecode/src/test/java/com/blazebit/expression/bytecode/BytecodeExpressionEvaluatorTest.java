@@ -0,0 +1,218 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.blazebit.expression.bytecode;
+
+import com.blazebit.domain.Domain;
+import com.blazebit.domain.boot.model.DomainBuilder;
+import com.blazebit.domain.boot.model.MetadataDefinition;
+import com.blazebit.domain.boot.model.MetadataDefinitionHolder;
+import com.blazebit.domain.runtime.model.DomainModel;
+import com.blazebit.domain.runtime.model.DomainType;
+import com.blazebit.domain.runtime.model.EntityDomainTypeAttribute;
+import com.blazebit.expression.Expression;
+import com.blazebit.expression.ExpressionCompiler;
+import com.blazebit.expression.ExpressionInterpreter;
+import com.blazebit.expression.ExpressionInterpreterContext;
+import com.blazebit.expression.ExpressionService;
+import com.blazebit.expression.Expressions;
+import com.blazebit.expression.PredicateReordering;
+import com.blazebit.expression.base.BaseContributor;
+import com.blazebit.expression.impl.EvaluatorFrame;
+import com.blazebit.expression.impl.EvaluatorNode;
+import com.blazebit.expression.impl.EvaluatorNodeFactory;
+import com.blazebit.expression.spi.AttributeAccessor;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+@RunWith(Parameterized.class)
+public class BytecodeExpressionEvaluatorTest {
+
+    private static final String[] EXPRESSIONS = {
+        "i.quantity + 1",
+        "-i.price",
+        "i.quantity * i.price - 2",
+        "abs(-i.quantity)",
+        "i.name",
+        "i.quantity > 5",
+        "i.quantity >= 2.5",
+        "i.price < 10",
+        "i.price = i.quantity",
+        "i.price != 3",
+        "i.quantity BETWEEN 1 AND 10",
+        "i.quantity NOT BETWEEN 1 AND i.price",
+        "i.quantity IN (1, 2, 3)",
+        "i.quantity NOT IN (1, i.price)",
+        "i.name IS NULL",
+        "i.name IS NOT NULL",
+        "i.name = 'abc'",
+        "i.active",
+        "NOT i.active",
+        "i.name = 'abc' OR i.quantity > 1 AND i.active",
+        "!(i.quantity > 1 OR i.price > 1)",
+        "i.quantity + i.price * 2 > 3 AND i.name IS NOT NULL",
+        "abs(-i.quantity) = i.quantity",
+        "upper(trim(i.name))",
+        "greatest(abs(i.price), abs(-i.price), least(1.5, i.price))",
+        "length(upper(i.name)) + length(lower(i.name))"
+    };
+
+    private final boolean exact;
+    private final ExpressionService expressionService;
+    private final Map<String, DomainType> rootTypes;
+    private final List<Map<String, Object>> items = new ArrayList<>();
+
+    public static class MapAttributeAccessor implements MetadataDefinition<AttributeAccessor>, AttributeAccessor {
+
+        @Override
+        public Object getAttribute(ExpressionInterpreter.Context context, Object value, EntityDomainTypeAttribute attribute) {
+            return ((Map<String, Object>) value).get(attribute.getName());
+        }
+
+        @Override
+        public Class<AttributeAccessor> getJavaType() {
+            return AttributeAccessor.class;
+        }
+
+        @Override
+        public AttributeAccessor build(MetadataDefinitionHolder definitionHolder) {
+            return this;
+        }
+    }
+
+    public BytecodeExpressionEvaluatorTest(boolean exact) {
+        DomainBuilder domainBuilder = Domain.getDefaultProvider().createEmptyBuilder();
+        domainBuilder.setProperty(BaseContributor.CONFIGURATION_NUMERIC_EXACT, exact);
+        domainBuilder.withDefaults();
+        MapAttributeAccessor accessor = new MapAttributeAccessor();
+        domainBuilder.createEntityType("Item")
+            .addAttribute("name", BaseContributor.STRING_TYPE_NAME, accessor)
+            .addAttribute("quantity", BaseContributor.INTEGER_TYPE_NAME, accessor)
+            .addAttribute("price", BaseContributor.NUMERIC_TYPE_NAME, accessor)
+            .addAttribute("active", BaseContributor.BOOLEAN_TYPE_NAME, accessor)
+            .build();
+        DomainModel domainModel = domainBuilder.build();
+        this.exact = exact;
+        this.expressionService = Expressions.forModel(domainModel);
+        this.rootTypes = Collections.singletonMap("i", domainModel.getType("Item"));
+        items.add(item("abc", 3, "3.0", true));
+        items.add(item("def", 12, "1.5", false));
+        items.add(item(null, 1, null, null));
+        items.add(item("abc", null, "0.5", true));
+    }
+
+    @Parameterized.Parameters
+    public static Object[] parameters() {
+        return new Object[]{ true, false };
+    }
+
+    private Map<String, Object> item(String name, Integer quantity, String price, Boolean active) {
+        Map<String, Object> item = new HashMap<>();
+        item.put("name", name);
+        if (quantity != null) {
+            item.put("quantity", exact ? BigInteger.valueOf(quantity) : (Object) quantity.longValue());
+        }
+        if (price != null) {
+            item.put("price", exact ? new BigDecimal(price) : (Object) Double.valueOf(price));
+        }
+        item.put("active", active);
+        return item;
+    }
+
+    private Expression compile(String expression) {
+        ExpressionCompiler compiler = expressionService.createCompiler();
+        return compiler.createExpressionOrPredicate(expression, compiler.createContext(rootTypes));
+    }
+
+    private ExpressionInterpreter.Context createContext(Map<String, Object> item) {
+        return ExpressionInterpreterContext.create(expressionService).withRoot("i", item);
+    }
+
+    @Test
+    public void testBytecodeEvaluatorFactoryIsUsed() {
+        Assert.assertTrue(expressionService.getExpressionEvaluatorFactory() instanceof BytecodeExpressionEvaluatorFactory);
+    }
+
+    @Test
+    public void testCompilesToGeneratedClass() {
+        EvaluatorNode node = new BytecodeEvaluatorCompiler().compile(compile("i.quantity > 5"));
+        Assert.assertTrue(node.getClass().getName().startsWith("com.blazebit.expression.bytecode.generated."));
+        Assert.assertEquals(Boolean.TRUE, node.evaluate(new EvaluatorFrame(createContext(items.get(1)))));
+    }
+
+    @Test
+    public void testCompiledEvaluatorMatchesInterpreter() {
+        ExpressionInterpreter interpreter = expressionService.createInterpreter();
+        for (String expressionString : EXPRESSIONS) {
+            Expression expression = compile(expressionString);
+            EvaluatorNode node = new BytecodeEvaluatorCompiler().compile(expression);
+            for (Map<String, Object> item : items) {
+                Object expected;
+                try {
+                    expected = interpreter.evaluate(expression, createContext(item));
+                } catch (RuntimeException ex) {
+                    expected = ex.getClass();
+                }
+                Object actual;
+                try {
+                    actual = node.evaluate(new EvaluatorFrame(createContext(item)));
+                } catch (RuntimeException ex) {
+                    actual = ex.getClass();
+                }
+                Assert.assertEquals(expressionString + " for " + item, expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testFallbackForLongInList() {
+        StringBuilder sb = new StringBuilder("i.quantity IN (");
+        for (int i = 0; i <= BytecodeEvaluatorCompiler.MAX_COMPILED_IN_ITEMS; i++) {
+            sb.append(i + 100).append(", ");
+        }
+        sb.append("12)");
+        Expression expression = compile(sb.toString());
+        Assert.assertEquals(Boolean.TRUE, expressionService.createEvaluator(expression).evaluate(createContext(items.get(1))));
+        Assert.assertEquals(Boolean.FALSE, expressionService.createEvaluator(expression).evaluate(createContext(items.get(0))));
+        Assert.assertNull(expressionService.createEvaluator(expression).evaluate(createContext(items.get(3))));
+    }
+
+    @Test
+    public void testReorderedCompoundPredicate() {
+        EvaluatorNodeFactory evaluatorNodeFactory = new EvaluatorNodeFactory(PredicateReordering.STATIC);
+        EvaluatorNode node = new BytecodeEvaluatorCompiler(evaluatorNodeFactory).compile(compile("upper(i.name) = 'ABC' AND i.active"));
+        Assert.assertEquals(Boolean.TRUE, node.evaluate(new EvaluatorFrame(createContext(items.get(0)))));
+        Assert.assertEquals(Boolean.FALSE, node.evaluate(new EvaluatorFrame(createContext(items.get(1)))));
+        Assert.assertNull(node.evaluate(new EvaluatorFrame(createContext(items.get(2)))));
+        // Reordered compound predicates use three valued logic, so the false operand determines the result
+        Assert.assertEquals(Boolean.FALSE, node.evaluate(new EvaluatorFrame(createContext(item(null, 1, null, false)))));
+    }
+}
@@ -0,0 +1,642 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.blazebit.expression.impl;
+
+import com.blazebit.domain.runtime.model.DomainFunction;
+import com.blazebit.domain.runtime.model.DomainFunctionArgument;
+import com.blazebit.domain.runtime.model.DomainOperator;
+import com.blazebit.domain.runtime.model.DomainType;
+import com.blazebit.domain.runtime.model.EntityDomainTypeAttribute;
+import com.blazebit.expression.ArithmeticExpression;
+import com.blazebit.expression.ArithmeticFactor;
+import com.blazebit.expression.BetweenPredicate;
+import com.blazebit.expression.ChainingArithmeticExpression;
+import com.blazebit.expression.CollectionLiteral;
+import com.blazebit.expression.ComparisonOperator;
+import com.blazebit.expression.ComparisonPredicate;
+import com.blazebit.expression.CompoundPredicate;
+import com.blazebit.expression.EntityLiteral;
+import com.blazebit.expression.EnumLiteral;
+import com.blazebit.expression.Expression;
+import com.blazebit.expression.ExpressionInterpreter;
+import com.blazebit.expression.ExpressionPredicate;
+import com.blazebit.expression.ExpressionService;
+import com.blazebit.expression.FunctionInvocation;
+import com.blazebit.expression.InPredicate;
+import com.blazebit.expression.IsEmptyPredicate;
+import com.blazebit.expression.IsNullPredicate;
+import com.blazebit.expression.Literal;
+import com.blazebit.expression.Path;
+import com.blazebit.expression.Predicate;
+import com.blazebit.expression.spi.AttributeAccessor;
+import com.blazebit.expression.spi.ComparisonOperatorInterpreter;
+import com.blazebit.expression.spi.DefaultResolvedLiteral;
+import com.blazebit.expression.spi.DomainFunctionArguments;
+import com.blazebit.expression.spi.DomainOperatorInterpreter;
+import com.blazebit.expression.spi.EqualityKeyOperatorInterpreter;
+import com.blazebit.expression.spi.FunctionInvoker;
+import com.blazebit.expression.spi.ResolvedLiteral;
+import com.blazebit.expression.spi.TypeAdapter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An interpreter that evaluates an expression for a batch of root objects at once.
+ * Every expression node is evaluated for all rows of the batch before its parent node, producing a column of values.
+ * Value expressions produce an <code>Object[]</code> column, whereas predicates produce a <code>byte[]</code> column
+ * of three valued logic results i.e. {@link #TRUE}, {@link #FALSE} or {@link #UNKNOWN}.
+ *
+ * To retain the short circuit semantics of the {@link ExpressionInterpreterImpl}, a node is only evaluated for the rows of the current selection.
+ * A row is removed from the selection for the evaluation of further operands when the result for the row is already determined,
+ * e.g. when the left operand of an arithmetic expression is <code>null</code> or a conjunction operand is <code>false</code>.
+ *
+ * An instance must only be used for a single batch evaluation.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public class BatchInterpreter implements Expression.ResultVisitor<Object> {
+
+    public static final byte TRUE = 1;
+    public static final byte FALSE = 0;
+    public static final byte UNKNOWN = -1;
+
+    protected final RowContext context;
+    protected final String alias;
+    protected final Object[] roots;
+    protected final int size;
+    protected int[] selection;
+    protected int selectionSize;
+
+    public BatchInterpreter(ExpressionInterpreter.Context context, String alias, List<?> roots) {
+        this.context = new RowContext(context, alias);
+        this.alias = alias;
+        this.roots = roots.toArray();
+        this.size = this.roots.length;
+    }
+
+    /**
+     * Evaluates the given expression for all rows.
+     *
+     * @param expression The expression
+     * @return the column of values
+     */
+    public Object[] evaluateValues(Expression expression) {
+        return values(expression, allRows(), size);
+    }
+
+    /**
+     * Evaluates the given predicate for all rows.
+     *
+     * @param predicate The predicate
+     * @return the column of three valued logic results
+     */
+    public byte[] evaluatePredicate(Predicate predicate) {
+        return predicates(predicate, allRows(), size);
+    }
+
+    protected int[] allRows() {
+        int[] rows = new int[size];
+        for (int i = 0; i < size; i++) {
+            rows[i] = i;
+        }
+        return rows;
+    }
+
+    protected Object evaluate(Expression expression, int[] rows, int rowCount) {
+        int[] oldSelection = selection;
+        int oldSelectionSize = selectionSize;
+        selection = rows;
+        selectionSize = rowCount;
+        try {
+            return expression.accept(this);
+        } finally {
+            selection = oldSelection;
+            selectionSize = oldSelectionSize;
+        }
+    }
+
+    protected Object[] values(Expression expression, int[] rows, int rowCount) {
+        Object result = evaluate(expression, rows, rowCount);
+        if (result instanceof byte[]) {
+            byte[] predicateResults = (byte[]) result;
+            Object[] values = new Object[size];
+            for (int i = 0; i < rowCount; i++) {
+                int row = rows[i];
+                values[row] = toBoolean(predicateResults[row]);
+            }
+            return values;
+        }
+        return (Object[]) result;
+    }
+
+    protected byte[] predicates(Expression expression, int[] rows, int rowCount) {
+        Object result = evaluate(expression, rows, rowCount);
+        if (result instanceof Object[]) {
+            Object[] values = (Object[]) result;
+            byte[] predicateResults = new byte[size];
+            for (int i = 0; i < rowCount; i++) {
+                int row = rows[i];
+                Object value = values[row];
+                predicateResults[row] = value == null ? UNKNOWN : Boolean.TRUE.equals(value) ? TRUE : FALSE;
+            }
+            return predicateResults;
+        }
+        return (byte[]) result;
+    }
+
+    protected static Boolean toBoolean(byte value) {
+        if (value == UNKNOWN) {
+            return null;
+        }
+        return value == TRUE ? Boolean.TRUE : Boolean.FALSE;
+    }
+
+    protected static byte toByte(Boolean value) {
+        if (value == null) {
+            return UNKNOWN;
+        }
+        return value ? TRUE : FALSE;
+    }
+
+    /**
+     * Copies the rows for which the given column has a non-null value to the target array and returns the amount of copied rows.
+     * The target array may be the same as the rows array.
+     */
+    protected static int nonNullRows(int[] rows, int rowCount, Object[] column, int[] target) {
+        int nonNullCount = 0;
+        for (int i = 0; i < rowCount; i++) {
+            int row = rows[i];
+            if (column[row] != null) {
+                target[nonNullCount++] = row;
+            }
+        }
+        return nonNullCount;
+    }
+
+    @Override
+    public Object visit(ArithmeticFactor e) {
+        if (!e.isInvertSignum()) {
+            return values(e.getExpression(), selection, selectionSize);
+        }
+        int[] rows = selection;
+        int rowCount = selectionSize;
+        Object[] values = values(e.getExpression(), rows, rowCount);
+        DomainType type = e.getType();
+        DomainOperatorInterpreter interpreter = EvaluatorNodeFactory.domainOperatorInterpreter(type);
+        Object[] result = new Object[size];
+        for (int i = 0; i < rowCount; i++) {
+            int row = rows[i];
+            Object value = values[row];
+            if (value != null) {
+                result[row] = interpreter.interpret(context.forRow(roots[row]), type, type, null, value, null, DomainOperator.UNARY_MINUS);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Object visit(ExpressionPredicate e) {
+        int[] rows = selection;
+        int rowCount = selectionSize;
+        Object[] values = values(e.getExpression(), rows, rowCount);
+        boolean negated = e.isNegated();
+        byte[] result = new byte[size];
+        for (int i = 0; i < rowCount; i++) {
+            int row = rows[i];
+            Boolean value = (Boolean) values[row];
+            result[row] = value == null ? UNKNOWN : negated != value ? TRUE : FALSE;
+        }
+        return result;
+    }
+
+    @Override
+    public Object visit(BetweenPredicate e) {
+        Object[] left = values(e.getLeft(), selection, selectionSize);
+        int[] rows = new int[selectionSize];
+        int rowCount = nonNullRows(selection, selectionSize, left, rows);
+        Object[] lower = values(e.getLower(), rows, rowCount);
+        rowCount = nonNullRows(rows, rowCount, lower, rows);
+        Object[] upper = values(e.getUpper(), rows, rowCount);
+        rowCount = nonNullRows(rows, rowCount, upper, rows);
+
+        byte[] result = new byte[size];
+        fill(result, selection, selectionSize, UNKNOWN);
+        DomainType leftType = e.getLeft().getType();
+        DomainType lowerType = e.getLower().getType();
+        DomainType upperType = e.getUpper().getType();
+        ComparisonOperatorInterpreter interpreter = EvaluatorNodeFactory.comparisonOperatorInterpreter(leftType);
+        Boolean testValue = e.isNegated() ? Boolean.TRUE : Boolean.FALSE;
+        for (int i = 0; i < rowCount; i++) {
+            int row = rows[i];
+            ExpressionInterpreter.Context rowContext = context.forRow(roots[row]);
+            Boolean compare = interpreter.interpret(rowContext, leftType, lowerType, left[row], lower[row], ComparisonOperator.GREATER_OR_EQUAL);
+            if (compare == null || testValue.equals(compare)) {
+                result[row] = toByte(compare);
+                continue;
+            }
+            compare = interpreter.interpret(rowContext, leftType, upperType, left[row], upper[row], ComparisonOperator.LOWER_OR_EQUAL);
+            if (compare == null || testValue.equals(compare)) {
+                result[row] = toByte(compare);
+                continue;
+            }
+            result[row] = TRUE;
+        }
+        return result;
+    }
+
+    @Override
+    public Object visit(InPredicate e) {
+        Object[] left = values(e.getLeft(), selection, selectionSize);
+        byte[] result = new byte[size];
+        fill(result, selection, selectionSize, UNKNOWN);
+        int[] rows = new int[selectionSize];
+        int rowCount = nonNullRows(selection, selectionSize, left, rows);
+        DomainType leftType = e.getLeft().getType();
+        ComparisonOperatorInterpreter interpreter = EvaluatorNodeFactory.comparisonOperatorInterpreter(leftType);
+        Boolean testValue = e.isNegated() ? Boolean.TRUE : Boolean.FALSE;
+        Set<Object> equalityKeys = EvaluatorNodeFactory.equalityKeys(e);
+        if (equalityKeys != null) {
+            // Rows whose value has no equality key are compared with every in item
+            EqualityKeyOperatorInterpreter equalityKeyInterpreter = (EqualityKeyOperatorInterpreter) interpreter;
+            int remaining = 0;
+            for (int i = 0; i < rowCount; i++) {
+                int row = rows[i];
+                Object equalityKey = equalityKeyInterpreter.getEqualityKey(leftType, left[row]);
+                if (equalityKey == null) {
+                    rows[remaining++] = row;
+                } else {
+                    result[row] = equalityKeys.contains(equalityKey) ? TRUE : FALSE;
+                }
+            }
+            rowCount = remaining;
+        }
+        List<ArithmeticExpression> inItems = e.getInItems();
+        for (int j = 0; j < inItems.size() && rowCount != 0; j++) {
+            ArithmeticExpression inItem = inItems.get(j);
+            Object[] values = values(inItem, rows, rowCount);
+            DomainType itemType = inItem.getType();
+            // Rows for which the result is determined are removed from the selection
+            int remaining = 0;
+            for (int i = 0; i < rowCount; i++) {
+                int row = rows[i];
+                Object value = values[row];
+                if (value == null) {
+                    continue;
+                }
+                Boolean b = interpreter.interpret(context.forRow(roots[row]), leftType, itemType, left[row], value, ComparisonOperator.EQUAL);
+                if (!testValue.equals(b)) {
+                    result[row] = toByte(b);
+                } else {
+                    rows[remaining++] = row;
+                }
+            }
+            rowCount = remaining;
+        }
+        byte test = toByte(testValue);
+        for (int i = 0; i < rowCount; i++) {
+            result[rows[i]] = test;
+        }
+        return result;
+    }
+
+    @Override
+    public Object visit(ChainingArithmeticExpression e) {
+        Object[] left = values(e.getLeft(), selection, selectionSize);
+        int[] rows = new int[selectionSize];
+        int rowCount = nonNullRows(selection, selectionSize, left, rows);
+        Object[] right = values(e.getRight(), rows, rowCount);
+        rowCount = nonNullRows(rows, rowCount, right, rows);
+        DomainType targetType = e.getType();
+        DomainType leftType = e.getLeft().getType();
+        DomainType rightType = e.getRight().getType();
+        DomainOperator operator = e.getOperator().getDomainOperator();
+        DomainOperatorInterpreter interpreter = EvaluatorNodeFactory.domainOperatorInterpreter(targetType);
+        Object[] result = new Object[size];
+        for (int i = 0; i < rowCount; i++) {
+            int row = rows[i];
+            result[row] = interpreter.interpret(context.forRow(roots[row]), targetType, leftType, rightType, left[row], right[row], operator);
+        }
+        return result;
+    }
+
+    @Override
+    public Object visit(CompoundPredicate e) {
+        List<Predicate> predicates = e.getPredicates();
+        byte negated = e.isNegated() ? TRUE : FALSE;
+        byte notNegated = e.isNegated() ? FALSE : TRUE;
+        byte[] result = new byte[size];
+        if (predicates.isEmpty()) {
+            fill(result, selection, selectionSize, e.isConjunction() ? negated : notNegated);
+            return result;
+        }
+        // The result of a conjunction is determined by the first operand that is not true, for a disjunction it's the first that is not false
+        byte continueValue = e.isConjunction() ? TRUE : FALSE;
+        byte determinedValue = e.isConjunction() ? negated : notNegated;
+        int[] rows = new int[selectionSize];
+        System.arraycopy(selection, 0, rows, 0, selectionSize);
+        int rowCount = selectionSize;
+        for (int j = 0; j < predicates.size() && rowCount != 0; j++) {
+            byte[] predicateResults = predicates(predicates.get(j), rows, rowCount);
+            int remaining = 0;
+            for (int i = 0; i < rowCount; i++) {
+                int row = rows[i];
+                byte predicateResult = predicateResults[row];
+                if (predicateResult == UNKNOWN) {
+                    result[row] = UNKNOWN;
+                } else if (predicateResult != continueValue) {
+                    result[row] = determinedValue;
+                } else {
+                    rows[remaining++] = row;
+                }
+            }
+            rowCount = remaining;
+        }
+        byte endValue = e.isConjunction() ? notNegated : negated;
+        for (int i = 0; i < rowCount; i++) {
+            result[rows[i]] = endValue;
+        }
+        return result;
+    }
+
+    @Override
+    public Object visit(ComparisonPredicate e) {
+        Object[] left = values(e.getLeft(), selection, selectionSize);
+        int[] rows = new int[selectionSize];
+        int rowCount = nonNullRows(selection, selectionSize, left, rows);
+        Object[] right = values(e.getRight(), rows, rowCount);
+        rowCount = nonNullRows(rows, rowCount, right, rows);
+        byte[] result = new byte[size];
+        fill(result, selection, selectionSize, UNKNOWN);
+        DomainType leftType = e.getLeft().getType();
+        DomainType rightType = e.getRight().getType();
+        ComparisonOperator operator = e.getOperator();
+        boolean negated = e.isNegated();
+        ComparisonOperatorInterpreter interpreter = EvaluatorNodeFactory.comparisonOperatorInterpreter(leftType);
+        for (int i = 0; i < rowCount; i++) {
+            int row = rows[i];
+            Boolean compare = interpreter.interpret(context.forRow(roots[row]), leftType, rightType, left[row], right[row], operator);
+            if (compare == null) {
+                result[row] = UNKNOWN;
+            } else {
+                result[row] = compare != negated ? TRUE : FALSE;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Object visit(IsNullPredicate e) {
+        int[] rows = selection;
+        int rowCount = selectionSize;
+        Object[] values = values(e.getLeft(), rows, rowCount);
+        boolean negated = e.isNegated();
+        byte[] result = new byte[size];
+        for (int i = 0; i < rowCount; i++) {
+            int row = rows[i];
+            result[row] = (values[row] != null) == negated ? TRUE : FALSE;
+        }
+        return result;
+    }
+
+    @Override
+    public Object visit(IsEmptyPredicate e) {
+        int[] rows = selection;
+        int rowCount = selectionSize;
+        Object[] values = values(e.getLeft(), rows, rowCount);
+        boolean negated = e.isNegated();
+        byte[] result = new byte[size];
+        for (int i = 0; i < rowCount; i++) {
+            int row = rows[i];
+            Object value = values[row];
+            if (value == null) {
+                result[row] = UNKNOWN;
+            } else {
+                result[row] = ((Iterable<?>) value).iterator().hasNext() == negated ? TRUE : FALSE;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Object visit(Path e) {
+        int[] rows = selection;
+        int rowCount = selectionSize;
+        Object[] values;
+        if (e.getBase() != null) {
+            // The column of the base is not used elsewhere, so it can be reused
+            values = values(e.getBase(), rows, rowCount);
+        } else if (alias.equals(e.getAlias())) {
+            values = new Object[size];
+            for (int i = 0; i < rowCount; i++) {
+                int row = rows[i];
+                values[row] = roots[row];
+            }
+        } else {
+            values = new Object[size];
+            for (int i = 0; i < rowCount; i++) {
+                int row = rows[i];
+                values[row] = context.forRow(roots[row]).getRoot(e.getAlias());
+            }
+        }
+        for (EntityDomainTypeAttribute attribute : e.getAttributes()) {
+            AttributeAccessor attributeAccessor = EvaluatorNodeFactory.attributeAccessor(attribute);
+            TypeAdapter<Object, Object> typeAdapter = attribute.getMetadata(TypeAdapter.class);
+            DomainType attributeType = attribute.getType();
+            for (int i = 0; i < rowCount; i++) {
+                int row = rows[i];
+                Object value = values[row];
+                if (value != null) {
+                    ExpressionInterpreter.Context rowContext = context.forRow(roots[row]);
+                    value = attributeAccessor.getAttribute(rowContext, value, attribute);
+                    if (typeAdapter != null) {
+                        value = typeAdapter.toInternalType(rowContext, value, attributeType);
+                    }
+                    values[row] = value;
+                }
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public Object visit(FunctionInvocation e) {
+        int[] rows = selection;
+        int rowCount = selectionSize;
+        DomainFunction function = e.getFunction();
+        FunctionInvoker functionInvoker = EvaluatorNodeFactory.functionInvoker(function);
+        TypeAdapter<Object, Object> resultAdapter = function.getMetadata(TypeAdapter.class);
+        Map<DomainFunctionArgument, Expression> arguments = e.getArguments();
+        int parameterCount = function.getArguments().size();
+        int argumentCount = arguments.size();
+        Object[][] argumentValues = new Object[argumentCount][];
+        DomainFunctionArgument[] functionArguments = new DomainFunctionArgument[argumentCount];
+        DomainType[] types = new DomainType[parameterCount];
+        int j = 0;
+        for (Map.Entry<DomainFunctionArgument, Expression> entry : arguments.entrySet()) {
+            DomainFunctionArgument functionArgument = entry.getKey();
+            Object[] values = values(entry.getValue(), rows, rowCount);
+            TypeAdapter<Object, Object> argumentAdapter = functionArgument.getMetadata(TypeAdapter.class);
+            if (argumentAdapter != null) {
+                for (int i = 0; i < rowCount; i++) {
+                    int row = rows[i];
+                    values[row] = argumentAdapter.toModelType(context.forRow(roots[row]), values[row], functionArgument.getType());
+                }
+            }
+            types[functionArgument.getPosition()] = entry.getValue().getType();
+            functionArguments[j] = functionArgument;
+            argumentValues[j++] = values;
+        }
+        Object[] result = new Object[size];
+        // Argument values are computed per column beforehand, so a single instance can be reused for all rows
+        ReusableDomainFunctionArguments reusableArguments = argumentCount == 0 ? null : new ReusableDomainFunctionArguments();
+        for (int i = 0; i < rowCount; i++) {
+            int row = rows[i];
+            DomainFunctionArguments domainFunctionArguments;
+            if (argumentCount == 0) {
+                domainFunctionArguments = DomainFunctionArguments.EMPTY;
+            } else {
+                reusableArguments.reset(parameterCount);
+                for (j = 0; j < argumentCount; j++) {
+                    int position = functionArguments[j].getPosition();
+                    reusableArguments.set(position, argumentValues[j][row], types[position]);
+                }
+                domainFunctionArguments = reusableArguments;
+            }
+            ExpressionInterpreter.Context rowContext = context.forRow(roots[row]);
+            Object value = functionInvoker.invoke(rowContext, function, domainFunctionArguments);
+            if (resultAdapter != null) {
+                value = resultAdapter.toInternalType(rowContext, value, function.getResultType());
+            }
+            result[row] = value;
+        }
+        return result;
+    }
+
+    @Override
+    public Object visit(Literal e) {
+        int[] rows = selection;
+        int rowCount = selectionSize;
+        Object[] result = new Object[size];
+        if (e.getType().getKind() == DomainType.DomainTypeKind.COLLECTION) {
+            Collection<Expression> collection = (Collection<Expression>) e.getValue();
+            List<Object[]> elementValues = new ArrayList<>(collection.size());
+            for (Expression expression : collection) {
+                elementValues.add(values(expression, rows, rowCount));
+            }
+            for (int i = 0; i < rowCount; i++) {
+                int row = rows[i];
+                if (elementValues.isEmpty()) {
+                    result[row] = Collections.emptyList();
+                } else {
+                    List<Object> resolved = new ArrayList<>(elementValues.size());
+                    for (Object[] values : elementValues) {
+                        resolved.add(values[row]);
+                    }
+                    result[row] = resolved;
+                }
+            }
+        } else {
+            ResolvedLiteral resolvedLiteral = e.getResolvedLiteral();
+            if (resolvedLiteral instanceof DefaultResolvedLiteral) {
+                Object value = resolvedLiteral.getValue();
+                for (int i = 0; i < rowCount; i++) {
+                    result[rows[i]] = value;
+                }
+            } else {
+                // Other resolved literals might produce the value lazily e.g. entity references
+                for (int i = 0; i < rowCount; i++) {
+                    result[rows[i]] = resolvedLiteral.getValue();
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Object visit(EnumLiteral e) {
+        return visit((Literal) e);
+    }
+
+    @Override
+    public Object visit(EntityLiteral e) {
+        return visit((Literal) e);
+    }
+
+    @Override
+    public Object visit(CollectionLiteral e) {
+        return visit((Literal) e);
+    }
+
+    private static void fill(byte[] result, int[] rows, int rowCount, byte value) {
+        for (int i = 0; i < rowCount; i++) {
+            result[rows[i]] = value;
+        }
+    }
+
+    /**
+     * An interpreter context that exposes the root object of the current row under the batch root variable name and delegates everything else.
+     *
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    protected static final class RowContext implements ExpressionInterpreter.Context {
+
+        private final ExpressionInterpreter.Context delegate;
+        private final String alias;
+        private Object root;
+
+        public RowContext(ExpressionInterpreter.Context delegate, String alias) {
+            this.delegate = delegate;
+            this.alias = alias;
+        }
+
+        public RowContext forRow(Object root) {
+            this.root = root;
+            return this;
+        }
+
+        @Override
+        public ExpressionService getExpressionService() {
+            return delegate.getExpressionService();
+        }
+
+        @Override
+        public <X> X getProperty(String key) {
+            return delegate.getProperty(key);
+        }
+
+        @Override
+        public void setProperty(String key, Object value) {
+            delegate.setProperty(key, value);
+        }
+
+        @Override
+        public <X> X getRoot(String alias) {
+            if (this.alias.equals(alias)) {
+                return (X) root;
+            }
+            return delegate.getRoot(alias);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.blazebit.expression.impl;
+
+import com.blazebit.expression.ExpressionInterpreter;
+
+import java.util.Arrays;
+
+/**
+ * The state of a single evaluation of an {@link EvaluatorNode} tree.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public class EvaluatorFrame {
+
+    /**
+     * The marker returned by {@link #getMemoizedValue(int)} for slots that have no value memoized yet.
+     */
+    public static final Object NOT_MEMOIZED = new Object();
+    private static final Object NULL_VALUE = new Object();
+
+    protected final ExpressionInterpreter.Context context;
+    /**
+     * Whether the last primitive evaluation of a {@link NumericEvaluatorNode} produced <code>null</code>.
+     */
+    protected boolean wasNull;
+    /**
+     * The reusable function arguments per function invocation nesting depth.
+     */
+    private ReusableDomainFunctionArguments[] functionArguments;
+    private int functionDepth;
+    /**
+     * The memoized values of shared path prefixes per slot.
+     */
+    private Object[] memoizedValues;
+
+    public EvaluatorFrame(ExpressionInterpreter.Context context) {
+        this.context = context;
+    }
+
+    /**
+     * Returns the reusable function arguments for the current function invocation nesting depth and increments the depth.
+     * Every call must be followed by a call to {@link #releaseFunctionArguments()} after the invocation.
+     *
+     * @return the reusable function arguments
+     */
+    public ReusableDomainFunctionArguments acquireFunctionArguments() {
+        ReusableDomainFunctionArguments[] functionArguments = this.functionArguments;
+        int depth = functionDepth;
+        if (functionArguments == null) {
+            this.functionArguments = functionArguments = new ReusableDomainFunctionArguments[4];
+        } else if (depth == functionArguments.length) {
+            this.functionArguments = functionArguments = Arrays.copyOf(functionArguments, depth * 2);
+        }
+        ReusableDomainFunctionArguments arguments = functionArguments[depth];
+        if (arguments == null) {
+            functionArguments[depth] = arguments = new ReusableDomainFunctionArguments();
+        }
+        functionDepth = depth + 1;
+        return arguments;
+    }
+
+    /**
+     * Decrements the function invocation nesting depth after an invocation.
+     */
+    public void releaseFunctionArguments() {
+        functionDepth--;
+    }
+
+    /**
+     * Returns the value memoized for the given slot during this evaluation or {@link #NOT_MEMOIZED}.
+     *
+     * @param slot The memoization slot
+     * @return the memoized value or {@link #NOT_MEMOIZED}
+     */
+    public Object getMemoizedValue(int slot) {
+        Object[] memoizedValues = this.memoizedValues;
+        if (memoizedValues == null || slot >= memoizedValues.length) {
+            return NOT_MEMOIZED;
+        }
+        Object value = memoizedValues[slot];
+        if (value == null) {
+            return NOT_MEMOIZED;
+        }
+        return value == NULL_VALUE ? null : value;
+    }
+
+    /**
+     * Memoizes the given value for the given slot for the rest of this evaluation.
+     *
+     * @param slot The memoization slot
+     * @param value The value to memoize
+     */
+    public void setMemoizedValue(int slot, Object value) {
+        Object[] memoizedValues = this.memoizedValues;
+        if (memoizedValues == null) {
+            this.memoizedValues = memoizedValues = new Object[Math.max(slot + 1, 8)];
+        } else if (slot >= memoizedValues.length) {
+            this.memoizedValues = memoizedValues = Arrays.copyOf(memoizedValues, Math.max(slot + 1, memoizedValues.length * 2));
+        }
+        memoizedValues[slot] = value == null ? NULL_VALUE : value;
+    }
+
+    /**
+     * Resets the evaluation state, so that the frame can be reused for another evaluation with the same interpreter context.
+     */
+    public void reset() {
+        wasNull = false;
+        functionDepth = 0;
+        if (memoizedValues != null) {
+            Arrays.fill(memoizedValues, null);
+        }
+    }
+
+    public ExpressionInterpreter.Context getContext() {
+        return context;
+    }
+}
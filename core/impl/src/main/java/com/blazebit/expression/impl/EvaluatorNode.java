@@ -0,0 +1,36 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.blazebit.expression.impl;
+
+/**
+ * A node of a pre-bound evaluation tree as created by {@link EvaluatorNodeFactory}.
+ * Nodes are immutable apart from statistics for adaptive reordering, all evaluation state is held by the {@link EvaluatorFrame}.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public interface EvaluatorNode {
+
+    /**
+     * Evaluates the node in the given frame.
+     *
+     * @param frame The evaluation frame
+     * @return the evaluation result
+     */
+    public Object evaluate(EvaluatorFrame frame);
+}
@@ -0,0 +1,1677 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.blazebit.expression.impl;
+
+import com.blazebit.domain.runtime.model.DomainFunction;
+import com.blazebit.domain.runtime.model.DomainFunctionArgument;
+import com.blazebit.domain.runtime.model.DomainFunctionVolatility;
+import com.blazebit.domain.runtime.model.DomainOperator;
+import com.blazebit.domain.runtime.model.DomainType;
+import com.blazebit.domain.runtime.model.EntityDomainTypeAttribute;
+import com.blazebit.expression.ArithmeticExpression;
+import com.blazebit.expression.ArithmeticFactor;
+import com.blazebit.expression.BetweenPredicate;
+import com.blazebit.expression.ChainingArithmeticExpression;
+import com.blazebit.expression.CollectionLiteral;
+import com.blazebit.expression.ComparisonOperator;
+import com.blazebit.expression.ComparisonPredicate;
+import com.blazebit.expression.CompoundPredicate;
+import com.blazebit.expression.EntityLiteral;
+import com.blazebit.expression.EnumLiteral;
+import com.blazebit.expression.Expression;
+import com.blazebit.expression.ExpressionInterpreter;
+import com.blazebit.expression.ExpressionPredicate;
+import com.blazebit.expression.FunctionInvocation;
+import com.blazebit.expression.InPredicate;
+import com.blazebit.expression.IsEmptyPredicate;
+import com.blazebit.expression.IsNullPredicate;
+import com.blazebit.expression.Literal;
+import com.blazebit.expression.Path;
+import com.blazebit.expression.PathCollectingVisitor;
+import com.blazebit.expression.Predicate;
+import com.blazebit.expression.PredicateReordering;
+import com.blazebit.expression.spi.AttributeAccessor;
+import com.blazebit.expression.spi.ComparisonOperatorInterpreter;
+import com.blazebit.expression.spi.DefaultResolvedLiteral;
+import com.blazebit.expression.spi.DomainFunctionArguments;
+import com.blazebit.expression.spi.DomainOperatorInterpreter;
+import com.blazebit.expression.spi.EqualityKeyOperatorInterpreter;
+import com.blazebit.expression.spi.FunctionInvoker;
+import com.blazebit.expression.spi.PrimitiveNumericOperatorInterpreter;
+import com.blazebit.expression.spi.ResolvedLiteral;
+import com.blazebit.expression.spi.TypeAdapter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Translates an expression tree into a tree of {@link EvaluatorNode}s that have all metadata like
+ * {@link ComparisonOperatorInterpreter}, {@link DomainOperatorInterpreter}, {@link AttributeAccessor}, {@link TypeAdapter} and {@link FunctionInvoker} pre-bound.
+ * The resulting nodes have the same semantics as the {@link ExpressionInterpreterImpl}.
+ * Missing metadata is reported only when the respective node is evaluated, just like the interpreter does.
+ * Arithmetic and comparisons on {@link Long} and {@link Double} values are evaluated on primitive values through {@link NumericEvaluatorNode}s
+ * if the operator interpreter is a {@link PrimitiveNumericOperatorInterpreter}.
+ * Depending on the {@link PredicateReordering}, the operands of compound predicates are evaluated in the order of their estimated cost
+ * through a {@link ReorderingCompoundNode}, which, unlike the interpreter, uses three valued logic. In predicates with many literal in items are evaluated with a hash lookup through a {@link HashInNode}.
+ * Path prefixes that are shared by multiple paths of an expression and structurally equal function invocations that don't involve
+ * {@link DomainFunctionVolatility#VOLATILE} functions are evaluated only once per evaluation through a {@link MemoizingNode}.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public class EvaluatorNodeFactory implements Expression.ResultVisitor<EvaluatorNode> {
+
+    /**
+     * The minimum number of literal in items for which an in predicate is evaluated with a hash lookup.
+     */
+    public static final int MIN_HASHED_IN_ITEMS = 8;
+
+    private final PredicateReordering predicateReordering;
+    private ExpressionCostEstimator costEstimator;
+    /**
+     * The memoization slots of shared path prefixes, keyed by the root alias followed by the prefix attributes.
+     */
+    private final Map<List<Object>, Integer> sharedPathPrefixSlots = new HashMap<>();
+    /**
+     * The memoization slots of function invocations that occur multiple times.
+     */
+    private final Map<FunctionInvocation, Integer> sharedFunctionInvocationSlots = new HashMap<>();
+    private int memoizationSlotCount;
+
+    public EvaluatorNodeFactory() {
+        this(PredicateReordering.NONE);
+    }
+
+    public EvaluatorNodeFactory(PredicateReordering predicateReordering) {
+        this.predicateReordering = predicateReordering == null ? PredicateReordering.NONE : predicateReordering;
+    }
+
+    /**
+     * Creates the evaluator node for the given expression.
+     *
+     * @param expression The expression
+     * @return the evaluator node
+     */
+    public EvaluatorNode create(Expression expression) {
+        registerSharedSubexpressions(expression);
+        return expression.accept(this);
+    }
+
+    /**
+     * Registers memoization slots for the path prefixes that are shared by multiple paths in the given expression
+     * and for deterministic function invocations that occur multiple times,
+     * so that the navigation of these prefixes and the invocation of these functions happens only once per evaluation.
+     *
+     * @param expression The expression
+     */
+    public void registerSharedSubexpressions(Expression expression) {
+        List<Path> paths = new ArrayList<>();
+        Map<FunctionInvocation, Integer> functionInvocationCounts = new HashMap<>();
+        expression.accept(new PathCollectingVisitor(paths) {
+            @Override
+            public void visit(FunctionInvocation e) {
+                functionInvocationCounts.merge(e, 1, Integer::sum);
+                super.visit(e);
+            }
+        });
+        Map<List<Object>, Integer> prefixCounts = new HashMap<>();
+        for (Path path : paths) {
+            if (path.getBase() == null) {
+                List<EntityDomainTypeAttribute> attributes = path.getAttributes();
+                List<Object> prefix = new ArrayList<>(attributes.size() + 1);
+                prefix.add(path.getAlias());
+                for (EntityDomainTypeAttribute attribute : attributes) {
+                    prefix.add(attribute);
+                    prefixCounts.merge(new ArrayList<>(prefix), 1, Integer::sum);
+                }
+            }
+        }
+        for (Map.Entry<List<Object>, Integer> entry : prefixCounts.entrySet()) {
+            if (entry.getValue() > 1 && !sharedPathPrefixSlots.containsKey(entry.getKey())) {
+                sharedPathPrefixSlots.put(entry.getKey(), memoizationSlotCount++);
+            }
+        }
+        ExpressionCostEstimator volatilityEstimator = null;
+        for (Map.Entry<FunctionInvocation, Integer> entry : functionInvocationCounts.entrySet()) {
+            FunctionInvocation functionInvocation = entry.getKey();
+            if (entry.getValue() > 1 && !sharedFunctionInvocationSlots.containsKey(functionInvocation)) {
+                if (volatilityEstimator == null) {
+                    volatilityEstimator = new ExpressionCostEstimator();
+                }
+                volatilityEstimator.estimate(functionInvocation);
+                if (!volatilityEstimator.isVolatileFunction()) {
+                    sharedFunctionInvocationSlots.put(functionInvocation, memoizationSlotCount++);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether the given function invocation occurs multiple times and is thus memoized.
+     *
+     * @param functionInvocation The function invocation
+     * @return <code>true</code> if the function invocation is memoized, <code>false</code> otherwise
+     */
+    public boolean isSharedFunctionInvocation(FunctionInvocation functionInvocation) {
+        return sharedFunctionInvocationSlots.containsKey(functionInvocation);
+    }
+
+    /**
+     * Returns whether the given path has a prefix that is shared with other paths and thus memoized.
+     *
+     * @param path The path
+     * @return <code>true</code> if the path has a memoized prefix, <code>false</code> otherwise
+     */
+    public boolean hasSharedPathPrefix(Path path) {
+        if (path.getBase() != null || sharedPathPrefixSlots.isEmpty()) {
+            return false;
+        }
+        List<EntityDomainTypeAttribute> attributes = path.getAttributes();
+        List<Object> prefix = new ArrayList<>(attributes.size() + 1);
+        prefix.add(path.getAlias());
+        for (EntityDomainTypeAttribute attribute : attributes) {
+            prefix.add(attribute);
+            if (sharedPathPrefixSlots.containsKey(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the type adapter that must be used to convert the evaluation result of the given expression to the model type.
+     *
+     * @param expression The expression
+     * @return the type adapter or <code>null</code>
+     */
+    public static TypeAdapter<Object, Object> getModelTypeAdapter(Expression expression) {
+        if (expression instanceof Path) {
+            List<EntityDomainTypeAttribute> attributes = ((Path) expression).getAttributes();
+            if (attributes.isEmpty()) {
+                return null;
+            }
+            return attributes.get(attributes.size() - 1).getMetadata(TypeAdapter.class);
+        } else if (expression instanceof FunctionInvocation) {
+            return ((FunctionInvocation) expression).getFunction().getMetadata(TypeAdapter.class);
+        } else if (expression instanceof Literal) {
+            if (expression.getType().getKind() == DomainType.DomainTypeKind.COLLECTION && ((Collection<?>) ((Literal) expression).getValue()).isEmpty()) {
+                return null;
+            }
+            return expression.getType().getMetadata(TypeAdapter.class);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the comparison operator interpreter of the given type or one that throws an exception if the type has none.
+     *
+     * @param type The domain type
+     * @return the comparison operator interpreter
+     */
+    public static ComparisonOperatorInterpreter comparisonOperatorInterpreter(DomainType type) {
+        ComparisonOperatorInterpreter comparisonOperatorInterpreter = type.getMetadata(ComparisonOperatorInterpreter.class);
+        if (comparisonOperatorInterpreter == null) {
+            return (context, leftType, rightType, leftValue, rightValue, operator) -> {
+                throw new IllegalArgumentException("No comparison operator interpreter available for type: " + type);
+            };
+        }
+        return comparisonOperatorInterpreter;
+    }
+
+    /**
+     * Returns the domain operator interpreter of the given type or one that throws an exception if the type has none.
+     *
+     * @param type The domain type
+     * @return the domain operator interpreter
+     */
+    public static DomainOperatorInterpreter domainOperatorInterpreter(DomainType type) {
+        DomainOperatorInterpreter domainOperatorInterpreter = type.getMetadata(DomainOperatorInterpreter.class);
+        if (domainOperatorInterpreter == null) {
+            return (context, targetType, leftType, rightType, leftValue, rightValue, operator) -> {
+                throw new IllegalArgumentException("No domain operator interpreter available for type: " + type);
+            };
+        }
+        return domainOperatorInterpreter;
+    }
+
+    /**
+     * Returns the attribute accessor of the given attribute or one that throws an exception if the attribute has none.
+     *
+     * @param attribute The attribute
+     * @return the attribute accessor
+     */
+    public static AttributeAccessor attributeAccessor(EntityDomainTypeAttribute attribute) {
+        AttributeAccessor attributeAccessor = attribute.getMetadata(AttributeAccessor.class);
+        if (attributeAccessor == null) {
+            return (context, value, a) -> {
+                throw new IllegalArgumentException("No attribute accessor available for attribute: " + a);
+            };
+        }
+        return attributeAccessor;
+    }
+
+    /**
+     * Returns the function invoker of the given function or one that throws an exception if the function has none.
+     *
+     * @param function The function
+     * @return the function invoker
+     */
+    public static FunctionInvoker functionInvoker(DomainFunction function) {
+        FunctionInvoker functionInvoker = function.getMetadata(FunctionInvoker.class);
+        if (functionInvoker == null) {
+            return (context, f, arguments) -> {
+                throw new IllegalArgumentException("No function invoker available for function: " + f);
+            };
+        }
+        return functionInvoker;
+    }
+
+    /**
+     * Returns a numeric evaluator node for the given node of the given type or <code>null</code> if the values are not {@link Long} or {@link Double} values.
+     *
+     * @param node The evaluator node
+     * @param type The domain type of the node
+     * @return the numeric evaluator node or <code>null</code>
+     */
+    protected NumericEvaluatorNode numericNode(EvaluatorNode node, DomainType type) {
+        if (node instanceof NumericEvaluatorNode) {
+            return (NumericEvaluatorNode) node;
+        }
+        Class<?> javaType = type == null ? null : type.getJavaType();
+        if (javaType == Long.class) {
+            return new LongValueNode(node);
+        } else if (javaType == Double.class) {
+            return new DoubleValueNode(node);
+        }
+        return null;
+    }
+
+    /**
+     * Returns whether the operands of the given compound predicate may be evaluated in a different order than the source order.
+     * Such compound predicates are evaluated through a {@link ReorderingCompoundNode} with three valued logic.
+     *
+     * @param predicate The compound predicate
+     * @return <code>true</code> if the operands may be reordered, <code>false</code> otherwise
+     */
+    public boolean isReordered(CompoundPredicate predicate) {
+        return estimateCosts(predicate.getPredicates()) != null;
+    }
+
+    /**
+     * Returns the estimated costs of the given compound predicate operands
+     * or <code>null</code> if the operands must be evaluated in source order.
+     *
+     * @param predicates The compound predicate operands
+     * @return the estimated costs or <code>null</code>
+     */
+    protected long[] estimateCosts(List<Predicate> predicates) {
+        int size = predicates.size();
+        if (predicateReordering == PredicateReordering.NONE || size < 2 || size > ReorderingCompoundNode.MAX_OPERANDS) {
+            return null;
+        }
+        if (costEstimator == null) {
+            costEstimator = new ExpressionCostEstimator();
+        }
+        long[] costs = new long[size];
+        for (int i = 0; i < size; i++) {
+            costs[i] = costEstimator.estimate(predicates.get(i));
+            if (costEstimator.isVolatileFunction()) {
+                return null;
+            }
+        }
+        return costs;
+    }
+
+    protected EvaluatorNode[] createAll(List<? extends Expression> expressions) {
+        EvaluatorNode[] nodes = new EvaluatorNode[expressions.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = expressions.get(i).accept(this);
+        }
+        return nodes;
+    }
+
+    @Override
+    public EvaluatorNode visit(ArithmeticFactor e) {
+        EvaluatorNode node = e.getExpression().accept(this);
+        if (e.isInvertSignum()) {
+            DomainOperatorInterpreter interpreter = domainOperatorInterpreter(e.getType());
+            if (interpreter instanceof PrimitiveNumericOperatorInterpreter) {
+                NumericEvaluatorNode numericNode = numericNode(node, e.getExpression().getType());
+                if (numericNode != null) {
+                    if (numericNode.isDoubleValued()) {
+                        return new DoubleNegationNode(numericNode, (PrimitiveNumericOperatorInterpreter) interpreter);
+                    }
+                    return new LongNegationNode(numericNode, (PrimitiveNumericOperatorInterpreter) interpreter);
+                }
+            }
+            return new NegationNode(node, e.getType(), interpreter);
+        }
+        return node;
+    }
+
+    @Override
+    public EvaluatorNode visit(ExpressionPredicate e) {
+        return new ExpressionPredicateNode(e.getExpression().accept(this), e.isNegated());
+    }
+
+    @Override
+    public EvaluatorNode visit(BetweenPredicate e) {
+        return new BetweenNode(
+            e.getLeft().accept(this),
+            e.getLower().accept(this),
+            e.getUpper().accept(this),
+            e.getLeft().getType(),
+            e.getLower().getType(),
+            e.getUpper().getType(),
+            comparisonOperatorInterpreter(e.getLeft().getType()),
+            e.isNegated()
+        );
+    }
+
+    @Override
+    public EvaluatorNode visit(InPredicate e) {
+        List<ArithmeticExpression> inItems = e.getInItems();
+        DomainType[] itemTypes = new DomainType[inItems.size()];
+        for (int i = 0; i < itemTypes.length; i++) {
+            itemTypes[i] = inItems.get(i).getType();
+        }
+        InNode inNode = new InNode(
+            e.getLeft().accept(this),
+            createAll(inItems),
+            e.getLeft().getType(),
+            itemTypes,
+            comparisonOperatorInterpreter(e.getLeft().getType()),
+            e.isNegated()
+        );
+        Set<Object> equalityKeys = equalityKeys(e);
+        if (equalityKeys == null) {
+            return inNode;
+        }
+        return new HashInNode(inNode, equalityKeys);
+    }
+
+    /**
+     * Returns the equality keys of the in items of the given predicate if the in check can be done with a hash lookup, or <code>null</code>.
+     * This is the case for non-negated predicates with at least {@link #MIN_HASHED_IN_ITEMS} literal in items,
+     * whose comparison operator interpreter is an {@link EqualityKeyOperatorInterpreter} that provides keys for all in items.
+     * A negated predicate is never hashed, as it produces the result of the first comparison that is not <code>true</code>.
+     *
+     * @param predicate The in predicate
+     * @return the equality keys or <code>null</code>
+     */
+    public static Set<Object> equalityKeys(InPredicate predicate) {
+        List<ArithmeticExpression> inItems = predicate.getInItems();
+        if (predicate.isNegated() || inItems.size() < MIN_HASHED_IN_ITEMS) {
+            return null;
+        }
+        ComparisonOperatorInterpreter interpreter = predicate.getLeft().getType().getMetadata(ComparisonOperatorInterpreter.class);
+        if (!(interpreter instanceof EqualityKeyOperatorInterpreter)) {
+            return null;
+        }
+        EqualityKeyOperatorInterpreter equalityKeyInterpreter = (EqualityKeyOperatorInterpreter) interpreter;
+        Set<Object> equalityKeys = new HashSet<>(inItems.size() * 4 / 3 + 1);
+        for (int i = 0; i < inItems.size(); i++) {
+            ArithmeticExpression inItem = inItems.get(i);
+            if (!(inItem instanceof Literal) || inItem instanceof EntityLiteral || inItem instanceof CollectionLiteral
+                || inItem.getType().getKind() == DomainType.DomainTypeKind.COLLECTION) {
+                return null;
+            }
+            ResolvedLiteral resolvedLiteral = ((Literal) inItem).getResolvedLiteral();
+            if (!(resolvedLiteral instanceof DefaultResolvedLiteral) || resolvedLiteral.getValue() == null) {
+                return null;
+            }
+            Object equalityKey = equalityKeyInterpreter.getEqualityKey(inItem.getType(), resolvedLiteral.getValue());
+            if (equalityKey == null) {
+                return null;
+            }
+            equalityKeys.add(equalityKey);
+        }
+        return equalityKeys;
+    }
+
+    @Override
+    public EvaluatorNode visit(ChainingArithmeticExpression e) {
+        EvaluatorNode left = e.getLeft().accept(this);
+        EvaluatorNode right = e.getRight().accept(this);
+        DomainOperatorInterpreter interpreter = domainOperatorInterpreter(e.getType());
+        DomainOperator operator = e.getOperator().getDomainOperator();
+        if (interpreter instanceof PrimitiveNumericOperatorInterpreter) {
+            NumericEvaluatorNode numericLeft = numericNode(left, e.getLeft().getType());
+            NumericEvaluatorNode numericRight = numericNode(right, e.getRight().getType());
+            if (numericLeft != null && numericRight != null) {
+                if (numericLeft.isDoubleValued() || numericRight.isDoubleValued()) {
+                    return new DoubleArithmeticNode(numericLeft, numericRight, (PrimitiveNumericOperatorInterpreter) interpreter, operator);
+                }
+                return new LongArithmeticNode(numericLeft, numericRight, (PrimitiveNumericOperatorInterpreter) interpreter, operator);
+            }
+        }
+        return new ArithmeticNode(
+            left,
+            right,
+            e.getType(),
+            e.getLeft().getType(),
+            e.getRight().getType(),
+            interpreter,
+            operator
+        );
+    }
+
+    @Override
+    public EvaluatorNode visit(CompoundPredicate e) {
+        List<Predicate> predicates = e.getPredicates();
+        if (predicates.isEmpty()) {
+            Boolean result = e.isConjunction() == e.isNegated();
+            return frame -> result;
+        }
+        return createCompoundNode(e, createAll(predicates));
+    }
+
+    /**
+     * Creates the evaluator node for the given non-empty compound predicate that combines the results of the given operand nodes.
+     * This allows other evaluator implementations to reuse the reordering of compound predicates with their own operand nodes.
+     *
+     * @param predicate The compound predicate
+     * @param operands The evaluator nodes for the operands of the compound predicate
+     * @return the evaluator node
+     */
+    public EvaluatorNode createCompoundNode(CompoundPredicate predicate, EvaluatorNode[] operands) {
+        long[] costs = estimateCosts(predicate.getPredicates());
+        if (costs != null) {
+            int[] order = ReorderingCompoundNode.order(costs, null, null);
+            return new ReorderingCompoundNode(operands, costs, order, predicate.isConjunction(), predicate.isNegated(), predicateReordering == PredicateReordering.ADAPTIVE);
+        }
+        if (predicate.isConjunction()) {
+            return new ConjunctionNode(operands, predicate.isNegated());
+        } else {
+            return new DisjunctionNode(operands, predicate.isNegated());
+        }
+    }
+
+    @Override
+    public EvaluatorNode visit(ComparisonPredicate e) {
+        EvaluatorNode left = e.getLeft().accept(this);
+        EvaluatorNode right = e.getRight().accept(this);
+        ComparisonOperatorInterpreter interpreter = comparisonOperatorInterpreter(e.getLeft().getType());
+        if (interpreter instanceof PrimitiveNumericOperatorInterpreter) {
+            NumericEvaluatorNode numericLeft = numericNode(left, e.getLeft().getType());
+            NumericEvaluatorNode numericRight = numericNode(right, e.getRight().getType());
+            if (numericLeft != null && numericRight != null) {
+                return new NumericComparisonNode(
+                    numericLeft,
+                    numericRight,
+                    (PrimitiveNumericOperatorInterpreter) interpreter,
+                    e.getOperator(),
+                    e.isNegated()
+                );
+            }
+        }
+        return new ComparisonNode(
+            left,
+            right,
+            e.getLeft().getType(),
+            e.getRight().getType(),
+            interpreter,
+            e.getOperator(),
+            e.isNegated()
+        );
+    }
+
+    @Override
+    public EvaluatorNode visit(IsNullPredicate e) {
+        EvaluatorNode left = e.getLeft().accept(this);
+        boolean negated = e.isNegated();
+        return frame -> (left.evaluate(frame) != null) == negated ? Boolean.TRUE : Boolean.FALSE;
+    }
+
+    @Override
+    public EvaluatorNode visit(IsEmptyPredicate e) {
+        EvaluatorNode left = e.getLeft().accept(this);
+        boolean negated = e.isNegated();
+        return frame -> {
+            Object value = left.evaluate(frame);
+            if (value == null) {
+                return null;
+            }
+            return ((Iterable<?>) value).iterator().hasNext() == negated;
+        };
+    }
+
+    @Override
+    public EvaluatorNode visit(Path e) {
+        EvaluatorNode base;
+        List<EntityDomainTypeAttribute> attributes = e.getAttributes();
+        if (e.getBase() == null) {
+            String alias = e.getAlias();
+            base = frame -> frame.context.getRoot(alias);
+            if (!sharedPathPrefixSlots.isEmpty()) {
+                List<Object> prefix = new ArrayList<>(attributes.size() + 1);
+                prefix.add(alias);
+                int start = 0;
+                for (int i = 0; i < attributes.size(); i++) {
+                    prefix.add(attributes.get(i));
+                    Integer slot = sharedPathPrefixSlots.get(prefix);
+                    if (slot != null) {
+                        base = new MemoizingNode(slot, attributeNode(base, attributes.subList(start, i + 1)));
+                        start = i + 1;
+                    }
+                }
+                attributes = attributes.subList(start, attributes.size());
+            }
+        } else {
+            base = e.getBase().accept(this);
+        }
+        if (attributes.isEmpty()) {
+            return base;
+        }
+        return attributeNode(base, attributes);
+    }
+
+    private static EvaluatorNode attributeNode(EvaluatorNode base, List<EntityDomainTypeAttribute> attributes) {
+        int size = attributes.size();
+        EntityDomainTypeAttribute[] attributeArray = new EntityDomainTypeAttribute[size];
+        AttributeAccessor[] accessors = new AttributeAccessor[size];
+        TypeAdapter<Object, Object>[] typeAdapters = new TypeAdapter[size];
+        for (int i = 0; i < size; i++) {
+            EntityDomainTypeAttribute attribute = attributes.get(i);
+            attributeArray[i] = attribute;
+            accessors[i] = attributeAccessor(attribute);
+            typeAdapters[i] = attribute.getMetadata(TypeAdapter.class);
+        }
+        if (size == 1) {
+            return new SingleAttributeNode(base, attributeArray[0], accessors[0], typeAdapters[0]);
+        }
+        return new PathNode(base, attributeArray, accessors, typeAdapters);
+    }
+
+    @Override
+    public EvaluatorNode visit(FunctionInvocation e) {
+        DomainFunction domainFunction = e.getFunction();
+        Map<DomainFunctionArgument, Expression> arguments = e.getArguments();
+        int size = arguments.size();
+        EvaluatorNode[] argumentNodes = new EvaluatorNode[size];
+        int[] positions = new int[size];
+        DomainType[] parameterTypes = new DomainType[size];
+        DomainType[] argumentTypes = new DomainType[size];
+        TypeAdapter<Object, Object>[] argumentAdapters = new TypeAdapter[size];
+        int i = 0;
+        for (Map.Entry<DomainFunctionArgument, Expression> entry : arguments.entrySet()) {
+            DomainFunctionArgument domainFunctionArgument = entry.getKey();
+            argumentNodes[i] = entry.getValue().accept(this);
+            positions[i] = domainFunctionArgument.getPosition();
+            parameterTypes[i] = domainFunctionArgument.getType();
+            argumentTypes[i] = entry.getValue().getType();
+            argumentAdapters[i] = domainFunctionArgument.getMetadata(TypeAdapter.class);
+            i++;
+        }
+        EvaluatorNode node = new FunctionNode(
+            domainFunction,
+            functionInvoker(domainFunction),
+            domainFunction.getMetadata(TypeAdapter.class),
+            argumentNodes,
+            positions,
+            parameterTypes,
+            argumentTypes,
+            argumentAdapters,
+            domainFunction.getArguments().size()
+        );
+        Integer slot = sharedFunctionInvocationSlots.get(e);
+        if (slot != null) {
+            return new MemoizingNode(slot, node);
+        }
+        return node;
+    }
+
+    @Override
+    public EvaluatorNode visit(Literal e) {
+        if (e.getType().getKind() == DomainType.DomainTypeKind.COLLECTION) {
+            Collection<Expression> collection = (Collection<Expression>) e.getValue();
+            if (collection.isEmpty()) {
+                return frame -> Collections.emptyList();
+            }
+            EvaluatorNode[] elements = createAll(new ArrayList<>(collection));
+            return frame -> {
+                List<Object> resolved = new ArrayList<>(elements.length);
+                for (int i = 0; i < elements.length; i++) {
+                    resolved.add(elements[i].evaluate(frame));
+                }
+                return resolved;
+            };
+        }
+        ResolvedLiteral resolvedLiteral = e.getResolvedLiteral();
+        if (resolvedLiteral instanceof DefaultResolvedLiteral) {
+            Object value = resolvedLiteral.getValue();
+            if (value instanceof Long) {
+                return new LongConstantNode((Long) value);
+            } else if (value instanceof Double) {
+                return new DoubleConstantNode((Double) value);
+            }
+            return frame -> value;
+        }
+        // Other resolved literals might produce the value lazily e.g. entity references
+        return frame -> resolvedLiteral.getValue();
+    }
+
+    @Override
+    public EvaluatorNode visit(EnumLiteral e) {
+        return visit((Literal) e);
+    }
+
+    @Override
+    public EvaluatorNode visit(EntityLiteral e) {
+        return visit((Literal) e);
+    }
+
+    @Override
+    public EvaluatorNode visit(CollectionLiteral e) {
+        return visit((Literal) e);
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    protected static final class NegationNode implements EvaluatorNode {
+
+        private final EvaluatorNode node;
+        private final DomainType type;
+        private final DomainOperatorInterpreter interpreter;
+
+        public NegationNode(EvaluatorNode node, DomainType type, DomainOperatorInterpreter interpreter) {
+            this.node = node;
+            this.type = type;
+            this.interpreter = interpreter;
+        }
+
+        @Override
+        public Object evaluate(EvaluatorFrame frame) {
+            Object result = node.evaluate(frame);
+            if (result == null) {
+                return null;
+            }
+            return interpreter.interpret(frame.context, type, type, null, result, null, DomainOperator.UNARY_MINUS);
+        }
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    protected static final class ExpressionPredicateNode implements EvaluatorNode {
+
+        private final EvaluatorNode node;
+        private final boolean negated;
+
+        public ExpressionPredicateNode(EvaluatorNode node, boolean negated) {
+            this.node = node;
+            this.negated = negated;
+        }
+
+        @Override
+        public Object evaluate(EvaluatorFrame frame) {
+            Boolean result = (Boolean) node.evaluate(frame);
+            if (result == null) {
+                return null;
+            }
+            return negated != result;
+        }
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    protected static final class BetweenNode implements EvaluatorNode {
+
+        private final EvaluatorNode left;
+        private final EvaluatorNode lower;
+        private final EvaluatorNode upper;
+        private final DomainType leftType;
+        private final DomainType lowerType;
+        private final DomainType upperType;
+        private final ComparisonOperatorInterpreter interpreter;
+        private final Boolean testValue;
+
+        public BetweenNode(EvaluatorNode left, EvaluatorNode lower, EvaluatorNode upper, DomainType leftType, DomainType lowerType, DomainType upperType, ComparisonOperatorInterpreter interpreter, boolean negated) {
+            this.left = left;
+            this.lower = lower;
+            this.upper = upper;
+            this.leftType = leftType;
+            this.lowerType = lowerType;
+            this.upperType = upperType;
+            this.interpreter = interpreter;
+            this.testValue = negated ? Boolean.TRUE : Boolean.FALSE;
+        }
+
+        @Override
+        public Object evaluate(EvaluatorFrame frame) {
+            Object leftValue = left.evaluate(frame);
+            if (leftValue == null) {
+                return null;
+            }
+            Object lowerValue = lower.evaluate(frame);
+            if (lowerValue == null) {
+                return null;
+            }
+            Object upperValue = upper.evaluate(frame);
+            if (upperValue == null) {
+                return null;
+            }
+            ExpressionInterpreter.Context context = frame.context;
+            Boolean compare = interpreter.interpret(context, leftType, lowerType, leftValue, lowerValue, ComparisonOperator.GREATER_OR_EQUAL);
+            if (compare == null) {
+                return null;
+            } else if (testValue.equals(compare)) {
+                return testValue;
+            }
+            compare = interpreter.interpret(context, leftType, upperType, leftValue, upperValue, ComparisonOperator.LOWER_OR_EQUAL);
+            if (compare == null) {
+                return null;
+            } else if (testValue.equals(compare)) {
+                return testValue;
+            }
+            return Boolean.TRUE;
+        }
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    protected static final class InNode implements EvaluatorNode {
+
+        private final EvaluatorNode left;
+        private final EvaluatorNode[] items;
+        private final DomainType leftType;
+        private final DomainType[] itemTypes;
+        private final ComparisonOperatorInterpreter interpreter;
+        private final Boolean testValue;
+
+        public InNode(EvaluatorNode left, EvaluatorNode[] items, DomainType leftType, DomainType[] itemTypes, ComparisonOperatorInterpreter interpreter, boolean negated) {
+            this.left = left;
+            this.items = items;
+            this.leftType = leftType;
+            this.itemTypes = itemTypes;
+            this.interpreter = interpreter;
+            this.testValue = negated ? Boolean.TRUE : Boolean.FALSE;
+        }
+
+        @Override
+        public Object evaluate(EvaluatorFrame frame) {
+            Object leftValue = left.evaluate(frame);
+            if (leftValue == null) {
+                return null;
+            }
+            return evaluate(leftValue, frame);
+        }
+
+        Object evaluate(Object leftValue, EvaluatorFrame frame) {
+            for (int i = 0; i < items.length; i++) {
+                Object value = items[i].evaluate(frame);
+                if (value == null) {
+                    return null;
+                }
+                Boolean b = interpreter.interpret(frame.context, leftType, itemTypes[i], leftValue, value, ComparisonOperator.EQUAL);
+                if (!testValue.equals(b)) {
+                    return b;
+                }
+            }
+            return testValue;
+        }
+    }
+
+    /**
+     * Evaluates an in predicate with literal in items through a lookup of the equality key of the left value.
+     * If the left value has no equality key, the in predicate is evaluated by the given {@link InNode}.
+     *
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    protected static final class HashInNode implements EvaluatorNode {
+
+        private final InNode inNode;
+        private final EvaluatorNode left;
+        private final DomainType leftType;
+        private final EqualityKeyOperatorInterpreter interpreter;
+        private final Set<Object> equalityKeys;
+
+        public HashInNode(InNode inNode, Set<Object> equalityKeys) {
+            this.inNode = inNode;
+            this.left = inNode.left;
+            this.leftType = inNode.leftType;
+            this.interpreter = (EqualityKeyOperatorInterpreter) inNode.interpreter;
+            this.equalityKeys = equalityKeys;
+        }
+
+        @Override
+        public Object evaluate(EvaluatorFrame frame) {
+            Object leftValue = left.evaluate(frame);
+            if (leftValue == null) {
+                return null;
+            }
+            Object equalityKey = interpreter.getEqualityKey(leftType, leftValue);
+            if (equalityKey == null) {
+                return inNode.evaluate(leftValue, frame);
+            }
+            return equalityKeys.contains(equalityKey) ? Boolean.TRUE : Boolean.FALSE;
+        }
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    protected static final class ArithmeticNode implements EvaluatorNode {
+
+        private final EvaluatorNode left;
+        private final EvaluatorNode right;
+        private final DomainType targetType;
+        private final DomainType leftType;
+        private final DomainType rightType;
+        private final DomainOperatorInterpreter interpreter;
+        private final DomainOperator operator;
+
+        public ArithmeticNode(EvaluatorNode left, EvaluatorNode right, DomainType targetType, DomainType leftType, DomainType rightType, DomainOperatorInterpreter interpreter, DomainOperator operator) {
+            this.left = left;
+            this.right = right;
+            this.targetType = targetType;
+            this.leftType = leftType;
+            this.rightType = rightType;
+            this.interpreter = interpreter;
+            this.operator = operator;
+        }
+
+        @Override
+        public Object evaluate(EvaluatorFrame frame) {
+            Object leftValue = left.evaluate(frame);
+            if (leftValue == null) {
+                return null;
+            }
+            Object rightValue = right.evaluate(frame);
+            if (rightValue == null) {
+                return null;
+            }
+            return interpreter.interpret(frame.context, targetType, leftType, rightType, leftValue, rightValue, operator);
+        }
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    protected static final class ConjunctionNode implements EvaluatorNode {
+
+        private final EvaluatorNode[] predicates;
+        private final Boolean negated;
+        private final Boolean notNegated;
+
+        public ConjunctionNode(EvaluatorNode[] predicates, boolean negated) {
+            this.predicates = predicates;
+            this.negated = negated;
+            this.notNegated = !negated;
+        }
+
+        @Override
+        public Object evaluate(EvaluatorFrame frame) {
+            for (int i = 0; i < predicates.length; i++) {
+                Object result = predicates[i].evaluate(frame);
+                if (result == null) {
+                    return null;
+                } else if (!Boolean.TRUE.equals(result)) {
+                    return negated;
+                }
+            }
+            return notNegated;
+        }
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    protected static final class DisjunctionNode implements EvaluatorNode {
+
+        private final EvaluatorNode[] predicates;
+        private final Boolean negated;
+        private final Boolean notNegated;
+
+        public DisjunctionNode(EvaluatorNode[] predicates, boolean negated) {
+            this.predicates = predicates;
+            this.negated = negated;
+            this.notNegated = !negated;
+        }
+
+        @Override
+        public Object evaluate(EvaluatorFrame frame) {
+            for (int i = 0; i < predicates.length; i++) {
+                Object result = predicates[i].evaluate(frame);
+                if (result == null) {
+                    return null;
+                } else if (Boolean.TRUE.equals(result)) {
+                    return notNegated;
+                }
+            }
+            return negated;
+        }
+    }
+
+    /**
+     * Evaluates the operands of a compound predicate in the order of their estimated cost with three valued logic.
+     * The first operand that is <code>false</code> for a conjunction or <code>true</code> for a disjunction determines the result
+     * and the remaining operands are skipped, regardless of whether an operand before it in source order is <code>null</code>.
+     * The result is <code>null</code> only if no operand determines the result and at least one operand is <code>null</code>.
+     * Exceptions of operands are propagated right away, so an exception of an operand is only raised if it is evaluated.
+     * In adaptive mode, a sample of the evaluations records how often an operand was evaluated and how often it determined the result,
+     * and the order is periodically recomputed based on these statistics.
+     * The statistics are shared by concurrent evaluations and updated atomically, but are not a consistent snapshot while the order is recomputed.
+     * Since the statistics are only a heuristic for the evaluation order, this can only make the order less optimal, but never affects the result.
+     *
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    protected static final class ReorderingCompoundNode implements EvaluatorNode {
+
+        /**
+         * The maximum number of operands that can be reordered.
+         */
+        public static final int MAX_OPERANDS = 64;
+        private static final int SAMPLING_INTERVAL = 16;
+        private static final int ADAPTION_INTERVAL = 64;
+
+        private final EvaluatorNode[] predicates;
+        private final long[] costs;
+        private final boolean conjunction;
+        private final Boolean decidedResult;
+        private final Boolean undecidedResult;
+        private final boolean adaptive;
+        private final AtomicIntegerArray evaluationCounts;
+        private final AtomicIntegerArray decisionCounts;
+        private final AtomicInteger samples;
+        private volatile int[] order;
+
+        public ReorderingCompoundNode(EvaluatorNode[] predicates, long[] costs, int[] order, boolean conjunction, boolean negated, boolean adaptive) {
+            this.predicates = predicates;
+            this.costs = costs;
+            this.order = order;
+            this.conjunction = conjunction;
+            this.decidedResult = conjunction == negated;
+            this.undecidedResult = conjunction != negated;
+            this.adaptive = adaptive;
+            this.evaluationCounts = adaptive ? new AtomicIntegerArray(predicates.length) : null;
+            this.decisionCounts = adaptive ? new AtomicIntegerArray(predicates.length) : null;
+            this.samples = adaptive ? new AtomicInteger() : null;
+        }
+
+        /**
+         * Returns the operand indexes ordered by the estimated cost per decision.
+         * Without statistics, every operand is assumed to determine the result equally likely.
+         *
+         * @param costs The estimated costs of the operands
+         * @param evaluationCounts The number of evaluations of the operands or <code>null</code>
+         * @param decisionCounts The number of times the operands determined the result or <code>null</code>
+         * @return the evaluation order
+         */
+        public static int[] order(long[] costs, AtomicIntegerArray evaluationCounts, AtomicIntegerArray decisionCounts) {
+            int size = costs.length;
+            double[] ranks = new double[size];
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) {
+                double rank = costs[i] + 1;
+                if (evaluationCounts != null) {
+                    rank = rank * (evaluationCounts.get(i) + 2) / (decisionCounts.get(i) + 1);
+                }
+                // Stable insertion sort, so operands with equal rank stay in source order
+                int j = i;
+                while (j > 0 && ranks[j - 1] > rank) {
+                    ranks[j] = ranks[j - 1];
+                    order[j] = order[j - 1];
+                    j--;
+                }
+                ranks[j] = rank;
+                order[j] = i;
+            }
+            return order;
+        }
+
+        @Override
+        public Object evaluate(EvaluatorFrame frame) {
+            int[] order = this.order;
+            // Only a sample of the evaluations records statistics to avoid contention on the counters
+            boolean sample = adaptive && ThreadLocalRandom.current().nextInt(SAMPLING_INTERVAL) == 0;
+            Boolean result = undecidedResult;
+            for (int k = 0; k < order.length; k++) {
+                int i = order[k];
+                Object operandResult = predicates[i].evaluate(frame);
+                if (sample) {
+                    evaluationCounts.incrementAndGet(i);
+                }
+                if (operandResult == null) {
+                    result = null;
+                } else if (Boolean.TRUE.equals(operandResult) != conjunction) {
+                    if (sample) {
+                        decisionCounts.incrementAndGet(i);
+                    }
+                    result = decidedResult;
+                    break;
+                }
+            }
+            // Only the sample that completes an interval adapts the order, so concurrent evaluations don't adapt it twice
+            if (sample && samples.incrementAndGet() == ADAPTION_INTERVAL) {
+                adapt();
+            }
+            return result;
+        }
+
+        private void adapt() {
+            int[] newOrder = order(costs, evaluationCounts, decisionCounts);
+            // Halve the statistics so that the order can follow changes of the data distribution
+            for (int i = 0; i < predicates.length; i++) {
+                evaluationCounts.getAndUpdate(i, count -> count >>> 1);
+                decisionCounts.getAndUpdate(i, count -> count >>> 1);
+            }
+            order = newOrder;
+            samples.set(0);
+        }
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    protected static final class ComparisonNode implements EvaluatorNode {
+
+        private final EvaluatorNode left;
+        private final EvaluatorNode right;
+        private final DomainType leftType;
+        private final DomainType rightType;
+        private final ComparisonOperatorInterpreter interpreter;
+        private final ComparisonOperator operator;
+        private final boolean negated;
+
+        public ComparisonNode(EvaluatorNode left, EvaluatorNode right, DomainType leftType, DomainType rightType, ComparisonOperatorInterpreter interpreter, ComparisonOperator operator, boolean negated) {
+            this.left = left;
+            this.right = right;
+            this.leftType = leftType;
+            this.rightType = rightType;
+            this.interpreter = interpreter;
+            this.operator = operator;
+            this.negated = negated;
+        }
+
+        @Override
+        public Object evaluate(EvaluatorFrame frame) {
+            Object leftValue = left.evaluate(frame);
+            if (leftValue == null) {
+                return null;
+            }
+            Object rightValue = right.evaluate(frame);
+            if (rightValue == null) {
+                return null;
+            }
+            Boolean compare = interpreter.interpret(frame.context, leftType, rightType, leftValue, rightValue, operator);
+            if (compare == null) {
+                return null;
+            } else if (negated) {
+                return !compare;
+            } else {
+                return compare;
+            }
+        }
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    protected static final class LongConstantNode implements NumericEvaluatorNode {
+
+        private final Long value;
+        private final long primitiveValue;
+
+        public LongConstantNode(Long value) {
+            this.value = value;
+            this.primitiveValue = value;
+        }
+
+        @Override
+        public boolean isDoubleValued() {
+            return false;
+        }
+
+        @Override
+        public long evaluateLong(EvaluatorFrame frame) {
+            frame.wasNull = false;
+            return primitiveValue;
+        }
+
+        @Override
+        public double evaluateDouble(EvaluatorFrame frame) {
+            frame.wasNull = false;
+            return primitiveValue;
+        }
+
+        @Override
+        public Object evaluate(EvaluatorFrame frame) {
+            return value;
+        }
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    protected static final class DoubleConstantNode implements NumericEvaluatorNode {
+
+        private final Double value;
+        private final double primitiveValue;
+
+        public DoubleConstantNode(Double value) {
+            this.value = value;
+            this.primitiveValue = value;
+        }
+
+        @Override
+        public boolean isDoubleValued() {
+            return true;
+        }
+
+        @Override
+        public long evaluateLong(EvaluatorFrame frame) {
+            frame.wasNull = false;
+            return (long) primitiveValue;
+        }
+
+        @Override
+        public double evaluateDouble(EvaluatorFrame frame) {
+            frame.wasNull = false;
+            return primitiveValue;
+        }
+
+        @Override
+        public Object evaluate(EvaluatorFrame frame) {
+            return value;
+        }
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    protected static final class LongValueNode implements NumericEvaluatorNode {
+
+        private final EvaluatorNode node;
+
+        public LongValueNode(EvaluatorNode node) {
+            this.node = node;
+        }
+
+        @Override
+        public boolean isDoubleValued() {
+            return false;
+        }
+
+        @Override
+        public long evaluateLong(EvaluatorFrame frame) {
+            Object value = node.evaluate(frame);
+            if (value == null) {
+                frame.wasNull = true;
+                return 0L;
+            }
+            frame.wasNull = false;
+            return ((Number) value).longValue();
+        }
+
+        @Override
+        public double evaluateDouble(EvaluatorFrame frame) {
+            return evaluateLong(frame);
+        }
+
+        @Override
+        public Object evaluate(EvaluatorFrame frame) {
+            return node.evaluate(frame);
+        }
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    protected static final class DoubleValueNode implements NumericEvaluatorNode {
+
+        private final EvaluatorNode node;
+
+        public DoubleValueNode(EvaluatorNode node) {
+            this.node = node;
+        }
+
+        @Override
+        public boolean isDoubleValued() {
+            return true;
+        }
+
+        @Override
+        public long evaluateLong(EvaluatorFrame frame) {
+            return (long) evaluateDouble(frame);
+        }
+
+        @Override
+        public double evaluateDouble(EvaluatorFrame frame) {
+            Object value = node.evaluate(frame);
+            if (value == null) {
+                frame.wasNull = true;
+                return 0D;
+            }
+            frame.wasNull = false;
+            return ((Number) value).doubleValue();
+        }
+
+        @Override
+        public Object evaluate(EvaluatorFrame frame) {
+            return node.evaluate(frame);
+        }
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    protected static final class LongNegationNode implements NumericEvaluatorNode {
+
+        private final NumericEvaluatorNode node;
+        private final PrimitiveNumericOperatorInterpreter interpreter;
+
+        public LongNegationNode(NumericEvaluatorNode node, PrimitiveNumericOperatorInterpreter interpreter) {
+            this.node = node;
+            this.interpreter = interpreter;
+        }
+
+        @Override
+        public boolean isDoubleValued() {
+            return false;
+        }
+
+        @Override
+        public long evaluateLong(EvaluatorFrame frame) {
+            long value = node.evaluateLong(frame);
+            if (frame.wasNull) {
+                return 0L;
+            }
+            return interpreter.interpret(value, 0L, DomainOperator.UNARY_MINUS);
+        }
+
+        @Override
+        public double evaluateDouble(EvaluatorFrame frame) {
+            return evaluateLong(frame);
+        }
+
+        @Override
+        public Object evaluate(EvaluatorFrame frame) {
+            long value = evaluateLong(frame);
+            return frame.wasNull ? null : value;
+        }
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    protected static final class DoubleNegationNode implements NumericEvaluatorNode {
+
+        private final NumericEvaluatorNode node;
+        private final PrimitiveNumericOperatorInterpreter interpreter;
+
+        public DoubleNegationNode(NumericEvaluatorNode node, PrimitiveNumericOperatorInterpreter interpreter) {
+            this.node = node;
+            this.interpreter = interpreter;
+        }
+
+        @Override
+        public boolean isDoubleValued() {
+            return true;
+        }
+
+        @Override
+        public long evaluateLong(EvaluatorFrame frame) {
+            return (long) evaluateDouble(frame);
+        }
+
+        @Override
+        public double evaluateDouble(EvaluatorFrame frame) {
+            double value = node.evaluateDouble(frame);
+            if (frame.wasNull) {
+                return 0D;
+            }
+            return interpreter.interpret(value, 0D, DomainOperator.UNARY_MINUS);
+        }
+
+        @Override
+        public Object evaluate(EvaluatorFrame frame) {
+            double value = evaluateDouble(frame);
+            return frame.wasNull ? null : value;
+        }
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    protected static final class LongArithmeticNode implements NumericEvaluatorNode {
+
+        private final NumericEvaluatorNode left;
+        private final NumericEvaluatorNode right;
+        private final PrimitiveNumericOperatorInterpreter interpreter;
+        private final DomainOperator operator;
+
+        public LongArithmeticNode(NumericEvaluatorNode left, NumericEvaluatorNode right, PrimitiveNumericOperatorInterpreter interpreter, DomainOperator operator) {
+            this.left = left;
+            this.right = right;
+            this.interpreter = interpreter;
+            this.operator = operator;
+        }
+
+        @Override
+        public boolean isDoubleValued() {
+            return false;
+        }
+
+        @Override
+        public long evaluateLong(EvaluatorFrame frame) {
+            long leftValue = left.evaluateLong(frame);
+            if (frame.wasNull) {
+                return 0L;
+            }
+            long rightValue = right.evaluateLong(frame);
+            if (frame.wasNull) {
+                return 0L;
+            }
+            return interpreter.interpret(leftValue, rightValue, operator);
+        }
+
+        @Override
+        public double evaluateDouble(EvaluatorFrame frame) {
+            return evaluateLong(frame);
+        }
+
+        @Override
+        public Object evaluate(EvaluatorFrame frame) {
+            long value = evaluateLong(frame);
+            return frame.wasNull ? null : value;
+        }
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    protected static final class DoubleArithmeticNode implements NumericEvaluatorNode {
+
+        private final NumericEvaluatorNode left;
+        private final NumericEvaluatorNode right;
+        private final PrimitiveNumericOperatorInterpreter interpreter;
+        private final DomainOperator operator;
+
+        public DoubleArithmeticNode(NumericEvaluatorNode left, NumericEvaluatorNode right, PrimitiveNumericOperatorInterpreter interpreter, DomainOperator operator) {
+            this.left = left;
+            this.right = right;
+            this.interpreter = interpreter;
+            this.operator = operator;
+        }
+
+        @Override
+        public boolean isDoubleValued() {
+            return true;
+        }
+
+        @Override
+        public long evaluateLong(EvaluatorFrame frame) {
+            return (long) evaluateDouble(frame);
+        }
+
+        @Override
+        public double evaluateDouble(EvaluatorFrame frame) {
+            double leftValue = left.evaluateDouble(frame);
+            if (frame.wasNull) {
+                return 0D;
+            }
+            double rightValue = right.evaluateDouble(frame);
+            if (frame.wasNull) {
+                return 0D;
+            }
+            return interpreter.interpret(leftValue, rightValue, operator);
+        }
+
+        @Override
+        public Object evaluate(EvaluatorFrame frame) {
+            double value = evaluateDouble(frame);
+            return frame.wasNull ? null : value;
+        }
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    protected static final class NumericComparisonNode implements EvaluatorNode {
+
+        private final NumericEvaluatorNode left;
+        private final NumericEvaluatorNode right;
+        private final PrimitiveNumericOperatorInterpreter interpreter;
+        private final ComparisonOperator operator;
+        private final boolean negated;
+        private final boolean doubleValued;
+
+        public NumericComparisonNode(NumericEvaluatorNode left, NumericEvaluatorNode right, PrimitiveNumericOperatorInterpreter interpreter, ComparisonOperator operator, boolean negated) {
+            this.left = left;
+            this.right = right;
+            this.interpreter = interpreter;
+            this.operator = operator;
+            this.negated = negated;
+            this.doubleValued = left.isDoubleValued() || right.isDoubleValued();
+        }
+
+        @Override
+        public Object evaluate(EvaluatorFrame frame) {
+            boolean compare;
+            if (doubleValued) {
+                double leftValue = left.evaluateDouble(frame);
+                if (frame.wasNull) {
+                    return null;
+                }
+                double rightValue = right.evaluateDouble(frame);
+                if (frame.wasNull) {
+                    return null;
+                }
+                compare = interpreter.interpret(leftValue, rightValue, operator);
+            } else {
+                long leftValue = left.evaluateLong(frame);
+                if (frame.wasNull) {
+                    return null;
+                }
+                long rightValue = right.evaluateLong(frame);
+                if (frame.wasNull) {
+                    return null;
+                }
+                compare = interpreter.interpret(leftValue, rightValue, operator);
+            }
+            return negated != compare;
+        }
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    protected static final class SingleAttributeNode implements EvaluatorNode {
+
+        private final EvaluatorNode base;
+        private final EntityDomainTypeAttribute attribute;
+        private final AttributeAccessor accessor;
+        private final TypeAdapter<Object, Object> typeAdapter;
+
+        public SingleAttributeNode(EvaluatorNode base, EntityDomainTypeAttribute attribute, AttributeAccessor accessor, TypeAdapter<Object, Object> typeAdapter) {
+            this.base = base;
+            this.attribute = attribute;
+            this.accessor = accessor;
+            this.typeAdapter = typeAdapter;
+        }
+
+        @Override
+        public Object evaluate(EvaluatorFrame frame) {
+            Object value = base.evaluate(frame);
+            if (value == null) {
+                return null;
+            }
+            value = accessor.getAttribute(frame.context, value, attribute);
+            if (typeAdapter != null) {
+                value = typeAdapter.toInternalType(frame.context, value, attribute.getType());
+            }
+            return value;
+        }
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    protected static final class PathNode implements EvaluatorNode {
+
+        private final EvaluatorNode base;
+        private final EntityDomainTypeAttribute[] attributes;
+        private final AttributeAccessor[] accessors;
+        private final TypeAdapter<Object, Object>[] typeAdapters;
+
+        public PathNode(EvaluatorNode base, EntityDomainTypeAttribute[] attributes, AttributeAccessor[] accessors, TypeAdapter<Object, Object>[] typeAdapters) {
+            this.base = base;
+            this.attributes = attributes;
+            this.accessors = accessors;
+            this.typeAdapters = typeAdapters;
+        }
+
+        @Override
+        public Object evaluate(EvaluatorFrame frame) {
+            ExpressionInterpreter.Context context = frame.context;
+            Object value = base.evaluate(frame);
+            for (int i = 0; i < attributes.length; i++) {
+                if (value == null) {
+                    return null;
+                }
+                EntityDomainTypeAttribute attribute = attributes[i];
+                value = accessors[i].getAttribute(context, value, attribute);
+                TypeAdapter<Object, Object> typeAdapter = typeAdapters[i];
+                if (typeAdapter != null) {
+                    value = typeAdapter.toInternalType(context, value, attribute.getType());
+                }
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Evaluates the wrapped node only once per evaluation and memoizes the result in the {@link EvaluatorFrame}.
+     *
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    protected static final class MemoizingNode implements EvaluatorNode {
+
+        private final int slot;
+        private final EvaluatorNode node;
+
+        public MemoizingNode(int slot, EvaluatorNode node) {
+            this.slot = slot;
+            this.node = node;
+        }
+
+        @Override
+        public Object evaluate(EvaluatorFrame frame) {
+            Object value = frame.getMemoizedValue(slot);
+            if (value == EvaluatorFrame.NOT_MEMOIZED) {
+                value = node.evaluate(frame);
+                frame.setMemoizedValue(slot, value);
+            }
+            return value;
+        }
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    protected static final class FunctionNode implements EvaluatorNode {
+
+        private final DomainFunction function;
+        private final FunctionInvoker invoker;
+        private final TypeAdapter<Object, Object> resultTypeAdapter;
+        private final EvaluatorNode[] arguments;
+        private final int[] positions;
+        private final DomainType[] parameterTypes;
+        private final DomainType[] argumentTypes;
+        private final TypeAdapter<Object, Object>[] argumentAdapters;
+        private final int parameterCount;
+
+        public FunctionNode(DomainFunction function, FunctionInvoker invoker, TypeAdapter<Object, Object> resultTypeAdapter, EvaluatorNode[] arguments, int[] positions,
+                            DomainType[] parameterTypes, DomainType[] argumentTypes, TypeAdapter<Object, Object>[] argumentAdapters, int parameterCount) {
+            this.function = function;
+            this.invoker = invoker;
+            this.resultTypeAdapter = resultTypeAdapter;
+            this.arguments = arguments;
+            this.positions = positions;
+            this.parameterTypes = parameterTypes;
+            this.argumentTypes = argumentTypes;
+            this.argumentAdapters = argumentAdapters;
+            this.parameterCount = parameterCount;
+        }
+
+        @Override
+        public Object evaluate(EvaluatorFrame frame) {
+            ExpressionInterpreter.Context context = frame.context;
+            Object result;
+            if (arguments.length == 0) {
+                result = invoker.invoke(context, function, DomainFunctionArguments.EMPTY);
+            } else {
+                ReusableDomainFunctionArguments argumentValues = frame.acquireFunctionArguments();
+                try {
+                    argumentValues.reset(parameterCount);
+                    for (int i = 0; i < arguments.length; i++) {
+                        Object argumentValue = arguments[i].evaluate(frame);
+                        TypeAdapter<Object, Object> argumentAdapter = argumentAdapters[i];
+                        if (argumentAdapter != null) {
+                            argumentValue = argumentAdapter.toModelType(context, argumentValue, parameterTypes[i]);
+                        }
+                        argumentValues.set(positions[i], argumentValue, argumentTypes[i]);
+                    }
+                    result = invoker.invoke(context, function, argumentValues);
+                } finally {
+                    frame.releaseFunctionArguments();
+                }
+            }
+            if (resultTypeAdapter != null) {
+                return resultTypeAdapter.toInternalType(context, result, function.getResultType());
+            }
+            return result;
+        }
+    }
+}
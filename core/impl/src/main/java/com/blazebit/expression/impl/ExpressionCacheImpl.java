@@ -0,0 +1,230 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.blazebit.expression.impl;
+
+import com.blazebit.domain.runtime.model.DomainModel;
+import com.blazebit.domain.runtime.model.DomainType;
+import com.blazebit.expression.Expression;
+import com.blazebit.expression.ExpressionCacheStatistics;
+import com.blazebit.expression.ImplicitRootProvider;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A size bounded LRU cache for compiled expressions.
+ * The cache is split into segments that are locked independently, so that concurrent compilers rarely contend.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public class ExpressionCacheImpl implements ExpressionCacheStatistics {
+
+    private static final int MAX_SEGMENTS = 16;
+    // Small caches use a single segment to get an exact LRU order
+    private static final int MIN_SEGMENT_SIZE = 32;
+
+    private final int maximumSize;
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    public ExpressionCacheImpl(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Invalid maximum size: " + maximumSize);
+        }
+        int segmentCount = 1;
+        while (segmentCount < MAX_SEGMENTS && segmentCount * 2 * MIN_SEGMENT_SIZE <= maximumSize) {
+            segmentCount <<= 1;
+        }
+        int segmentSize = (maximumSize + segmentCount - 1) / segmentCount;
+        this.maximumSize = maximumSize;
+        this.segments = new Segment[segmentCount];
+        this.segmentMask = segmentCount - 1;
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(segmentSize, evictionCount);
+        }
+    }
+
+    /**
+     * Returns the cached expression for the given key or <code>null</code>.
+     *
+     * @param key The cache key
+     * @return the cached expression or <code>null</code>
+     */
+    public Expression get(Key key) {
+        Segment segment = segmentFor(key);
+        Expression expression;
+        synchronized (segment) {
+            expression = segment.get(key);
+        }
+        if (expression == null) {
+            missCount.increment();
+        } else {
+            hitCount.increment();
+        }
+        return expression;
+    }
+
+    /**
+     * Caches the given expression for the given key, unless an expression is already cached, and returns the cached expression.
+     *
+     * @param key The cache key
+     * @param expression The compiled expression
+     * @return the cached expression
+     */
+    public Expression putIfAbsent(Key key, Expression expression) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            Expression existing = segment.putIfAbsent(key, expression);
+            return existing == null ? expression : existing;
+        }
+    }
+
+    private Segment segmentFor(Key key) {
+        int h = key.hashCode();
+        return segments[(h ^ (h >>> 16)) & segmentMask];
+    }
+
+    @Override
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    @Override
+    public int getSize() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    @Override
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    private static final class Segment extends LinkedHashMap<Key, Expression> {
+
+        private final int maximumSize;
+        private final LongAdder evictionCount;
+
+        public Segment(int maximumSize, LongAdder evictionCount) {
+            super(16, 0.75f, true);
+            this.maximumSize = maximumSize;
+            this.evictionCount = evictionCount;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Expression> eldest) {
+            if (size() > maximumSize) {
+                evictionCount.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The key of a compiled expression, which consists of everything that influences the compilation result.
+     *
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    public static final class Key {
+
+        private final String input;
+        private final boolean templateMode;
+        private final Object ruleInvoker;
+        private final Map<String, DomainType> rootDomainTypes;
+        private final ImplicitRootProvider implicitRootProvider;
+        private final DomainModel domainModel;
+        private final int hash;
+
+        public Key(String input, boolean templateMode, Object ruleInvoker, Map<String, DomainType> rootDomainTypes, ImplicitRootProvider implicitRootProvider, DomainModel domainModel) {
+            this.input = input;
+            this.templateMode = templateMode;
+            this.ruleInvoker = ruleInvoker;
+            // Copy the root domain types, as the caller might change the map after the expression was cached
+            this.rootDomainTypes = rootDomainTypes == null ? null : Collections.unmodifiableMap(new HashMap<>(rootDomainTypes));
+            this.implicitRootProvider = implicitRootProvider;
+            this.domainModel = domainModel;
+            int hash = input.hashCode();
+            hash = 31 * hash + (templateMode ? 1 : 0);
+            hash = 31 * hash + ruleInvoker.hashCode();
+            hash = 31 * hash + (this.rootDomainTypes == null ? 0 : this.rootDomainTypes.hashCode());
+            hash = 31 * hash + (implicitRootProvider == null ? 0 : implicitRootProvider.hashCode());
+            hash = 31 * hash + System.identityHashCode(domainModel);
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return hash == key.hash
+                && templateMode == key.templateMode
+                && domainModel == key.domainModel
+                && ruleInvoker == key.ruleInvoker
+                && input.equals(key.input)
+                && (rootDomainTypes == null ? key.rootDomainTypes == null : rootDomainTypes.equals(key.rootDomainTypes))
+                && (implicitRootProvider == null ? key.implicitRootProvider == null : implicitRootProvider.equals(key.implicitRootProvider));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
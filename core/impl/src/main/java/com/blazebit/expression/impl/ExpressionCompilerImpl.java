@@ -17,27 +17,35 @@
 package com.blazebit.expression.impl;
 
 import com.blazebit.domain.runtime.model.DomainType;
+import com.blazebit.expression.DomainModelException;
 import com.blazebit.expression.Expression;
 import com.blazebit.expression.ExpressionCompiler;
+import com.blazebit.expression.ExpressionOptimizer;
+import com.blazebit.expression.ExpressionParserType;
 import com.blazebit.expression.ExpressionService;
 import com.blazebit.expression.ImplicitRootProvider;
 import com.blazebit.expression.Predicate;
 import com.blazebit.expression.SyntaxErrorException;
 import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.BailErrorStrategy;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonToken;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
 import org.antlr.v4.runtime.LexerNoViableAltException;
 import org.antlr.v4.runtime.Parser;
 import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.RecognitionException;
 import org.antlr.v4.runtime.Recognizer;
 import org.antlr.v4.runtime.atn.ATNConfigSet;
+import org.antlr.v4.runtime.atn.PredictionMode;
 import org.antlr.v4.runtime.dfa.DFA;
 import org.antlr.v4.runtime.misc.IntervalSet;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 
 import java.util.BitSet;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * @author Christian Beikov
@@ -71,12 +79,41 @@ public class ExpressionCompilerImpl implements ExpressionCompiler {
         }
     };
 
+    /**
+     * Inputs that cover the grammar rules, parsed to populate the DFA cache of the parser which is shared by all parser instances.
+     */
+    private static final String[] WARM_UP_PREDICATES = {
+        "a.b = 1 AND NOT(c.d <> 'x' OR e IS NULL) OR f.g IS NOT EMPTY",
+        "a > -1.5 * (b + c) / 2 AND d >= 1 AND e < 1 % 2 AND f <= \"x\"",
+        "a NOT IN (1, 2, 3) OR b IN c OR d NOT BETWEEN 1 AND e - 1",
+        "f(a, b = 1).c = g(x = TRUE, y = FALSE) AND !h()",
+        "a = DATE(2000-01-01) OR b = TIME(10:00:00.5) OR c = TIMESTAMP(2000-01-01 10:00:00)",
+        "a + INTERVAL 1 YEARS 2 MONTHS 3 DAYS 4 HOURS 5 MINUTES 6 SECONDS > b AND c IN [1, 2] AND d = e(f = 1, g = 'x')"
+    };
+    private static final String WARM_UP_TEMPLATE = "Text #{a.b} and #{f(1) + 1}";
+    private static final AtomicBoolean WARMED_UP = new AtomicBoolean();
+    private static final ThreadLocal<ParserHolder> PARSER_HOLDER = ThreadLocal.withInitial(ParserHolder::new);
+
     protected final ExpressionService expressionService;
     protected final LiteralFactory literalFactory;
+    protected final ExpressionCacheImpl expressionCache;
+    protected final ExpressionOptimizer optimizer;
+    protected final ExpressionParserType expressionParserType;
 
     public ExpressionCompilerImpl(ExpressionService expressionService, LiteralFactory literalFactory) {
+        this(expressionService, literalFactory, null, null);
+    }
+
+    public ExpressionCompilerImpl(ExpressionService expressionService, LiteralFactory literalFactory, ExpressionCacheImpl expressionCache) {
+        this(expressionService, literalFactory, expressionCache, null);
+    }
+
+    public ExpressionCompilerImpl(ExpressionService expressionService, LiteralFactory literalFactory, ExpressionCacheImpl expressionCache, ExpressionOptimizer optimizer) {
         this.expressionService = expressionService;
         this.literalFactory = literalFactory;
+        this.expressionCache = expressionCache;
+        this.optimizer = optimizer;
+        this.expressionParserType = expressionService.getExpressionParserType();
     }
 
     public LiteralFactory getLiteralFactory() {
@@ -90,27 +127,7 @@ public class ExpressionCompilerImpl implements ExpressionCompiler {
 
     @Override
     public Context createContext(Map<String, DomainType> rootDomainTypes, ImplicitRootProvider implicitRootProvider) {
-        return new Context() {
-            @Override
-            public ExpressionService getExpressionService() {
-                return expressionService;
-            }
-
-            @Override
-            public DomainType getRootDomainType(String alias) {
-                return rootDomainTypes.get(alias);
-            }
-
-            @Override
-            public Map<String, DomainType> getRootDomainTypes() {
-                return rootDomainTypes;
-            }
-
-            @Override
-            public ImplicitRootProvider getImplicitRootProvider() {
-                return implicitRootProvider;
-            }
-        };
+        return new DefaultContext(expressionService, rootDomainTypes, implicitRootProvider);
     }
 
     @Override
@@ -138,30 +155,219 @@ public class ExpressionCompilerImpl implements ExpressionCompiler {
         if (compileContext.getExpressionService() != expressionService) {
             throw new IllegalArgumentException("Compile context refers to a different expression service!");
         }
-        PredicateLexer lexer = new PredicateLexer(CharStreams.fromString(input));
-        if (templateMode) {
-            lexer.pushMode(PredicateLexer.TEMPLATE);
+        // Custom contexts might resolve root domain types differently than their map suggests, so they are not cached
+        if (expressionCache == null || !(compileContext instanceof DefaultContext)) {
+            return doParse(input, templateMode, ruleInvoker, compileContext);
         }
-        lexer.removeErrorListeners();
-        lexer.addErrorListener(ERROR_LISTENER);
-        CommonTokenStream tokens = new CommonTokenStream(lexer);
-        PredicateParser parser = new PredicateParser(tokens);
-        parser.removeErrorListeners();
-        parser.addErrorListener(ERROR_LISTENER);
+        ExpressionCacheImpl.Key key = new ExpressionCacheImpl.Key(
+            input,
+            templateMode,
+            ruleInvoker,
+            compileContext.getRootDomainTypes(),
+            compileContext.getImplicitRootProvider(),
+            expressionService.getDomainModel()
+        );
+        Expression expression = expressionCache.get(key);
+        if (expression == null) {
+            expression = expressionCache.putIfAbsent(key, doParse(input, templateMode, ruleInvoker, compileContext));
+        }
+        return (T) expression;
+    }
 
-        ParserRuleContext ctx = ruleInvoker.invokeRule(parser);
-        if (input.length() != ctx.getStop().getStopIndex() + 1) {
-            throw new SyntaxErrorException("Parsing stopped at index " + ctx.getStop().getStopIndex() + "! Illegal unexpected suffix: '" + input.substring(ctx.getStop().getStopIndex() + 1) + "'");
+    @SuppressWarnings("unchecked")
+    protected <T extends Expression> T doParse(String input, boolean templateMode, RuleInvoker ruleInvoker, Context compileContext) {
+        if (expressionParserType == ExpressionParserType.RECURSIVE_DESCENT) {
+            Expression expression = parseRecursiveDescent(input, templateMode, ruleInvoker, compileContext);
+            // Custom rule invokers, ambiguous and invalid inputs are handled by the ANTLR parser
+            if (expression != null) {
+                if (optimizer != null) {
+                    expression = optimizer.optimize(expression);
+                }
+                return (T) expression;
+            }
         }
+        ParserHolder parserHolder = PARSER_HOLDER.get();
+        if (parserHolder.inUse) {
+            // A nested compilation, e.g. by a literal resolver, must not reset the parser of the current compilation
+            parserHolder = new ParserHolder();
+        }
+        parserHolder.inUse = true;
+        try {
+            ParserRuleContext ctx = parserHolder.parse(input, templateMode, ruleInvoker);
+            if (input.length() != ctx.getStop().getStopIndex() + 1) {
+                throw new SyntaxErrorException("Parsing stopped at index " + ctx.getStop().getStopIndex() + "! Illegal unexpected suffix: '" + input.substring(ctx.getStop().getStopIndex() + 1) + "'");
+            }
 
-        PredicateModelGenerator visitor = new PredicateModelGenerator(expressionService.getDomainModel(), literalFactory, compileContext);
-        return (T) visitor.visit(ctx);
+            PredicateModelGenerator visitor = new PredicateModelGenerator(expressionService.getDomainModel(), literalFactory, compileContext);
+            Expression expression = visitor.visit(ctx);
+            if (optimizer != null) {
+                expression = optimizer.optimize(expression);
+            }
+            return (T) expression;
+        } finally {
+            parserHolder.release();
+        }
+    }
+
+    /**
+     * Parses the input with the {@link RecursiveDescentPredicateParser} or returns <code>null</code> if the input has to be parsed by the ANTLR parser.
+     * This is the case if the rule invoker is unknown, the input is ambiguous for the recursive descent parser or the input is invalid.
+     * Errors are reported only by the ANTLR parser, so invalid inputs are parsed twice. The recursive descent parser signals them
+     * through preallocated exceptions without building messages or stack traces to keep the first attempt cheap.
+     *
+     * @param input The input to parse
+     * @param templateMode Whether the input is a template
+     * @param ruleInvoker The rule invoker that determines the rule to parse
+     * @param compileContext The compile context
+     * @return the parsed expression or <code>null</code>
+     */
+    protected Expression parseRecursiveDescent(String input, boolean templateMode, RuleInvoker ruleInvoker, Context compileContext) {
+        if (ruleInvoker != PREDICATE_RULE_INVOKER && ruleInvoker != EXPRESSION_RULE_INVOKER
+            && ruleInvoker != EXPRESSION_OR_PREDICATE_RULE_INVOKER && ruleInvoker != TEMPLATE_RULE_INVOKER) {
+            return null;
+        }
+        PredicateModelGenerator modelGenerator = new PredicateModelGenerator(expressionService.getDomainModel(), literalFactory, compileContext);
+        try {
+            RecursiveDescentPredicateParser parser = new RecursiveDescentPredicateParser(input, templateMode, modelGenerator);
+            if (ruleInvoker == PREDICATE_RULE_INVOKER) {
+                return parser.parsePredicate();
+            } else if (ruleInvoker == EXPRESSION_RULE_INVOKER) {
+                return parser.parseExpression();
+            } else if (ruleInvoker == EXPRESSION_OR_PREDICATE_RULE_INVOKER) {
+                return parser.parseExpressionOrPredicate();
+            } else {
+                return parser.parseTemplate();
+            }
+        } catch (RecursiveDescentPredicateParser.AmbiguousInputException | RecursiveDescentPredicateParser.InvalidInputException ex) {
+            return null;
+        } catch (DomainModelException | SyntaxErrorException ex) {
+            // The model generator may reject literals or types before the parser detects a syntax error that the ANTLR parser reports first
+            return null;
+        }
+    }
+
+    /**
+     * The compile context created by {@link #createContext(Map, ImplicitRootProvider)}, which resolves root domain types only through its map.
+     *
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    protected static final class DefaultContext implements Context {
+
+        private final ExpressionService expressionService;
+        private final Map<String, DomainType> rootDomainTypes;
+        private final ImplicitRootProvider implicitRootProvider;
+
+        public DefaultContext(ExpressionService expressionService, Map<String, DomainType> rootDomainTypes, ImplicitRootProvider implicitRootProvider) {
+            this.expressionService = expressionService;
+            this.rootDomainTypes = rootDomainTypes;
+            this.implicitRootProvider = implicitRootProvider;
+        }
+
+        @Override
+        public ExpressionService getExpressionService() {
+            return expressionService;
+        }
+
+        @Override
+        public DomainType getRootDomainType(String alias) {
+            return rootDomainTypes.get(alias);
+        }
+
+        @Override
+        public Map<String, DomainType> getRootDomainTypes() {
+            return rootDomainTypes;
+        }
+
+        @Override
+        public ImplicitRootProvider getImplicitRootProvider() {
+            return implicitRootProvider;
+        }
+    }
+
+    /**
+     * Parses a set of inputs covering the grammar rules once per class loader to populate the DFA cache of the parser,
+     * so that the first compilations don't have to pay for building the cache.
+     */
+    public static void warmUpParser() {
+        if (WARMED_UP.compareAndSet(false, true)) {
+            ParserHolder parserHolder = new ParserHolder();
+            for (String predicate : WARM_UP_PREDICATES) {
+                warmUp(parserHolder, predicate, false, PREDICATE_RULE_INVOKER);
+                warmUp(parserHolder, predicate, false, EXPRESSION_OR_PREDICATE_RULE_INVOKER);
+            }
+            warmUp(parserHolder, WARM_UP_TEMPLATE, true, TEMPLATE_RULE_INVOKER);
+        }
+    }
+
+    private static void warmUp(ParserHolder parserHolder, String input, boolean templateMode, RuleInvoker ruleInvoker) {
+        try {
+            parserHolder.parse(input, templateMode, ruleInvoker);
+        } catch (SyntaxErrorException ex) {
+            // Warm up is best effort
+        } finally {
+            parserHolder.release();
+        }
     }
 
     public interface RuleInvoker {
         ParserRuleContext invokeRule(PredicateParser parser);
     }
 
+    /**
+     * A lexer and parser that are reused for the compilations of a thread.
+     * Parsing is first attempted with the faster SLL prediction mode and only falls back to full LL prediction
+     * with error reporting if the SLL prediction fails, which can only happen for syntax errors or rare ambiguities.
+     *
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    protected static final class ParserHolder {
+
+        private final PredicateLexer lexer;
+        private final CommonTokenStream tokens;
+        private final PredicateParser parser;
+        private final BailErrorStrategy bailErrorStrategy = new BailErrorStrategy();
+        private final DefaultErrorStrategy defaultErrorStrategy = new DefaultErrorStrategy();
+        private boolean inUse;
+
+        public ParserHolder() {
+            this.lexer = new PredicateLexer(CharStreams.fromString(""));
+            lexer.removeErrorListeners();
+            lexer.addErrorListener(ERROR_LISTENER);
+            this.tokens = new CommonTokenStream(lexer);
+            this.parser = new PredicateParser(tokens);
+        }
+
+        public ParserRuleContext parse(String input, boolean templateMode, RuleInvoker ruleInvoker) {
+            lexer.setInputStream(CharStreams.fromString(input));
+            if (templateMode) {
+                lexer.pushMode(PredicateLexer.TEMPLATE);
+            }
+            tokens.setTokenSource(lexer);
+            parser.setTokenStream(tokens);
+            parser.removeErrorListeners();
+            parser.setErrorHandler(bailErrorStrategy);
+            parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+            try {
+                return ruleInvoker.invokeRule(parser);
+            } catch (ParseCancellationException ex) {
+                // Re-parse the already lexed tokens with full LL prediction to either succeed or report the syntax error
+                parser.setErrorHandler(defaultErrorStrategy);
+                parser.addErrorListener(ERROR_LISTENER);
+                parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+                parser.reset();
+                return ruleInvoker.invokeRule(parser);
+            }
+        }
+
+        public void release() {
+            // Drop the tokens of the last input
+            tokens.setTokenSource(lexer);
+            inUse = false;
+        }
+    }
+
     /**
      * @author Christian Beikov
      * @since 1.0.0
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazebit.expression.impl;
+
+import com.blazebit.domain.runtime.model.DomainFunctionVolatility;
+import com.blazebit.domain.runtime.model.DomainType;
+import com.blazebit.domain.runtime.model.EntityDomainTypeAttribute;
+import com.blazebit.expression.ArithmeticExpression;
+import com.blazebit.expression.ArithmeticFactor;
+import com.blazebit.expression.BetweenPredicate;
+import com.blazebit.expression.ChainingArithmeticExpression;
+import com.blazebit.expression.CollectionLiteral;
+import com.blazebit.expression.ComparisonPredicate;
+import com.blazebit.expression.CompoundPredicate;
+import com.blazebit.expression.EntityLiteral;
+import com.blazebit.expression.EnumLiteral;
+import com.blazebit.expression.Expression;
+import com.blazebit.expression.ExpressionPredicate;
+import com.blazebit.expression.FunctionInvocation;
+import com.blazebit.expression.InPredicate;
+import com.blazebit.expression.IsEmptyPredicate;
+import com.blazebit.expression.IsNullPredicate;
+import com.blazebit.expression.Literal;
+import com.blazebit.expression.Path;
+import com.blazebit.expression.Predicate;
+
+import java.util.List;
+
+/**
+ * Estimates the relative evaluation cost of an expression based on the kind of its nodes.
+ * Literals are free, every attribute hop of a path adds a cost that is higher for collection attributes
+ * and function invocations are weighted by their volatility.
+ * The estimator also records whether the expression invokes a {@link DomainFunctionVolatility#VOLATILE} function.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public class ExpressionCostEstimator implements Expression.ResultVisitor<Long> {
+
+    public static final long OPERATOR_COST = 1L;
+    public static final long ROOT_COST = 1L;
+    public static final long ATTRIBUTE_COST = 2L;
+    public static final long COLLECTION_ATTRIBUTE_COST = 20L;
+    public static final long IS_EMPTY_COST = 5L;
+    public static final long IMMUTABLE_FUNCTION_COST = 10L;
+    public static final long STABLE_FUNCTION_COST = 20L;
+    public static final long VOLATILE_FUNCTION_COST = 50L;
+
+    private boolean volatileFunction;
+
+    /**
+     * Returns the estimated cost of the given expression.
+     *
+     * @param expression The expression
+     * @return the estimated cost
+     */
+    public long estimate(Expression expression) {
+        volatileFunction = false;
+        return expression.accept(this);
+    }
+
+    /**
+     * Returns whether the last estimated expression invokes a volatile function.
+     *
+     * @return <code>true</code> if a volatile function is invoked, <code>false</code> otherwise
+     */
+    public boolean isVolatileFunction() {
+        return volatileFunction;
+    }
+
+    @Override
+    public Long visit(ArithmeticFactor e) {
+        return e.getExpression().accept(this) + (e.isInvertSignum() ? OPERATOR_COST : 0L);
+    }
+
+    @Override
+    public Long visit(ExpressionPredicate e) {
+        return e.getExpression().accept(this) + OPERATOR_COST;
+    }
+
+    @Override
+    public Long visit(BetweenPredicate e) {
+        return e.getLeft().accept(this) + e.getLower().accept(this) + e.getUpper().accept(this) + 2 * OPERATOR_COST;
+    }
+
+    @Override
+    public Long visit(InPredicate e) {
+        List<ArithmeticExpression> inItems = e.getInItems();
+        long cost = e.getLeft().accept(this);
+        for (int i = 0; i < inItems.size(); i++) {
+            cost += inItems.get(i).accept(this) + OPERATOR_COST;
+        }
+        return cost;
+    }
+
+    @Override
+    public Long visit(ChainingArithmeticExpression e) {
+        return e.getLeft().accept(this) + e.getRight().accept(this) + OPERATOR_COST;
+    }
+
+    @Override
+    public Long visit(CompoundPredicate e) {
+        List<Predicate> predicates = e.getPredicates();
+        long cost = OPERATOR_COST;
+        for (int i = 0; i < predicates.size(); i++) {
+            cost += predicates.get(i).accept(this);
+        }
+        return cost;
+    }
+
+    @Override
+    public Long visit(ComparisonPredicate e) {
+        return e.getLeft().accept(this) + e.getRight().accept(this) + OPERATOR_COST;
+    }
+
+    @Override
+    public Long visit(IsNullPredicate e) {
+        return e.getLeft().accept(this) + OPERATOR_COST;
+    }
+
+    @Override
+    public Long visit(IsEmptyPredicate e) {
+        return e.getLeft().accept(this) + IS_EMPTY_COST;
+    }
+
+    @Override
+    public Long visit(Path e) {
+        long cost = e.getBase() == null ? ROOT_COST : e.getBase().accept(this);
+        List<EntityDomainTypeAttribute> attributes = e.getAttributes();
+        for (int i = 0; i < attributes.size(); i++) {
+            if (attributes.get(i).getType().getKind() == DomainType.DomainTypeKind.COLLECTION) {
+                cost += COLLECTION_ATTRIBUTE_COST;
+            } else {
+                cost += ATTRIBUTE_COST;
+            }
+        }
+        return cost;
+    }
+
+    @Override
+    public Long visit(FunctionInvocation e) {
+        long cost;
+        switch (e.getFunction().getVolatility()) {
+            case IMMUTABLE:
+                cost = IMMUTABLE_FUNCTION_COST;
+                break;
+            case STABLE:
+                cost = STABLE_FUNCTION_COST;
+                break;
+            default:
+                volatileFunction = true;
+                cost = VOLATILE_FUNCTION_COST;
+                break;
+        }
+        for (Expression argument : e.getArguments().values()) {
+            cost += argument.accept(this);
+        }
+        return cost;
+    }
+
+    @Override
+    public Long visit(Literal e) {
+        return 0L;
+    }
+
+    @Override
+    public Long visit(EnumLiteral e) {
+        return 0L;
+    }
+
+    @Override
+    public Long visit(EntityLiteral e) {
+        return 0L;
+    }
+
+    @Override
+    public Long visit(CollectionLiteral e) {
+        return 0L;
+    }
+}
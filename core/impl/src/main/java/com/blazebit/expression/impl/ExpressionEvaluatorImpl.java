@@ -0,0 +1,89 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.blazebit.expression.impl;
+
+import com.blazebit.expression.Expression;
+import com.blazebit.expression.ExpressionEvaluator;
+import com.blazebit.expression.ExpressionInterpreter;
+import com.blazebit.expression.ExpressionService;
+import com.blazebit.expression.spi.TypeAdapter;
+
+/**
+ * An evaluator that evaluates a pre-built tree of {@link EvaluatorNode}s.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public class ExpressionEvaluatorImpl implements ExpressionEvaluator {
+
+    protected final ExpressionService expressionService;
+    protected final Expression expression;
+    protected final EvaluatorNode node;
+    protected final TypeAdapter<Object, Object> modelTypeAdapter;
+
+    public ExpressionEvaluatorImpl(ExpressionService expressionService, Expression expression, EvaluatorNode node, TypeAdapter<Object, Object> modelTypeAdapter) {
+        this.expressionService = expressionService;
+        this.expression = expression;
+        this.node = node;
+        this.modelTypeAdapter = modelTypeAdapter;
+    }
+
+    protected EvaluatorFrame createFrame(ExpressionInterpreter.Context interpreterContext) {
+        if (interpreterContext == null) {
+            interpreterContext = new ExpressionInterpreterImpl.DefaultContext(expressionService);
+        }
+        return new EvaluatorFrame(interpreterContext);
+    }
+
+    /**
+     * Evaluates the expression in the given frame, which allows to reuse a frame for multiple evaluations.
+     *
+     * @param frame The evaluation frame
+     * @return The evaluation result
+     */
+    public Object evaluateInFrame(EvaluatorFrame frame) {
+        return node.evaluate(frame);
+    }
+
+    @Override
+    public Expression getExpression() {
+        return expression;
+    }
+
+    @Override
+    public <T> T evaluate(ExpressionInterpreter.Context interpreterContext) {
+        return (T) node.evaluate(createFrame(interpreterContext));
+    }
+
+    @Override
+    public <T> T evaluateAsModelType(ExpressionInterpreter.Context interpreterContext) {
+        EvaluatorFrame frame = createFrame(interpreterContext);
+        Object value = node.evaluate(frame);
+        if (modelTypeAdapter != null) {
+            value = modelTypeAdapter.toModelType(frame.context, value, expression.getType());
+        }
+        return (T) value;
+    }
+
+    @Override
+    public <T> T evaluateAs(ExpressionInterpreter.Context interpreterContext, Class<T> resultClass) {
+        EvaluatorFrame frame = createFrame(interpreterContext);
+        Object value = node.evaluate(frame);
+        return ExpressionInterpreterImpl.convert(expressionService, frame.context, value, expression.getType(), resultClass);
+    }
+}
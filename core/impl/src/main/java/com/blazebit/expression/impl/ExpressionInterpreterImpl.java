@@ -34,7 +34,6 @@ import com.blazebit.expression.EntityLiteral;
 import com.blazebit.expression.EnumLiteral;
 import com.blazebit.expression.Expression;
 import com.blazebit.expression.ExpressionInterpreter;
-import com.blazebit.expression.ExpressionInterpreterContext;
 import com.blazebit.expression.ExpressionPredicate;
 import com.blazebit.expression.ExpressionService;
 import com.blazebit.expression.FunctionInvocation;
@@ -53,72 +52,80 @@ import com.blazebit.expression.spi.TypeAdapter;
 import com.blazebit.expression.spi.TypeConverter;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
+ * A stateless interpreter for expressions. All state of an evaluation is kept in a {@link Frame} that is created per evaluation,
+ * so a single instance can be shared by all threads.
+ * Since the interpreter has no compile step that could detect path prefixes shared by multiple paths,
+ * every path is navigated on its own. The memoization of shared path prefixes is done only by the {@link EvaluatorNodeFactory}.
+ *
  * @author Christian Beikov
  * @since 1.0.0
  */
-public class ExpressionInterpreterImpl implements Expression.ResultVisitor<Object>, ExpressionInterpreter {
+public class ExpressionInterpreterImpl implements ExpressionInterpreter {
 
     protected final ExpressionService expressionService;
-    protected Context context;
-    protected TypeAdapter typeAdapter;
 
     public ExpressionInterpreterImpl(ExpressionService expressionService) {
         this.expressionService = expressionService;
     }
 
-    protected <T> T evaluate(Expression expression, Context interpreterContext, boolean asModelType) {
-        Context oldContext = context;
+    protected Frame createFrame(Context interpreterContext) {
         if (interpreterContext == null) {
-            context = ExpressionInterpreterContext.create(expressionService);
-        } else {
-            context = interpreterContext;
-        }
-        try {
-            Object value = expression.accept(this);
-            if (typeAdapter != null && asModelType) {
-                value = typeAdapter.toModelType(context, value, expression.getType());
-            }
-            return (T) value;
-        } finally {
-            context = oldContext;
-            typeAdapter = null;
+            interpreterContext = new DefaultContext(expressionService);
+        }
+        return new Frame(interpreterContext);
+    }
+
+    protected <T> T evaluate(Expression expression, Context interpreterContext, boolean asModelType) {
+        Frame frame = createFrame(interpreterContext);
+        Object value = expression.accept(frame);
+        if (frame.typeAdapter != null && asModelType) {
+            value = frame.typeAdapter.toModelType(frame.context, value, expression.getType());
         }
+        return (T) value;
     }
 
     @Override
     public <T> T evaluateAs(Expression expression, Context interpreterContext, Class<T> resultClass) {
-        Context oldContext = context;
-        if (interpreterContext == null) {
-            context = ExpressionInterpreterContext.create(expressionService);
-        } else {
-            context = interpreterContext;
-        }
-        try {
-            Object value = expression.accept(this);
-            if (value == null || resultClass.isInstance(value)) {
-                //noinspection unchecked
-                return (T) value;
-            }
-            Map<Class<?>, TypeConverter<?, ?>> converterMap = expressionService.getConverters().get(resultClass);
-            TypeConverter<Object, T> converter = null;
-            if (converterMap != null) {
-                //noinspection unchecked
-                converter = (TypeConverter<Object, T>) converterMap.get(value.getClass());
-            }
-            if (converter == null) {
-                throw new IllegalArgumentException("No converter found for converting " + value.getClass().getName() + " to " + resultClass.getName() );
-            }
-            return converter.convert(context, value, expression.getType());
-        } finally {
-            context = oldContext;
-            typeAdapter = null;
+        Frame frame = createFrame(interpreterContext);
+        Object value = expression.accept(frame);
+        return convert(expressionService, frame.context, value, expression.getType(), resultClass);
+    }
+
+    /**
+     * Converts the given value to the given result class by using the converters registered in the expression service.
+     *
+     * @param expressionService The expression service
+     * @param context The interpreter context
+     * @param value The value to convert
+     * @param domainType The domain type of the value
+     * @param resultClass The result class
+     * @param <T> The result type
+     * @return the converted value
+     */
+    protected static <T> T convert(ExpressionService expressionService, Context context, Object value, DomainType domainType, Class<T> resultClass) {
+        if (value == null || resultClass.isInstance(value)) {
+            //noinspection unchecked
+            return (T) value;
+        }
+        Map<Class<?>, TypeConverter<?, ?>> converterMap = expressionService.getConverters().get(resultClass);
+        TypeConverter<Object, T> converter = null;
+        if (converterMap != null) {
+            //noinspection unchecked
+            converter = (TypeConverter<Object, T>) converterMap.get(value.getClass());
+        }
+        if (converter == null) {
+            throw new IllegalArgumentException("No converter found for converting " + value.getClass().getName() + " to " + resultClass.getName() );
         }
+        return converter.convert(context, value, domainType);
     }
 
     @Override
@@ -135,335 +142,452 @@ public class ExpressionInterpreterImpl implements Expression.ResultVisitor<Objec
         return Boolean.TRUE.equals(evaluate((Expression) expression, interpreterContext));
     }
 
-    @Override
-    public Object visit(ArithmeticFactor e) {
-        try {
-            Object result = e.getExpression().accept(this);
-            if (result == null) {
-                return null;
-            }
-            if (e.isInvertSignum()) {
-                return arithmetic(e.getType(), e.getType(), null, result, null, DomainOperator.UNARY_MINUS);
-            }
-            return result;
-        } finally {
-            typeAdapter = null;
+    protected BatchInterpreter createBatchInterpreter(Context interpreterContext, String alias, List<?> roots) {
+        if (interpreterContext == null) {
+            interpreterContext = new DefaultContext(expressionService);
         }
+        return new BatchInterpreter(interpreterContext, alias, roots);
     }
 
     @Override
-    public Object visit(ExpressionPredicate e) {
-        try {
-            Boolean result = (Boolean) e.getExpression().accept(this);
-            if (result == null) {
-                return null;
-            }
-            return (e.isNegated() != result);
-        } finally {
-            typeAdapter = null;
-        }
+    public <T> List<T> evaluateBatch(Expression expression, Context interpreterContext, String alias, List<?> roots) {
+        return (List<T>) Arrays.asList(createBatchInterpreter(interpreterContext, alias, roots).evaluateValues(expression));
     }
 
     @Override
-    public Object visit(BetweenPredicate e) {
-        try {
-            Object left = e.getLeft().accept(this);
-            if (left == null) {
-                return null;
-            }
-            Object lower = e.getLower().accept(this);
-            if (lower == null) {
-                return null;
-            }
-            Object upper = e.getUpper().accept(this);
-            if (upper == null) {
-                return null;
+    public BitSet evaluateToBitSet(Predicate predicate, Context interpreterContext, String alias, List<?> roots) {
+        byte[] results = createBatchInterpreter(interpreterContext, alias, roots).evaluatePredicate(predicate);
+        BitSet bitSet = new BitSet(results.length);
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == BatchInterpreter.TRUE) {
+                bitSet.set(i);
             }
+        }
+        return bitSet;
+    }
 
-            Boolean testValue = e.isNegated() ? Boolean.TRUE : Boolean.FALSE;
-            Boolean compare = compare(e.getLeft().getType(), e.getLower().getType(), left, lower, ComparisonOperator.GREATER_OR_EQUAL);
-            if (compare == null) {
-                return null;
-            } else if (testValue.equals(compare)) {
-                return testValue;
+    /**
+     * The evaluation state for a single evaluation, consisting of the interpreter context and the type adapter of the last visited value.
+     *
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    protected static class Frame implements Expression.ResultVisitor<Object> {
+
+        protected final Context context;
+        protected TypeAdapter typeAdapter;
+        /**
+         * The reusable function arguments per function invocation nesting depth.
+         */
+        private ReusableDomainFunctionArguments[] functionArguments;
+        private int functionDepth;
+
+        public Frame(Context context) {
+            this.context = context;
+        }
+
+        /**
+         * Returns the reusable function arguments for the current function invocation nesting depth and increments the depth.
+         * The caller must decrement {@link #functionDepth} after the invocation.
+         *
+         * @return the reusable function arguments
+         */
+        private ReusableDomainFunctionArguments acquireFunctionArguments() {
+            ReusableDomainFunctionArguments[] functionArguments = this.functionArguments;
+            int depth = functionDepth;
+            if (functionArguments == null) {
+                this.functionArguments = functionArguments = new ReusableDomainFunctionArguments[4];
+            } else if (depth == functionArguments.length) {
+                this.functionArguments = functionArguments = Arrays.copyOf(functionArguments, depth * 2);
             }
-            compare = compare(e.getLeft().getType(), e.getUpper().getType(), left, upper, ComparisonOperator.LOWER_OR_EQUAL);
-            if (compare == null) {
-                return null;
-            } else if (testValue.equals(compare)) {
-                return testValue;
+            ReusableDomainFunctionArguments arguments = functionArguments[depth];
+            if (arguments == null) {
+                functionArguments[depth] = arguments = new ReusableDomainFunctionArguments();
             }
-            return Boolean.TRUE;
-        } finally {
-            typeAdapter = null;
+            functionDepth = depth + 1;
+            return arguments;
         }
-    }
 
-    @Override
-    public Object visit(InPredicate e) {
-        try {
-            Object left = e.getLeft().accept(this);
-            if (left == null) {
-                return null;
-            }
-            List<ArithmeticExpression> inItems = e.getInItems();
-            Boolean testValue = e.isNegated() ? Boolean.TRUE : Boolean.FALSE;
-            for (int i = 0; i < inItems.size(); i++) {
-                ArithmeticExpression inItem = inItems.get(i);
-                Object value = inItem.accept(this);
-                if (value == null) {
+        @Override
+        public Object visit(ArithmeticFactor e) {
+            try {
+                Object result = e.getExpression().accept(this);
+                if (result == null) {
                     return null;
                 }
-                Boolean b = compare(e.getLeft().getType(), inItem.getType(), left, value, ComparisonOperator.EQUAL);
-                if (!testValue.equals(b)) {
-                    return b;
+                if (e.isInvertSignum()) {
+                    return arithmetic(e.getType(), e.getType(), null, result, null, DomainOperator.UNARY_MINUS);
                 }
+                return result;
+            } finally {
+                typeAdapter = null;
             }
-
-            return testValue;
-        } finally {
-            typeAdapter = null;
         }
-    }
 
-    @Override
-    public Object visit(ChainingArithmeticExpression e) {
-        try {
-            Object left = e.getLeft().accept(this);
-            if (left == null) {
-                return null;
-            }
-            Object right = e.getRight().accept(this);
-            if (right == null) {
-                return null;
+        @Override
+        public Object visit(ExpressionPredicate e) {
+            try {
+                Boolean result = (Boolean) e.getExpression().accept(this);
+                if (result == null) {
+                    return null;
+                }
+                return (e.isNegated() != result);
+            } finally {
+                typeAdapter = null;
             }
+        }
 
-            return arithmetic(e.getType(), e.getLeft().getType(), e.getRight().getType(), left, right, e.getOperator().getDomainOperator());
-        } finally {
-            typeAdapter = null;
+        @Override
+        public Object visit(BetweenPredicate e) {
+            try {
+                Object left = e.getLeft().accept(this);
+                if (left == null) {
+                    return null;
+                }
+                Object lower = e.getLower().accept(this);
+                if (lower == null) {
+                    return null;
+                }
+                Object upper = e.getUpper().accept(this);
+                if (upper == null) {
+                    return null;
+                }
+
+                Boolean testValue = e.isNegated() ? Boolean.TRUE : Boolean.FALSE;
+                Boolean compare = compare(e.getLeft().getType(), e.getLower().getType(), left, lower, ComparisonOperator.GREATER_OR_EQUAL);
+                if (compare == null) {
+                    return null;
+                } else if (testValue.equals(compare)) {
+                    return testValue;
+                }
+                compare = compare(e.getLeft().getType(), e.getUpper().getType(), left, upper, ComparisonOperator.LOWER_OR_EQUAL);
+                if (compare == null) {
+                    return null;
+                } else if (testValue.equals(compare)) {
+                    return testValue;
+                }
+                return Boolean.TRUE;
+            } finally {
+                typeAdapter = null;
+            }
         }
-    }
 
-    @Override
-    public Object visit(CompoundPredicate e) {
-        try {
-            List<Predicate> predicates = e.getPredicates();
-            int size = predicates.size();
-            if (e.isConjunction()) {
-                if (size == 0) {
-                    return e.isNegated();
+        @Override
+        public Object visit(InPredicate e) {
+            try {
+                Object left = e.getLeft().accept(this);
+                if (left == null) {
+                    return null;
                 }
-                for (int i = 0; i < predicates.size(); i++) {
-                    Object result = predicates.get(i).accept(this);
-                    if (result == null) {
+                List<ArithmeticExpression> inItems = e.getInItems();
+                Boolean testValue = e.isNegated() ? Boolean.TRUE : Boolean.FALSE;
+                for (int i = 0; i < inItems.size(); i++) {
+                    ArithmeticExpression inItem = inItems.get(i);
+                    Object value = inItem.accept(this);
+                    if (value == null) {
                         return null;
-                    } else if (!Boolean.TRUE.equals(result)) {
-                        return e.isNegated();
+                    }
+                    Boolean b = compare(e.getLeft().getType(), inItem.getType(), left, value, ComparisonOperator.EQUAL);
+                    if (!testValue.equals(b)) {
+                        return b;
                     }
                 }
-                return !e.isNegated();
-            } else {
-                if (size == 0) {
-                    return !e.isNegated();
+
+                return testValue;
+            } finally {
+                typeAdapter = null;
+            }
+        }
+
+        @Override
+        public Object visit(ChainingArithmeticExpression e) {
+            try {
+                Object left = e.getLeft().accept(this);
+                if (left == null) {
+                    return null;
                 }
-                for (int i = 0; i < predicates.size(); i++) {
-                    Object result = predicates.get(i).accept(this);
-                    if (result == null) {
-                        return null;
-                    } else if (Boolean.TRUE.equals(result)) {
+                Object right = e.getRight().accept(this);
+                if (right == null) {
+                    return null;
+                }
+
+                return arithmetic(e.getType(), e.getLeft().getType(), e.getRight().getType(), left, right, e.getOperator().getDomainOperator());
+            } finally {
+                typeAdapter = null;
+            }
+        }
+
+        @Override
+        public Object visit(CompoundPredicate e) {
+            try {
+                List<Predicate> predicates = e.getPredicates();
+                int size = predicates.size();
+                if (e.isConjunction()) {
+                    if (size == 0) {
+                        return e.isNegated();
+                    }
+                    for (int i = 0; i < predicates.size(); i++) {
+                        Object result = predicates.get(i).accept(this);
+                        if (result == null) {
+                            return null;
+                        } else if (!Boolean.TRUE.equals(result)) {
+                            return e.isNegated();
+                        }
+                    }
+                    return !e.isNegated();
+                } else {
+                    if (size == 0) {
                         return !e.isNegated();
                     }
+                    for (int i = 0; i < predicates.size(); i++) {
+                        Object result = predicates.get(i).accept(this);
+                        if (result == null) {
+                            return null;
+                        } else if (Boolean.TRUE.equals(result)) {
+                            return !e.isNegated();
+                        }
+                    }
+                    return e.isNegated();
                 }
-                return e.isNegated();
+            } finally {
+                typeAdapter = null;
             }
-        } finally {
-            typeAdapter = null;
         }
-    }
 
-    @Override
-    public Object visit(ComparisonPredicate e) {
-        try {
-            Object left = e.getLeft().accept(this);
-            if (left == null) {
-                return null;
+        @Override
+        public Object visit(ComparisonPredicate e) {
+            try {
+                Object left = e.getLeft().accept(this);
+                if (left == null) {
+                    return null;
+                }
+                Object right = e.getRight().accept(this);
+                if (right == null) {
+                    return null;
+                }
+
+                Boolean compare = compare(e.getLeft().getType(), e.getRight().getType(), left, right, e.getOperator());
+                if (compare == null) {
+                    return null;
+                } else if (e.isNegated()) {
+                    return !compare;
+                } else {
+                    return compare;
+                }
+            } finally {
+                typeAdapter = null;
             }
-            Object right = e.getRight().accept(this);
-            if (right == null) {
-                return null;
+        }
+
+        @Override
+        public Object visit(IsNullPredicate e) {
+            // LEFT  NN NOT R
+            // NULL  F   F  T
+            // NULL  F   T  F
+            // VAL   T   F  F
+            // VAL   T   T  T
+            try {
+                return (e.getLeft().accept(this) != null) == e.isNegated() ? Boolean.TRUE : Boolean.FALSE;
+            } finally {
+                typeAdapter = null;
             }
+        }
 
-            Boolean compare = compare(e.getLeft().getType(), e.getRight().getType(), left, right, e.getOperator());
-            if (compare == null) {
-                return null;
-            } else if (e.isNegated()) {
-                return !compare;
-            } else {
-                return compare;
+        @Override
+        public Object visit(IsEmptyPredicate e) {
+            try {
+                Object left = e.getLeft().accept(this);
+                if (left == null) {
+                    return null;
+                }
+                if (e.isNegated()) {
+                    return ((Iterable<?>) left).iterator().hasNext();
+                } else {
+                    return !((Iterable<?>) left).iterator().hasNext();
+                }
+            } finally {
+                typeAdapter = null;
             }
-        } finally {
-            typeAdapter = null;
         }
-    }
 
-    @Override
-    public Object visit(IsNullPredicate e) {
-        // LEFT  NN NOT R
-        // NULL  F   F  T
-        // NULL  F   T  F
-        // VAL   T   F  F
-        // VAL   T   T  T
-        try {
-            return (e.getLeft().accept(this) != null) == e.isNegated() ? Boolean.TRUE : Boolean.FALSE;
-        } finally {
-            typeAdapter = null;
+        /**
+         * Navigates the attributes of the path from the root or base value.
+         * Prefixes are not memoized, since the paths that share a prefix are only known to the {@link EvaluatorNodeFactory}.
+         *
+         * @param e The path
+         * @return the value of the path
+         */
+        @Override
+        public Object visit(Path e) {
+            Object value;
+            if (e.getBase() == null) {
+                value = context.getRoot(e.getAlias());
+            } else {
+                value = e.getBase().accept(this);
+            }
+            List<EntityDomainTypeAttribute> attributes = e.getAttributes();
+            if (attributes.isEmpty()) {
+                typeAdapter = null;
+            } else {
+                int size = attributes.size();
+                for (int i = 0; i < size; i++) {
+                    if (value == null) {
+                        return null;
+                    }
+                    EntityDomainTypeAttribute attribute = attributes.get(i);
+                    AttributeAccessor attributeAccessor = attribute.getMetadata(AttributeAccessor.class);
+                    if (attributeAccessor == null) {
+                        throw new IllegalArgumentException("No attribute accessor available for attribute: " + attribute);
+                    }
+                    value = attributeAccessor.getAttribute(context, value, attribute);
+                    typeAdapter = attribute.getMetadata(TypeAdapter.class);
+                    if (typeAdapter != null) {
+                        value = typeAdapter.toInternalType(context, value, attribute.getType());
+                    }
+                }
+            }
+            return value;
         }
-    }
 
-    @Override
-    public Object visit(IsEmptyPredicate e) {
-        try {
-            Object left = e.getLeft().accept(this);
-            if (left == null) {
-                return null;
+        @Override
+        public Object visit(FunctionInvocation e) {
+            DomainFunction domainFunction = e.getFunction();
+            FunctionInvoker functionInvoker = domainFunction.getMetadata(FunctionInvoker.class);
+            if (functionInvoker == null) {
+                throw new IllegalArgumentException("No function invoker available for function: " + domainFunction);
             }
-            if (e.isNegated()) {
-                return ((Iterable<?>) left).iterator().hasNext();
+
+            Object result;
+            if (e.getArguments().isEmpty()) {
+                typeAdapter = domainFunction.getMetadata(TypeAdapter.class);
+                result = functionInvoker.invoke(context, domainFunction, DomainFunctionArguments.EMPTY);
             } else {
-                return !((Iterable<?>) left).iterator().hasNext();
+                List<Expression> arguments = e.getPositionalArguments();
+                List<? extends DomainFunctionArgument> domainFunctionArguments = domainFunction.getArguments();
+                ReusableDomainFunctionArguments argumentValues = acquireFunctionArguments();
+                try {
+                    int size = arguments.size();
+                    argumentValues.reset(size);
+                    for (int i = 0; i < size; i++) {
+                        Expression expression = arguments.get(i);
+                        if (expression != null) {
+                            DomainFunctionArgument domainFunctionArgument = domainFunctionArguments.get(i);
+                            Object argumentValue = expression.accept(this);
+                            TypeAdapter argumentAdapter = domainFunctionArgument.getMetadata(TypeAdapter.class);
+                            if (argumentAdapter != null) {
+                                argumentValue = argumentAdapter.toModelType(context, argumentValue, domainFunctionArgument.getType());
+                            }
+                            argumentValues.set(i, argumentValue, expression.getType());
+                        }
+                    }
+                    typeAdapter = domainFunction.getMetadata(TypeAdapter.class);
+                    result = functionInvoker.invoke(context, domainFunction, argumentValues);
+                } finally {
+                    functionDepth--;
+                }
             }
-        } finally {
-            typeAdapter = null;
+            if (typeAdapter != null) {
+                return typeAdapter.toInternalType(context, result, domainFunction.getResultType());
+            }
+            return result;
         }
-    }
 
-    @Override
-    public Object visit(Path e) {
-        Object value;
-        if (e.getBase() == null) {
-            value = context.getRoot(e.getAlias());
-        } else {
-            value = e.getBase().accept(this);
-        }
-        List<EntityDomainTypeAttribute> attributes = e.getAttributes();
-        if (attributes.isEmpty()) {
+        @Override
+        public Object visit(Literal e) {
             typeAdapter = null;
-        } else {
-            int size = attributes.size();
-            for (int i = 0; i < size; i++) {
-                if (value == null) {
-                    return null;
+            if (e.getType().getKind() == DomainType.DomainTypeKind.COLLECTION) {
+                Collection<Expression> collection = (Collection<Expression>) e.getValue();
+                if (collection.isEmpty()) {
+                    return Collections.emptyList();
                 }
-                EntityDomainTypeAttribute attribute = attributes.get(i);
-                AttributeAccessor attributeAccessor = attribute.getMetadata(AttributeAccessor.class);
-                if (attributeAccessor == null) {
-                    throw new IllegalArgumentException("No attribute accessor available for attribute: " + attribute);
-                }
-                value = attributeAccessor.getAttribute(context, value, attribute);
-                typeAdapter = attribute.getMetadata(TypeAdapter.class);
-                if (typeAdapter != null) {
-                    value = typeAdapter.toInternalType(context, value, attribute.getType());
+                List<Object> resolved = new ArrayList<>(collection.size());
+                for (Expression expression : collection) {
+                    resolved.add(expression.accept(this));
                 }
+                typeAdapter = e.getType().getMetadata(TypeAdapter.class);
+                return resolved;
+            } else {
+                typeAdapter = e.getType().getMetadata(TypeAdapter.class);
+                return e.getValue();
             }
         }
-        return value;
-    }
 
-    @Override
-    public Object visit(FunctionInvocation e) {
-        DomainFunction domainFunction = e.getFunction();
-        FunctionInvoker functionInvoker = domainFunction.getMetadata(FunctionInvoker.class);
-        if (functionInvoker == null) {
-            throw new IllegalArgumentException("No function invoker available for function: " + domainFunction);
-        }
-
-        Map<DomainFunctionArgument, Expression> arguments = e.getArguments();
-        DomainFunctionArguments argumentValues;
-
-        if (arguments.isEmpty()) {
-            argumentValues = DomainFunctionArguments.EMPTY;
-        } else {
-            int size = domainFunction.getArguments().size();
-            Object[] values = new Object[size];
-            DomainType[] types = new DomainType[size];
-            for (Map.Entry<DomainFunctionArgument, Expression> entry : arguments.entrySet()) {
-                DomainFunctionArgument domainFunctionArgument = entry.getKey();
-                Expression expression = entry.getValue();
-                Object argumentValue = expression.accept(this);
-                TypeAdapter argumentAdapter = domainFunctionArgument.getMetadata(TypeAdapter.class);
-                if (argumentAdapter != null) {
-                    argumentValue = argumentAdapter.toModelType(context, argumentValue, domainFunctionArgument.getType());
-                }
-                types[domainFunctionArgument.getPosition()] = expression.getType();
-                values[domainFunctionArgument.getPosition()] = argumentValue;
-            }
-            argumentValues = new DefaultDomainFunctionArguments(values, types, arguments.size());
+        @Override
+        public Object visit(EnumLiteral e) {
+            return visit((Literal) e);
         }
 
-        typeAdapter = domainFunction.getMetadata(TypeAdapter.class);
-        Object result = functionInvoker.invoke(context, domainFunction, argumentValues);
-        if (typeAdapter != null) {
-            return typeAdapter.toInternalType(context, result, domainFunction.getResultType());
+        @Override
+        public Object visit(EntityLiteral e) {
+            return visit((Literal) e);
         }
-        return result;
-    }
 
-    @Override
-    public Object visit(Literal e) {
-        typeAdapter = null;
-        if (e.getType().getKind() == DomainType.DomainTypeKind.COLLECTION) {
-            Collection<Expression> collection = (Collection<Expression>) e.getValue();
-            if (collection.isEmpty()) {
-                return Collections.emptyList();
+        @Override
+        public Object visit(CollectionLiteral e) {
+            return visit((Literal) e);
+        }
+
+        protected Boolean compare(DomainType leftType, DomainType rightType, Object left, Object right, ComparisonOperator operator) {
+            ComparisonOperatorInterpreter comparisonOperatorInterpreter = leftType.getMetadata(ComparisonOperatorInterpreter.class);
+            if (comparisonOperatorInterpreter == null) {
+                throw new IllegalArgumentException("No comparison operator interpreter available for type: " + leftType);
             }
-            List<Object> resolved = new ArrayList<>(collection.size());
-            for (Expression expression : collection) {
-                resolved.add(expression.accept(this));
+            return comparisonOperatorInterpreter.interpret(context, leftType, rightType, left, right, operator);
+        }
+
+        protected Object arithmetic(DomainType targetType, DomainType leftType, DomainType rightType, Object left, Object right, DomainOperator operator) {
+            DomainOperatorInterpreter domainOperatorInterpreter = targetType.getMetadata(DomainOperatorInterpreter.class);
+            if (domainOperatorInterpreter == null) {
+                throw new IllegalArgumentException("No domain operator interpreter available for type: " + targetType);
             }
-            typeAdapter = e.getType().getMetadata(TypeAdapter.class);
-            return resolved;
-        } else {
-            typeAdapter = e.getType().getMetadata(TypeAdapter.class);
-            return e.getValue();
+            return domainOperatorInterpreter.interpret(context, targetType, leftType, rightType, left, right, operator);
         }
     }
 
-    @Override
-    public Object visit(EnumLiteral e) {
-        return visit((Literal) e);
-    }
+    /**
+     * A light-weight context that is used when no context is given, which only allocates a property map when needed.
+     *
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    protected static final class DefaultContext implements Context {
 
-    @Override
-    public Object visit(EntityLiteral e) {
-        return visit((Literal) e);
-    }
+        private final ExpressionService expressionService;
+        private Map<String, Object> properties;
 
-    @Override
-    public Object visit(CollectionLiteral e) {
-        return visit((Literal) e);
-    }
+        public DefaultContext(ExpressionService expressionService) {
+            this.expressionService = expressionService;
+        }
 
-    protected Boolean compare(DomainType leftType, DomainType rightType, Object left, Object right, ComparisonOperator operator) {
-        ComparisonOperatorInterpreter comparisonOperatorInterpreter = leftType.getMetadata(ComparisonOperatorInterpreter.class);
-        if (comparisonOperatorInterpreter == null) {
-            throw new IllegalArgumentException("No comparison operator interpreter available for type: " + leftType);
+        @Override
+        public ExpressionService getExpressionService() {
+            return expressionService;
+        }
+
+        @Override
+        public <X> X getProperty(String key) {
+            return properties == null ? null : (X) properties.get(key);
+        }
+
+        @Override
+        public void setProperty(String key, Object value) {
+            if (properties == null) {
+                properties = new HashMap<>();
+            }
+            properties.put(key, value);
         }
-        return comparisonOperatorInterpreter.interpret(context, leftType, rightType, left, right, operator);
-    }
 
-    protected Object arithmetic(DomainType targetType, DomainType leftType, DomainType rightType, Object left, Object right, DomainOperator operator) {
-        DomainOperatorInterpreter domainOperatorInterpreter = targetType.getMetadata(DomainOperatorInterpreter.class);
-        if (domainOperatorInterpreter == null) {
-            throw new IllegalArgumentException("No domain operator interpreter available for type: " + targetType);
+        @Override
+        public <X> X getRoot(String alias) {
+            return null;
         }
-        return domainOperatorInterpreter.interpret(context, targetType, leftType, rightType, left, right, operator);
     }
 
     /**
      * @author Christian Beikov
      * @since 1.0.0
      */
-    protected static final class DefaultDomainFunctionArguments implements DomainFunctionArguments {
+    public static final class DefaultDomainFunctionArguments implements DomainFunctionArguments {
 
         private final Object[] values;
         private final DomainType[] types;
@@ -0,0 +1,406 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.blazebit.expression.impl;
+
+import com.blazebit.domain.runtime.model.DomainFunctionArgument;
+import com.blazebit.domain.runtime.model.DomainFunctionVolatility;
+import com.blazebit.domain.runtime.model.DomainType;
+import com.blazebit.domain.runtime.model.TemporalInterval;
+import com.blazebit.expression.ArithmeticExpression;
+import com.blazebit.expression.ArithmeticFactor;
+import com.blazebit.expression.BetweenPredicate;
+import com.blazebit.expression.ChainingArithmeticExpression;
+import com.blazebit.expression.CollectionLiteral;
+import com.blazebit.expression.ComparisonOperator;
+import com.blazebit.expression.ComparisonPredicate;
+import com.blazebit.expression.CompoundPredicate;
+import com.blazebit.expression.EntityLiteral;
+import com.blazebit.expression.EnumLiteral;
+import com.blazebit.expression.Expression;
+import com.blazebit.expression.ExpressionInterpreter;
+import com.blazebit.expression.ExpressionInterpreterContext;
+import com.blazebit.expression.ExpressionOptimizer;
+import com.blazebit.expression.ExpressionPredicate;
+import com.blazebit.expression.ExpressionService;
+import com.blazebit.expression.FunctionInvocation;
+import com.blazebit.expression.InPredicate;
+import com.blazebit.expression.IsEmptyPredicate;
+import com.blazebit.expression.IsNullPredicate;
+import com.blazebit.expression.Literal;
+import com.blazebit.expression.Path;
+import com.blazebit.expression.Predicate;
+import com.blazebit.expression.spi.DefaultResolvedLiteral;
+import com.blazebit.expression.spi.LiteralRenderer;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A stateless optimizer that folds constant sub-expressions by evaluating them with the interpreter of the expression service
+ * and simplifies compound predicates. The rewrites preserve the evaluation result of the interpreter, including the <code>null</code> handling
+ * of compound predicates, which return the result of the first operand that is not neutral.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public class ExpressionOptimizerImpl implements ExpressionOptimizer {
+
+    protected final ExpressionService expressionService;
+
+    public ExpressionOptimizerImpl(ExpressionService expressionService) {
+        this.expressionService = expressionService;
+    }
+
+    @Override
+    public Expression optimize(Expression expression, ExpressionInterpreter.Context interpreterContext) {
+        if (interpreterContext == null) {
+            return expression.accept(new Optimizer(ExpressionInterpreterContext.create(expressionService), false));
+        }
+        return expression.accept(new Optimizer(interpreterContext, true));
+    }
+
+    /**
+     * The state of a single optimization run.
+     *
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    protected class Optimizer implements Expression.ResultVisitor<Expression> {
+
+        protected final ExpressionInterpreter.Context interpreterContext;
+        protected final boolean foldStableFunctions;
+        protected ExpressionInterpreter interpreter;
+
+        public Optimizer(ExpressionInterpreter.Context interpreterContext, boolean foldStableFunctions) {
+            this.interpreterContext = interpreterContext;
+            this.foldStableFunctions = foldStableFunctions;
+        }
+
+        @Override
+        public Expression visit(ArithmeticFactor e) {
+            ArithmeticExpression expression = (ArithmeticExpression) e.getExpression().accept(this);
+            // Unwrapping is only possible if it doesn't change the type of the expression
+            if (!e.isInvertSignum() && expression.getType() == e.getType()) {
+                return expression;
+            }
+            if (e.isInvertSignum() && expression instanceof ArithmeticFactor && ((ArithmeticFactor) expression).isInvertSignum()
+                && ((ArithmeticFactor) expression).getExpression().getType() == e.getType()) {
+                return ((ArithmeticFactor) expression).getExpression();
+            }
+            ArithmeticFactor result = expression == e.getExpression() ? e : new ArithmeticFactor(e.getType(), expression, e.isInvertSignum());
+            return isConstant(expression) ? fold(result) : result;
+        }
+
+        @Override
+        public Expression visit(ExpressionPredicate e) {
+            Expression expression = e.getExpression().accept(this);
+            if (isConstant(expression)) {
+                if (!e.isNegated() && expression == e.getExpression()) {
+                    return e;
+                }
+                return fold(new ExpressionPredicate(e.getType(), expression, e.isNegated()));
+            }
+            return expression == e.getExpression() ? e : new ExpressionPredicate(e.getType(), expression, e.isNegated());
+        }
+
+        @Override
+        public Expression visit(BetweenPredicate e) {
+            ArithmeticExpression left = (ArithmeticExpression) e.getLeft().accept(this);
+            ArithmeticExpression upper = (ArithmeticExpression) e.getUpper().accept(this);
+            ArithmeticExpression lower = (ArithmeticExpression) e.getLower().accept(this);
+            Predicate result;
+            if (left == e.getLeft() && upper == e.getUpper() && lower == e.getLower()) {
+                result = e;
+            } else {
+                result = new BetweenPredicate(e.getType(), left, upper, lower, e.isNegated());
+            }
+            if (isConstant(upper) && isConstant(lower)) {
+                if (isConstant(left)) {
+                    return fold(result);
+                }
+                if (!e.isNegated() && upper.equals(lower)) {
+                    return new ComparisonPredicate(e.getType(), left, lower, ComparisonOperator.EQUAL, false);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public Expression visit(InPredicate e) {
+            ArithmeticExpression left = (ArithmeticExpression) e.getLeft().accept(this);
+            List<ArithmeticExpression> inItems = e.getInItems();
+            List<ArithmeticExpression> items = null;
+            boolean constant = isConstant(left);
+            for (int i = 0; i < inItems.size(); i++) {
+                ArithmeticExpression inItem = inItems.get(i);
+                ArithmeticExpression item = (ArithmeticExpression) inItem.accept(this);
+                if (item != inItem && items == null) {
+                    items = new ArrayList<>(inItems.subList(0, i));
+                }
+                if (items != null) {
+                    items.add(item);
+                }
+                constant = constant && isConstant(item);
+            }
+            if (items == null) {
+                if (left == e.getLeft()) {
+                    return constant ? fold(e) : e;
+                }
+                items = inItems;
+            }
+            if (!e.isNegated() && items.size() == 1 && !constant) {
+                return new ComparisonPredicate(e.getType(), left, items.get(0), ComparisonOperator.EQUAL, false);
+            }
+            InPredicate result = new InPredicate(e.getType(), left, items, e.isNegated());
+            return constant ? fold(result) : result;
+        }
+
+        @Override
+        public Expression visit(ChainingArithmeticExpression e) {
+            ArithmeticExpression left = (ArithmeticExpression) e.getLeft().accept(this);
+            ArithmeticExpression right = (ArithmeticExpression) e.getRight().accept(this);
+            ChainingArithmeticExpression result;
+            if (left == e.getLeft() && right == e.getRight()) {
+                result = e;
+            } else {
+                result = new ChainingArithmeticExpression(e.getType(), left, right, e.getOperator());
+            }
+            return isConstant(left) && isConstant(right) ? fold(result) : result;
+        }
+
+        @Override
+        public Expression visit(CompoundPredicate e) {
+            List<Predicate> predicates = e.getPredicates();
+            if (predicates.isEmpty()) {
+                return e;
+            }
+            boolean conjunction = e.isConjunction();
+            List<Predicate> operands = new ArrayList<>(predicates.size());
+            for (int i = 0; i < predicates.size(); i++) {
+                if (!addOperand(operands, (Predicate) predicates.get(i).accept(this), conjunction)) {
+                    break;
+                }
+            }
+            if (operands.isEmpty()) {
+                // All operands were neutral, so the predicate is true for a conjunction and false for a disjunction
+                return constant(e.getType(), conjunction != e.isNegated());
+            }
+            if (operands.size() == 1) {
+                Predicate operand = operands.get(0);
+                return e.isNegated() ? negate(operand) : operand;
+            }
+            if (operands.size() == predicates.size() && identical(operands, predicates)) {
+                return e;
+            }
+            return new CompoundPredicate(e.getType(), operands, conjunction, e.isNegated());
+        }
+
+        /**
+         * Adds the optimized operand to the operands of a compound predicate of the given kind.
+         * Returns <code>false</code> if the operand is a constant that determines the result,
+         * which makes all further operands irrelevant.
+         */
+        private boolean addOperand(List<Predicate> operands, Predicate operand, boolean conjunction) {
+            if (operand instanceof CompoundPredicate) {
+                CompoundPredicate compoundPredicate = (CompoundPredicate) operand;
+                List<Predicate> predicates = compoundPredicate.getPredicates();
+                if (!predicates.isEmpty()) {
+                    if (compoundPredicate.isConjunction() == conjunction && !compoundPredicate.isNegated()) {
+                        for (int i = 0; i < predicates.size(); i++) {
+                            if (!addOperand(operands, predicates.get(i), conjunction)) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    } else if (compoundPredicate.isConjunction() != conjunction && compoundPredicate.isNegated()) {
+                        // De Morgan: NOT(a OR b) is equivalent to NOT(a) AND NOT(b)
+                        for (int i = 0; i < predicates.size(); i++) {
+                            if (!addOperand(operands, negate(predicates.get(i)), conjunction)) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                }
+            }
+            Boolean constantValue = getConstantValue(operand);
+            if (constantValue == null) {
+                operands.add(operand);
+                return true;
+            } else if (constantValue == conjunction) {
+                return true;
+            } else {
+                operands.add(operand);
+                return false;
+            }
+        }
+
+        @Override
+        public Expression visit(ComparisonPredicate e) {
+            ArithmeticExpression left = (ArithmeticExpression) e.getLeft().accept(this);
+            ArithmeticExpression right = (ArithmeticExpression) e.getRight().accept(this);
+            ComparisonPredicate result;
+            if (left == e.getLeft() && right == e.getRight()) {
+                result = e;
+            } else {
+                result = new ComparisonPredicate(e.getType(), left, right, e.getOperator(), e.isNegated());
+            }
+            return isConstant(left) && isConstant(right) ? fold(result) : result;
+        }
+
+        @Override
+        public Expression visit(IsNullPredicate e) {
+            Expression left = e.getLeft().accept(this);
+            IsNullPredicate result = left == e.getLeft() ? e : new IsNullPredicate(e.getType(), left, e.isNegated());
+            return isConstant(left) ? fold(result) : result;
+        }
+
+        @Override
+        public Expression visit(IsEmptyPredicate e) {
+            Expression left = e.getLeft().accept(this);
+            return left == e.getLeft() ? e : new IsEmptyPredicate(e.getType(), left, e.isNegated());
+        }
+
+        @Override
+        public Expression visit(Path e) {
+            if (e.getBase() == null) {
+                return e;
+            }
+            ArithmeticExpression base = (ArithmeticExpression) e.getBase().accept(this);
+            return base == e.getBase() ? e : new Path(base, e.getAttributes(), e.getType());
+        }
+
+        @Override
+        public Expression visit(FunctionInvocation e) {
+            Map<DomainFunctionArgument, Expression> arguments = e.getArguments();
+            Map<DomainFunctionArgument, Expression> newArguments = null;
+            boolean constant = true;
+            for (Map.Entry<DomainFunctionArgument, Expression> entry : arguments.entrySet()) {
+                Expression argument = entry.getValue().accept(this);
+                if (argument != entry.getValue() && newArguments == null) {
+                    newArguments = new LinkedHashMap<>(arguments);
+                }
+                if (newArguments != null) {
+                    newArguments.put(entry.getKey(), argument);
+                }
+                constant = constant && isConstant(argument);
+            }
+            FunctionInvocation result = newArguments == null ? e : new FunctionInvocation(e.getFunction(), newArguments, e.getType());
+            DomainFunctionVolatility volatility = e.getFunction().getVolatility();
+            if (constant && (volatility == DomainFunctionVolatility.IMMUTABLE || volatility == DomainFunctionVolatility.STABLE && foldStableFunctions)) {
+                return fold(result);
+            }
+            return result;
+        }
+
+        @Override
+        public Expression visit(Literal e) {
+            return e;
+        }
+
+        @Override
+        public Expression visit(EnumLiteral e) {
+            return e;
+        }
+
+        @Override
+        public Expression visit(EntityLiteral e) {
+            return e;
+        }
+
+        @Override
+        public Expression visit(CollectionLiteral e) {
+            return e;
+        }
+
+        /**
+         * Evaluates the given expression, whose operands are all constant, and returns a literal for the result.
+         * If the evaluation fails or produces a value that can't be represented as literal, the expression is returned as is,
+         * so that errors still surface when the expression is evaluated.
+         */
+        protected Expression fold(Expression expression) {
+            ExpressionInterpreter interpreter = this.interpreter;
+            if (interpreter == null) {
+                interpreter = this.interpreter = expressionService.createInterpreter();
+            }
+            Object value;
+            try {
+                value = interpreter.evaluate(expression, interpreterContext);
+            } catch (RuntimeException ex) {
+                return expression;
+            }
+            DomainType type = expression.getType();
+            if (expression instanceof Predicate) {
+                return value instanceof Boolean ? constant(type, (Boolean) value) : expression;
+            }
+            if (value == null || type.getKind() != DomainType.DomainTypeKind.BASIC || !isRenderable(type, value)) {
+                return expression;
+            }
+            return new Literal(new DefaultResolvedLiteral(type, value));
+        }
+    }
+
+    private static boolean isRenderable(DomainType type, Object value) {
+        return value instanceof Boolean || value instanceof Number || value instanceof String || value instanceof Instant
+            || value instanceof TemporalInterval || type.getMetadata(LiteralRenderer.class) != null;
+    }
+
+    private static boolean isConstant(Expression expression) {
+        if (expression instanceof Literal && !(expression instanceof EntityLiteral) && !(expression instanceof CollectionLiteral)) {
+            return ((Literal) expression).getValue() != null;
+        }
+        return false;
+    }
+
+    private static Boolean getConstantValue(Predicate predicate) {
+        if (predicate instanceof ExpressionPredicate) {
+            Expression expression = ((ExpressionPredicate) predicate).getExpression();
+            if (isConstant(expression)) {
+                Object value = ((Literal) expression).getValue();
+                if (value instanceof Boolean) {
+                    return (Boolean) value != predicate.isNegated();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Predicate constant(DomainType type, boolean value) {
+        return new ExpressionPredicate(type, new Literal(new DefaultResolvedLiteral(type, value)), false);
+    }
+
+    private static Predicate negate(Predicate predicate) {
+        Boolean constantValue = getConstantValue(predicate);
+        if (constantValue != null) {
+            return constant(predicate.getType(), !constantValue);
+        }
+        return predicate.negated();
+    }
+
+    private static boolean identical(List<Predicate> list1, List<Predicate> list2) {
+        for (int i = 0; i < list1.size(); i++) {
+            if (list1.get(i) != list2.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
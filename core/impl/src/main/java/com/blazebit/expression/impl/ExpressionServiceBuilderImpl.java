@@ -17,13 +17,17 @@
 package com.blazebit.expression.impl;
 
 import com.blazebit.domain.runtime.model.DomainModel;
+import com.blazebit.expression.ExpressionCacheStatistics;
+import com.blazebit.expression.ExpressionParserType;
 import com.blazebit.expression.ExpressionService;
 import com.blazebit.expression.ExpressionServiceBuilder;
+import com.blazebit.expression.PredicateReordering;
 import com.blazebit.expression.impl.spi.ExpressionServiceBuilderProviderImpl;
 import com.blazebit.expression.spi.BooleanLiteralResolver;
 import com.blazebit.expression.spi.CollectionLiteralResolver;
 import com.blazebit.expression.spi.EntityLiteralResolver;
 import com.blazebit.expression.spi.EnumLiteralResolver;
+import com.blazebit.expression.spi.ExpressionEvaluatorFactory;
 import com.blazebit.expression.spi.ExpressionSerializerFactory;
 import com.blazebit.expression.spi.ExpressionServiceContributor;
 import com.blazebit.expression.spi.ExpressionServiceSerializer;
@@ -76,6 +80,12 @@ public class ExpressionServiceBuilderImpl implements ExpressionServiceBuilder {
     private EntityLiteralResolver entityLiteralResolver;
     private CollectionLiteralResolver collectionLiteralResolver;
     private Map<Class<?>, Map<Class<?>, TypeConverter<?, ?>>> converters;
+    private int expressionCacheMaximumSize;
+    private ExpressionEvaluatorFactory expressionEvaluatorFactory;
+    private boolean expressionOptimization;
+    private boolean parserWarmUp;
+    private PredicateReordering predicateReordering = PredicateReordering.NONE;
+    private ExpressionParserType expressionParserType = ExpressionParserType.ANTLR;
 
     public ExpressionServiceBuilderImpl(DomainModel domainModel) {
         this.baseExpressionService = null;
@@ -102,6 +112,14 @@ public class ExpressionServiceBuilderImpl implements ExpressionServiceBuilder {
         this.enumLiteralResolver = baseExpressionService.getEnumLiteralResolver();
         this.entityLiteralResolver = baseExpressionService.getEntityLiteralResolver();
         this.collectionLiteralResolver = baseExpressionService.getCollectionLiteralResolver();
+        ExpressionCacheStatistics expressionCacheStatistics = baseExpressionService.getExpressionCacheStatistics();
+        if (expressionCacheStatistics != null) {
+            this.expressionCacheMaximumSize = expressionCacheStatistics.getMaximumSize();
+        }
+        this.expressionEvaluatorFactory = baseExpressionService.getExpressionEvaluatorFactory();
+        this.expressionOptimization = baseExpressionService.isExpressionOptimization();
+        this.predicateReordering = baseExpressionService.getPredicateReordering();
+        this.expressionParserType = baseExpressionService.getExpressionParserType();
     }
 
     @Override
@@ -151,6 +169,75 @@ public class ExpressionServiceBuilderImpl implements ExpressionServiceBuilder {
         return this;
     }
 
+    @Override
+    public ExpressionServiceBuilder withExpressionCache(int maximumSize) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("Invalid negative maximum size: " + maximumSize);
+        }
+        this.expressionCacheMaximumSize = maximumSize;
+        return this;
+    }
+
+    @Override
+    public int getExpressionCacheMaximumSize() {
+        return expressionCacheMaximumSize;
+    }
+
+    @Override
+    public ExpressionServiceBuilder withExpressionEvaluatorFactory(ExpressionEvaluatorFactory expressionEvaluatorFactory) {
+        this.expressionEvaluatorFactory = expressionEvaluatorFactory;
+        return this;
+    }
+
+    @Override
+    public ExpressionEvaluatorFactory getExpressionEvaluatorFactory() {
+        return expressionEvaluatorFactory;
+    }
+
+    @Override
+    public ExpressionServiceBuilder withPredicateReordering(PredicateReordering predicateReordering) {
+        this.predicateReordering = predicateReordering == null ? PredicateReordering.NONE : predicateReordering;
+        return this;
+    }
+
+    @Override
+    public PredicateReordering getPredicateReordering() {
+        return predicateReordering;
+    }
+
+    @Override
+    public ExpressionServiceBuilder withExpressionOptimization(boolean expressionOptimization) {
+        this.expressionOptimization = expressionOptimization;
+        return this;
+    }
+
+    @Override
+    public boolean isExpressionOptimization() {
+        return expressionOptimization;
+    }
+
+    @Override
+    public ExpressionServiceBuilder withParserWarmUp(boolean parserWarmUp) {
+        this.parserWarmUp = parserWarmUp;
+        return this;
+    }
+
+    @Override
+    public boolean isParserWarmUp() {
+        return parserWarmUp;
+    }
+
+    @Override
+    public ExpressionServiceBuilder withExpressionParserType(ExpressionParserType expressionParserType) {
+        this.expressionParserType = expressionParserType == null ? ExpressionParserType.ANTLR : expressionParserType;
+        return this;
+    }
+
+    @Override
+    public ExpressionParserType getExpressionParserType() {
+        return expressionParserType;
+    }
+
     @Override
     public NumericLiteralResolver getNumericLiteralResolver() {
         return numericLiteralResolver;
@@ -221,6 +308,9 @@ public class ExpressionServiceBuilderImpl implements ExpressionServiceBuilder {
         for (TypeConverter<?, ?> typeConverter : providers.typeConverters) {
             withConverter(typeConverter);
         }
+        if (expressionEvaluatorFactory == null) {
+            expressionEvaluatorFactory = providers.expressionEvaluatorFactory;
+        }
         return this;
     }
 
@@ -274,6 +364,9 @@ public class ExpressionServiceBuilderImpl implements ExpressionServiceBuilder {
 
     @Override
     public ExpressionService build() {
+        if (parserWarmUp && expressionParserType == ExpressionParserType.ANTLR) {
+            ExpressionCompilerImpl.warmUpParser();
+        }
         return new ExpressionServiceImpl(
             this,
             getImmutableSerializerFactories(),
@@ -371,6 +464,7 @@ public class ExpressionServiceBuilderImpl implements ExpressionServiceBuilder {
         private final Map<Class<?>, Map<String, ExpressionSerializerFactory<?>>> expressionSerializerFactories;
         private final Iterable<ExpressionServiceSerializer<?>> expressionServiceSerializers;
         private final Iterable<TypeConverter<?, ?>> typeConverters;
+        private final ExpressionEvaluatorFactory expressionEvaluatorFactory;
 
         public Providers() {
             this.expressionServiceContributors = StreamSupport.stream(ServiceLoader.load(ExpressionServiceContributor.class).spliterator(), false)
@@ -397,6 +491,19 @@ public class ExpressionServiceBuilderImpl implements ExpressionServiceBuilder {
             this.expressionSerializerFactories = expressionSerializers;
             this.expressionServiceSerializers = load(ExpressionServiceSerializer.class);
             this.typeConverters = load(TypeConverter.class);
+            ExpressionEvaluatorFactory expressionEvaluatorFactory = null;
+            Iterator<ExpressionEvaluatorFactory> evaluatorFactoryIterator = ServiceLoader.load(ExpressionEvaluatorFactory.class).iterator();
+            while (evaluatorFactoryIterator.hasNext()) {
+                try {
+                    ExpressionEvaluatorFactory factory = evaluatorFactoryIterator.next();
+                    if (expressionEvaluatorFactory == null || factory.priority() < expressionEvaluatorFactory.priority()) {
+                        expressionEvaluatorFactory = factory;
+                    }
+                } catch (Throwable ex) {
+                    LOG.log(Level.WARNING, "Ignoring expression evaluator factory due to exception", ex);
+                }
+            }
+            this.expressionEvaluatorFactory = expressionEvaluatorFactory;
         }
 
         @SuppressWarnings("unchecked")
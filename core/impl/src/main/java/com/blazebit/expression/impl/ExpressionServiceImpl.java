@@ -18,15 +18,22 @@ package com.blazebit.expression.impl;
 
 import com.blazebit.domain.runtime.model.DomainModel;
 import com.blazebit.expression.Expression;
+import com.blazebit.expression.ExpressionCacheStatistics;
 import com.blazebit.expression.ExpressionCompiler;
+import com.blazebit.expression.ExpressionEvaluator;
 import com.blazebit.expression.ExpressionInterpreter;
+import com.blazebit.expression.ExpressionOptimizer;
+import com.blazebit.expression.ExpressionParserType;
 import com.blazebit.expression.ExpressionSerializer;
 import com.blazebit.expression.ExpressionServiceBuilder;
 import com.blazebit.expression.ExpressionService;
+import com.blazebit.expression.Predicate;
+import com.blazebit.expression.PredicateReordering;
 import com.blazebit.expression.spi.BooleanLiteralResolver;
 import com.blazebit.expression.spi.CollectionLiteralResolver;
 import com.blazebit.expression.spi.EntityLiteralResolver;
 import com.blazebit.expression.spi.EnumLiteralResolver;
+import com.blazebit.expression.spi.ExpressionEvaluatorFactory;
 import com.blazebit.expression.spi.ExpressionSerializerFactory;
 import com.blazebit.expression.spi.ExpressionServiceSerializer;
 import com.blazebit.expression.spi.NumericLiteralResolver;
@@ -34,14 +41,20 @@ import com.blazebit.expression.spi.StringLiteralResolver;
 import com.blazebit.expression.spi.TemporalLiteralResolver;
 import com.blazebit.expression.spi.TypeConverter;
 
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 
 /**
  * @author Christian Beikov
  * @since 1.0.0
  */
-public class ExpressionServiceImpl implements ExpressionService {
+public class ExpressionServiceImpl implements ExpressionService, Serializable {
 
     private final DomainModel domainModel;
     private final NumericLiteralResolver numericLiteralResolver;
@@ -55,6 +68,14 @@ public class ExpressionServiceImpl implements ExpressionService {
     private final Map<Class<?>, Map<String, ExpressionSerializerFactory<?>>> expressionSerializers;
     private final List<ExpressionServiceSerializer<?>> expressionServiceSerializers;
     private final Map<Class<?>, Map<Class<?>, TypeConverter<?, ?>>> converters;
+    private final ExpressionCacheImpl expressionCache;
+    private final ExpressionInterpreter interpreter;
+    private final ExpressionEvaluatorFactory expressionEvaluatorFactory;
+    private final ExpressionOptimizer optimizer;
+    private final boolean expressionOptimization;
+    private final PredicateReordering predicateReordering;
+    private final ExpressionParserType expressionParserType;
+    private final boolean parserWarmUp;
 
     public ExpressionServiceImpl(ExpressionServiceBuilder builder, Map<Class<?>, Map<String, ExpressionSerializerFactory<?>>> expressionSerializers, List<ExpressionServiceSerializer<?>> expressionServiceSerializers, Map<Class<?>, Map<Class<?>, TypeConverter<?, ?>>> converters) {
         this.domainModel = builder.getDomainModel();
@@ -69,9 +90,17 @@ public class ExpressionServiceImpl implements ExpressionService {
         this.expressionServiceSerializers = expressionServiceSerializers;
         this.converters = converters;
         this.literalFactory = new LiteralFactory(this);
+        this.expressionCache = createExpressionCache(builder.getExpressionCacheMaximumSize());
+        this.interpreter = new ExpressionInterpreterImpl(this);
+        this.expressionEvaluatorFactory = builder.getExpressionEvaluatorFactory();
+        this.optimizer = new ExpressionOptimizerImpl(this);
+        this.expressionOptimization = builder.isExpressionOptimization();
+        this.predicateReordering = builder.getPredicateReordering();
+        this.expressionParserType = builder.getExpressionParserType();
+        this.parserWarmUp = builder.isParserWarmUp();
     }
 
-    private ExpressionServiceImpl(ExpressionService parent, DomainModel domainModel) {
+    private ExpressionServiceImpl(ExpressionServiceImpl parent, DomainModel domainModel) {
         this.domainModel = domainModel;
         this.numericLiteralResolver = parent.getNumericLiteralResolver();
         this.booleanLiteralResolver = parent.getBooleanLiteralResolver();
@@ -84,6 +113,19 @@ public class ExpressionServiceImpl implements ExpressionService {
         this.expressionServiceSerializers = parent.getExpressionServiceSerializers();
         this.converters = parent.getConverters();
         this.literalFactory = new LiteralFactory(this);
+        // Expressions compiled against the parent model are not reusable, so we start with a fresh cache
+        this.expressionCache = createExpressionCache(parent.expressionCache == null ? 0 : parent.expressionCache.getMaximumSize());
+        this.interpreter = new ExpressionInterpreterImpl(this);
+        this.expressionEvaluatorFactory = parent.expressionEvaluatorFactory;
+        this.optimizer = new ExpressionOptimizerImpl(this);
+        this.expressionOptimization = parent.expressionOptimization;
+        this.predicateReordering = parent.predicateReordering;
+        this.expressionParserType = parent.expressionParserType;
+        this.parserWarmUp = parent.parserWarmUp;
+    }
+
+    private static ExpressionCacheImpl createExpressionCache(int maximumSize) {
+        return maximumSize > 0 ? new ExpressionCacheImpl(maximumSize) : null;
     }
 
     @Override
@@ -162,12 +204,68 @@ public class ExpressionServiceImpl implements ExpressionService {
 
     @Override
     public ExpressionCompiler createCompiler() {
-        return new ExpressionCompilerImpl(this, literalFactory);
+        return new ExpressionCompilerImpl(this, literalFactory, expressionCache, expressionOptimization ? optimizer : null);
+    }
+
+    @Override
+    public ExpressionCacheStatistics getExpressionCacheStatistics() {
+        return expressionCache;
+    }
+
+    @Override
+    public ExpressionEvaluatorFactory getExpressionEvaluatorFactory() {
+        return expressionEvaluatorFactory;
+    }
+
+    @Override
+    public PredicateReordering getPredicateReordering() {
+        return predicateReordering;
+    }
+
+    @Override
+    public ExpressionParserType getExpressionParserType() {
+        return expressionParserType;
+    }
+
+    @Override
+    public ExpressionOptimizer createOptimizer() {
+        return optimizer;
+    }
+
+    @Override
+    public boolean isExpressionOptimization() {
+        return expressionOptimization;
     }
 
     @Override
     public ExpressionInterpreter createInterpreter() {
-        return new ExpressionInterpreterImpl(this);
+        return interpreter;
+    }
+
+    @Override
+    public ExpressionEvaluator createEvaluator(Expression expression) {
+        if (expressionEvaluatorFactory != null) {
+            return expressionEvaluatorFactory.createEvaluator(this, expression);
+        }
+        return new ExpressionEvaluatorImpl(this, expression, new EvaluatorNodeFactory(predicateReordering).create(expression), EvaluatorNodeFactory.getModelTypeAdapter(expression));
+    }
+
+    @Override
+    public <T> List<T> filter(Predicate predicate, ExpressionInterpreter.Context interpreterContext, String alias, Collection<? extends T> roots, ForkJoinPool forkJoinPool) {
+        return ParallelFilterTask.filter(this, createEvaluator(predicate), interpreterContext, alias, roots, forkJoinPool);
+    }
+
+    @Override
+    public <T> java.util.function.Predicate<T> asJavaPredicate(Predicate predicate, ExpressionInterpreter.Context interpreterContext, String alias) {
+        ExpressionEvaluator evaluator = createEvaluator(predicate);
+        // The properties are scoped per test, since the adapter may live much longer than a single stream
+        return root -> evaluator.test(new RootBoundInterpreterContext(this, interpreterContext, alias, new ConcurrentHashMap<>()).bind(root));
+    }
+
+    @Override
+    public <R, T> Function<R, T> asJavaFunction(Expression expression, ExpressionInterpreter.Context interpreterContext, String alias, Class<T> resultClass) {
+        ExpressionEvaluator evaluator = createEvaluator(expression);
+        return root -> evaluator.evaluateAs(new RootBoundInterpreterContext(this, interpreterContext, alias, new ConcurrentHashMap<>()).bind(root), resultClass);
     }
 
     @Override
@@ -237,4 +335,91 @@ public class ExpressionServiceImpl implements ExpressionService {
 
         return null;
     }
+
+    @Override
+    public boolean serializeTo(ExpressionService baseModel, Appendable target, String format, Map<String, Object> properties) throws IOException {
+        for (ExpressionServiceSerializer<?> expressionServiceSerializer : expressionServiceSerializers) {
+            if (expressionServiceSerializer.canSerialize(this)) {
+                if (((ExpressionServiceSerializer<ExpressionService>) expressionServiceSerializer).serializeTo(this, baseModel, this, target, format, properties)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private Object writeReplace() {
+        return new SerializedForm(this);
+    }
+
+    /**
+     * The serialized form of an expression service which only contains the configuration, as the remaining state is derived from it.
+     *
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    private static final class SerializedForm implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final DomainModel domainModel;
+        private final NumericLiteralResolver numericLiteralResolver;
+        private final BooleanLiteralResolver booleanLiteralResolver;
+        private final StringLiteralResolver stringLiteralResolver;
+        private final TemporalLiteralResolver temporalLiteralResolver;
+        private final EnumLiteralResolver enumLiteralResolver;
+        private final EntityLiteralResolver entityLiteralResolver;
+        private final CollectionLiteralResolver collectionLiteralResolver;
+        private final Map<Class<?>, Map<String, ExpressionSerializerFactory<?>>> expressionSerializers;
+        private final List<ExpressionServiceSerializer<?>> expressionServiceSerializers;
+        private final Map<Class<?>, Map<Class<?>, TypeConverter<?, ?>>> converters;
+        private final int expressionCacheMaximumSize;
+        private final ExpressionEvaluatorFactory expressionEvaluatorFactory;
+        private final boolean expressionOptimization;
+        private final PredicateReordering predicateReordering;
+        private final ExpressionParserType expressionParserType;
+        private final boolean parserWarmUp;
+
+        public SerializedForm(ExpressionServiceImpl expressionService) {
+            this.domainModel = expressionService.domainModel;
+            this.numericLiteralResolver = expressionService.numericLiteralResolver;
+            this.booleanLiteralResolver = expressionService.booleanLiteralResolver;
+            this.stringLiteralResolver = expressionService.stringLiteralResolver;
+            this.temporalLiteralResolver = expressionService.temporalLiteralResolver;
+            this.enumLiteralResolver = expressionService.enumLiteralResolver;
+            this.entityLiteralResolver = expressionService.entityLiteralResolver;
+            this.collectionLiteralResolver = expressionService.collectionLiteralResolver;
+            this.expressionSerializers = expressionService.expressionSerializers;
+            this.expressionServiceSerializers = expressionService.expressionServiceSerializers;
+            this.converters = expressionService.converters;
+            this.expressionCacheMaximumSize = expressionService.expressionCache == null ? 0 : expressionService.expressionCache.getMaximumSize();
+            this.expressionEvaluatorFactory = expressionService.expressionEvaluatorFactory;
+            this.expressionOptimization = expressionService.expressionOptimization;
+            this.predicateReordering = expressionService.predicateReordering;
+            this.expressionParserType = expressionService.expressionParserType;
+            this.parserWarmUp = expressionService.parserWarmUp;
+        }
+
+        private Object readResolve() {
+            ExpressionServiceBuilder builder = new ExpressionServiceBuilderImpl(domainModel)
+                .withNumericLiteralResolver(numericLiteralResolver)
+                .withBooleanLiteralResolver(booleanLiteralResolver)
+                .withStringLiteralResolver(stringLiteralResolver)
+                .withTemporalLiteralResolver(temporalLiteralResolver)
+                .withEnumLiteralResolver(enumLiteralResolver)
+                .withEntityLiteralResolver(entityLiteralResolver)
+                .withCollectionLiteralResolver(collectionLiteralResolver)
+                .withExpressionCache(expressionCacheMaximumSize)
+                .withExpressionEvaluatorFactory(expressionEvaluatorFactory)
+                .withExpressionOptimization(expressionOptimization)
+                .withPredicateReordering(predicateReordering)
+                .withExpressionParserType(expressionParserType)
+                .withParserWarmUp(parserWarmUp);
+            if (parserWarmUp && expressionParserType == ExpressionParserType.ANTLR) {
+                ExpressionCompilerImpl.warmUpParser();
+            }
+            return new ExpressionServiceImpl(builder, expressionSerializers, expressionServiceSerializers, converters);
+        }
+    }
 }
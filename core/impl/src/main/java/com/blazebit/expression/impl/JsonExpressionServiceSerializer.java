@@ -20,17 +20,44 @@ import com.blazebit.domain.runtime.model.DomainModel;
 import com.blazebit.expression.ExpressionService;
 import com.blazebit.expression.spi.ExpressionServiceSerializer;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
 
 /**
  * A JSON expression service serializer.
+ * Since expression services are immutable, the serialized form is cached per expression service, base expression service and properties.
+ * Properties can be client controlled, e.g. the locale of a request, so only the {@link #MAXIMUM_CACHE_SIZE} most recently used
+ * serializations are cached per expression service.
+ * Besides the <code>json</code> format, the <code>json-etag</code> format is supported, which returns a content hash of the JSON serialization
+ * for the same arguments that is suitable as HTTP entity tag.
+ * Streaming serialization through {@link ExpressionService#serializeTo(ExpressionService, Appendable, String, Map)} writes
+ * the parts of the serialization directly to the target and does not populate the cache.
  *
  * @author Christian Beikov
  * @since 1.0.0
  */
 public class JsonExpressionServiceSerializer implements ExpressionServiceSerializer<ExpressionService>, Serializable {
 
+    public static final String JSON_FORMAT = "json";
+    public static final String ETAG_FORMAT = "json-etag";
+    /**
+     * The maximum number of cached serializations per expression service.
+     */
+    public static final int MAXIMUM_CACHE_SIZE = 16;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private transient volatile Map<ExpressionService, Map<CacheKey, CacheEntry>> cache;
+
     @Override
     public boolean canSerialize(Object element) {
         return element instanceof ExpressionService;
@@ -43,52 +70,203 @@ public class JsonExpressionServiceSerializer implements ExpressionServiceSeriali
 
     @Override
     public <T> T serialize(ExpressionService expressionService, ExpressionService baseModel, ExpressionService model, Class<T> targetType, String format, Map<String, Object> properties) {
-        if (targetType != String.class || !"json".equals(format)) {
+        if (targetType != String.class) {
             return null;
         }
+        boolean etag;
+        if (JSON_FORMAT.equals(format)) {
+            etag = false;
+        } else if (ETAG_FORMAT.equals(format)) {
+            etag = true;
+        } else {
+            return null;
+        }
+        // Only cache invocations for the expression service itself, and avoid cache entries that strongly reference the weak key
+        Map<CacheKey, CacheEntry> entries = null;
+        CacheKey cacheKey = null;
+        if (model == expressionService && baseModel != expressionService) {
+            entries = getCacheEntries(expressionService);
+            cacheKey = new CacheKey(baseModel, properties);
+            CacheEntry cacheEntry = entries.get(cacheKey);
+            if (cacheEntry != null) {
+                return (T) (etag ? cacheEntry.etag : cacheEntry.json);
+            }
+        }
+        String json = serializeJson(expressionService, baseModel, model, properties);
+        CacheEntry cacheEntry = new CacheEntry(json);
+        if (entries != null) {
+            entries.put(cacheKey, cacheEntry);
+        }
+        return (T) (etag ? cacheEntry.etag : cacheEntry.json);
+    }
+
+    private Map<CacheKey, CacheEntry> getCacheEntries(ExpressionService expressionService) {
+        Map<ExpressionService, Map<CacheKey, CacheEntry>> cache = this.cache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = this.cache;
+                if (cache == null) {
+                    this.cache = cache = Collections.synchronizedMap(new WeakHashMap<>());
+                }
+            }
+        }
+        return cache.computeIfAbsent(expressionService, k -> Collections.synchronizedMap(new CacheEntries()));
+    }
+
+    @Override
+    public boolean serializeTo(ExpressionService expressionService, ExpressionService baseModel, ExpressionService model, Appendable target, String format, Map<String, Object> properties) throws IOException {
+        if (!JSON_FORMAT.equals(format)) {
+            return false;
+        }
+        // Reuse a cached serialization, but don't populate the cache to avoid materializing the serialization
+        CacheEntry cacheEntry = null;
+        Map<ExpressionService, Map<CacheKey, CacheEntry>> cache = this.cache;
+        if (cache != null && model == expressionService) {
+            Map<CacheKey, CacheEntry> entries = cache.get(expressionService);
+            if (entries != null) {
+                cacheEntry = entries.get(new CacheKey(baseModel, properties));
+            }
+        }
+        if (cacheEntry == null) {
+            writeJson(expressionService, baseModel, model, properties, target);
+        } else {
+            target.append(cacheEntry.json);
+        }
+        return true;
+    }
+
+    private String serializeJson(ExpressionService expressionService, ExpressionService baseModel, ExpressionService model, Map<String, Object> properties) {
+        StringBuilder sb = new StringBuilder(200);
+        try {
+            writeJson(expressionService, baseModel, model, properties, sb);
+        } catch (IOException ex) {
+            // Can't happen with a StringBuilder
+            throw new UncheckedIOException(ex);
+        }
+        return sb.toString();
+    }
+
+    private void writeJson(ExpressionService expressionService, ExpressionService baseModel, ExpressionService model, Map<String, Object> properties, Appendable target) throws IOException {
         DomainModel domainModel = expressionService.getDomainModel();
         String domainSerialization;
         if (baseModel == null) {
-            domainSerialization = domainModel.serialize(String.class, format, properties);
+            domainSerialization = domainModel.serialize(String.class, JSON_FORMAT, properties);
         } else if (domainModel != baseModel.getDomainModel()) {
-            domainSerialization = domainModel.serialize(baseModel.getDomainModel(), String.class, format, properties);
+            domainSerialization = domainModel.serialize(baseModel.getDomainModel(), String.class, JSON_FORMAT, properties);
         } else {
             domainSerialization = null;
         }
 
-        StringBuilder sb;
-        if (domainSerialization == null) {
-            sb = new StringBuilder(200);
-            sb.append('{');
-        } else {
-            sb = new StringBuilder(domainSerialization.length() + 200);
-            sb.append('{');
-            sb.append("\"domain\":").append(domainSerialization).append(',');
+        target.append('{');
+        boolean first = true;
+        if (domainSerialization != null) {
+            target.append("\"domain\":").append(domainSerialization);
+            first = false;
         }
 
-        serializerResolver("booleanLiteralResolver", model, model.getBooleanLiteralResolver(), baseModel == null ? null : baseModel.getBooleanLiteralResolver(), properties, sb);
-        serializerResolver("numericLiteralResolver", model, model.getNumericLiteralResolver(), baseModel == null ? null : baseModel.getNumericLiteralResolver(), properties, sb);
-        serializerResolver("stringLiteralResolver", model, model.getStringLiteralResolver(), baseModel == null ? null : baseModel.getStringLiteralResolver(), properties, sb);
-        serializerResolver("temporalLiteralResolver", model, model.getTemporalLiteralResolver(), baseModel == null ? null : baseModel.getTemporalLiteralResolver(), properties, sb);
-        serializerResolver("entityLiteralResolver", model, model.getEntityLiteralResolver(), baseModel == null ? null : baseModel.getEntityLiteralResolver(), properties, sb);
-        serializerResolver("enumLiteralResolver", model, model.getEnumLiteralResolver(), baseModel == null ? null : baseModel.getEnumLiteralResolver(), properties, sb);
-        serializerResolver("collectionLiteralResolver", model, model.getCollectionLiteralResolver(), baseModel == null ? null : baseModel.getCollectionLiteralResolver(), properties, sb);
+        first = serializerResolver("booleanLiteralResolver", model, model.getBooleanLiteralResolver(), baseModel == null ? null : baseModel.getBooleanLiteralResolver(), properties, target, first);
+        first = serializerResolver("numericLiteralResolver", model, model.getNumericLiteralResolver(), baseModel == null ? null : baseModel.getNumericLiteralResolver(), properties, target, first);
+        first = serializerResolver("stringLiteralResolver", model, model.getStringLiteralResolver(), baseModel == null ? null : baseModel.getStringLiteralResolver(), properties, target, first);
+        first = serializerResolver("temporalLiteralResolver", model, model.getTemporalLiteralResolver(), baseModel == null ? null : baseModel.getTemporalLiteralResolver(), properties, target, first);
+        first = serializerResolver("entityLiteralResolver", model, model.getEntityLiteralResolver(), baseModel == null ? null : baseModel.getEntityLiteralResolver(), properties, target, first);
+        first = serializerResolver("enumLiteralResolver", model, model.getEnumLiteralResolver(), baseModel == null ? null : baseModel.getEnumLiteralResolver(), properties, target, first);
+        serializerResolver("collectionLiteralResolver", model, model.getCollectionLiteralResolver(), baseModel == null ? null : baseModel.getCollectionLiteralResolver(), properties, target, first);
 
-        if (sb.length() == 1) {
-            sb.append('}');
-        } else {
-            sb.setCharAt(sb.length() - 1, '}');
-        }
-        return (T) sb.toString();
+        target.append('}');
     }
 
-    private void serializerResolver(String key, ExpressionService domainModel, Object resolver, Object baseResolver, Map<String, Object> properties, StringBuilder sb) {
+    private boolean serializerResolver(String key, ExpressionService domainModel, Object resolver, Object baseResolver, Map<String, Object> properties, Appendable target, boolean first) throws IOException {
         if (resolver != baseResolver && resolver instanceof ExpressionServiceSerializer<?>) {
-            String json = ((ExpressionServiceSerializer<Object>) resolver).serialize(domainModel, null, String.class, "json", properties);
+            String json = ((ExpressionServiceSerializer<Object>) resolver).serialize(domainModel, null, String.class, JSON_FORMAT, properties);
             if (json != null) {
-                sb.append('"').append(key).append("\":").append(json).append(',');
+                if (!first) {
+                    target.append(',');
+                }
+                target.append('"').append(key).append("\":").append(json);
+                return false;
             }
         }
+        return first;
+    }
+
+    private static String contentHash(String json) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(json.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not supported", ex);
+        }
+        char[] chars = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX_DIGITS[digest[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    private static final class CacheEntries extends LinkedHashMap<CacheKey, CacheEntry> {
+
+        public CacheEntries() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CacheKey, CacheEntry> eldest) {
+            return size() > MAXIMUM_CACHE_SIZE;
+        }
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    private static final class CacheKey {
+
+        private final ExpressionService baseModel;
+        private final Map<String, Object> properties;
+        private final int hashCode;
+
+        public CacheKey(ExpressionService baseModel, Map<String, Object> properties) {
+            this.baseModel = baseModel;
+            this.properties = properties == null || properties.isEmpty() ? Collections.emptyMap() : new HashMap<>(properties);
+            this.hashCode = 31 * System.identityHashCode(baseModel) + this.properties.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey cacheKey = (CacheKey) o;
+            return baseModel == cacheKey.baseModel && Objects.equals(properties, cacheKey.properties);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    private static final class CacheEntry {
+
+        private final String json;
+        private final String etag;
+
+        public CacheEntry(String json) {
+            this.json = json;
+            this.etag = contentHash(json);
+        }
     }
 
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.blazebit.expression.impl;
+
+/**
+ * An evaluator node for numeric expressions that can produce its result as primitive value,
+ * which allows parent nodes to evaluate arithmetic and comparisons without boxing intermediate results.
+ * After a primitive evaluation, {@link EvaluatorFrame#wasNull} tells whether the result is actually <code>null</code>.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public interface NumericEvaluatorNode extends EvaluatorNode {
+
+    /**
+     * Returns whether the values of this node are {@link Double} values rather than {@link Long} values.
+     *
+     * @return whether the values of this node are {@link Double} values
+     */
+    boolean isDoubleValued();
+
+    /**
+     * Evaluates this node to a <code>long</code> value and sets {@link EvaluatorFrame#wasNull}.
+     *
+     * @param frame The evaluation frame
+     * @return the result or <code>0</code> if the result is <code>null</code>
+     */
+    long evaluateLong(EvaluatorFrame frame);
+
+    /**
+     * Evaluates this node to a <code>double</code> value and sets {@link EvaluatorFrame#wasNull}.
+     *
+     * @param frame The evaluation frame
+     * @return the result or <code>0</code> if the result is <code>null</code>
+     */
+    double evaluateDouble(EvaluatorFrame frame);
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazebit.expression.impl;
+
+import com.blazebit.expression.ExpressionEvaluator;
+import com.blazebit.expression.ExpressionInterpreter;
+import com.blazebit.expression.ExpressionService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A fork join task that evaluates a predicate for the root objects of a {@link Spliterator} and collects the matching root objects.
+ * The task splits the spliterator until the partitions are small enough to give every worker of the pool a few partitions to balance the load.
+ * A partition is evaluated with a single {@link RootBoundInterpreterContext} and, for the default evaluator, a single {@link EvaluatorFrame},
+ * which are reused for all root objects of the partition. The contexts of all partitions share one property map,
+ * so that properties like the instant of <code>CURRENT_TIMESTAMP</code> are the same for all root objects, just like for a sequential evaluation.
+ * The matches of the partitions are concatenated in encounter order at the end.
+ *
+ * @param <T> The root object type
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public class ParallelFilterTask<T> extends RecursiveAction {
+
+    private static final int PARTITIONS_PER_WORKER = 4;
+
+    private final ExpressionService expressionService;
+    private final ExpressionEvaluator evaluator;
+    private final ExpressionInterpreter.Context interpreterContext;
+    private final String alias;
+    private final long partitionSize;
+    private final ConcurrentMap<String, Object> properties;
+    private Spliterator<? extends T> spliterator;
+    private ParallelFilterTask<T> left;
+    private ParallelFilterTask<T> right;
+    private List<T> matches;
+
+    public ParallelFilterTask(ExpressionService expressionService, ExpressionEvaluator evaluator, ExpressionInterpreter.Context interpreterContext, String alias, Spliterator<? extends T> spliterator, long partitionSize) {
+        this(expressionService, evaluator, interpreterContext, alias, spliterator, partitionSize, new ConcurrentHashMap<>());
+    }
+
+    private ParallelFilterTask(ExpressionService expressionService, ExpressionEvaluator evaluator, ExpressionInterpreter.Context interpreterContext, String alias, Spliterator<? extends T> spliterator, long partitionSize, ConcurrentMap<String, Object> properties) {
+        this.expressionService = expressionService;
+        this.evaluator = evaluator;
+        this.interpreterContext = interpreterContext;
+        this.alias = alias;
+        this.spliterator = spliterator;
+        this.partitionSize = partitionSize;
+        this.properties = properties;
+    }
+
+    private ParallelFilterTask(ParallelFilterTask<T> parent, Spliterator<? extends T> spliterator) {
+        this(parent.expressionService, parent.evaluator, parent.interpreterContext, parent.alias, spliterator, parent.partitionSize, parent.properties);
+    }
+
+    /**
+     * Returns the root objects for which the given evaluator returns <code>true</code> in encounter order,
+     * evaluating partitions of the root objects in parallel in the given fork join pool.
+     *
+     * @param expressionService The expression service
+     * @param evaluator The predicate evaluator
+     * @param interpreterContext The interpreter context to read properties and other roots from, may be <code>null</code>
+     * @param alias The root variable name to bind the root objects to
+     * @param roots The root objects
+     * @param forkJoinPool The fork join pool
+     * @param <T> The root object type
+     * @return the matching root objects
+     */
+    public static <T> List<T> filter(ExpressionService expressionService, ExpressionEvaluator evaluator, ExpressionInterpreter.Context interpreterContext, String alias, Collection<? extends T> roots, ForkJoinPool forkJoinPool) {
+        Spliterator<? extends T> spliterator = roots.spliterator();
+        long size = spliterator.estimateSize();
+        long partitionSize = Math.max(1L, size / ((long) forkJoinPool.getParallelism() * PARTITIONS_PER_WORKER));
+        ParallelFilterTask<T> task = new ParallelFilterTask<>(expressionService, evaluator, interpreterContext, alias, spliterator, partitionSize);
+        if (size <= partitionSize) {
+            // A single partition is evaluated right away by the calling thread
+            task.compute();
+        } else {
+            forkJoinPool.invoke(task);
+        }
+        List<T> matches = new ArrayList<>(task.matchCount());
+        task.collectMatches(matches);
+        return matches;
+    }
+
+    @Override
+    protected void compute() {
+        Spliterator<? extends T> spliterator = this.spliterator;
+        this.spliterator = null;
+        Spliterator<? extends T> prefix;
+        if (spliterator.estimateSize() > partitionSize && (prefix = spliterator.trySplit()) != null) {
+            left = new ParallelFilterTask<>(this, prefix);
+            right = new ParallelFilterTask<>(this, spliterator);
+            invokeAll(left, right);
+        } else {
+            matches = filterPartition(spliterator);
+        }
+    }
+
+    protected List<T> filterPartition(Spliterator<? extends T> spliterator) {
+        List<T> matches = new ArrayList<>();
+        RootBoundInterpreterContext context = new RootBoundInterpreterContext(expressionService, interpreterContext, alias, properties);
+        if (evaluator instanceof ExpressionEvaluatorImpl) {
+            ExpressionEvaluatorImpl evaluator = (ExpressionEvaluatorImpl) this.evaluator;
+            EvaluatorFrame frame = new EvaluatorFrame(context);
+            spliterator.forEachRemaining(root -> {
+                context.bind(root);
+                frame.reset();
+                if (Boolean.TRUE.equals(evaluator.evaluateInFrame(frame))) {
+                    matches.add(root);
+                }
+            });
+        } else {
+            ExpressionEvaluator evaluator = this.evaluator;
+            spliterator.forEachRemaining(root -> {
+                context.bind(root);
+                if (evaluator.test(context)) {
+                    matches.add(root);
+                }
+            });
+        }
+        return matches;
+    }
+
+    private int matchCount() {
+        if (matches != null) {
+            return matches.size();
+        }
+        return left.matchCount() + right.matchCount();
+    }
+
+    private void collectMatches(List<T> target) {
+        if (matches != null) {
+            target.addAll(matches);
+        } else {
+            left.collectMatches(target);
+            right.collectMatches(target);
+        }
+    }
+}
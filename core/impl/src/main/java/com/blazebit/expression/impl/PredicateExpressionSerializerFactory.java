@@ -20,11 +20,13 @@ import com.blazebit.expression.ExpressionSerializer;
 import com.blazebit.expression.ExpressionService;
 import com.blazebit.expression.spi.ExpressionSerializerFactory;
 
+import java.io.Serializable;
+
 /**
  * @author Christian Beikov
  * @since 1.0.0
  */
-public class PredicateExpressionSerializerFactory implements ExpressionSerializerFactory<StringBuilder> {
+public class PredicateExpressionSerializerFactory implements ExpressionSerializerFactory<StringBuilder>, Serializable {
 
     public static final String SERIALIZATION_FORMAT = "predicate";
 
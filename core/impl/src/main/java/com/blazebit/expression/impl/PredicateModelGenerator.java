@@ -116,7 +116,7 @@ public class PredicateModelGenerator extends PredicateParserBaseVisitor<Expressi
     public Expression visitParseTemplate(PredicateParser.ParseTemplateContext ctx) {
         PredicateParser.TemplateContext templateContext = ctx.template();
         if (templateContext == null) {
-            return new Literal(literalFactory.ofString(compileContext, ""));
+            return createStringLiteral("");
         }
         return templateContext.accept(this);
     }
@@ -127,17 +127,17 @@ public class PredicateModelGenerator extends PredicateParserBaseVisitor<Expressi
         int i = 0;
         TerminalNode child = (TerminalNode) ctx.getChild(i);
         if (child.getSymbol().getType() == PredicateLexer.TEXT) {
-            expression = new Literal(literalFactory.ofString(compileContext, child.getText()));
+            expression = createStringLiteral(child.getText());
             i += 1;
         } else {
-            expression = new Literal(literalFactory.ofString(compileContext, ""));
+            expression = createStringLiteral("");
         }
         int childCount = ctx.getChildCount();
         for (; i < childCount; i++) {
             child = (TerminalNode) ctx.getChild(i);
             ArithmeticExpression subExpression;
             if (child.getSymbol().getType() == PredicateLexer.TEXT) {
-                subExpression = new Literal(literalFactory.ofString(compileContext, child.getText()));
+                subExpression = createStringLiteral(child.getText());
             } else {
                 subExpression = (ArithmeticExpression) ctx.getChild(i + 1).accept(this);
                 i += 2;
@@ -164,9 +164,10 @@ public class PredicateModelGenerator extends PredicateParserBaseVisitor<Expressi
     @Override
     public Predicate visitOrPredicate(PredicateParser.OrPredicateContext ctx) {
         List<PredicateParser.PredicateContext> predicate = ctx.predicate();
-        Predicate left = (Predicate) predicate.get(0).accept(this);
-        Predicate right = (Predicate) predicate.get(1).accept(this);
+        return createOrPredicate((Predicate) predicate.get(0).accept(this), (Predicate) predicate.get(1).accept(this));
+    }
 
+    protected Predicate createOrPredicate(Predicate left, Predicate right) {
         CompoundPredicate disjunctivePredicate;
         List<Predicate> mutablePredicateList;
         if (left instanceof CompoundPredicate && !((CompoundPredicate) left).isConjunction() && !left.isNegated()) {
@@ -183,9 +184,10 @@ public class PredicateModelGenerator extends PredicateParserBaseVisitor<Expressi
     @Override
     public Predicate visitAndPredicate(PredicateParser.AndPredicateContext ctx) {
         List<PredicateParser.PredicateContext> predicate = ctx.predicate();
-        Predicate left = (Predicate) predicate.get(0).accept(this);
-        Predicate right = (Predicate) predicate.get(1).accept(this);
+        return createAndPredicate((Predicate) predicate.get(0).accept(this), (Predicate) predicate.get(1).accept(this));
+    }
 
+    protected Predicate createAndPredicate(Predicate left, Predicate right) {
         CompoundPredicate conjunctivePredicate;
         List<Predicate> mutablePredicateList;
         if (left instanceof CompoundPredicate && ((CompoundPredicate) left).isConjunction() && !left.isNegated()) {
@@ -205,8 +207,10 @@ public class PredicateModelGenerator extends PredicateParserBaseVisitor<Expressi
 
     @Override
     public Predicate visitIsNullPredicate(PredicateParser.IsNullPredicateContext ctx) {
-        Expression left = ctx.expression().accept(this);
+        return createIsNullPredicate(ctx.expression().accept(this), ctx.NOT() != null);
+    }
 
+    protected Predicate createIsNullPredicate(Expression left, boolean negated) {
         DomainPredicateTypeResolver predicateTypeResolver = domainModel.getPredicateTypeResolver(left.getType().getName(), DomainPredicate.NULLNESS);
 
         if (predicateTypeResolver == null) {
@@ -217,15 +221,17 @@ public class PredicateModelGenerator extends PredicateParserBaseVisitor<Expressi
             if (domainType == null) {
                 throw cannotResolvePredicateType(DomainPredicate.NULLNESS, operandTypes);
             } else {
-                return new IsNullPredicate(domainType, left, ctx.NOT() != null);
+                return new IsNullPredicate(domainType, left, negated);
             }
         }
     }
 
     @Override
     public Predicate visitIsEmptyPredicate(PredicateParser.IsEmptyPredicateContext ctx) {
-        Expression left = ctx.expression().accept(this);
+        return createIsEmptyPredicate(ctx.expression().accept(this), ctx.NOT() != null);
+    }
 
+    protected Predicate createIsEmptyPredicate(Expression left, boolean negated) {
         DomainPredicateTypeResolver predicateTypeResolver = domainModel.getPredicateTypeResolver(left.getType().getName(), DomainPredicate.COLLECTION);
 
         if (predicateTypeResolver == null) {
@@ -236,7 +242,7 @@ public class PredicateModelGenerator extends PredicateParserBaseVisitor<Expressi
             if (domainType == null) {
                 throw cannotResolvePredicateType(DomainPredicate.COLLECTION, operandTypes);
             } else {
-                return new IsEmptyPredicate(domainType, left, ctx.NOT() != null);
+                return new IsEmptyPredicate(domainType, left, negated);
             }
         }
     }
@@ -313,9 +319,14 @@ public class PredicateModelGenerator extends PredicateParserBaseVisitor<Expressi
 
     @Override
     public Expression visitInPredicate(PredicateParser.InPredicateContext ctx) {
-        ArithmeticExpression left = (ArithmeticExpression) ctx.expression().accept(this);
-        List<ArithmeticExpression> inItems = getExpressionList(ctx.inList().expression());
+        return createInPredicate(
+                (ArithmeticExpression) ctx.expression().accept(this),
+                getExpressionList(ctx.inList().expression()),
+                ctx.NOT() != null
+        );
+    }
 
+    protected Predicate createInPredicate(ArithmeticExpression left, List<ArithmeticExpression> inItems, boolean negated) {
         DomainPredicateTypeResolver predicateTypeResolver = domainModel.getPredicateTypeResolver(left.getType().getName(), DomainPredicate.EQUALITY);
 
         if (predicateTypeResolver == null) {
@@ -331,17 +342,21 @@ public class PredicateModelGenerator extends PredicateParserBaseVisitor<Expressi
             if (domainType == null) {
                 throw cannotResolvePredicateType(DomainPredicate.EQUALITY, operandTypes);
             } else {
-                return new InPredicate(domainType, left, inItems, ctx.NOT() != null);
+                return new InPredicate(domainType, left, inItems, negated);
             }
         }
     }
 
     @Override
     public Predicate visitBetweenPredicate(PredicateParser.BetweenPredicateContext ctx) {
-        ArithmeticExpression left = (ArithmeticExpression) ctx.lhs.accept(this);
-        ArithmeticExpression begin = (ArithmeticExpression) ctx.begin.accept(this);
-        ArithmeticExpression upper = (ArithmeticExpression) ctx.end.accept(this);
+        return createBetweenPredicate(
+                (ArithmeticExpression) ctx.lhs.accept(this),
+                (ArithmeticExpression) ctx.begin.accept(this),
+                (ArithmeticExpression) ctx.end.accept(this)
+        );
+    }
 
+    protected Predicate createBetweenPredicate(ArithmeticExpression left, ArithmeticExpression begin, ArithmeticExpression upper) {
         DomainPredicateTypeResolver predicateTypeResolver = domainModel.getPredicateTypeResolver(left.getType().getName(), DomainPredicate.RELATIONAL);
 
         if (predicateTypeResolver == null) {
@@ -359,17 +374,20 @@ public class PredicateModelGenerator extends PredicateParserBaseVisitor<Expressi
 
     @Override
     public Expression visitBooleanFunction(PredicateParser.BooleanFunctionContext ctx) {
-        Expression expression = super.visitBooleanFunction(ctx);
+        return createBooleanFunctionPredicate(super.visitBooleanFunction(ctx), ctx.getText());
+    }
+
+    protected Predicate createBooleanFunctionPredicate(Expression expression, String text) {
         DomainType booleanDomainType = domainModel.getPredicateDefaultResultType();
         if (expression.getType() == booleanDomainType) {
             if (expression instanceof Predicate) {
-                return expression;
+                return (Predicate) expression;
             }
 
             return new ExpressionPredicate(booleanDomainType, expression, false);
         }
 
-        throw new TypeErrorException("Invalid use of non-boolean returning function: " + ctx.getText());
+        throw new TypeErrorException("Invalid use of non-boolean returning function: " + text);
     }
 
     @Override
@@ -424,7 +442,10 @@ public class PredicateModelGenerator extends PredicateParserBaseVisitor<Expressi
 
     @Override
     public Expression visitUnaryMinusExpression(PredicateParser.UnaryMinusExpressionContext ctx) {
-        ArithmeticExpression left = (ArithmeticExpression) ctx.expression().accept(this);
+        return createUnaryMinusExpression((ArithmeticExpression) ctx.expression().accept(this));
+    }
+
+    protected ArithmeticExpression createUnaryMinusExpression(ArithmeticExpression left) {
         DomainOperationTypeResolver operationTypeResolver = domainModel.getOperationTypeResolver(left.getType().getName(), DomainOperator.UNARY_MINUS);
         if (operationTypeResolver == null) {
             throw missingOperationTypeResolver(left.getType(), DomainOperator.UNARY_MINUS);
@@ -441,7 +462,10 @@ public class PredicateModelGenerator extends PredicateParserBaseVisitor<Expressi
 
     @Override
     public Expression visitUnaryPlusExpression(PredicateParser.UnaryPlusExpressionContext ctx) {
-        ArithmeticExpression left = (ArithmeticExpression) ctx.expression().accept(this);
+        return createUnaryPlusExpression((ArithmeticExpression) ctx.expression().accept(this));
+    }
+
+    protected ArithmeticExpression createUnaryPlusExpression(ArithmeticExpression left) {
         DomainOperationTypeResolver operationTypeResolver = domainModel.getOperationTypeResolver(left.getType().getName(), DomainOperator.UNARY_PLUS);
         if (operationTypeResolver == null) {
             throw missingOperationTypeResolver(left.getType(), DomainOperator.UNARY_PLUS);
@@ -452,10 +476,9 @@ public class PredicateModelGenerator extends PredicateParserBaseVisitor<Expressi
                 throw cannotResolveOperationType(DomainOperator.UNARY_PLUS, operandTypes);
             } else if (domainType == left.getType()) {
                 // Don't create a wrapper for a unary plus if the type doesn't change
-                return ctx.expression().accept(this);
+                return left;
             } else {
                 return new ArithmeticFactor(domainType, left, false);
-
             }
         }
     }
@@ -471,7 +494,11 @@ public class PredicateModelGenerator extends PredicateParserBaseVisitor<Expressi
 
     @Override
     public Expression visitDateLiteral(PredicateParser.DateLiteralContext ctx) {
-        return new Literal(literalFactory.ofDateString(compileContext, ctx.datePart().getText()));
+        return createDateLiteral(ctx.datePart().getText());
+    }
+
+    protected Literal createDateLiteral(String dateString) {
+        return new Literal(literalFactory.ofDateString(compileContext, dateString));
     }
 
     @Override
@@ -484,7 +511,11 @@ public class PredicateModelGenerator extends PredicateParserBaseVisitor<Expressi
             sb.append('.');
             sb.append(ctx.fraction.getText());
         }
-        return new Literal(literalFactory.ofTimeString(compileContext, sb.toString()));
+        return createTimeLiteral(sb.toString());
+    }
+
+    protected Literal createTimeLiteral(String timeString) {
+        return new Literal(literalFactory.ofTimeString(compileContext, timeString));
     }
 
     @Override
@@ -501,7 +532,11 @@ public class PredicateModelGenerator extends PredicateParserBaseVisitor<Expressi
                 sb.append(ctx.fraction.getText());
             }
         }
-        return new Literal(literalFactory.ofDateTimeString(compileContext, sb.toString()));
+        return createTimestampLiteral(sb.toString());
+    }
+
+    protected Literal createTimestampLiteral(String dateTimeString) {
+        return new Literal(literalFactory.ofDateTimeString(compileContext, dateTimeString));
     }
 
     @Override
@@ -512,6 +547,10 @@ public class PredicateModelGenerator extends PredicateParserBaseVisitor<Expressi
         int hours = parseTemporalAmount(ctx.hours, "hours");
         int minutes = parseTemporalAmount(ctx.minutes, "minutes");
         int seconds = parseTemporalAmount(ctx.seconds, "seconds");
+        return createTemporalIntervalLiteral(years, months, days, hours, minutes, seconds);
+    }
+
+    protected Literal createTemporalIntervalLiteral(int years, int months, int days, int hours, int minutes, int seconds) {
         return new Literal(literalFactory.ofTemporalAmounts(compileContext, years, months, days, hours, minutes, seconds));
     }
 
@@ -519,9 +558,12 @@ public class PredicateModelGenerator extends PredicateParserBaseVisitor<Expressi
         if (token == null) {
             return 0;
         }
+        return parseTemporalAmount(token.getText(), field);
+    }
+
+    protected static int parseTemporalAmount(String amountString, String field) {
         int amount = 0;
         NumberFormatException exception = null;
-        String amountString = token.getText();
         try {
             amount = Integer.parseInt(amountString);
         } catch (NumberFormatException ex) {
@@ -535,7 +577,10 @@ public class PredicateModelGenerator extends PredicateParserBaseVisitor<Expressi
 
     @Override
     public Expression visitCollectionLiteral(PredicateParser.CollectionLiteralContext ctx) {
-        List<Literal> literalList = getExpressionList(ctx.literal());
+        return createCollectionLiteral(getExpressionList(ctx.literal()));
+    }
+
+    protected Literal createCollectionLiteral(List<Literal> literalList) {
         CollectionDomainType collectionDomainType;
         if (literalList.isEmpty()) {
             collectionDomainType = domainModel.getCollectionType(null);
@@ -553,7 +598,10 @@ public class PredicateModelGenerator extends PredicateParserBaseVisitor<Expressi
 
     @Override
     public Expression visitPathPredicate(PathPredicateContext ctx) {
-        Expression expression = createPathExpression(ctx.path());
+        return createPathPredicate(createPathExpression(ctx.path()));
+    }
+
+    protected Predicate createPathPredicate(Expression expression) {
         DomainType type = expression.getType();
         if (!type.equals(domainModel.getPredicateDefaultResultType())) {
             throw unsupportedType(expression.getType().toString());
@@ -564,61 +612,65 @@ public class PredicateModelGenerator extends PredicateParserBaseVisitor<Expressi
     protected Expression createPathExpression(PathContext ctx) {
         PredicateParser.IdentifierContext identifierContext = ctx.identifier();
         PredicateParser.PathAttributesContext pathAttributesContext = ctx.pathAttributes();
-        ArrayList<EntityDomainTypeAttribute> pathAttributes = new ArrayList<>();
+        List<String> attributeNames = pathAttributesContext == null ? Collections.emptyList() : getIdentifierList(pathAttributesContext.identifier(), 0);
         if (identifierContext == null) {
-            Expression base = ctx.functionInvocation().accept(this);
-            DomainType domainType = visitPathAttributes(base.getType(), pathAttributes, pathAttributesContext);
-            return new Path((ArithmeticExpression) base, Collections.unmodifiableList(pathAttributes), domainType);
+            return createPathExpression((ArithmeticExpression) ctx.functionInvocation().accept(this), attributeNames);
         } else {
-            String alias = identifierContext.getText();
-            DomainType type = compileContext.getRootDomainType(alias);
-            if (type == null) {
-                List<PredicateParser.IdentifierContext> identifiers;
-                if (pathAttributesContext != null) {
-                    identifiers = pathAttributesContext.identifier();
-                    if (identifiers.size() == 1) {
-                        type = domainModel.getType(alias);
-                        if (type instanceof EnumDomainType) {
-                            EnumDomainType enumDomainType = (EnumDomainType) type;
-                            String enumKey = identifiers.get(0).getText();
-                            return new EnumLiteral(enumDomainType.getEnumValues().get(enumKey), literalFactory.ofEnumValue(compileContext, enumDomainType, enumKey));
-                        }
+            return createPathExpression(identifierContext.getText(), attributeNames);
+        }
+    }
+
+    protected Expression createPathExpression(ArithmeticExpression base, List<String> attributeNames) {
+        ArrayList<EntityDomainTypeAttribute> pathAttributes = new ArrayList<>();
+        DomainType domainType = visitPathAttributes(base.getType(), pathAttributes, attributeNames);
+        return new Path(base, Collections.unmodifiableList(pathAttributes), domainType);
+    }
+
+    protected Expression createPathExpression(String alias, List<String> attributeNames) {
+        ArrayList<EntityDomainTypeAttribute> pathAttributes = new ArrayList<>();
+        DomainType type = compileContext.getRootDomainType(alias);
+        if (type == null) {
+            if (!attributeNames.isEmpty()) {
+                if (attributeNames.size() == 1) {
+                    type = domainModel.getType(alias);
+                    if (type instanceof EnumDomainType) {
+                        EnumDomainType enumDomainType = (EnumDomainType) type;
+                        String enumKey = attributeNames.get(0);
+                        return new EnumLiteral(enumDomainType.getEnumValues().get(enumKey), literalFactory.ofEnumValue(compileContext, enumDomainType, enumKey));
                     }
-                    ImplicitRootProvider implicitRootProvider = compileContext.getImplicitRootProvider();
-                    if (implicitRootProvider != null) {
-                        List<String> pathParts = new ArrayList<>(identifiers.size() + 1);
-                        pathParts.add(alias);
-                        for (PredicateParser.IdentifierContext identifier : identifiers) {
-                            pathParts.add(identifier.getText());
-                        }
-                        String rootAlias = implicitRootProvider.determineImplicitRoot(pathParts, compileContext);
-                        if (rootAlias != null) {
-                            type = compileContext.getRootDomainType(rootAlias);
-                            if (type != null) {
-                                type = visitPathAttribute(type, pathAttributes, alias);
-                                DomainType domainType = visitPathAttributes(type, pathAttributes, pathAttributesContext);
-                                return new Path(rootAlias, Collections.unmodifiableList(pathAttributes), domainType);
-                            }
+                }
+                ImplicitRootProvider implicitRootProvider = compileContext.getImplicitRootProvider();
+                if (implicitRootProvider != null) {
+                    List<String> pathParts = new ArrayList<>(attributeNames.size() + 1);
+                    pathParts.add(alias);
+                    pathParts.addAll(attributeNames);
+                    String rootAlias = implicitRootProvider.determineImplicitRoot(pathParts, compileContext);
+                    if (rootAlias != null) {
+                        type = compileContext.getRootDomainType(rootAlias);
+                        if (type != null) {
+                            type = visitPathAttribute(type, pathAttributes, alias);
+                            DomainType domainType = visitPathAttributes(type, pathAttributes, attributeNames);
+                            return new Path(rootAlias, Collections.unmodifiableList(pathAttributes), domainType);
                         }
                     }
-                } else {
-                    ImplicitRootProvider implicitRootProvider = compileContext.getImplicitRootProvider();
-                    if (implicitRootProvider != null) {
-                        String rootAlias = implicitRootProvider.determineImplicitRoot(Collections.singletonList(alias), compileContext);
-                        if (rootAlias != null) {
-                            type = compileContext.getRootDomainType(rootAlias);
-                            if (type != null) {
-                                DomainType domainType = visitPathAttribute(type, pathAttributes, alias);
-                                return new Path(rootAlias, Collections.unmodifiableList(pathAttributes), domainType);
-                            }
+                }
+            } else {
+                ImplicitRootProvider implicitRootProvider = compileContext.getImplicitRootProvider();
+                if (implicitRootProvider != null) {
+                    String rootAlias = implicitRootProvider.determineImplicitRoot(Collections.singletonList(alias), compileContext);
+                    if (rootAlias != null) {
+                        type = compileContext.getRootDomainType(rootAlias);
+                        if (type != null) {
+                            DomainType domainType = visitPathAttribute(type, pathAttributes, alias);
+                            return new Path(rootAlias, Collections.unmodifiableList(pathAttributes), domainType);
                         }
                     }
                 }
-                throw unknownType(alias);
             }
-            DomainType domainType = visitPathAttributes(type, pathAttributes, pathAttributesContext);
-            return new Path(alias, Collections.unmodifiableList(pathAttributes), domainType);
+            throw unknownType(alias);
         }
+        DomainType domainType = visitPathAttributes(type, pathAttributes, attributeNames);
+        return new Path(alias, Collections.unmodifiableList(pathAttributes), domainType);
     }
 
     protected DomainType visitPathAttribute(DomainType type, ArrayList<EntityDomainTypeAttribute> pathAttributes, String pathElement) {
@@ -640,41 +692,25 @@ public class PredicateModelGenerator extends PredicateParserBaseVisitor<Expressi
         return type;
     }
 
-    protected DomainType visitPathAttributes(DomainType type, ArrayList<EntityDomainTypeAttribute> pathAttributes, PredicateParser.PathAttributesContext pathAttributesContext) {
-        if (pathAttributesContext != null) {
-            List<PredicateParser.IdentifierContext> identifiers = pathAttributesContext.identifier();
-            int size = identifiers.size();
-            pathAttributes.ensureCapacity(size);
-            for (int pathElemIdx = 0; pathElemIdx < size; pathElemIdx++) {
-                String pathElement = identifiers.get(pathElemIdx).getText();
-                if (type instanceof CollectionDomainType) {
-                    type = ((CollectionDomainType) type).getElementType();
-                }
-                if (type instanceof EntityDomainType) {
-                    EntityDomainType entityType = ((EntityDomainType) type);
-                    EntityDomainTypeAttribute attribute = entityType.getAttribute(pathElement);
-                    pathAttributes.add(attribute);
-                    if (attribute == null) {
-                        throw unknownEntityAttribute(entityType, pathElement);
-                    } else {
-                        type = attribute.getType();
-                    }
-                } else {
-                    throw unsupportedType(type.toString());
-                }
-            }
+    protected DomainType visitPathAttributes(DomainType type, ArrayList<EntityDomainTypeAttribute> pathAttributes, List<String> attributeNames) {
+        int size = attributeNames.size();
+        pathAttributes.ensureCapacity(size);
+        for (int pathElemIdx = 0; pathElemIdx < size; pathElemIdx++) {
+            type = visitPathAttribute(type, pathAttributes, attributeNames.get(pathElemIdx));
         }
         return type;
     }
 
     @Override
     public Expression visitIndexedFunctionInvocation(PredicateParser.IndexedFunctionInvocationContext ctx) {
-        String functionName = ctx.name.getText();
+        return createIndexedFunctionInvocation(ctx.name.getText(), getExpressionList(ctx.predicateOrExpression()));
+    }
+
+    protected Expression createIndexedFunctionInvocation(String functionName, List<Expression> literalList) {
         DomainFunction function = domainModel.getFunction(functionName);
         if (function == null) {
             throw unknownFunction(functionName);
         } else {
-            List<Expression> literalList = getExpressionList(ctx.predicateOrExpression());
             if (function.getArgumentCount() != -1 && literalList.size() > function.getArgumentCount()) {
                 throw new DomainModelException(String.format("Function '%s' expects at most %d arguments but found %d",
                         function.getName(),
@@ -726,28 +762,28 @@ public class PredicateModelGenerator extends PredicateParserBaseVisitor<Expressi
 
     @Override
     public Expression visitEntityLiteral(PredicateParser.EntityLiteralContext ctx) {
-        String entityOrFunctionName = ctx.name.getText();
-        DomainType type = domainModel.getType(entityOrFunctionName);
+        return createEntityLiteral(ctx.name.getText(), getIdentifierList(ctx.identifier(), 1), getExpressionList(ctx.predicateOrExpression()));
+    }
+
+    protected Literal createEntityLiteral(String entityName, List<String> argNames, List<Expression> literalList) {
+        DomainType type = domainModel.getType(entityName);
         if (type instanceof EntityDomainType) {
-            EntityDomainType entityDomainType = (EntityDomainType) type;
-            List<PredicateParser.IdentifierContext> argNames = ctx.identifier();
-            argNames.remove(0);
-            return createEntityLiteral(entityDomainType, argNames, getExpressionList(ctx.predicateOrExpression()));
+            return createEntityLiteral((EntityDomainType) type, argNames, literalList);
         } else {
-            throw unknownType(entityOrFunctionName);
+            throw unknownType(entityName);
         }
     }
 
-    protected Expression createEntityLiteral(EntityDomainType entityDomainType, List<PredicateParser.IdentifierContext> argNames, List<Expression> literalList) {
+    protected Literal createEntityLiteral(EntityDomainType entityDomainType, List<String> argNames, List<Expression> literalList) {
         Map<EntityDomainTypeAttribute, Literal> arguments = new LinkedHashMap<>(literalList.size());
         for (int i = 0; i < literalList.size(); i++) {
-            EntityDomainTypeAttribute attribute = entityDomainType.getAttribute(argNames.get(i).getText());
+            EntityDomainTypeAttribute attribute = entityDomainType.getAttribute(argNames.get(i));
             if (attribute == null) {
-                throw new DomainModelException("Invalid attribute name '" + argNames.get(i).getText() + "'! Entity '" + entityDomainType.getName() + "' expects the following attribute names: " + entityDomainType.getAttributes().keySet());
+                throw new DomainModelException("Invalid attribute name '" + argNames.get(i) + "'! Entity '" + entityDomainType.getName() + "' expects the following attribute names: " + entityDomainType.getAttributes().keySet());
             }
             Expression expression = literalList.get(i);
             if (!(expression instanceof Literal)) {
-                throw new DomainModelException("Invalid use of non-literal for entity literal at attribute name '" + argNames.get(i).getText() + "'!");
+                throw new DomainModelException("Invalid use of non-literal for entity literal at attribute name '" + argNames.get(i) + "'!");
             }
             arguments.put(attribute, (Literal) expression);
         }
@@ -757,22 +793,19 @@ public class PredicateModelGenerator extends PredicateParserBaseVisitor<Expressi
 
     @Override
     public Expression visitNamedInvocation(PredicateParser.NamedInvocationContext ctx) {
-        String entityOrFunctionName = ctx.name.getText();
+        return createNamedInvocation(ctx.name.getText(), getIdentifierList(ctx.identifier(), 1), getExpressionList(ctx.predicateOrExpression()));
+    }
+
+    protected Expression createNamedInvocation(String entityOrFunctionName, List<String> argNames, List<Expression> literalList) {
         DomainFunction function = domainModel.getFunction(entityOrFunctionName);
         if (function == null) {
             DomainType type = domainModel.getType(entityOrFunctionName);
             if (type instanceof EntityDomainType) {
-                EntityDomainType entityDomainType = (EntityDomainType) type;
-                List<PredicateParser.IdentifierContext> argNames = ctx.identifier();
-                argNames.remove(0);
-                return createEntityLiteral(entityDomainType, argNames, getExpressionList(ctx.predicateOrExpression()));
+                return createEntityLiteral((EntityDomainType) type, argNames, literalList);
             } else {
                 throw unknownFunction(entityOrFunctionName);
             }
         } else {
-            List<PredicateParser.IdentifierContext> argNames = ctx.identifier();
-            argNames.remove(0);
-            List<Expression> literalList = getExpressionList(ctx.predicateOrExpression());
             if (function.getArgumentCount() != -1 && literalList.size() > function.getArgumentCount()) {
                 throw new DomainModelException(String.format("Function '%s' expects at most %d arguments but found %d",
                         function.getName(),
@@ -790,13 +823,13 @@ public class PredicateModelGenerator extends PredicateParserBaseVisitor<Expressi
             Map<DomainFunctionArgument, Expression> arguments = new LinkedHashMap<>(literalList.size());
             Map<DomainFunctionArgument, DomainType> argumentTypes = new HashMap<>(literalList.size());
             for (int i = 0; i < literalList.size(); i++) {
-                DomainFunctionArgument domainFunctionArgument = function.getArgument(argNames.get(i).getText());
+                DomainFunctionArgument domainFunctionArgument = function.getArgument(argNames.get(i));
                 if (domainFunctionArgument == null) {
                     List<String> argumentNames = new ArrayList<>(function.getArguments().size());
                     for (DomainFunctionArgument argument : function.getArguments()) {
                         argumentNames.add(argument.getName());
                     }
-                    throw new DomainModelException("Invalid argument name '" + argNames.get(i).getText() + "'! Function '" + function.getName() + "' expects the following argument names: " + argumentNames);
+                    throw new DomainModelException("Invalid argument name '" + argNames.get(i) + "'! Function '" + function.getName() + "' expects the following argument names: " + argumentNames);
                 }
                 argumentTypes.put(domainFunctionArgument, literalList.get(i).getType());
                 arguments.put(domainFunctionArgument, literalList.get(i));
@@ -816,9 +849,13 @@ public class PredicateModelGenerator extends PredicateParserBaseVisitor<Expressi
         List<ParseTree> children = ctx.children;
         int size = children.size();
         if (size == 2) {
-            return new Literal(literalFactory.ofString(compileContext, ""));
+            return createStringLiteral("");
         }
-        return new Literal(literalFactory.ofString(compileContext, LiteralFactory.unescapeString(ctx.getText())));
+        return createStringLiteral(LiteralFactory.unescapeString(ctx.getText()));
+    }
+
+    protected Literal createStringLiteral(String value) {
+        return new Literal(literalFactory.ofString(compileContext, value));
     }
 
     @Override
@@ -832,14 +869,22 @@ public class PredicateModelGenerator extends PredicateParserBaseVisitor<Expressi
             case PredicateLexer.FALSE:
                 return getBooleanFalseLiteral();
             case PredicateLexer.NUMERIC_LITERAL:
-                return new Literal(literalFactory.ofNumericString(compileContext, node.getText()));
+                return createNumericLiteral(node.getText());
             case PredicateLexer.INTEGER_LITERAL:
-                return new Literal(literalFactory.ofIntegerString(compileContext, node.getText()));
+                return createIntegerLiteral(node.getText());
             default:
                 throw new IllegalStateException("Terminal node '" + node.getText() + "' not handled");
         }
     }
 
+    protected Literal createNumericLiteral(String numericString) {
+        return new Literal(literalFactory.ofNumericString(compileContext, numericString));
+    }
+
+    protected Literal createIntegerLiteral(String integerString) {
+        return new Literal(literalFactory.ofIntegerString(compileContext, integerString));
+    }
+
     @SuppressWarnings("unchecked")
     protected final <T> List<T> getExpressionList(List<? extends ParserRuleContext> items) {
         List<T> expressions = new ArrayList<>(items.size());
@@ -849,6 +894,14 @@ public class PredicateModelGenerator extends PredicateParserBaseVisitor<Expressi
         return Collections.unmodifiableList(expressions);
     }
 
+    private static List<String> getIdentifierList(List<PredicateParser.IdentifierContext> identifiers, int offset) {
+        List<String> identifierList = new ArrayList<>(identifiers.size() - offset);
+        for (int i = offset; i < identifiers.size(); i++) {
+            identifierList.add(identifiers.get(i).getText());
+        }
+        return identifierList;
+    }
+
     protected Literal getBooleanLiteral(boolean value) {
         return value ? getBooleanTrueLiteral() : getBooleanFalseLiteral();
     }
@@ -0,0 +1,1182 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazebit.expression.impl;
+
+import com.blazebit.expression.ArithmeticExpression;
+import com.blazebit.expression.ArithmeticOperatorType;
+import com.blazebit.expression.ComparisonOperator;
+import com.blazebit.expression.Expression;
+import com.blazebit.expression.Literal;
+import com.blazebit.expression.Predicate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.blazebit.expression.impl.PredicateLexer.AND;
+import static com.blazebit.expression.impl.PredicateLexer.ASTERISK;
+import static com.blazebit.expression.impl.PredicateLexer.BETWEEN;
+import static com.blazebit.expression.impl.PredicateLexer.COLON;
+import static com.blazebit.expression.impl.PredicateLexer.COMMA;
+import static com.blazebit.expression.impl.PredicateLexer.DATE;
+import static com.blazebit.expression.impl.PredicateLexer.DAYS;
+import static com.blazebit.expression.impl.PredicateLexer.DOT;
+import static com.blazebit.expression.impl.PredicateLexer.EMPTY;
+import static com.blazebit.expression.impl.PredicateLexer.EQUAL;
+import static com.blazebit.expression.impl.PredicateLexer.EXCLAMATION_MARK;
+import static com.blazebit.expression.impl.PredicateLexer.EXPRESSION_END;
+import static com.blazebit.expression.impl.PredicateLexer.EXPRESSION_START;
+import static com.blazebit.expression.impl.PredicateLexer.FALSE;
+import static com.blazebit.expression.impl.PredicateLexer.GREATER;
+import static com.blazebit.expression.impl.PredicateLexer.GREATER_EQUAL;
+import static com.blazebit.expression.impl.PredicateLexer.HOURS;
+import static com.blazebit.expression.impl.PredicateLexer.IDENTIFIER;
+import static com.blazebit.expression.impl.PredicateLexer.IN;
+import static com.blazebit.expression.impl.PredicateLexer.INTEGER_LITERAL;
+import static com.blazebit.expression.impl.PredicateLexer.INTERVAL;
+import static com.blazebit.expression.impl.PredicateLexer.IS;
+import static com.blazebit.expression.impl.PredicateLexer.LB;
+import static com.blazebit.expression.impl.PredicateLexer.LEADING_ZERO_INTEGER_LITERAL;
+import static com.blazebit.expression.impl.PredicateLexer.LESS;
+import static com.blazebit.expression.impl.PredicateLexer.LESS_EQUAL;
+import static com.blazebit.expression.impl.PredicateLexer.LP;
+import static com.blazebit.expression.impl.PredicateLexer.MINUS;
+import static com.blazebit.expression.impl.PredicateLexer.MINUTES;
+import static com.blazebit.expression.impl.PredicateLexer.MONTHS;
+import static com.blazebit.expression.impl.PredicateLexer.NOT;
+import static com.blazebit.expression.impl.PredicateLexer.NOT_EQUAL;
+import static com.blazebit.expression.impl.PredicateLexer.NULL;
+import static com.blazebit.expression.impl.PredicateLexer.NUMERIC_LITERAL;
+import static com.blazebit.expression.impl.PredicateLexer.OR;
+import static com.blazebit.expression.impl.PredicateLexer.PERCENT;
+import static com.blazebit.expression.impl.PredicateLexer.PLUS;
+import static com.blazebit.expression.impl.PredicateLexer.QUOTED_IDENTIFIER;
+import static com.blazebit.expression.impl.PredicateLexer.RB;
+import static com.blazebit.expression.impl.PredicateLexer.RP;
+import static com.blazebit.expression.impl.PredicateLexer.SECONDS;
+import static com.blazebit.expression.impl.PredicateLexer.SLASH;
+import static com.blazebit.expression.impl.PredicateLexer.START_QUOTE;
+import static com.blazebit.expression.impl.PredicateLexer.TEXT;
+import static com.blazebit.expression.impl.PredicateLexer.TIME;
+import static com.blazebit.expression.impl.PredicateLexer.TIMESTAMP;
+import static com.blazebit.expression.impl.PredicateLexer.TRUE;
+import static com.blazebit.expression.impl.PredicateLexer.YEARS;
+
+/**
+ * A hand-written recursive descent parser for the language defined by the <code>PredicateLexer</code> and <code>PredicateParser</code> grammars,
+ * which creates the expression model while parsing instead of materializing a parse tree that is visited afterwards.
+ * The model is created through the {@link PredicateModelGenerator}, so the semantics are the same as for the ANTLR based parser.
+ * The input is split into tokens upfront, which are stored in arrays rather than objects. A parser instance is used for a single input.
+ * Errors are not reported by this parser, because the expected alternatives that the ANTLR based parser reports depend on its internal state.
+ * Invalid inputs are signaled through a preallocated {@link InvalidInputException} instead, so that the caller can parse the input again
+ * with the ANTLR based parser, which reports the error.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public class RecursiveDescentPredicateParser {
+
+    private static final int EOF = PredicateLexer.EOF;
+    private static final int WHITESPACE = PredicateLexer.WS;
+    private static final String[] KEYWORDS = {
+        "and", "between", "date", "days", "empty", "false", "hours", "in", "interval", "is", "minutes",
+        "months", "not", "null", "or", "seconds", "time", "timestamp", "true", "years"
+    };
+    private static final int[] KEYWORD_TYPES = {
+        AND, BETWEEN, DATE, DAYS, EMPTY, FALSE, HOURS, IN, INTERVAL, IS, MINUTES,
+        MONTHS, NOT, NULL, OR, SECONDS, TIME, TIMESTAMP, TRUE, YEARS
+    };
+    private static final int[] TEMPORAL_UNIT_TYPES = { YEARS, MONTHS, DAYS, HOURS, MINUTES, SECONDS };
+    private static final String[] TEMPORAL_FIELDS = { "years", "months", "days", "hours", "minutes", "seconds" };
+
+    private final String input;
+    private final PredicateModelGenerator modelGenerator;
+    private int[] types;
+    private int[] starts;
+    private int[] ends;
+    private String[] texts;
+    private int tokenCount;
+    private int index;
+    // The last path or function invocation that was parsed, which can be used as predicate if it is not part of a larger expression
+    private Expression bareExpression;
+    private int bareFunctionStart;
+    private int bareFunctionEnd;
+
+    /**
+     * Creates a parser for the given input.
+     *
+     * @param input The input to parse
+     * @param templateMode Whether the input is a template
+     * @param modelGenerator The model generator to create the expression model with
+     * @throws InvalidInputException if the input contains characters that are not part of the language
+     */
+    public RecursiveDescentPredicateParser(String input, boolean templateMode, PredicateModelGenerator modelGenerator) {
+        this.input = input;
+        this.modelGenerator = modelGenerator;
+        int capacity = Math.max(16, input.length() / 3);
+        this.types = new int[capacity];
+        this.starts = new int[capacity];
+        this.ends = new int[capacity];
+        this.texts = new String[capacity];
+        tokenize(templateMode);
+    }
+
+    /**
+     * Parses the input as predicate.
+     *
+     * @return the predicate
+     * @throws AmbiguousInputException if the input has to be parsed with the ANTLR based parser
+     * @throws InvalidInputException if the input is not part of the language
+     */
+    public Predicate parsePredicate() {
+        Predicate predicate = predicate();
+        expectEnd();
+        return predicate;
+    }
+
+    /**
+     * Parses the input as expression.
+     *
+     * @return the expression
+     * @throws AmbiguousInputException if the input has to be parsed with the ANTLR based parser
+     * @throws InvalidInputException if the input is not part of the language
+     */
+    public Expression parseExpression() {
+        Expression expression = expression();
+        expectEnd();
+        return expression;
+    }
+
+    /**
+     * Parses the input as expression or predicate.
+     *
+     * @return the expression or predicate
+     * @throws AmbiguousInputException if the input has to be parsed with the ANTLR based parser
+     * @throws InvalidInputException if the input is not part of the language
+     */
+    public Expression parseExpressionOrPredicate() {
+        Expression expression = predicateOrExpression();
+        expectEnd();
+        return expression;
+    }
+
+    /**
+     * Parses the input as template.
+     *
+     * @return the template expression
+     * @throws AmbiguousInputException if the input has to be parsed with the ANTLR based parser
+     * @throws InvalidInputException if the input is not part of the language
+     */
+    public Expression parseTemplate() {
+        ArithmeticExpression expression;
+        if (types[index] == TEXT) {
+            expression = modelGenerator.createStringLiteral(texts[index++]);
+        } else {
+            expression = modelGenerator.createStringLiteral("");
+        }
+        while (types[index] != EOF) {
+            ArithmeticExpression subExpression;
+            if (types[index] == TEXT) {
+                subExpression = modelGenerator.createStringLiteral(texts[index++]);
+            } else {
+                expect(EXPRESSION_START);
+                subExpression = expression();
+                expect(EXPRESSION_END);
+            }
+            expression = modelGenerator.createArithmeticExpression(expression, subExpression, ArithmeticOperatorType.PLUS);
+        }
+        return expression;
+    }
+
+    // Parser
+
+    private Predicate predicate() {
+        return orPredicate(andPredicate(unaryPredicate()));
+    }
+
+    private Expression predicateOrExpression() {
+        if (types[index] == NOT && isAmbiguousNegation(types[index + 1])) {
+            throw AmbiguousInputException.INSTANCE;
+        }
+        Predicate predicate;
+        if (isNegation()) {
+            predicate = unaryPredicate();
+        } else {
+            Expression expression = predicateOperand();
+            if (expression instanceof Predicate) {
+                predicate = (Predicate) expression;
+            } else if (types[index] == AND || types[index] == OR) {
+                predicate = toPredicate(expression);
+            } else {
+                return expression;
+            }
+        }
+        return orPredicate(andPredicate(predicate));
+    }
+
+    private Predicate orPredicate(Predicate left) {
+        while (types[index] == OR) {
+            index++;
+            left = modelGenerator.createOrPredicate(left, andPredicate(unaryPredicate()));
+        }
+        return left;
+    }
+
+    private Predicate andPredicate(Predicate left) {
+        while (types[index] == AND) {
+            index++;
+            left = modelGenerator.createAndPredicate(left, unaryPredicate());
+        }
+        return left;
+    }
+
+    private Predicate unaryPredicate() {
+        if (isNegation()) {
+            index++;
+            return unaryPredicate().negated();
+        }
+        return toPredicate(predicateOperand());
+    }
+
+    private boolean isNegation() {
+        switch (types[index]) {
+            case EXCLAMATION_MARK:
+                return true;
+            case NOT:
+                // NOT is also an identifier, so it is only a negation if a predicate follows
+                return isPredicateStart(types[index + 1]);
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isAmbiguousNegation(int type) {
+        // The ANTLR parser prefers the expression alternative for e.g. NOT(...) or NOT + 1 i.e. treats NOT as identifier,
+        // unless that fails to match the rest of the input, which would require backtracking
+        switch (type) {
+            case LP:
+            case MINUS:
+            case PLUS:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isPredicateStart(int type) {
+        switch (type) {
+            case LP:
+            case EXCLAMATION_MARK:
+            case NUMERIC_LITERAL:
+            case INTEGER_LITERAL:
+            case START_QUOTE:
+            case TRUE:
+            case FALSE:
+            case INTERVAL:
+            case LB:
+            case MINUS:
+            case PLUS:
+                return true;
+            default:
+                return isIdentifier(type);
+        }
+    }
+
+    /**
+     * Parses a predicate that is not a negation or compound predicate, or an expression that is not followed by a predicate operator.
+     */
+    private Expression predicateOperand() {
+        ArithmeticExpression left;
+        if (types[index] == LP) {
+            index++;
+            Expression expression = predicateOrExpression();
+            expect(RP);
+            if (expression instanceof Predicate) {
+                return expression;
+            }
+            left = additiveExpression(multiplicativeExpression((ArithmeticExpression) expression));
+        } else {
+            left = expression();
+        }
+        switch (types[index]) {
+            case IS:
+                index++;
+                boolean negated = types[index] == NOT;
+                if (negated) {
+                    index++;
+                }
+                if (types[index] == NULL) {
+                    index++;
+                    return modelGenerator.createIsNullPredicate(left, negated);
+                } else if (types[index] == EMPTY) {
+                    index++;
+                    return modelGenerator.createIsEmptyPredicate(left, negated);
+                }
+                throw InvalidInputException.INSTANCE;
+            case EQUAL:
+                index++;
+                return modelGenerator.createComparisonPredicate(left, expression(), ComparisonOperator.EQUAL);
+            case NOT_EQUAL:
+                index++;
+                return modelGenerator.createComparisonPredicate(left, expression(), ComparisonOperator.NOT_EQUAL);
+            case GREATER:
+                index++;
+                return modelGenerator.createComparisonPredicate(left, expression(), ComparisonOperator.GREATER);
+            case GREATER_EQUAL:
+                index++;
+                return modelGenerator.createComparisonPredicate(left, expression(), ComparisonOperator.GREATER_OR_EQUAL);
+            case LESS:
+                index++;
+                return modelGenerator.createComparisonPredicate(left, expression(), ComparisonOperator.LOWER);
+            case LESS_EQUAL:
+                index++;
+                return modelGenerator.createComparisonPredicate(left, expression(), ComparisonOperator.LOWER_OR_EQUAL);
+            case IN:
+                index++;
+                return inPredicate(left, false);
+            case BETWEEN:
+                index++;
+                return betweenPredicate(left);
+            case NOT:
+                if (types[index + 1] == IN) {
+                    index += 2;
+                    return inPredicate(left, true);
+                } else if (types[index + 1] == BETWEEN) {
+                    index += 2;
+                    return betweenPredicate(left);
+                }
+                break;
+            default:
+                break;
+        }
+        return left;
+    }
+
+    private Predicate toPredicate(Expression expression) {
+        if (expression instanceof Predicate) {
+            return (Predicate) expression;
+        } else if (expression == bareExpression) {
+            if (bareFunctionStart == -1) {
+                return modelGenerator.createPathPredicate(expression);
+            }
+            return modelGenerator.createBooleanFunctionPredicate(expression, getText(bareFunctionStart, bareFunctionEnd));
+        }
+        throw InvalidInputException.INSTANCE;
+    }
+
+    private Predicate inPredicate(ArithmeticExpression left, boolean negated) {
+        List<ArithmeticExpression> inItems;
+        if (types[index] == LP) {
+            index++;
+            List<ArithmeticExpression> items = new ArrayList<>();
+            do {
+                items.add(expression());
+            } while (consumeIf(COMMA));
+            expect(RP);
+            if (items.size() == 1 && isArithmeticOperator(types[index])) {
+                // The parenthesis group an expression that continues after the closing parenthesis
+                items.set(0, additiveExpression(multiplicativeExpression(items.get(0))));
+            }
+            inItems = Collections.unmodifiableList(items);
+        } else {
+            inItems = Collections.singletonList(expression());
+        }
+        return modelGenerator.createInPredicate(left, inItems, negated);
+    }
+
+    private Predicate betweenPredicate(ArithmeticExpression left) {
+        ArithmeticExpression begin = expression();
+        expect(AND);
+        ArithmeticExpression end = expression();
+        return modelGenerator.createBetweenPredicate(left, begin, end);
+    }
+
+    private ArithmeticExpression expression() {
+        return additiveExpression(multiplicativeExpression(unaryExpression()));
+    }
+
+    private ArithmeticExpression additiveExpression(ArithmeticExpression left) {
+        while (true) {
+            ArithmeticOperatorType operator;
+            switch (types[index]) {
+                case PLUS:
+                    operator = ArithmeticOperatorType.PLUS;
+                    break;
+                case MINUS:
+                    operator = ArithmeticOperatorType.MINUS;
+                    break;
+                default:
+                    return left;
+            }
+            index++;
+            left = modelGenerator.createArithmeticExpression(left, multiplicativeExpression(unaryExpression()), operator);
+        }
+    }
+
+    private ArithmeticExpression multiplicativeExpression(ArithmeticExpression left) {
+        while (true) {
+            ArithmeticOperatorType operator;
+            switch (types[index]) {
+                case ASTERISK:
+                    operator = ArithmeticOperatorType.MULTIPLY;
+                    break;
+                case SLASH:
+                    operator = ArithmeticOperatorType.DIVIDE;
+                    break;
+                case PERCENT:
+                    operator = ArithmeticOperatorType.MODULO;
+                    break;
+                default:
+                    return left;
+            }
+            index++;
+            left = modelGenerator.createArithmeticExpression(left, unaryExpression(), operator);
+        }
+    }
+
+    private ArithmeticExpression unaryExpression() {
+        ArithmeticExpression expression;
+        switch (types[index]) {
+            case MINUS:
+                index++;
+                expression = modelGenerator.createUnaryMinusExpression(unaryExpression());
+                break;
+            case PLUS:
+                index++;
+                expression = modelGenerator.createUnaryPlusExpression(unaryExpression());
+                break;
+            default:
+                return primaryExpression();
+        }
+        // A unary plus might return the operand, which must not be usable as predicate anymore
+        bareExpression = null;
+        return expression;
+    }
+
+    private ArithmeticExpression primaryExpression() {
+        int type = types[index];
+        switch (type) {
+            case LP:
+                index++;
+                ArithmeticExpression expression = expression();
+                expect(RP);
+                return expression;
+            case NUMERIC_LITERAL:
+            case INTEGER_LITERAL:
+            case START_QUOTE:
+            case TRUE:
+            case FALSE:
+            case INTERVAL:
+            case LB:
+                return literal();
+            case DATE:
+            case TIME:
+            case TIMESTAMP:
+                if (matchTemporalLiteral() != -1) {
+                    return literal();
+                }
+                return pathOrFunctionInvocation();
+            default:
+                if (isIdentifier(type)) {
+                    return pathOrFunctionInvocation();
+                }
+                throw InvalidInputException.INSTANCE;
+        }
+    }
+
+    private ArithmeticExpression pathOrFunctionInvocation() {
+        int start = index;
+        ArithmeticExpression expression;
+        if (types[index + 1] == LP) {
+            expression = functionInvocation();
+            if (types[index] != DOT) {
+                bareExpression = expression;
+                bareFunctionStart = start;
+                bareFunctionEnd = index;
+                return expression;
+            }
+            expression = (ArithmeticExpression) modelGenerator.createPathExpression(expression, pathAttributes());
+        } else {
+            String alias = getText(index++);
+            List<String> attributeNames = types[index] == DOT ? pathAttributes() : Collections.<String>emptyList();
+            expression = (ArithmeticExpression) modelGenerator.createPathExpression(alias, attributeNames);
+        }
+        bareExpression = expression;
+        bareFunctionStart = -1;
+        return expression;
+    }
+
+    private List<String> pathAttributes() {
+        List<String> attributeNames = new ArrayList<>();
+        while (consumeIf(DOT)) {
+            if (!isIdentifier(types[index])) {
+                throw InvalidInputException.INSTANCE;
+            }
+            attributeNames.add(getText(index++));
+        }
+        return attributeNames;
+    }
+
+    private ArithmeticExpression functionInvocation() {
+        String name = getText(index);
+        // Skip the name and the opening parenthesis
+        index += 2;
+        if (isNamedArgumentList()) {
+            List<String> argumentNames = new ArrayList<>();
+            List<Expression> arguments = new ArrayList<>();
+            if (types[index] != RP) {
+                do {
+                    argumentNames.add(getText(index++));
+                    expect(EQUAL);
+                    arguments.add(predicateOrExpression());
+                } while (consumeIf(COMMA));
+            }
+            expect(RP);
+            return (ArithmeticExpression) modelGenerator.createNamedInvocation(name, argumentNames, Collections.unmodifiableList(arguments));
+        } else {
+            List<Expression> arguments = new ArrayList<>();
+            do {
+                arguments.add(predicateOrExpression());
+            } while (consumeIf(COMMA));
+            expect(RP);
+            return (ArithmeticExpression) modelGenerator.createIndexedFunctionInvocation(name, Collections.unmodifiableList(arguments));
+        }
+    }
+
+    /**
+     * Returns whether all arguments of the argument list starting at the current token have the form <code>name = value</code>.
+     */
+    private boolean isNamedArgumentList() {
+        int i = index;
+        if (types[i] == RP) {
+            return true;
+        }
+        while (isIdentifier(types[i]) && types[i + 1] == EQUAL) {
+            int depth = 0;
+            for (i += 2; ; i++) {
+                int type = types[i];
+                if (type == LP || type == LB) {
+                    depth++;
+                } else if (type == RP || type == RB) {
+                    if (depth == 0) {
+                        return type == RP;
+                    }
+                    depth--;
+                } else if (type == COMMA && depth == 0) {
+                    i++;
+                    break;
+                } else if (type == EOF) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    private Literal literal() {
+        int start = index;
+        switch (types[index]) {
+            case NUMERIC_LITERAL:
+                index++;
+                return modelGenerator.createNumericLiteral(getText(start));
+            case INTEGER_LITERAL:
+                index++;
+                return modelGenerator.createIntegerLiteral(getText(start));
+            case START_QUOTE:
+                index++;
+                return modelGenerator.createStringLiteral(LiteralFactory.unescapeString(getText(start)));
+            case TRUE:
+                index++;
+                return modelGenerator.getBooleanTrueLiteral();
+            case FALSE:
+                index++;
+                return modelGenerator.getBooleanFalseLiteral();
+            case INTERVAL:
+                return temporalIntervalLiteral();
+            case LB:
+                return collectionLiteral();
+            default:
+                int end = matchTemporalLiteral();
+                if (end != -1) {
+                    return temporalLiteral(end);
+                } else if (isIdentifier(types[index]) && types[index + 1] == LP) {
+                    return entityLiteral();
+                }
+                throw InvalidInputException.INSTANCE;
+        }
+    }
+
+    private Literal collectionLiteral() {
+        index++;
+        List<Literal> literals = new ArrayList<>();
+        if (types[index] != RB) {
+            do {
+                literals.add(literal());
+            } while (consumeIf(COMMA));
+        }
+        expect(RB);
+        return modelGenerator.createCollectionLiteral(Collections.unmodifiableList(literals));
+    }
+
+    private Literal entityLiteral() {
+        String name = getText(index);
+        // Skip the name and the opening parenthesis
+        index += 2;
+        List<String> attributeNames = new ArrayList<>();
+        List<Expression> values = new ArrayList<>();
+        do {
+            if (!isIdentifier(types[index])) {
+                throw InvalidInputException.INSTANCE;
+            }
+            attributeNames.add(getText(index++));
+            expect(EQUAL);
+            values.add(predicateOrExpression());
+        } while (consumeIf(COMMA));
+        expect(RP);
+        return modelGenerator.createEntityLiteral(name, attributeNames, Collections.unmodifiableList(values));
+    }
+
+    private Literal temporalIntervalLiteral() {
+        index++;
+        int[] amounts = new int[TEMPORAL_UNIT_TYPES.length];
+        int lastUnit = -1;
+        while (types[index] == INTEGER_LITERAL) {
+            int unit = temporalUnit(types[index + 1], lastUnit + 1);
+            if (unit == -1) {
+                break;
+            }
+            amounts[unit] = PredicateModelGenerator.parseTemporalAmount(getText(index), TEMPORAL_FIELDS[unit]);
+            lastUnit = unit;
+            index += 2;
+        }
+        if (lastUnit == -1) {
+            throw InvalidInputException.INSTANCE;
+        }
+        return modelGenerator.createTemporalIntervalLiteral(amounts[0], amounts[1], amounts[2], amounts[3], amounts[4], amounts[5]);
+    }
+
+    private static int temporalUnit(int type, int firstUnit) {
+        for (int i = firstUnit; i < TEMPORAL_UNIT_TYPES.length; i++) {
+            if (TEMPORAL_UNIT_TYPES[i] == type) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the closing parenthesis if a date, time or timestamp literal starts at the current token, or <code>-1</code>.
+     */
+    private int matchTemporalLiteral() {
+        if (types[index + 1] != LP) {
+            return -1;
+        }
+        int i = index + 2;
+        switch (types[index]) {
+            case DATE:
+                i = matchDatePart(i);
+                break;
+            case TIME:
+                i = matchTimePart(i);
+                if (i != -1 && types[i] == DOT && isIntegerPart(types[i + 1])) {
+                    i += 2;
+                }
+                break;
+            case TIMESTAMP:
+                i = matchDatePart(i);
+                if (i != -1) {
+                    int timePartEnd = matchTimePart(i);
+                    if (timePartEnd != -1) {
+                        i = timePartEnd;
+                        if (types[i] == DOT && isIntegerPart(types[i + 1])) {
+                            i += 2;
+                        }
+                    }
+                }
+                break;
+            default:
+                return -1;
+        }
+        return i != -1 && types[i] == RP ? i : -1;
+    }
+
+    private int matchDatePart(int i) {
+        if (types[i] == INTEGER_LITERAL && types[i + 1] == MINUS && isIntegerPart(types[i + 2]) && types[i + 3] == MINUS && isIntegerPart(types[i + 4])) {
+            return i + 5;
+        }
+        return -1;
+    }
+
+    private int matchTimePart(int i) {
+        if (isIntegerPart(types[i]) && types[i + 1] == COLON && isIntegerPart(types[i + 2]) && types[i + 3] == COLON && isIntegerPart(types[i + 4])) {
+            return i + 5;
+        }
+        return -1;
+    }
+
+    private static boolean isIntegerPart(int type) {
+        return type == INTEGER_LITERAL || type == LEADING_ZERO_INTEGER_LITERAL;
+    }
+
+    private Literal temporalLiteral(int end) {
+        int type = types[index];
+        int datePartStart = index + 2;
+        index = end + 1;
+        switch (type) {
+            case DATE:
+                return modelGenerator.createDateLiteral(getText(datePartStart, end));
+            case TIME:
+                return modelGenerator.createTimeLiteral(getText(datePartStart, end));
+            default:
+                int datePartEnd = datePartStart + 5;
+                if (datePartEnd == end) {
+                    return modelGenerator.createTimestampLiteral(getText(datePartStart, end));
+                }
+                return modelGenerator.createTimestampLiteral(getText(datePartStart, datePartEnd) + ' ' + getText(datePartEnd, end));
+        }
+    }
+
+    private static boolean isIdentifier(int type) {
+        switch (type) {
+            case IDENTIFIER:
+            case QUOTED_IDENTIFIER:
+            case AND:
+            case BETWEEN:
+            case DATE:
+            case DAYS:
+            case HOURS:
+            case IN:
+            case IS:
+            case MINUTES:
+            case MONTHS:
+            case NOT:
+            case OR:
+            case SECONDS:
+            case TIME:
+            case TIMESTAMP:
+            case YEARS:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isArithmeticOperator(int type) {
+        switch (type) {
+            case PLUS:
+            case MINUS:
+            case ASTERISK:
+            case SLASH:
+            case PERCENT:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private boolean consumeIf(int type) {
+        if (types[index] == type) {
+            index++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(int type) {
+        if (types[index] != type) {
+            throw InvalidInputException.INSTANCE;
+        }
+        index++;
+    }
+
+    private void expectEnd() {
+        if (types[index] != EOF) {
+            throw InvalidInputException.INSTANCE;
+        }
+    }
+
+    private String getText(int tokenIndex) {
+        String text = texts[tokenIndex];
+        if (text == null) {
+            if (types[tokenIndex] == EOF) {
+                return "<EOF>";
+            }
+            text = input.substring(starts[tokenIndex], ends[tokenIndex]);
+        }
+        return text;
+    }
+
+    private String getText(int startTokenIndex, int endTokenIndex) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = startTokenIndex; i < endTokenIndex; i++) {
+            sb.append(getText(i));
+        }
+        return sb.toString();
+    }
+
+    // Lexer
+
+    private void tokenize(boolean templateMode) {
+        String input = this.input;
+        int length = input.length();
+        int position = 0;
+        while (position < length) {
+            int start = position;
+            char c = input.charAt(position);
+            int type;
+            String text = null;
+            if (templateMode) {
+                if (c == '#' && position + 1 < length && input.charAt(position + 1) == LiteralFactory.OPEN_BRACKET) {
+                    type = EXPRESSION_START;
+                    position += 2;
+                    templateMode = false;
+                } else {
+                    while (position < length) {
+                        c = input.charAt(position);
+                        if (c == '\\' && position + 2 < length && input.charAt(position + 1) == '#' && input.charAt(position + 2) == LiteralFactory.OPEN_BRACKET) {
+                            position += 3;
+                        } else if (c == '#' && position + 1 < length && input.charAt(position + 1) == LiteralFactory.OPEN_BRACKET) {
+                            break;
+                        } else {
+                            position++;
+                        }
+                    }
+                    type = TEXT;
+                    text = LiteralFactory.unescapeTemplateText(input.substring(start, position));
+                }
+            } else {
+                switch (c) {
+                    case ' ':
+                    case '\t':
+                    case '\f':
+                    case '\r':
+                    case '\n':
+                        type = WHITESPACE;
+                        position++;
+                        break;
+                    case '\'':
+                    case '"':
+                        type = START_QUOTE;
+                        position = scanQuoted(start, true);
+                        break;
+                    case '`':
+                        type = QUOTED_IDENTIFIER;
+                        position = scanQuoted(start, false);
+                        text = LiteralFactory.unescapeString(input.substring(start, position));
+                        break;
+                    case '<':
+                        if (position + 1 < length && input.charAt(position + 1) == '=') {
+                            type = LESS_EQUAL;
+                            position += 2;
+                        } else if (position + 1 < length && input.charAt(position + 1) == '>') {
+                            type = NOT_EQUAL;
+                            position += 2;
+                        } else {
+                            type = LESS;
+                            position++;
+                        }
+                        break;
+                    case '>':
+                        if (position + 1 < length && input.charAt(position + 1) == '=') {
+                            type = GREATER_EQUAL;
+                            position += 2;
+                        } else {
+                            type = GREATER;
+                            position++;
+                        }
+                        break;
+                    case '!':
+                        if (position + 1 < length && input.charAt(position + 1) == '=') {
+                            type = NOT_EQUAL;
+                            position += 2;
+                        } else {
+                            type = EXCLAMATION_MARK;
+                            position++;
+                        }
+                        break;
+                    case '=':
+                        type = EQUAL;
+                        position++;
+                        break;
+                    case '+':
+                        type = PLUS;
+                        position++;
+                        break;
+                    case '-':
+                        type = MINUS;
+                        position++;
+                        break;
+                    case '*':
+                        type = ASTERISK;
+                        position++;
+                        break;
+                    case '/':
+                        type = SLASH;
+                        position++;
+                        break;
+                    case '%':
+                        type = PERCENT;
+                        position++;
+                        break;
+                    case '(':
+                        type = LP;
+                        position++;
+                        break;
+                    case ')':
+                        type = RP;
+                        position++;
+                        break;
+                    case '[':
+                        type = LB;
+                        position++;
+                        break;
+                    case ']':
+                        type = RB;
+                        position++;
+                        break;
+                    case ',':
+                        type = COMMA;
+                        position++;
+                        break;
+                    case '.':
+                        type = DOT;
+                        position++;
+                        break;
+                    case ':':
+                        type = COLON;
+                        position++;
+                        break;
+                    case '}':
+                        type = EXPRESSION_END;
+                        position++;
+                        templateMode = true;
+                        break;
+                    default:
+                        if (isDigit(c)) {
+                            position = scanNumber(start);
+                            if (c == '0' && position - start > 1 && isDigit(input.charAt(start + 1))) {
+                                type = LEADING_ZERO_INTEGER_LITERAL;
+                            } else if (containsNumericPart(start, position)) {
+                                type = NUMERIC_LITERAL;
+                            } else {
+                                type = INTEGER_LITERAL;
+                            }
+                        } else if (isIdentifierStart(c)) {
+                            position++;
+                            while (position < length && isIdentifierPart(input.charAt(position))) {
+                                position++;
+                            }
+                            type = keywordOrIdentifier(start, position);
+                        } else {
+                            throw InvalidInputException.INSTANCE;
+                        }
+                        break;
+                }
+            }
+            if (type != WHITESPACE) {
+                addToken(type, start, position, text);
+            }
+        }
+        addToken(EOF, length, length, null);
+    }
+
+    private void addToken(int type, int start, int end, String text) {
+        if (tokenCount == types.length) {
+            int capacity = tokenCount << 1;
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            texts = Arrays.copyOf(texts, capacity);
+        }
+        types[tokenCount] = type;
+        starts[tokenCount] = start;
+        ends[tokenCount] = end;
+        texts[tokenCount] = text;
+        tokenCount++;
+    }
+
+    /**
+     * Scans a string literal or quoted identifier starting at the given position and returns the position after the closing quote.
+     * String literals may span multiple lines, whereas quoted identifiers may not.
+     */
+    private int scanQuoted(int start, boolean multiLine) {
+        String input = this.input;
+        int length = input.length();
+        char quote = input.charAt(start);
+        int position = start + 1;
+        while (position < length) {
+            char c = input.charAt(position);
+            if (c == quote) {
+                return position + 1;
+            } else if (c == '\\') {
+                position = scanEscapeSequence(position);
+            } else if (!multiLine && (c == '\r' || c == '\n')) {
+                throw InvalidInputException.INSTANCE;
+            } else {
+                position++;
+            }
+        }
+        if (multiLine) {
+            throw InvalidInputException.INSTANCE;
+        }
+        throw InvalidInputException.INSTANCE;
+    }
+
+    private int scanEscapeSequence(int position) {
+        String input = this.input;
+        int length = input.length();
+        if (position + 1 < length) {
+            switch (input.charAt(position + 1)) {
+                case 'b':
+                case 't':
+                case 'n':
+                case 'f':
+                case 'r':
+                case '"':
+                case '\'':
+                case '\\':
+                    return position + 2;
+                case 'u':
+                    if (position + 5 < length && isHexDigit(input.charAt(position + 2)) && isHexDigit(input.charAt(position + 3))
+                        && isHexDigit(input.charAt(position + 4)) && isHexDigit(input.charAt(position + 5))) {
+                        return position + 6;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            throw InvalidInputException.INSTANCE;
+        }
+        throw InvalidInputException.INSTANCE;
+    }
+
+    /**
+     * Scans an integer or numeric literal starting at the given position and returns the position after it.
+     */
+    private int scanNumber(int start) {
+        String input = this.input;
+        int length = input.length();
+        int position = start + 1;
+        if (input.charAt(start) == '0') {
+            if (position < length && isDigit(input.charAt(position))) {
+                // Leading zero integer
+                return scanDigits(position);
+            }
+        } else {
+            position = scanDigits(position);
+        }
+        if (position + 1 < length && input.charAt(position) == '.' && isDigit(input.charAt(position + 1))) {
+            position = scanDigits(position + 1);
+        }
+        if (position + 1 < length && (input.charAt(position) == 'e' || input.charAt(position) == 'E')) {
+            int exponentStart = position + 1;
+            if (input.charAt(exponentStart) == '+' || input.charAt(exponentStart) == '-') {
+                exponentStart++;
+            }
+            if (exponentStart < length && isDigit(input.charAt(exponentStart))) {
+                position = scanDigits(exponentStart);
+            }
+        }
+        return position;
+    }
+
+    private int scanDigits(int position) {
+        String input = this.input;
+        int length = input.length();
+        while (position < length && isDigit(input.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private boolean containsNumericPart(int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if (c == '.' || c == 'e' || c == 'E') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int keywordOrIdentifier(int start, int end) {
+        int length = end - start;
+        keywords: for (int i = 0; i < KEYWORDS.length; i++) {
+            String keyword = KEYWORDS[i];
+            if (keyword.length() == length) {
+                for (int j = 0; j < length; j++) {
+                    // Keywords only consist of ASCII letters, so setting the lower case bit is enough for a case-insensitive comparison
+                    if ((input.charAt(start + j) | 0x20) != keyword.charAt(j)) {
+                        continue keywords;
+                    }
+                }
+                return KEYWORD_TYPES[i];
+            }
+        }
+        return IDENTIFIER;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isHexDigit(char c) {
+        return c >= '0' && c <= '9' || c >= 'a' && c <= 'f' || c >= 'A' && c <= 'F';
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '_' || c == '$' || c >= '\u0080' && c <= '\ufffe';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return isIdentifierStart(c) || isDigit(c);
+    }
+
+    /**
+     * Thrown if the input contains a construct for which the recursive descent parser can't decide
+     * on the same alternative as the ANTLR based parser without backtracking.
+     * Such inputs have to be parsed with the ANTLR based parser instead.
+     *
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    public static final class AmbiguousInputException extends RuntimeException {
+
+        private static final AmbiguousInputException INSTANCE = new AmbiguousInputException();
+
+        private AmbiguousInputException() {
+            super("Ambiguous input", null, false, false);
+        }
+    }
+
+    /**
+     * Thrown if the input is not part of the language. The parser doesn't describe the error,
+     * since invalid inputs are parsed again with the ANTLR based parser, which reports the error.
+     *
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    public static final class InvalidInputException extends RuntimeException {
+
+        private static final InvalidInputException INSTANCE = new InvalidInputException();
+
+        private InvalidInputException() {
+            super("Invalid input", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazebit.expression.impl;
+
+import com.blazebit.domain.runtime.model.DomainType;
+import com.blazebit.expression.DomainModelException;
+import com.blazebit.expression.spi.DomainFunctionArguments;
+
+import java.util.Arrays;
+
+/**
+ * Function arguments that are reused for multiple function invocations to avoid allocations per invocation.
+ * An instance must only be used for one invocation at a time, so nested invocations use separate instances.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public final class ReusableDomainFunctionArguments implements DomainFunctionArguments {
+
+    private static final Object[] EMPTY_VALUES = new Object[0];
+    private static final DomainType[] EMPTY_TYPES = new DomainType[0];
+
+    private Object[] values = EMPTY_VALUES;
+    private DomainType[] types = EMPTY_TYPES;
+    private int parameterCount;
+    private int assignedArguments;
+
+    /**
+     * Prepares the arguments for an invocation of a function with the given number of parameters.
+     *
+     * @param parameterCount The number of parameters of the function
+     */
+    public void reset(int parameterCount) {
+        if (values.length < parameterCount) {
+            values = new Object[parameterCount];
+            types = new DomainType[parameterCount];
+        } else {
+            Arrays.fill(values, 0, this.parameterCount, null);
+            Arrays.fill(types, 0, this.parameterCount, null);
+        }
+        this.parameterCount = parameterCount;
+        this.assignedArguments = 0;
+    }
+
+    /**
+     * Assigns the given value of the given actual type to the argument at the given position.
+     *
+     * @param position The position
+     * @param value The value
+     * @param type The actual type
+     */
+    public void set(int position, Object value, DomainType type) {
+        values[position] = value;
+        types[position] = type;
+        assignedArguments++;
+    }
+
+    @Override
+    public Object getValue(int position) {
+        if (position < 0 || position >= parameterCount) {
+            throw new DomainModelException(new ArrayIndexOutOfBoundsException(position));
+        }
+        return values[position];
+    }
+
+    @Override
+    public DomainType getType(int position) {
+        if (position < 0 || position >= parameterCount) {
+            throw new DomainModelException(new ArrayIndexOutOfBoundsException(position));
+        }
+        return types[position];
+    }
+
+    @Override
+    public int assignedArguments() {
+        return assignedArguments;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazebit.expression.impl;
+
+import com.blazebit.expression.ExpressionInterpreter;
+import com.blazebit.expression.ExpressionService;
+
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An interpreter context that exposes a bound root object under a root variable name and delegates reads of everything else to an optional delegate.
+ * Properties that are set during the evaluation are stored in a concurrent property map instead of the delegate, so that a shared delegate is never modified concurrently.
+ * The property map can be shared by multiple contexts, so that e.g. the instant of <code>CURRENT_TIMESTAMP</code> is determined once for all of them.
+ * The first value that is set for a property wins, so that all contexts sharing the property map observe the same value.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public final class RootBoundInterpreterContext implements ExpressionInterpreter.Context {
+
+    private final ExpressionService expressionService;
+    private final ExpressionInterpreter.Context delegate;
+    private final String alias;
+    private final ConcurrentMap<String, Object> properties;
+    private Object root;
+
+    /**
+     * Creates a context that stores properties in the given, possibly shared, property map.
+     *
+     * @param expressionService The expression service
+     * @param delegate The interpreter context to read properties and other roots from, may be <code>null</code>
+     * @param alias The root variable name to bind root objects to
+     * @param properties The property map
+     */
+    public RootBoundInterpreterContext(ExpressionService expressionService, ExpressionInterpreter.Context delegate, String alias, ConcurrentMap<String, Object> properties) {
+        this.expressionService = expressionService;
+        this.delegate = delegate;
+        this.alias = alias;
+        this.properties = properties;
+    }
+
+    /**
+     * Binds the given root object to the root variable name.
+     *
+     * @param root The root object
+     * @return <code>this</code> for method chaining
+     */
+    public RootBoundInterpreterContext bind(Object root) {
+        this.root = root;
+        return this;
+    }
+
+    @Override
+    public ExpressionService getExpressionService() {
+        return expressionService;
+    }
+
+    @Override
+    public <X> X getProperty(String key) {
+        Object value = properties.get(key);
+        if (value != null) {
+            return (X) value;
+        }
+        return delegate == null ? null : delegate.getProperty(key);
+    }
+
+    @Override
+    public void setProperty(String key, Object value) {
+        if (value == null) {
+            properties.remove(key);
+        } else {
+            properties.putIfAbsent(key, value);
+        }
+    }
+
+    @Override
+    public <X> X getRoot(String alias) {
+        if (this.alias.equals(alias)) {
+            return (X) root;
+        }
+        return delegate == null ? null : delegate.getRoot(alias);
+    }
+}
@@ -44,6 +44,7 @@ import com.blazebit.expression.Expression;
 import com.blazebit.expression.ExpressionCompiler;
 import com.blazebit.expression.ExpressionSerializer;
 import com.blazebit.expression.ExpressionService;
+import com.blazebit.expression.ExpressionServiceBuilder;
 import com.blazebit.expression.Expressions;
 import com.blazebit.expression.FunctionInvocation;
 import com.blazebit.expression.ImplicitRootProvider;
@@ -89,6 +90,7 @@ public abstract class AbstractExpressionCompilerTest {
 
     private static DomainModel defaultDomainModel;
     private DomainModel domainModel;
+    private ExpressionService expressionService;
     private ExpressionCompilerImpl expressionCompiler;
     private ExpressionCompiler.Context context;
     private ExpressionSerializer<StringBuilder> expressionSerializer;
@@ -151,19 +153,28 @@ public abstract class AbstractExpressionCompilerTest {
     @Before
     public void setup() {
         domainModel = createDomainModel();
-        ExpressionService expressionService = Expressions.getDefaultProvider().createDefaultBuilder(domainModel)
+        ExpressionServiceBuilder expressionServiceBuilder = Expressions.getDefaultProvider().createDefaultBuilder(domainModel)
             .withNumericLiteralResolver(new DefaultNumericLiteralResolver())
             .withStringLiteralResolver(new DefaultStringLiteralResolver())
             .withTemporalLiteralResolver(new DefaultTemporalLiteralResolver())
             .withEnumLiteralResolver(new DefaultEnumLiteralResolver())
             .withBooleanLiteralResolver(new DefaultBooleanLiteralResolver())
-            .build();
+            .withParserWarmUp(true);
+        expressionService = configure(expressionServiceBuilder).build();
         expressionCompiler = (ExpressionCompilerImpl) expressionService.createCompiler();
         setImplicitRootProvider(null);
         expressionSerializer = expressionService.createSerializer();
         expressionTemplateSerializer = expressionService.createTemplateSerializer();
     }
 
+    protected ExpressionServiceBuilder configure(ExpressionServiceBuilder expressionServiceBuilder) {
+        return expressionServiceBuilder;
+    }
+
+    protected ExpressionService getExpressionService() {
+        return expressionService;
+    }
+
     protected void setImplicitRootProvider(ImplicitRootProvider implicitRootProvider) {
         context = expressionCompiler.createContext(Collections.singletonMap("user", domainModel.getType("user")), implicitRootProvider);
     }
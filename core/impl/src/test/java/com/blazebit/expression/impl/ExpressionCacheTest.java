@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.blazebit.expression.impl;
+
+import com.blazebit.domain.Domain;
+import com.blazebit.domain.runtime.model.DomainModel;
+import com.blazebit.domain.runtime.model.DomainType;
+import com.blazebit.expression.ExpressionCacheStatistics;
+import com.blazebit.expression.ExpressionCompiler;
+import com.blazebit.expression.ExpressionService;
+import com.blazebit.expression.ExpressionServiceBuilder;
+import com.blazebit.expression.ImplicitRootProvider;
+import com.blazebit.expression.Predicate;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public class ExpressionCacheTest extends AbstractExpressionCompilerTest {
+
+    @Override
+    protected ExpressionServiceBuilder configure(ExpressionServiceBuilder expressionServiceBuilder) {
+        return expressionServiceBuilder.withExpressionCache(4);
+    }
+
+    @Test
+    public void testCacheHit() {
+        Predicate predicate = parsePredicateOnly("user.age > 1");
+        assertSame(predicate, parsePredicateOnly("user.age > 1"));
+        ExpressionCacheStatistics statistics = getExpressionService().getExpressionCacheStatistics();
+        assertEquals(1L, statistics.getHitCount());
+        assertEquals(1L, statistics.getMissCount());
+        assertEquals(1, statistics.getSize());
+    }
+
+    @Test
+    public void testCacheKeyIncludesRuleAndRootTypes() {
+        ExpressionCompiler compiler = getExpressionService().createCompiler();
+        ExpressionCompiler.Context context = compiler.createContext(Collections.singletonMap("user", getExpressionService().getDomainModel().getType("user")));
+        ExpressionCompiler.Context otherContext = compiler.createContext(Collections.singletonMap("u", getExpressionService().getDomainModel().getType("user")));
+        assertNotSame(compiler.createExpression("user.age", context), compiler.createExpressionOrPredicate("user.age", context));
+        assertSame(compiler.createExpression("user.age", context), compiler.createExpression("user.age", compiler.createContext(context.getRootDomainTypes())));
+        assertEquals(compiler.createExpression("1", context), compiler.createExpression("1", otherContext));
+        assertEquals(4L, getExpressionService().getExpressionCacheStatistics().getMissCount());
+    }
+
+    @Test
+    public void testCacheKeyCopiesRootTypes() {
+        ExpressionCompiler compiler = getExpressionService().createCompiler();
+        Map<String, DomainType> rootDomainTypes = new HashMap<>();
+        rootDomainTypes.put("user", getExpressionService().getDomainModel().getType("user"));
+        Predicate predicate = compiler.createPredicate("user.age > 1", compiler.createContext(rootDomainTypes));
+        // Changing the map after compilation must neither corrupt the cached key nor cause a wrong hit
+        rootDomainTypes.put("u", getExpressionService().getDomainModel().getType("user"));
+        assertNotSame(predicate, compiler.createPredicate("user.age > 1", compiler.createContext(rootDomainTypes)));
+        assertSame(predicate, compiler.createPredicate("user.age > 1", compiler.createContext(Collections.singletonMap("user", getExpressionService().getDomainModel().getType("user")))));
+        assertEquals(1L, getExpressionService().getExpressionCacheStatistics().getHitCount());
+    }
+
+    @Test
+    public void testCustomContextBypassesCache() {
+        ExpressionService expressionService = getExpressionService();
+        ExpressionCompiler compiler = expressionService.createCompiler();
+        ExpressionCompiler.Context context = new ExpressionCompiler.Context() {
+            @Override
+            public ExpressionService getExpressionService() {
+                return expressionService;
+            }
+
+            @Override
+            public DomainType getRootDomainType(String alias) {
+                return expressionService.getDomainModel().getType(alias);
+            }
+
+            @Override
+            public Map<String, DomainType> getRootDomainTypes() {
+                return Collections.emptyMap();
+            }
+
+            @Override
+            public ImplicitRootProvider getImplicitRootProvider() {
+                return null;
+            }
+        };
+        assertNotSame(compiler.createPredicate("user.age > 1", context), compiler.createPredicate("user.age > 1", context));
+        assertEquals(0, expressionService.getExpressionCacheStatistics().getSize());
+    }
+
+    @Test
+    public void testEviction() {
+        for (int i = 0; i < 10; i++) {
+            parsePredicateOnly("user.age > " + i);
+        }
+        ExpressionCacheStatistics statistics = getExpressionService().getExpressionCacheStatistics();
+        assertEquals(4, statistics.getSize());
+        assertEquals(6L, statistics.getEvictionCount());
+        statistics.clear();
+        assertEquals(0, statistics.getSize());
+    }
+
+    @Test
+    public void testSubDomainModelUsesSeparateCache() {
+        ExpressionService expressionService = getExpressionService();
+        DomainModel subDomainModel = Domain.getDefaultProvider().createBuilder(expressionService.getDomainModel()).build();
+        ExpressionService subExpressionService = expressionService.withSubDomainModel(subDomainModel);
+        ExpressionCompiler compiler = subExpressionService.createCompiler();
+        compiler.createPredicate("user.age > 1", compiler.createContext(Collections.singletonMap("user", subDomainModel.getType("user"))));
+        ExpressionCacheStatistics statistics = subExpressionService.getExpressionCacheStatistics();
+        assertNotNull(statistics);
+        assertNotSame(expressionService.getExpressionCacheStatistics(), statistics);
+        assertEquals(1, statistics.getSize());
+        assertEquals(0, expressionService.getExpressionCacheStatistics().getSize());
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazebit.expression.impl;
+
+import com.blazebit.expression.ExpressionParserType;
+import com.blazebit.expression.ExpressionServiceBuilder;
+import org.junit.experimental.runners.Enclosed;
+import org.junit.runner.RunWith;
+
+/**
+ * Runs the compiler tests with the {@link RecursiveDescentPredicateParser}.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+@RunWith(Enclosed.class)
+public class RecursiveDescentExpressionCompilerTest {
+
+    private static ExpressionServiceBuilder configureParser(ExpressionServiceBuilder expressionServiceBuilder) {
+        return expressionServiceBuilder.withExpressionParserType(ExpressionParserType.RECURSIVE_DESCENT);
+    }
+
+    public static class Simple extends SimpleExpressionCompilerTest {
+        @Override
+        protected ExpressionServiceBuilder configure(ExpressionServiceBuilder expressionServiceBuilder) {
+            return configureParser(expressionServiceBuilder);
+        }
+    }
+
+    public static class Arithmetic extends ArithmeticExpressionCompilerTest {
+        @Override
+        protected ExpressionServiceBuilder configure(ExpressionServiceBuilder expressionServiceBuilder) {
+            return configureParser(expressionServiceBuilder);
+        }
+    }
+
+    public static class Datetime extends DatetimeExpressionCompilerTest {
+        @Override
+        protected ExpressionServiceBuilder configure(ExpressionServiceBuilder expressionServiceBuilder) {
+            return configureParser(expressionServiceBuilder);
+        }
+    }
+
+    public static class Function extends FunctionExpressionCompilerTest {
+        @Override
+        protected ExpressionServiceBuilder configure(ExpressionServiceBuilder expressionServiceBuilder) {
+            return configureParser(expressionServiceBuilder);
+        }
+    }
+
+    public static class ImplicitRoot extends ImplicitRootExpressionCompilerTest {
+        @Override
+        protected ExpressionServiceBuilder configure(ExpressionServiceBuilder expressionServiceBuilder) {
+            return configureParser(expressionServiceBuilder);
+        }
+    }
+
+    public static class Strings extends StringExpressionCompilerTest {
+        @Override
+        protected ExpressionServiceBuilder configure(ExpressionServiceBuilder expressionServiceBuilder) {
+            return configureParser(expressionServiceBuilder);
+        }
+    }
+
+    public static class Template extends TemplateExpressionCompilerTest {
+        @Override
+        protected ExpressionServiceBuilder configure(ExpressionServiceBuilder expressionServiceBuilder) {
+            return configureParser(expressionServiceBuilder);
+        }
+    }
+
+    public static class TemporalInterval extends TemporalIntervalExpressionCompilerTest {
+        @Override
+        protected ExpressionServiceBuilder configure(ExpressionServiceBuilder expressionServiceBuilder) {
+            return configureParser(expressionServiceBuilder);
+        }
+    }
+}
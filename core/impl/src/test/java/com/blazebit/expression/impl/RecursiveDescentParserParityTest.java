@@ -0,0 +1,273 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazebit.expression.impl;
+
+import com.blazebit.expression.Expression;
+import com.blazebit.expression.ExpressionCompiler;
+import com.blazebit.expression.ExpressionParserType;
+import com.blazebit.expression.ExpressionService;
+import com.blazebit.expression.Expressions;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Compiles valid and invalid inputs with the ANTLR and the recursive descent parser and asserts that both produce
+ * equal models or fail with the same exception type and message.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+@RunWith(Parameterized.class)
+public class RecursiveDescentParserParityTest extends AbstractExpressionCompilerTest {
+
+    private static final String[] PREDICATES = {
+        // Valid
+        "user.age > 1",
+        "1 > (2 + 3)",
+        "1 > -(2 + 3)",
+        "1 > -(-(2 + 3))",
+        "user.active",
+        "user.active AND user.age > 1 OR user.email = 'a'",
+        "user.active OR user.age > 1 AND user.email = 'a'",
+        "(user.active OR user.age > 1) AND user.email = 'a'",
+        "!user.active",
+        "!!user.active",
+        "NOT user.active",
+        "NOT NOT user.active",
+        "NOT (user.active)",
+        "!(user.age > 1 OR user.active)",
+        "NOT user.age > 1",
+        "NOT 1 > 2",
+        "user.age IS NULL",
+        "user.age IS NOT NULL",
+        "user.age IN (1, 2, 3)",
+        "user.age NOT IN (1, 2)",
+        "user.age BETWEEN 1 AND 10",
+        "user.age NOT BETWEEN 1 AND 10",
+        "user.age = 1 AND user.age BETWEEN 1 AND 2 OR user.active",
+        "user.age + 2 * 3 - 4 / 5 % 6 > 0",
+        "user.age <> 1",
+        "user.age != 1",
+        "user.age >= 1 AND user.age <= 2 AND user.age < 3",
+        "user.email = 'a''b'",
+        "user.email = \"a\"",
+        "user.gender = gender.MALE",
+        "user.birthday < TIMESTAMP(2020-01-01)",
+        "self(user.active)",
+        "self(object = user.active)",
+        "self(user).active",
+        "TRUE",
+        "FALSE OR TRUE",
+        // NOT as negation or identifier
+        "NOT(user.active)",
+        "NOT(user.active) AND user.active",
+        "user.active AND NOT(user.active)",
+        "NOT(1 > 0) OR user.active",
+        "NOT(1) > 0",
+        "NOT(user.active) = TRUE",
+        "(NOT(user.active))",
+        "NOT NOT(user.active)",
+        "!NOT(user.active)",
+        "NOT +1 > 0",
+        "NOT -1 > 0",
+        "self(NOT(user.active))",
+        "self(NOT (user.active))",
+        "self(NOT user.active)",
+        "self(!(user.active))",
+        "NOT(user.active).x",
+        "NOT.x",
+        "NOT",
+        "NOT IS NULL",
+        "NOT > 1",
+        "NOT user.age",
+        // Invalid
+        "1 > (2 + 3",
+        "1>--(2+3))",
+        "user.age >",
+        "user.age IS",
+        "user.age IS NOT",
+        "user.age IN ()",
+        "user.age BETWEEN 1",
+        "AND user.active",
+        "user.active AND",
+        "user.age > 1 user.active",
+        "user.email = 'abc",
+        "user.unknown > 1",
+        "unknown(1)",
+        "user.age = 'a'",
+        "",
+        ")",
+        "user.",
+        "user..age > 1",
+        "self(,)",
+        "self(user.active",
+        "TIMESTAMP(2020-01-01",
+        "[1, 2]",
+        "1 + 2"
+    };
+    private static final String[] EXPRESSIONS = {
+        // Valid
+        "1",
+        "-1",
+        "+1",
+        "--1",
+        "1 + 2 * 3",
+        "(1 + 2) * 3",
+        "-(1 + 2)",
+        "user.age",
+        "user.age / 2",
+        "self(user.age) + 1",
+        "'abc'",
+        "1.5",
+        "INTERVAL 1 DAYS",
+        "TIMESTAMP(2020-01-01 00:00:00)",
+        // Invalid
+        "1 +",
+        "(1",
+        "1)",
+        "user.active AND user.active",
+        "1 > 2",
+        "NOT 1",
+        "NOT(1)",
+        "NOT + 1",
+        "self(NOT(1))",
+        "self(NOT - 1)",
+        "INTERVAL",
+        "1 2"
+    };
+    private static final String[] EXPRESSIONS_OR_PREDICATES = {
+        "1",
+        "user.age",
+        "user.age > 1",
+        "user.active AND user.age > 1",
+        "(user.age)",
+        "(user.age > 1)",
+        "!user.active",
+        "NOT user.active",
+        "NOT(user.active)",
+        "NOT (user.active)",
+        "NOT (1 > 0)",
+        "(NOT(user.active))",
+        "NOT(user.active) AND user.active",
+        "NOT(1) > 0",
+        "NOT +1 > 0",
+        "NOT -1",
+        "self(NOT(user.active))",
+        "(1 + 2) * 3",
+        "(1 + 2) * 3 > 4",
+        "self(user.active) AND user.active",
+        "1 +",
+        "user.age >"
+    };
+    private static final String[] TEMPLATES = {
+        "abc",
+        "",
+        "#{1}",
+        "abc #{user.age} def",
+        "#{user.age}#{user.email}",
+        "#{'a' + 'b'}",
+        "#{user.age",
+        "#{}",
+        "#{1 > 2}",
+        "#{NOT(1)}"
+    };
+
+    private final String kind;
+    private final String input;
+    private ExpressionCompiler antlrCompiler;
+    private ExpressionCompiler.Context antlrContext;
+    private ExpressionCompiler recursiveDescentCompiler;
+    private ExpressionCompiler.Context recursiveDescentContext;
+
+    public RecursiveDescentParserParityTest(String kind, String input) {
+        this.kind = kind;
+        this.input = input;
+    }
+
+    @Parameterized.Parameters(name = "{0}: {1}")
+    public static Collection<Object[]> getParameters() {
+        List<Object[]> parameters = new ArrayList<>();
+        addParameters(parameters, "predicate", PREDICATES);
+        addParameters(parameters, "expression", EXPRESSIONS);
+        addParameters(parameters, "expressionOrPredicate", EXPRESSIONS_OR_PREDICATES);
+        addParameters(parameters, "template", TEMPLATES);
+        return parameters;
+    }
+
+    private static void addParameters(List<Object[]> parameters, String kind, String[] inputs) {
+        for (String input : inputs) {
+            parameters.add(new Object[]{ kind, input });
+        }
+    }
+
+    @Before
+    public void setupCompilers() {
+        ExpressionService antlrService = getExpressionService();
+        ExpressionService recursiveDescentService = Expressions.getDefaultProvider().createBuilder(antlrService)
+            .withExpressionParserType(ExpressionParserType.RECURSIVE_DESCENT)
+            .build();
+        antlrCompiler = antlrService.createCompiler();
+        antlrContext = antlrCompiler.createContext(Collections.singletonMap("user", antlrService.getDomainModel().getType("user")));
+        recursiveDescentCompiler = recursiveDescentService.createCompiler();
+        recursiveDescentContext = recursiveDescentCompiler.createContext(Collections.singletonMap("user", recursiveDescentService.getDomainModel().getType("user")));
+    }
+
+    @Test
+    public void testSameResult() {
+        BiFunction<ExpressionCompiler, ExpressionCompiler.Context, Expression> parser;
+        switch (kind) {
+            case "predicate":
+                parser = (compiler, context) -> compiler.createPredicate(input, context);
+                break;
+            case "expression":
+                parser = (compiler, context) -> compiler.createExpression(input, context);
+                break;
+            case "expressionOrPredicate":
+                parser = (compiler, context) -> compiler.createExpressionOrPredicate(input, context);
+                break;
+            default:
+                parser = (compiler, context) -> compiler.createTemplateExpression(input, context);
+                break;
+        }
+        Object expected = parse(parser, antlrCompiler, antlrContext);
+        Object actual = parse(parser, recursiveDescentCompiler, recursiveDescentContext);
+        if (expected instanceof RuntimeException) {
+            Assert.assertTrue("Expected " + expected + " but got " + actual, actual instanceof RuntimeException);
+            Assert.assertEquals(expected.getClass(), actual.getClass());
+            Assert.assertEquals(((RuntimeException) expected).getMessage(), ((RuntimeException) actual).getMessage());
+        } else {
+            Assert.assertEquals(expected, actual);
+        }
+    }
+
+    private static Object parse(BiFunction<ExpressionCompiler, ExpressionCompiler.Context, Expression> parser, ExpressionCompiler compiler, ExpressionCompiler.Context context) {
+        try {
+            return parser.apply(compiler, context);
+        } catch (RuntimeException ex) {
+            return ex;
+        }
+    }
+}
@@ -26,6 +26,7 @@ import org.junit.Test;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
 
 /**
  * @author Christian Beikov
@@ -65,6 +66,21 @@ public class SimpleExpressionCompilerTest extends AbstractExpressionCompilerTest
         parsePredicate("1>--(2+3))");
     }
 
+    @Test
+    public void testParseAfterSyntaxError() {
+        try {
+            parsePredicate("1 > (2 + 3");
+            fail("Expected syntax error");
+        } catch (SyntaxErrorException ex) {
+            // Expected
+        }
+        Predicate predicate = parsePredicateOnly("1 > (2 + 3)");
+        assertEquals(
+                gt(pos(number(1L)), pos(plus(pos(number(2L)), pos(number(3L))))),
+                predicate
+        );
+    }
+
     @Test
     public void testAdditionParenthesisDoubleNegatedParanthesis() {
         Predicate predicate = parsePredicate("1 > -(-(2 + 3))");
@@ -110,6 +110,24 @@ public class EntityViewAttributeUsageTest extends AbstractCoreTest {
                                 "AND second IS NOT NULL", cb.getQueryString());
     }
 
+    @Test
+    public void testCorrelationReuse() {
+        ExpressionCompiler compiler = expressionService.createCompiler();
+        ExpressionCompiler.Context compilerContext = compiler.createContext(Collections.singletonMap("user", domainType));
+        Predicate predicate = compiler.createPredicate("user.sameIdAge > 5 AND user.sameIdAge < 100", compilerContext);
+        ExpressionSerializer<WhereBuilder> serializer = expressionService.createSerializer(WhereBuilder.class);
+        ExpressionSerializer.Context serializerContext = new PersistenceExpressionSerializerContext<>(expressionService, null)
+            .withAlias("user", "userEntity");
+        CriteriaBuilder<UserEntity> cb = cbf.create(em, UserEntity.class);
+        serializer.serializeTo(serializerContext, predicate, cb);
+        // Both uses of the attribute must share one correlation
+        Assert.assertEquals("SELECT userEntity FROM UserEntity userEntity " +
+                                "LEFT JOIN UserEntity second ON (second.id = userEntity.id AND 1 = 1) " +
+                                "LEFT JOIN UserEntity _expr_correlation_0 ON (_expr_correlation_0.id = userEntity.id) " +
+                                "WHERE _expr_correlation_0.age > 5 " +
+                                "AND _expr_correlation_0.age < 100", cb.getQueryString());
+    }
+
     @DomainFunctions
     public static interface Functions {
         @PersistenceFunction(value = "?1 = ?2", predicate = true)
@@ -142,6 +160,13 @@ public class EntityViewAttributeUsageTest extends AbstractCoreTest {
             correlationResult = "id"
         )
         Collection<Integer> getSameAgeIds();
+        @MappingCorrelatedSimple(
+            correlated = UserEntity.class,
+            correlationBasis = "this",
+            correlationExpression = "id = EMBEDDING_VIEW(id)",
+            correlationResult = "age"
+        )
+        Long getSameIdAge();
     }
 
     public static class OldestSameNamedAgeSubqueryProvider implements SubqueryProvider {
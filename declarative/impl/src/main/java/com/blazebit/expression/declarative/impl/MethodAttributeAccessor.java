@@ -24,8 +24,16 @@ import com.blazebit.expression.spi.AttributeAccessor;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.function.Function;
 
 /**
  * @author Christian Beikov
@@ -34,27 +42,86 @@ import java.lang.reflect.Method;
 public class MethodAttributeAccessor implements MetadataDefinition<AttributeAccessor>, AttributeAccessor, Serializable {
 
     private static final Field GETTER;
+    private static final Field GETTER_FUNCTION;
 
     static {
         try {
             Field field = MethodAttributeAccessor.class.getDeclaredField("getter");
             field.setAccessible(true);
             GETTER = field;
+            field = MethodAttributeAccessor.class.getDeclaredField("getterFunction");
+            field.setAccessible(true);
+            GETTER_FUNCTION = field;
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
     private final transient Method getter;
+    private final transient Function<Object, Object> getterFunction;
 
     public MethodAttributeAccessor(Method getter) {
         this.getter = getter;
+        this.getterFunction = createGetterFunction(getter);
+    }
+
+    /**
+     * Creates a function for invoking the given getter that avoids the reflective call overhead.
+     * Public getters of classes visible to this class are bound through the {@link LambdaMetafactory},
+     * which allows the JIT to inline the getter. All other getters are invoked through a method handle.
+     *
+     * @param getter The getter method
+     * @return The getter function
+     */
+    private static Function<Object, Object> createGetterFunction(Method getter) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        Class<?> declaringClass = getter.getDeclaringClass();
+        if (Modifier.isPublic(getter.getModifiers()) && Modifier.isPublic(declaringClass.getModifiers()) && isVisible(declaringClass)) {
+            try {
+                MethodHandle handle = lookup.unreflect(getter);
+                CallSite callSite = LambdaMetafactory.metafactory(
+                    lookup,
+                    "apply",
+                    MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class),
+                    handle,
+                    handle.type().wrap()
+                );
+                return (Function<Object, Object>) callSite.getTarget().invokeExact();
+            } catch (Throwable e) {
+                // Fall back to a method handle e.g. if an enclosing class is not accessible
+            }
+        }
+        MethodHandle handle;
+        try {
+            getter.setAccessible(true);
+            handle = lookup.unreflect(getter).asType(MethodType.methodType(Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Couldn't access getter: " + getter, e);
+        }
+        return object -> {
+            try {
+                return (Object) handle.invokeExact(object);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new UndeclaredThrowableException(e);
+            }
+        };
+    }
+
+    private static boolean isVisible(Class<?> clazz) {
+        try {
+            return Class.forName(clazz.getName(), false, MethodAttributeAccessor.class.getClassLoader()) == clazz;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
     }
 
     @Override
     public Object getAttribute(ExpressionInterpreter.Context context, Object value, EntityDomainTypeAttribute attribute) {
         try {
-            return getter.invoke(value);
+            return getterFunction.apply(value);
         } catch (Exception e) {
             throw new RuntimeException("Couldn't access attribute " + attribute + " on object: " + value, e);
         }
@@ -81,6 +148,7 @@ public class MethodAttributeAccessor implements MetadataDefinition<AttributeAcce
         try {
             Method method = Class.forName(className).getDeclaredMethod(methodName);
             GETTER.set(this, method);
+            GETTER_FUNCTION.set(this, createGetterFunction(method));
         } catch (Exception e) {
             throw new IOException(e);
         }
@@ -25,6 +25,9 @@ import com.blazebit.expression.spi.FunctionInvoker;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
@@ -36,7 +39,9 @@ import java.util.Collection;
  */
 public class MethodFunctionInvoker implements MetadataDefinition<FunctionInvoker>, FunctionInvoker, Serializable {
 
+    private static final int MAX_EXACT_ARITY = 4;
     private static final Field FUNCTION;
+    private static final Field HANDLE;
     private static final Field VAR_ARG_COMPONENT_TYPE;
 
     static {
@@ -44,6 +49,9 @@ public class MethodFunctionInvoker implements MetadataDefinition<FunctionInvoker
             Field field = MethodFunctionInvoker.class.getDeclaredField("function");
             field.setAccessible(true);
             FUNCTION = field;
+            field = MethodFunctionInvoker.class.getDeclaredField("handle");
+            field.setAccessible(true);
+            HANDLE = field;
             field = MethodFunctionInvoker.class.getDeclaredField("varArgComponentType");
             field.setAccessible(true);
             VAR_ARG_COMPONENT_TYPE = field;
@@ -53,6 +61,7 @@ public class MethodFunctionInvoker implements MetadataDefinition<FunctionInvoker
     }
 
     private final transient Method function;
+    private final transient MethodHandle handle;
     private final boolean usesInterpreterContext;
     private final transient Class<?> varArgComponentType;
     private final int parameterCount;
@@ -60,38 +69,96 @@ public class MethodFunctionInvoker implements MetadataDefinition<FunctionInvoker
     public MethodFunctionInvoker(Method function, int parameterCount) {
         function.setAccessible(true);
         this.function = function;
+        this.handle = createHandle(function, parameterCount);
         this.usesInterpreterContext = function.getParameterCount() > 0 && function.getParameterTypes()[0] == ExpressionInterpreter.Context.class;
         this.varArgComponentType = function.isVarArgs() ? function.getParameterTypes()[function.getParameterCount() - 1].getComponentType() : null;
         this.parameterCount = parameterCount;
     }
 
+    /**
+     * Creates a method handle with a generic signature for the given function.
+     * Up to {@link #MAX_EXACT_ARITY} parameters, the handle accepts the arguments directly so that no argument array has to be allocated,
+     * for more parameters the handle accepts an argument array.
+     *
+     * @param function The function method
+     * @param parameterCount The parameter count
+     * @return The method handle
+     */
+    private static MethodHandle createHandle(Method function, int parameterCount) {
+        try {
+            MethodHandle handle = MethodHandles.lookup().unreflect(function).asFixedArity();
+            if (parameterCount > MAX_EXACT_ARITY) {
+                return handle.asSpreader(Object[].class, parameterCount).asType(MethodType.methodType(Object.class, Object[].class));
+            }
+            return handle.asType(MethodType.genericMethodType(parameterCount));
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Couldn't access function: " + function, e);
+        }
+    }
+
     @Override
     public Object invoke(ExpressionInterpreter.Context context, DomainFunction function, DomainFunctionArguments arguments) {
         try {
-            Object[] args = new Object[parameterCount];
-            int i = 0;
-            int offset = 0;
-            if (usesInterpreterContext) {
-                args[i] = context;
-                offset = 1;
-            }
+            int offset = usesInterpreterContext ? 1 : 0;
             int argumentCount = function.getArguments().size();
-            int end = Math.min(parameterCount - offset, argumentCount) - 1;
-            for (; i < end; i++) {
-                args[i + offset] = arguments.getValue(i);
+            int last = Math.max(Math.min(parameterCount - offset, argumentCount) - 1, 0);
+            switch (parameterCount) {
+                case 0:
+                    return (Object) handle.invokeExact();
+                case 1:
+                    return (Object) handle.invokeExact(
+                        argument(context, arguments, 0, offset, last)
+                    );
+                case 2:
+                    return (Object) handle.invokeExact(
+                        argument(context, arguments, 0, offset, last),
+                        argument(context, arguments, 1, offset, last)
+                    );
+                case 3:
+                    return (Object) handle.invokeExact(
+                        argument(context, arguments, 0, offset, last),
+                        argument(context, arguments, 1, offset, last),
+                        argument(context, arguments, 2, offset, last)
+                    );
+                case 4:
+                    return (Object) handle.invokeExact(
+                        argument(context, arguments, 0, offset, last),
+                        argument(context, arguments, 1, offset, last),
+                        argument(context, arguments, 2, offset, last),
+                        argument(context, arguments, 3, offset, last)
+                    );
+                default:
+                    Object[] args = new Object[parameterCount];
+                    for (int i = 0; i < parameterCount; i++) {
+                        args[i] = argument(context, arguments, i, offset, last);
+                    }
+                    return (Object) handle.invokeExact(args);
             }
-            if (varArgComponentType == null) {
-                args[i + offset] = arguments.getValue(i);
-            } else {
-                Collection<Object> varArgs = (Collection<Object>) arguments.getValue(i);
-                args[i + offset] = varArgs.toArray((Object[]) Array.newInstance(varArgComponentType, varArgs.size()));
+        } catch (Throwable e) {
+            if (e instanceof Error) {
+                throw (Error) e;
             }
-            return this.function.invoke(null, args);
-        } catch (Exception e) {
             throw new RuntimeException("Couldn't invoke function " + function + " with arguments [" + arguments + "]", e);
         }
     }
 
+    private Object argument(ExpressionInterpreter.Context context, DomainFunctionArguments arguments, int parameterIndex, int offset, int last) {
+        if (parameterIndex < offset) {
+            return context;
+        }
+        int i = parameterIndex - offset;
+        if (i < last) {
+            return arguments.getValue(i);
+        } else if (i > last) {
+            return null;
+        } else if (varArgComponentType == null) {
+            return arguments.getValue(i);
+        } else {
+            Collection<Object> varArgs = (Collection<Object>) arguments.getValue(i);
+            return varArgs.toArray((Object[]) Array.newInstance(varArgComponentType, varArgs.size()));
+        }
+    }
+
     @Override
     public Class<FunctionInvoker> getJavaType() {
         return FunctionInvoker.class;
@@ -120,6 +187,7 @@ public class MethodFunctionInvoker implements MetadataDefinition<FunctionInvoker
             Method method = Class.forName(className).getDeclaredMethod(methodName);
             method.setAccessible(true);
             FUNCTION.set(this, method);
+            HANDLE.set(this, createHandle(method, method.getParameterCount()));
             VAR_ARG_COMPONENT_TYPE.set(this, Class.forName(varArgComponentType));
         } catch (Exception e) {
             throw new IOException(e);
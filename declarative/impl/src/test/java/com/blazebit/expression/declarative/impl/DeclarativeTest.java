@@ -4,6 +4,9 @@ import com.blazebit.domain.Domain;
 import com.blazebit.domain.boot.model.DomainBuilder;
 import com.blazebit.domain.declarative.DeclarativeDomain;
 import com.blazebit.domain.declarative.DeclarativeDomainConfiguration;
+import com.blazebit.domain.declarative.DomainFunction;
+import com.blazebit.domain.declarative.DomainFunctionParam;
+import com.blazebit.domain.declarative.DomainFunctions;
 import com.blazebit.domain.declarative.DomainType;
 import com.blazebit.domain.runtime.model.DomainModel;
 import com.blazebit.expression.ExpressionCompiler;
@@ -25,8 +28,7 @@ import java.util.Map;
 
 public class DeclarativeTest {
 
-    @Test
-    public void testInterpretationWithoutPersistence() {
+    private static DeclarativeDomainConfiguration createConfiguration() {
         DomainBuilder domainBuilder = Domain.getDefaultProvider().createDefaultBuilder();
         domainBuilder.createEnumType("Currency")
             .withValue("EUR")
@@ -43,6 +45,12 @@ public class DeclarativeTest {
             };
         });
         configuration.addDomainType(TestEntity.class);
+        return configuration;
+    }
+
+    @Test
+    public void testInterpretationWithoutPersistence() {
+        DeclarativeDomainConfiguration configuration = createConfiguration();
         DomainModel domainModel = configuration.createDomainModel();
         Map<String, com.blazebit.domain.runtime.model.DomainType> rootDomainTypes = Collections.singletonMap("entity", domainModel.getType("TestEntity"));
         ExpressionService expressionService = Expressions.forModel(domainModel);
@@ -61,6 +69,42 @@ public class DeclarativeTest {
         Assert.assertEquals(Currency.getInstance("EUR"), currencyModel);
     }
 
+    @Test
+    public void testFunctionInvocation() {
+        DeclarativeDomainConfiguration configuration = createConfiguration();
+        configuration.addDomainFunctions(TestFunctions.class);
+        DomainModel domainModel = configuration.createDomainModel();
+        Map<String, com.blazebit.domain.runtime.model.DomainType> rootDomainTypes = Collections.singletonMap("entity", domainModel.getType("TestEntity"));
+        ExpressionService expressionService = Expressions.forModel(domainModel);
+        ExpressionCompiler compiler = expressionService.createCompiler();
+        ExpressionInterpreter interpreter = expressionService.createInterpreter();
+        ExpressionInterpreter.Context interpreterContext = ExpressionInterpreterContext.create(expressionService)
+            .withRoot("entity", new TestEntity("abc", Currency.getInstance("EUR")));
+        ExpressionCompiler.Context compilerContext = compiler.createContext(rootDomainTypes);
+        Assert.assertEquals("abc-x", interpreter.evaluate(compiler.createExpression("CONCAT2(entity.name, 'x')", compilerContext), interpreterContext));
+        Assert.assertEquals("abc", interpreter.evaluate(compiler.createExpression("CONCAT2(entity.name)", compilerContext), interpreterContext));
+        Assert.assertEquals("abc-b-c-d-e", interpreter.evaluate(compiler.createExpression("CONCAT5(entity.name, 'b', 'c', 'd', 'e')", compilerContext), interpreterContext));
+        Assert.assertEquals("abc", interpreter.evaluate(compiler.createExpression("PRIVATE_NAME(entity)", compilerContext), interpreterContext));
+    }
+
+    @DomainFunctions
+    static class TestFunctions {
+        @DomainFunction(value = "CONCAT2", minArguments = 1)
+        static String concat2(ExpressionInterpreter.Context context, @DomainFunctionParam("a") String a, @DomainFunctionParam("b") String b) {
+            return b == null ? a : a + "-" + b;
+        }
+
+        @DomainFunction("CONCAT5")
+        static String concat5(@DomainFunctionParam("a") String a, @DomainFunctionParam("b") String b, @DomainFunctionParam("c") String c, @DomainFunctionParam("d") String d, @DomainFunctionParam("e") String e) {
+            return a + "-" + b + "-" + c + "-" + d + "-" + e;
+        }
+
+        @DomainFunction("PRIVATE_NAME")
+        static String privateName(ExpressionInterpreter.Context context, @DomainFunctionParam("entity") TestEntity entity) {
+            return entity.name;
+        }
+    }
+
     @DomainType(value = "TestEntity")
     public static class TestEntity {
 
@@ -24,11 +24,14 @@ import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import java.util.Collections;
 import java.util.Locale;
+import java.util.Map;
 
 /**
  * @author Christian Beikov
@@ -40,6 +43,9 @@ public class ModelResource {
     @Context
     HttpHeaders headers;
 
+    @Context
+    Request request;
+
     @Inject
     ExpressionService expressionService;
 
@@ -47,8 +53,13 @@ public class ModelResource {
     @Produces(MediaType.APPLICATION_JSON)
     public Response getModel() {
         Locale locale = headers.getLanguage();
-        String json = expressionService.serialize(String.class, "json", Collections.singletonMap(DocumentationMetadataDefinition.LOCALE_PROPERTY, locale));
-        return Response.ok(json).build();
+        Map<String, Object> properties = Collections.singletonMap(DocumentationMetadataDefinition.LOCALE_PROPERTY, locale);
+        EntityTag entityTag = new EntityTag(expressionService.serialize(String.class, "json-etag", properties));
+        Response.ResponseBuilder builder = request.evaluatePreconditions(entityTag);
+        if (builder == null) {
+            builder = Response.ok(expressionService.serialize(String.class, "json", properties));
+        }
+        return builder.tag(entityTag).header(HttpHeaders.VARY, HttpHeaders.ACCEPT_LANGUAGE).build();
     }
 
 }
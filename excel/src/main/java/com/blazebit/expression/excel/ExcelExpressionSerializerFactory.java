@@ -21,12 +21,14 @@ import com.blazebit.expression.ExpressionSerializer;
 import com.blazebit.expression.ExpressionService;
 import com.blazebit.expression.spi.ExpressionSerializerFactory;
 
+import java.io.Serializable;
+
 /**
  * @author Christian Beikov
  * @since 1.0.0
  */
 @ServiceProvider(ExpressionSerializerFactory.class)
-public class ExcelExpressionSerializerFactory implements ExpressionSerializerFactory<StringBuilder> {
+public class ExcelExpressionSerializerFactory implements ExpressionSerializerFactory<StringBuilder>, Serializable {
 
     public static final String SERIALIZATION_FORMAT = "excel";
 
@@ -26,6 +26,7 @@ public interface PersistenceCorrelationRenderer {
 
     /**
      * Renders a correlation to the given {@link CriteriaBuilder}.
+     * The serializer invokes this only once per parent alias within a serialization and reuses the returned alias for further uses.
      *
      * @param cb The {@link CriteriaBuilder}
      * @param parentAlias The parent alias
@@ -45,10 +45,13 @@ import com.blazebit.expression.Predicate;
 import com.blazebit.expression.spi.DefaultResolvedLiteral;
 import com.blazebit.persistence.CriteriaBuilder;
 import com.blazebit.persistence.MultipleSubqueryInitiator;
+import com.blazebit.persistence.ParameterHolder;
 import com.blazebit.persistence.WhereBuilder;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -61,9 +64,12 @@ public class PersistenceExpressionSerializer implements Expression.ResultVisitor
 
     public static final String CONSTANT_INLINING_INTERPRETER_CONTEXT = "persistence.constant_inlining_interpreter_context";
     public static final String PATHS_TO_INLINE = "persistence.paths_to_inline";
+    public static final String LITERALS_AS_PARAMETERS = "persistence.literals_as_parameters";
+    public static final String SERIALIZATION_CACHE = "persistence.serialization_cache";
 
     private static final String SUBQUERY_PREFIX = "_expr_subquery_";
     private static final String CORRELATION_ALIAS_PREFIX = "_expr_correlation_";
+    private static final String PARAMETER_PREFIX = "_expr_param_";
 
     private final ExpressionService expressionService;
     private final StringBuilder tempSb;
@@ -71,12 +77,18 @@ public class PersistenceExpressionSerializer implements Expression.ResultVisitor
     private final Map<Object, Object> properties;
     private int subqueryCount;
     private int correlationCount;
+    private int parameterCount;
     private StringBuilder sb;
     private WhereBuilder<?> whereBuilder;
     private Context context;
     private ExpressionInterpreter interpreterForInlining;
     private ExpressionInterpreter.Context interpreterContextForInlining;
     private Set<String> pathsToInline;
+    private Map<String, Object> parameters;
+    private RenderingRecorder renderingRecorder;
+    private Map<FunctionInvocation, RenderedFunctionInvocation> renderedFunctionInvocations;
+    private Map<CorrelationKey, String> correlations;
+    private int uncacheableCount;
 
     /**
      * Creates a new serializer for serializing to a Blaze-Persistence Core WhereBuilder.
@@ -118,6 +130,9 @@ public class PersistenceExpressionSerializer implements Expression.ResultVisitor
     public String registerSubqueryProvider(PersistenceSubqueryProvider persistenceSubqueryProvider) {
         String alias = SUBQUERY_PREFIX + (subqueryCount++);
         subqueryProviders.put(alias, persistenceSubqueryProvider);
+        if (renderingRecorder != null) {
+            renderingRecorder.subqueryProviders.put(alias, persistenceSubqueryProvider);
+        }
         return alias;
     }
 
@@ -127,15 +142,52 @@ public class PersistenceExpressionSerializer implements Expression.ResultVisitor
      * @return The alias
      */
     public String nextCorrelationAlias() {
+        markUncacheable();
         return CORRELATION_ALIAS_PREFIX + (correlationCount++);
     }
 
+    /**
+     * Returns a new parameter name that may be used in queries.
+     *
+     * @return The parameter name
+     */
+    public String nextParameterName() {
+        return PARAMETER_PREFIX + (parameterCount++);
+    }
+
+    /**
+     * Returns whether literals are rendered as parameters in the current serialization.
+     *
+     * @return <code>true</code> if literals are rendered as parameters, <code>false</code> otherwise
+     * @see #LITERALS_AS_PARAMETERS
+     */
+    public boolean isLiteralsAsParameters() {
+        return parameters != null;
+    }
+
+    /**
+     * Renders a named parameter for the given value to the current string builder.
+     * The value is bound to the query builder after the serialization if the query still refers to the parameter.
+     *
+     * @param value The parameter value
+     * @throws IllegalStateException when literals are not rendered as parameters in the current serialization
+     */
+    public void renderParameter(Object value) {
+        if (parameters == null) {
+            throw new IllegalStateException("Parameters can only be rendered when '" + LITERALS_AS_PARAMETERS + "' is enabled!");
+        }
+        String parameterName = nextParameterName();
+        parameters.put(parameterName, value);
+        sb.append(':').append(parameterName);
+    }
+
     /**
      * Returns the properties map.
      *
      * @return the properties map
      */
     public Map<Object, Object> getProperties() {
+        markUncacheable();
         return properties;
     }
 
@@ -154,9 +206,20 @@ public class PersistenceExpressionSerializer implements Expression.ResultVisitor
      * @return the query builder
      */
     public WhereBuilder<?> getWhereBuilder() {
+        markUncacheable();
         return whereBuilder;
     }
 
+    /**
+     * Marks the current rendering as not cacheable, because it has effects on the query builder that can't be replayed.
+     */
+    public void markUncacheable() {
+        uncacheableCount++;
+        if (renderingRecorder != null) {
+            renderingRecorder.cacheable = false;
+        }
+    }
+
     @Override
     public void serializeTo(Expression expression, WhereBuilder<?> target) {
         serializeTo(null, expression, target);
@@ -168,16 +231,28 @@ public class PersistenceExpressionSerializer implements Expression.ResultVisitor
         Context oldContext = context;
         ExpressionInterpreter.Context oldInterpreterContextForInlining = interpreterContextForInlining;
         Set<String> oldPathsToInline = pathsToInline;
+        Map<String, Object> oldParameters = parameters;
+        RenderingRecorder oldRenderingRecorder = renderingRecorder;
+        Map<FunctionInvocation, RenderedFunctionInvocation> oldRenderedFunctionInvocations = renderedFunctionInvocations;
+        Map<CorrelationKey, String> oldCorrelations = correlations;
+        renderedFunctionInvocations = null;
+        correlations = null;
         whereBuilder = target;
         context = newContext;
         Object constantInliningInterpreterContext;
         Object pathsToInline;
+        Object literalsAsParameters;
+        Object serializationCache;
         if (newContext == null) {
             constantInliningInterpreterContext = null;
             pathsToInline = null;
+            literalsAsParameters = null;
+            serializationCache = null;
         } else {
             constantInliningInterpreterContext = newContext.getContextParameter(CONSTANT_INLINING_INTERPRETER_CONTEXT);
             pathsToInline = newContext.getContextParameter(PATHS_TO_INLINE);
+            literalsAsParameters = newContext.getContextParameter(LITERALS_AS_PARAMETERS);
+            serializationCache = newContext.getContextParameter(SERIALIZATION_CACHE);
         }
         if (constantInliningInterpreterContext == null) {
             interpreterContextForInlining = null;
@@ -193,19 +268,88 @@ public class PersistenceExpressionSerializer implements Expression.ResultVisitor
         } else {
             throw new IllegalArgumentException("Illegal value given for '" + PATHS_TO_INLINE + "'. Expected Set<String> but got: " + pathsToInline);
         }
+        if (literalsAsParameters == null || Boolean.FALSE.equals(literalsAsParameters)) {
+            this.parameters = null;
+        } else if (Boolean.TRUE.equals(literalsAsParameters)) {
+            if (!(target instanceof ParameterHolder<?>)) {
+                throw new IllegalArgumentException("Rendering literals as parameters requires a query builder that is a ParameterHolder but got: " + target);
+            }
+            this.parameters = new LinkedHashMap<>();
+        } else {
+            throw new IllegalArgumentException("Illegal value given for '" + LITERALS_AS_PARAMETERS + "'. Expected Boolean but got: " + literalsAsParameters);
+        }
+        PersistenceExpressionSerializerCache cache;
+        if (serializationCache == null) {
+            cache = null;
+        } else if (serializationCache instanceof PersistenceExpressionSerializerCache) {
+            cache = (PersistenceExpressionSerializerCache) serializationCache;
+        } else {
+            throw new IllegalArgumentException("Illegal value given for '" + SERIALIZATION_CACHE + "'. Expected PersistenceExpressionSerializerCache but got: " + serializationCache);
+        }
         try {
+            // Inlined constants depend on the interpreter context, so such renderings are never cached
+            if (cache != null && interpreterContextForInlining == null && this.pathsToInline == null) {
+                PersistenceExpressionSerializerCache.Entry entry = cache.get(expression, newContext, parameters != null);
+                if (entry != null) {
+                    replay(entry, target);
+                    return;
+                }
+                renderingRecorder = new RenderingRecorder(newContext);
+                context = renderingRecorder;
+            } else {
+                renderingRecorder = null;
+            }
             sb.setLength(0);
             expression.accept(this);
+            if (renderingRecorder != null && renderingRecorder.cacheable) {
+                cache.put(expression, renderingRecorder.createEntry(sb.toString(), parameters));
+            }
             MultipleSubqueryInitiator<?> multiSubqueryInitiator = target.whereExpressionSubqueries(sb.toString());
             for (Map.Entry<String, PersistenceSubqueryProvider> entry : subqueryProviders.entrySet()) {
                 entry.getValue().createSubquery(multiSubqueryInitiator.with(entry.getKey()));
             }
             multiSubqueryInitiator.end();
+            if (parameters != null) {
+                ParameterHolder<?> parameterHolder = (ParameterHolder<?>) target;
+                for (Map.Entry<String, Object> entry : parameters.entrySet()) {
+                    // Parameters of sub-expressions that were replaced by an inlined constant are not part of the query
+                    if (parameterHolder.containsParameter(entry.getKey())) {
+                        parameterHolder.setParameter(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
         } finally {
             whereBuilder = old;
             context = oldContext;
             interpreterContextForInlining = oldInterpreterContextForInlining;
             this.pathsToInline = oldPathsToInline;
+            this.parameters = oldParameters;
+            this.renderingRecorder = oldRenderingRecorder;
+            this.renderedFunctionInvocations = oldRenderedFunctionInvocations;
+            this.correlations = oldCorrelations;
+        }
+    }
+
+    private void replay(PersistenceExpressionSerializerCache.Entry entry, WhereBuilder<?> target) {
+        String[] fragments = entry.getFragments();
+        Object[] parameterValues = entry.getParameterValues();
+        String[] parameterNames = new String[parameterValues.length];
+        sb.setLength(0);
+        sb.append(fragments[0]);
+        for (int i = 0; i < parameterValues.length; i++) {
+            parameterNames[i] = nextParameterName();
+            sb.append(':').append(parameterNames[i]).append(fragments[i + 1]);
+        }
+        MultipleSubqueryInitiator<?> multiSubqueryInitiator = target.whereExpressionSubqueries(sb.toString());
+        for (Map.Entry<String, PersistenceSubqueryProvider> subqueryEntry : entry.getSubqueryProviders().entrySet()) {
+            subqueryEntry.getValue().createSubquery(multiSubqueryInitiator.with(subqueryEntry.getKey()));
+        }
+        multiSubqueryInitiator.end();
+        if (parameterValues.length != 0) {
+            ParameterHolder<?> parameterHolder = (ParameterHolder<?>) target;
+            for (int i = 0; i < parameterValues.length; i++) {
+                parameterHolder.setParameter(parameterNames[i], parameterValues[i]);
+            }
         }
     }
 
@@ -229,6 +373,31 @@ public class PersistenceExpressionSerializer implements Expression.ResultVisitor
 
     @Override
     public Boolean visit(FunctionInvocation e) {
+        if (e.getFunction().getVolatility() == DomainFunctionVolatility.VOLATILE) {
+            return render(e);
+        }
+        // Structurally equal invocations of deterministic functions render the same, so reuse the rendering if it had no side effects
+        if (renderedFunctionInvocations != null) {
+            RenderedFunctionInvocation renderedFunctionInvocation = renderedFunctionInvocations.get(e);
+            if (renderedFunctionInvocation != null) {
+                sb.append(renderedFunctionInvocation.rendered);
+                return renderedFunctionInvocation.constant;
+            }
+        }
+        int startIndex = sb.length();
+        int subqueryCount = this.subqueryCount;
+        int uncacheableCount = this.uncacheableCount;
+        Boolean constant = render(e);
+        if (subqueryCount == this.subqueryCount && uncacheableCount == this.uncacheableCount) {
+            if (renderedFunctionInvocations == null) {
+                renderedFunctionInvocations = new HashMap<>();
+            }
+            renderedFunctionInvocations.put(e, new RenderedFunctionInvocation(sb.substring(startIndex), constant));
+        }
+        return constant;
+    }
+
+    private Boolean render(FunctionInvocation e) {
         int startIndex = sb.length();
         PersistenceFunctionRenderer renderer = e.getFunction().getMetadata(PersistenceFunctionRenderer.class);
         if (renderer == null) {
@@ -272,7 +441,11 @@ public class PersistenceExpressionSerializer implements Expression.ResultVisitor
             Object value = e.getValue();
             PersistenceLiteralRenderer literalRenderer = e.getType().getMetadata(PersistenceLiteralRenderer.class);
             if (literalRenderer != null) {
-                literalRenderer.render(value, e.getType(), this);
+                if (parameters != null && value != null && literalRenderer.isBindable(value, e.getType())) {
+                    renderParameter(value);
+                } else {
+                    literalRenderer.render(value, e.getType(), this);
+                }
             } else {
                 sb.append(value);
             }
@@ -358,6 +531,8 @@ public class PersistenceExpressionSerializer implements Expression.ResultVisitor
 
     /**
      * Applies a JPQL.Next expression for the entity domain attribute to the given string builder.
+     * A correlation is only rendered once per parent alias and attribute within a serialization,
+     * so that every further use of the attribute reuses the already registered correlation join or subquery.
      *
      * @param sb The string builder to append to
      * @param attribute The entity domain attribute
@@ -370,9 +545,19 @@ public class PersistenceExpressionSerializer implements Expression.ResultVisitor
         } else {
             PersistenceCorrelationRenderer persistenceCorrelationRenderer = attribute.getMetadata(PersistenceCorrelationRenderer.class);
             if (persistenceCorrelationRenderer != null) {
+                markUncacheable();
                 String parent = sb.toString();
                 sb.setLength(0);
-                sb.append(persistenceCorrelationRenderer.correlate((CriteriaBuilder<?>) whereBuilder, parent, this));
+                CorrelationKey correlationKey = new CorrelationKey(parent, attribute);
+                String correlation = correlations == null ? null : correlations.get(correlationKey);
+                if (correlation == null) {
+                    correlation = persistenceCorrelationRenderer.correlate((CriteriaBuilder<?>) whereBuilder, parent, this);
+                    if (correlations == null) {
+                        correlations = new HashMap<>();
+                    }
+                    correlations.put(correlationKey, correlation);
+                }
+                sb.append(correlation);
             } else {
                 return true;
             }
@@ -401,6 +586,7 @@ public class PersistenceExpressionSerializer implements Expression.ResultVisitor
         }
         PersistenceCorrelationRenderer persistenceCorrelationRenderer = type.getMetadata(PersistenceCorrelationRenderer.class);
         if (persistenceCorrelationRenderer != null) {
+            markUncacheable();
             return persistenceCorrelationRenderer.correlate((CriteriaBuilder<?>) whereBuilder, null, this);
         }
         return null;
@@ -560,6 +746,121 @@ public class PersistenceExpressionSerializer implements Expression.ResultVisitor
         return inlineIfConstant(e, startIndex, isConstant);
     }
 
+    /**
+     * A context that records the context parameters read during a rendering, which determine whether a cached rendering can be reused.
+     *
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    private static final class RenderingRecorder implements Context {
+
+        private final Context delegate;
+        private final Map<String, Object> contextParameters = new LinkedHashMap<>();
+        private final Map<String, PersistenceSubqueryProvider> subqueryProviders = new LinkedHashMap<>();
+        private boolean cacheable = true;
+
+        public RenderingRecorder(Context delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public ExpressionService getExpressionService() {
+            return delegate.getExpressionService();
+        }
+
+        @Override
+        public <X> X getContextParameter(String contextParameterName) {
+            X value = delegate.getContextParameter(contextParameterName);
+            contextParameters.putIfAbsent(contextParameterName, value);
+            return value;
+        }
+
+        public PersistenceExpressionSerializerCache.Entry createEntry(String rendered, Map<String, Object> parameters) {
+            List<String> fragments = new ArrayList<>();
+            List<Object> parameterValues = new ArrayList<>();
+            if (parameters != null) {
+                String parameterMarker = ":" + PARAMETER_PREFIX;
+                int fragmentStart = 0;
+                int index = rendered.indexOf(parameterMarker);
+                while (index != -1) {
+                    int end = index + parameterMarker.length();
+                    while (end < rendered.length() && Character.isDigit(rendered.charAt(end))) {
+                        end++;
+                    }
+                    String parameterName = rendered.substring(index + 1, end);
+                    if (parameters.containsKey(parameterName)) {
+                        fragments.add(rendered.substring(fragmentStart, index));
+                        parameterValues.add(parameters.get(parameterName));
+                        fragmentStart = end;
+                    }
+                    index = rendered.indexOf(parameterMarker, end);
+                }
+                fragments.add(rendered.substring(fragmentStart));
+            } else {
+                fragments.add(rendered);
+            }
+            return new PersistenceExpressionSerializerCache.Entry(
+                parameters != null,
+                contextParameters.keySet().toArray(new String[0]),
+                contextParameters.values().toArray(),
+                fragments.toArray(new String[0]),
+                parameterValues.toArray(),
+                subqueryProviders
+            );
+        }
+    }
+
+    /**
+     * Identifies a correlation by the parent alias and the correlated attribute.
+     *
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    private static final class CorrelationKey {
+
+        private final String parentAlias;
+        private final EntityDomainTypeAttribute attribute;
+
+        public CorrelationKey(String parentAlias, EntityDomainTypeAttribute attribute) {
+            this.parentAlias = parentAlias;
+            this.attribute = attribute;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            CorrelationKey that = (CorrelationKey) o;
+            return parentAlias.equals(that.parentAlias) && attribute.equals(that.attribute);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * parentAlias.hashCode() + attribute.hashCode();
+        }
+    }
+
+    /**
+     * The rendering of a function invocation that can be reused for structurally equal function invocations.
+     *
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    private static final class RenderedFunctionInvocation {
+
+        private final String rendered;
+        private final Boolean constant;
+
+        public RenderedFunctionInvocation(String rendered, Boolean constant) {
+            this.rendered = rendered;
+            this.constant = constant;
+        }
+    }
+
     /**
      * @author Christian Beikov
      * @since 1.0.0
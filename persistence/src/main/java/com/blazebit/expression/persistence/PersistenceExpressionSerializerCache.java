@@ -0,0 +1,250 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazebit.expression.persistence;
+
+import com.blazebit.expression.Expression;
+import com.blazebit.expression.ExpressionSerializer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A size bounded LRU cache for JPQL.Next fragments rendered by the {@link PersistenceExpressionSerializer}.
+ * Renderings are cached per expression instance, so the cache is most effective with expressions that are compiled once and reused.
+ * Every rendering records the context parameters that were read while rendering and is only reused if the given context
+ * has equal values for these context parameters. Subquery providers registered while rendering are replayed on every reuse,
+ * so they must not refer to the query builder or serializer they were created for.
+ * Renderings that correlate attributes or access the query builder are never cached.
+ * The cache can be shared by multiple threads and is enabled by passing it as {@link PersistenceExpressionSerializer#SERIALIZATION_CACHE} context parameter.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public class PersistenceExpressionSerializerCache {
+
+    private static final int MAX_VARIANTS = 8;
+    private static final Entry[] EMPTY = new Entry[0];
+
+    private final int maximumSize;
+    private final Map<ExpressionKey, Entry[]> entries;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * Creates a new cache for renderings of at most the given number of expressions.
+     *
+     * @param maximumSize The maximum number of expressions
+     */
+    public PersistenceExpressionSerializerCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Invalid maximum size: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.entries = new LinkedHashMap<ExpressionKey, Entry[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ExpressionKey, Entry[]> eldest) {
+                return size() > PersistenceExpressionSerializerCache.this.maximumSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached rendering of the given expression that is valid for the given context or <code>null</code>.
+     *
+     * @param expression The expression
+     * @param context The serialization context
+     * @param literalsAsParameters Whether literals are rendered as parameters
+     * @return the cached rendering or <code>null</code>
+     */
+    Entry get(Expression expression, ExpressionSerializer.Context context, boolean literalsAsParameters) {
+        Entry[] variants;
+        synchronized (entries) {
+            variants = entries.get(new ExpressionKey(expression));
+        }
+        if (variants != null) {
+            for (int i = 0; i < variants.length; i++) {
+                if (variants[i].matches(context, literalsAsParameters)) {
+                    hitCount.increment();
+                    return variants[i];
+                }
+            }
+        }
+        missCount.increment();
+        return null;
+    }
+
+    /**
+     * Caches the given rendering of the given expression.
+     *
+     * @param expression The expression
+     * @param entry The rendering
+     */
+    void put(Expression expression, Entry entry) {
+        ExpressionKey key = new ExpressionKey(expression);
+        synchronized (entries) {
+            Entry[] variants = entries.get(key);
+            if (variants == null) {
+                variants = EMPTY;
+            }
+            // Replace the oldest variant if there are too many
+            int start = variants.length < MAX_VARIANTS ? 0 : 1;
+            Entry[] newVariants = new Entry[variants.length - start + 1];
+            System.arraycopy(variants, start, newVariants, 0, variants.length - start);
+            newVariants[newVariants.length - 1] = entry;
+            entries.put(key, newVariants);
+        }
+    }
+
+    /**
+     * Returns the maximum number of expressions for which renderings are cached.
+     *
+     * @return the maximum number of expressions
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Returns the number of expressions for which renderings are cached.
+     *
+     * @return the number of expressions
+     */
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Returns the number of serializations that reused a cached rendering.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * Returns the number of serializations that had to render the expression.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Removes all cached renderings.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * A cached rendering of an expression. The rendered fragments are split at the literal parameters,
+     * so that fresh parameter names can be used when replaying the rendering.
+     *
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    static final class Entry {
+
+        private final boolean literalsAsParameters;
+        private final String[] contextParameterNames;
+        private final Object[] contextParameterValues;
+        private final String[] fragments;
+        private final Object[] parameterValues;
+        private final Map<String, PersistenceSubqueryProvider> subqueryProviders;
+
+        /**
+         * Creates a new rendering.
+         *
+         * @param literalsAsParameters Whether literals were rendered as parameters
+         * @param contextParameterNames The names of the context parameters that were read while rendering
+         * @param contextParameterValues The values of the context parameters that were read while rendering
+         * @param fragments The rendered fragments between the literal parameters
+         * @param parameterValues The literal parameter values
+         * @param subqueryProviders The subquery providers registered while rendering
+         */
+        Entry(boolean literalsAsParameters, String[] contextParameterNames, Object[] contextParameterValues, String[] fragments, Object[] parameterValues, Map<String, PersistenceSubqueryProvider> subqueryProviders) {
+            this.literalsAsParameters = literalsAsParameters;
+            this.contextParameterNames = contextParameterNames;
+            this.contextParameterValues = contextParameterValues;
+            this.fragments = fragments;
+            this.parameterValues = parameterValues;
+            this.subqueryProviders = subqueryProviders;
+        }
+
+        /**
+         * Returns whether this rendering is valid for the given context.
+         *
+         * @param context The serialization context
+         * @param literalsAsParameters Whether literals are rendered as parameters
+         * @return whether this rendering can be reused
+         */
+        boolean matches(ExpressionSerializer.Context context, boolean literalsAsParameters) {
+            if (this.literalsAsParameters != literalsAsParameters) {
+                return false;
+            }
+            for (int i = 0; i < contextParameterNames.length; i++) {
+                if (!Objects.equals(contextParameterValues[i], context.getContextParameter(contextParameterNames[i]))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        String[] getFragments() {
+            return fragments;
+        }
+
+        Object[] getParameterValues() {
+            return parameterValues;
+        }
+
+        Map<String, PersistenceSubqueryProvider> getSubqueryProviders() {
+            return subqueryProviders;
+        }
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    private static final class ExpressionKey {
+
+        private final Expression expression;
+
+        public ExpressionKey(Expression expression) {
+            this.expression = expression;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ExpressionKey && expression == ((ExpressionKey) o).expression;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(expression);
+        }
+    }
+}
@@ -168,6 +168,43 @@ public class PersistenceExpressionSerializerContext<T> implements ExpressionSeri
         contextParameters.put(PersistenceExpressionSerializer.PATHS_TO_INLINE, pathsToInline);
     }
 
+    /**
+     * Returns whether literals should be rendered as query parameters.
+     *
+     * @return <code>true</code> if literals should be rendered as query parameters, <code>false</code> otherwise
+     */
+    public boolean isLiteralsAsParameters() {
+        return Boolean.TRUE.equals(contextParameters.get(PersistenceExpressionSerializer.LITERALS_AS_PARAMETERS));
+    }
+
+    /**
+     * Sets whether literals should be rendered as query parameters which are bound to the query builder,
+     * so that queries for different literal values share the same query string.
+     *
+     * @param literalsAsParameters Whether to render literals as query parameters
+     */
+    public void setLiteralsAsParameters(boolean literalsAsParameters) {
+        contextParameters.put(PersistenceExpressionSerializer.LITERALS_AS_PARAMETERS, literalsAsParameters);
+    }
+
+    /**
+     * Returns the cache for renderings of expressions or <code>null</code>.
+     *
+     * @return the cache for renderings of expressions or <code>null</code>
+     */
+    public PersistenceExpressionSerializerCache getSerializationCache() {
+        return (PersistenceExpressionSerializerCache) contextParameters.get(PersistenceExpressionSerializer.SERIALIZATION_CACHE);
+    }
+
+    /**
+     * Sets the cache for renderings of expressions, which allows to reuse the rendering of an expression when it is serialized again.
+     *
+     * @param serializationCache The cache for renderings of expressions
+     */
+    public void setSerializationCache(PersistenceExpressionSerializerCache serializationCache) {
+        contextParameters.put(PersistenceExpressionSerializer.SERIALIZATION_CACHE, serializationCache);
+    }
+
     @Override
     public ExpressionService getExpressionService() {
         return expressionService;
@@ -22,12 +22,14 @@ import com.blazebit.expression.ExpressionService;
 import com.blazebit.expression.spi.ExpressionSerializerFactory;
 import com.blazebit.persistence.WhereBuilder;
 
+import java.io.Serializable;
+
 /**
  * @author Christian Beikov
  * @since 1.0.0
  */
 @ServiceProvider(ExpressionSerializerFactory.class)
-public class PersistenceExpressionSerializerFactory implements ExpressionSerializerFactory<WhereBuilder<?>> {
+public class PersistenceExpressionSerializerFactory implements ExpressionSerializerFactory<WhereBuilder<?>>, Serializable {
 
     @Override
     public Class<WhereBuilder<?>> getSerializationTargetType() {
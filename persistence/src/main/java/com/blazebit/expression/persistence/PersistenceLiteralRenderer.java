@@ -38,6 +38,18 @@ public interface PersistenceLiteralRenderer {
      */
     void render(Object value, DomainType domainType, PersistenceExpressionSerializer serializer);
 
+    /**
+     * Returns whether the literal value may be bound as query parameter when {@link PersistenceExpressionSerializer#LITERALS_AS_PARAMETERS} is enabled.
+     * The value is bound as is, so a renderer should only allow this if the JPA provider accepts the value for the attributes it is compared with.
+     *
+     * @param value The literal value
+     * @param domainType The domain type of the literal
+     * @return <code>true</code> if the value may be bound as parameter, <code>false</code> if it must be rendered
+     */
+    default boolean isBindable(Object value, DomainType domainType) {
+        return false;
+    }
+
     /**
      *
      * @author Christian Beikov
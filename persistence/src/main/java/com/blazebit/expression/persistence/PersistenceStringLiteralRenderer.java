@@ -45,4 +45,9 @@ public class PersistenceStringLiteralRenderer implements PersistenceLiteralRende
         }
         sb.append('\'');
     }
+
+    @Override
+    public boolean isBindable(Object value, DomainType domainType) {
+        return value instanceof String;
+    }
 }
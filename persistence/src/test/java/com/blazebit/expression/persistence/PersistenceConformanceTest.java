@@ -19,11 +19,20 @@ package com.blazebit.expression.persistence;
 import com.blazebit.domain.Domain;
 import com.blazebit.domain.runtime.model.DomainFunction;
 import com.blazebit.domain.runtime.model.DomainModel;
+import com.blazebit.expression.ExpressionInterpreterContext;
+import com.blazebit.expression.ExpressionService;
+import com.blazebit.expression.Expressions;
+import com.blazebit.expression.Predicate;
+import com.blazebit.persistence.WhereBuilder;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Christian Beikov
@@ -45,4 +54,70 @@ public class PersistenceConformanceTest {
             Assert.fail("Not all functions have function renderers: " + failed);
         }
     }
+
+    @Test
+    public void testLiteralsAsParameters() {
+        ExpressionService expressionService = Expressions.forModel(Domain.getDefaultProvider().createDefaultBuilder().build());
+        Predicate predicate = expressionService.createCompiler().createPredicate("'abc' = 'def' AND 1 = 2");
+        RecordingQueryBuilder queryBuilder = new RecordingQueryBuilder(true);
+        PersistenceExpressionSerializerContext<Object> context = new PersistenceExpressionSerializerContext<>(expressionService, null);
+        context.setLiteralsAsParameters(true);
+        expressionService.createSerializer(WhereBuilder.class).serializeTo(context, predicate, queryBuilder.getWhereBuilder());
+
+        // Only renderers that opt in through isBindable render parameters, so the integer literals are rendered as is
+        Assert.assertEquals(Arrays.asList(":_expr_param_0 = :_expr_param_1 AND 1 = 2"), queryBuilder.getWhereExpressions());
+        Map<String, Object> expectedParameters = new LinkedHashMap<>();
+        expectedParameters.put("_expr_param_0", "abc");
+        expectedParameters.put("_expr_param_1", "def");
+        Assert.assertEquals(expectedParameters, queryBuilder.getParameters());
+    }
+
+    @Test
+    public void testLiteralsAsParametersSkipsParametersOfInlinedConstants() {
+        ExpressionService expressionService = Expressions.forModel(Domain.getDefaultProvider().createDefaultBuilder().build());
+        Predicate predicate = expressionService.createCompiler().createPredicate("RANDOM() < LENGTH('abc')");
+        RecordingQueryBuilder queryBuilder = new RecordingQueryBuilder(true);
+        PersistenceExpressionSerializerContext<Object> context = new PersistenceExpressionSerializerContext<>(expressionService, null);
+        context.setLiteralsAsParameters(true);
+        context.setInterpreterContextForInlining(ExpressionInterpreterContext.create(expressionService));
+        expressionService.createSerializer(WhereBuilder.class).serializeTo(context, predicate, queryBuilder.getWhereBuilder());
+
+        // The parameter for the argument of LENGTH is replaced by the inlined result, so it must not be bound
+        Assert.assertEquals(Arrays.asList("RANDOM() < 3"), queryBuilder.getWhereExpressions());
+        Assert.assertTrue(queryBuilder.getParameters().isEmpty());
+    }
+
+    @Test
+    public void testLiteralsAsParametersRequiresParameterHolder() {
+        ExpressionService expressionService = Expressions.forModel(Domain.getDefaultProvider().createDefaultBuilder().build());
+        Predicate predicate = expressionService.createCompiler().createPredicate("'abc' = 'def'");
+        RecordingQueryBuilder queryBuilder = new RecordingQueryBuilder(false);
+        PersistenceExpressionSerializerContext<Object> context = new PersistenceExpressionSerializerContext<>(expressionService, null);
+        context.setLiteralsAsParameters(true);
+        try {
+            expressionService.createSerializer(WhereBuilder.class).serializeTo(context, predicate, queryBuilder.getWhereBuilder());
+            Assert.fail("Expected rejection of a query builder that is no parameter holder");
+        } catch (IllegalArgumentException ex) {
+            Assert.assertTrue(ex.getMessage(), ex.getMessage().startsWith("Rendering literals as parameters requires a query builder that is a ParameterHolder"));
+        }
+        Assert.assertTrue(queryBuilder.getWhereExpressions().isEmpty());
+    }
+
+    @Test
+    public void testRenderParameterRequiresLiteralsAsParameters() {
+        ExpressionService expressionService = Expressions.forModel(Domain.getDefaultProvider().createDefaultBuilder().build());
+        Predicate predicate = expressionService.createCompiler().createPredicate("'abc' = 'def'");
+        RecordingQueryBuilder queryBuilder = new RecordingQueryBuilder(true);
+        PersistenceExpressionSerializer serializer = new PersistenceExpressionSerializer(expressionService);
+        serializer.serializeTo(new PersistenceExpressionSerializerContext<>(expressionService, null), predicate, queryBuilder.getWhereBuilder());
+
+        Assert.assertEquals(Arrays.asList("'abc' = 'def'"), queryBuilder.getWhereExpressions());
+        Assert.assertTrue(queryBuilder.getParameters().isEmpty());
+        try {
+            serializer.renderParameter("abc");
+            Assert.fail("Expected rejection of a parameter");
+        } catch (IllegalStateException ex) {
+            Assert.assertEquals("Parameters can only be rendered when '" + PersistenceExpressionSerializer.LITERALS_AS_PARAMETERS + "' is enabled!", ex.getMessage());
+        }
+    }
 }
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazebit.expression.persistence;
+
+import com.blazebit.domain.Domain;
+import com.blazebit.domain.boot.model.DomainBuilder;
+import com.blazebit.domain.boot.model.MetadataDefinition;
+import com.blazebit.domain.boot.model.MetadataDefinitionHolder;
+import com.blazebit.domain.runtime.model.DomainModel;
+import com.blazebit.expression.ExpressionCompiler;
+import com.blazebit.expression.ExpressionInterpreterContext;
+import com.blazebit.expression.ExpressionSerializer;
+import com.blazebit.expression.ExpressionService;
+import com.blazebit.expression.Expressions;
+import com.blazebit.expression.Predicate;
+import com.blazebit.expression.base.BaseContributor;
+import com.blazebit.expression.persistence.function.PersistenceFunctionRendererMetadataDefinition;
+import com.blazebit.persistence.CriteriaBuilder;
+import com.blazebit.persistence.SubqueryInitiator;
+import com.blazebit.persistence.WhereBuilder;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public class PersistenceExpressionSerializerCacheTest {
+
+    private final List<SubqueryInitiator<?>> subqueryInitiators = new ArrayList<>();
+    private ExpressionService expressionService;
+    private ExpressionCompiler compiler;
+    private ExpressionCompiler.Context compilerContext;
+    private PersistenceExpressionSerializerCache cache;
+
+    @Before
+    public void setup() {
+        DomainBuilder domainBuilder = Domain.getDefaultProvider().createDefaultBuilder();
+        domainBuilder.createFunction("subquery_value")
+            .withMetadata(new PersistenceFunctionRendererMetadataDefinition((function, returnType, argumentRenderers, sb, serializer) -> {
+                sb.append(serializer.registerSubqueryProvider(new PersistenceSubqueryProvider() {
+                    @Override
+                    public <T> T createSubquery(SubqueryInitiator<T> subqueryInitiator) {
+                        subqueryInitiators.add(subqueryInitiator);
+                        return null;
+                    }
+                }));
+            }))
+            .withResultType(BaseContributor.INTEGER_TYPE_NAME)
+            .build();
+        domainBuilder.createFunction("tenant")
+            .withMetadata(new PersistenceFunctionRendererMetadataDefinition((function, returnType, argumentRenderers, sb, serializer) -> {
+                sb.append('\'').append((String) serializer.getContext().getContextParameter("tenant")).append('\'');
+            }))
+            .withResultType(BaseContributor.STRING_TYPE_NAME)
+            .build();
+        domainBuilder.createFunction("where_builder_value")
+            .withMetadata(new PersistenceFunctionRendererMetadataDefinition((function, returnType, argumentRenderers, sb, serializer) -> {
+                sb.append(serializer.getWhereBuilder() == null ? 0 : 1);
+            }))
+            .withResultType(BaseContributor.INTEGER_TYPE_NAME)
+            .build();
+        domainBuilder.createFunction("correlation_value")
+            .withMetadata(new PersistenceFunctionRendererMetadataDefinition((function, returnType, argumentRenderers, sb, serializer) -> {
+                sb.append(serializer.nextCorrelationAlias()).append(".value");
+            }))
+            .withResultType(BaseContributor.INTEGER_TYPE_NAME)
+            .build();
+        domainBuilder.createEntityType("user")
+            .addAttribute("age", BaseContributor.INTEGER_TYPE_NAME, new Renderer(".age"))
+            .addAttribute("friendAge", BaseContributor.INTEGER_TYPE_NAME, new Correlation("friend.age"))
+            .build();
+        DomainModel domainModel = domainBuilder.build();
+        expressionService = Expressions.forModel(domainModel);
+        compiler = expressionService.createCompiler();
+        compilerContext = compiler.createContext(Collections.singletonMap("user", domainModel.getType("user")));
+        cache = new PersistenceExpressionSerializerCache(16);
+    }
+
+    private PersistenceExpressionSerializerContext<Object> createContext() {
+        PersistenceExpressionSerializerContext<Object> context = new PersistenceExpressionSerializerContext<>(expressionService, null)
+            .withAlias("user", "u");
+        context.setSerializationCache(cache);
+        return context;
+    }
+
+    private static RecordingQueryBuilder serialize(ExpressionSerializer<WhereBuilder> serializer, PersistenceExpressionSerializerContext<Object> context, Predicate predicate) {
+        RecordingQueryBuilder queryBuilder = new RecordingQueryBuilder(true);
+        serializer.serializeTo(context, predicate, queryBuilder.getWhereBuilder());
+        return queryBuilder;
+    }
+
+    @Test
+    public void testReplayRebindsParametersWithFreshNames() {
+        Predicate predicate = compiler.createPredicate("'a' IN ('b', 'c', 'd', 'e', 'f', 'g', 'h', 'i', 'j', 'k') AND 'l' <> 'm' AND user.age = 1", compilerContext);
+        PersistenceExpressionSerializerContext<Object> context = createContext();
+        context.setLiteralsAsParameters(true);
+        ExpressionSerializer<WhereBuilder> serializer = expressionService.createSerializer(WhereBuilder.class);
+        RecordingQueryBuilder queryBuilder = new RecordingQueryBuilder(true);
+        serializer.serializeTo(context, predicate, queryBuilder.getWhereBuilder());
+        serializer.serializeTo(context, predicate, queryBuilder.getWhereBuilder());
+
+        // The replay must split at _expr_param_1 without splitting _expr_param_10 and use names not yet used in the query
+        Assert.assertEquals(Arrays.asList(
+            ":_expr_param_0 IN (:_expr_param_1, :_expr_param_2, :_expr_param_3, :_expr_param_4, :_expr_param_5, :_expr_param_6, :_expr_param_7, :_expr_param_8, :_expr_param_9, :_expr_param_10) AND :_expr_param_11 != :_expr_param_12 AND u.age = 1",
+            ":_expr_param_13 IN (:_expr_param_14, :_expr_param_15, :_expr_param_16, :_expr_param_17, :_expr_param_18, :_expr_param_19, :_expr_param_20, :_expr_param_21, :_expr_param_22, :_expr_param_23) AND :_expr_param_24 != :_expr_param_25 AND u.age = 1"
+        ), queryBuilder.getWhereExpressions());
+        Map<String, Object> expectedParameters = new LinkedHashMap<>();
+        for (int i = 0; i < 26; i++) {
+            expectedParameters.put("_expr_param_" + i, String.valueOf((char) ('a' + i % 13)));
+        }
+        Assert.assertEquals(expectedParameters, queryBuilder.getParameters());
+        Assert.assertEquals(1, cache.getSize());
+        Assert.assertEquals(1, cache.getMissCount());
+        Assert.assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void testReplayIntoOtherQueryBuilder() {
+        Predicate predicate = compiler.createPredicate("'a' = 'b' AND user.age = 1", compilerContext);
+        PersistenceExpressionSerializerContext<Object> context = createContext();
+        context.setLiteralsAsParameters(true);
+        RecordingQueryBuilder first = serialize(expressionService.createSerializer(WhereBuilder.class), context, predicate);
+        RecordingQueryBuilder second = serialize(expressionService.createSerializer(WhereBuilder.class), context, predicate);
+
+        Assert.assertEquals(first.getWhereExpressions(), second.getWhereExpressions());
+        Assert.assertEquals(first.getParameters(), second.getParameters());
+        Assert.assertEquals(Arrays.asList(":_expr_param_0 = :_expr_param_1 AND u.age = 1"), second.getWhereExpressions());
+        Assert.assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void testReplaySubqueryProvidersIntoEachQueryBuilder() {
+        Predicate predicate = compiler.createPredicate("subquery_value() > 1", compilerContext);
+        PersistenceExpressionSerializerContext<Object> context = createContext();
+        ExpressionSerializer<WhereBuilder> serializer = expressionService.createSerializer(WhereBuilder.class);
+        RecordingQueryBuilder first = serialize(serializer, context, predicate);
+        RecordingQueryBuilder second = serialize(serializer, context, predicate);
+        RecordingQueryBuilder third = serialize(expressionService.createSerializer(WhereBuilder.class), context, predicate);
+
+        Assert.assertEquals(2, cache.getHitCount());
+        List<RecordingQueryBuilder> queryBuilders = Arrays.asList(first, second, third);
+        Assert.assertEquals(queryBuilders.size(), subqueryInitiators.size());
+        for (int i = 0; i < queryBuilders.size(); i++) {
+            RecordingQueryBuilder queryBuilder = queryBuilders.get(i);
+            Assert.assertEquals(Arrays.asList("_expr_subquery_0 > 1"), queryBuilder.getWhereExpressions());
+            Assert.assertEquals(Arrays.asList("_expr_subquery_0"), queryBuilder.getSubqueryAliases());
+            // Every query builder must receive its own subquery
+            Assert.assertSame(queryBuilder.getSubqueryInitiators().get(0), subqueryInitiators.get(i));
+        }
+    }
+
+    @Test
+    public void testContextParameterVariants() {
+        Predicate predicate = compiler.createPredicate("tenant() = 'x'", compilerContext);
+        ExpressionSerializer<WhereBuilder> serializer = expressionService.createSerializer(WhereBuilder.class);
+        PersistenceExpressionSerializerContext<Object> tenantA = createContext().withContextParameter("tenant", "a");
+        PersistenceExpressionSerializerContext<Object> tenantB = createContext().withContextParameter("tenant", "b");
+        PersistenceExpressionSerializerContext<Object> tenantAWithParameters = createContext().withContextParameter("tenant", "a");
+        tenantAWithParameters.setLiteralsAsParameters(true);
+
+        Assert.assertEquals(Arrays.asList("'a' = 'x'"), serialize(serializer, tenantA, predicate).getWhereExpressions());
+        Assert.assertEquals(Arrays.asList("'b' = 'x'"), serialize(serializer, tenantB, predicate).getWhereExpressions());
+        Assert.assertEquals(Arrays.asList("'a' = :_expr_param_0"), serialize(serializer, tenantAWithParameters, predicate).getWhereExpressions());
+        Assert.assertEquals(0, cache.getHitCount());
+
+        Assert.assertEquals(Arrays.asList("'b' = 'x'"), serialize(serializer, tenantB, predicate).getWhereExpressions());
+        Assert.assertEquals(Arrays.asList("'a' = 'x'"), serialize(serializer, tenantA, predicate).getWhereExpressions());
+        Assert.assertEquals(1, cache.getSize());
+        Assert.assertEquals(3, cache.getMissCount());
+        Assert.assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    public void testAccessingWhereBuilderIsUncacheable() {
+        assertUncacheable("where_builder_value() = 1", "1 = 1");
+    }
+
+    @Test
+    public void testCorrelationAliasIsUncacheable() {
+        assertUncacheable("correlation_value() = 1", "_expr_correlation_0.value = 1");
+    }
+
+    @Test
+    public void testCorrelatedAttributeIsUncacheable() {
+        assertUncacheable("user.friendAge = 1", "friend.age = 1");
+    }
+
+    private void assertUncacheable(String expression, String expected) {
+        Predicate predicate = compiler.createPredicate(expression, compilerContext);
+        PersistenceExpressionSerializerContext<Object> context = createContext();
+        for (int i = 0; i < 2; i++) {
+            Assert.assertEquals(Arrays.asList(expected), serialize(expressionService.createSerializer(WhereBuilder.class), context, predicate).getWhereExpressions());
+        }
+        Assert.assertEquals(0, cache.getSize());
+        Assert.assertEquals(2, cache.getMissCount());
+        Assert.assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    public void testConstantInliningBypassesCache() {
+        Predicate predicate = compiler.createPredicate("RANDOM() < LENGTH('abc')", compilerContext);
+        PersistenceExpressionSerializerContext<Object> context = createContext();
+        context.setInterpreterContextForInlining(ExpressionInterpreterContext.create(expressionService));
+        for (int i = 0; i < 2; i++) {
+            Assert.assertEquals(Arrays.asList("RANDOM() < 3"), serialize(expressionService.createSerializer(WhereBuilder.class), context, predicate).getWhereExpressions());
+        }
+        Assert.assertEquals(0, cache.getSize());
+        Assert.assertEquals(0, cache.getMissCount());
+        Assert.assertEquals(0, cache.getHitCount());
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    private static class Renderer implements MetadataDefinition<PersistenceExpressionRenderer>, PersistenceExpressionRenderer {
+
+        private final String path;
+
+        public Renderer(String path) {
+            this.path = path;
+        }
+
+        @Override
+        public void render(StringBuilder sb, PersistenceExpressionSerializer serializer) {
+            sb.append(path);
+        }
+
+        @Override
+        public Class<PersistenceExpressionRenderer> getJavaType() {
+            return PersistenceExpressionRenderer.class;
+        }
+
+        @Override
+        public PersistenceExpressionRenderer build(MetadataDefinitionHolder definitionHolder) {
+            return this;
+        }
+    }
+
+    /**
+     * @author Christian Beikov
+     * @since 1.0.0
+     */
+    private static class Correlation implements MetadataDefinition<PersistenceCorrelationRenderer>, PersistenceCorrelationRenderer {
+
+        private final String path;
+
+        public Correlation(String path) {
+            this.path = path;
+        }
+
+        @Override
+        public String correlate(CriteriaBuilder<?> cb, String parentAlias, PersistenceExpressionSerializer serializer) {
+            return path;
+        }
+
+        @Override
+        public Class<PersistenceCorrelationRenderer> getJavaType() {
+            return PersistenceCorrelationRenderer.class;
+        }
+
+        @Override
+        public PersistenceCorrelationRenderer build(MetadataDefinitionHolder definitionHolder) {
+            return this;
+        }
+    }
+}
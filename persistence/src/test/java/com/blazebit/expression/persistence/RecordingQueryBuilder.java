@@ -0,0 +1,151 @@
+/*
+ * Copyright 2019 - 2022 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blazebit.expression.persistence;
+
+import com.blazebit.persistence.CriteriaBuilder;
+import com.blazebit.persistence.MultipleSubqueryInitiator;
+import com.blazebit.persistence.ParameterHolder;
+import com.blazebit.persistence.SubqueryInitiator;
+import com.blazebit.persistence.WhereBuilder;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A query builder that records the where expressions, subquery aliases and parameters that the serializer applies to it.
+ * Like Blaze-Persistence, it rejects values for parameters that are not part of the query.
+ *
+ * @author Christian Beikov
+ * @since 1.0.0
+ */
+public class RecordingQueryBuilder {
+
+    private final List<String> whereExpressions = new ArrayList<>();
+    private final List<String> subqueryAliases = new ArrayList<>();
+    private final List<SubqueryInitiator<?>> subqueryInitiators = new ArrayList<>();
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+    private final WhereBuilder<?> whereBuilder;
+
+    /**
+     * Creates a recording query builder.
+     *
+     * @param parameterHolder Whether the query builder is a {@link CriteriaBuilder} and thus a {@link ParameterHolder}
+     */
+    public RecordingQueryBuilder(boolean parameterHolder) {
+        Class<?>[] interfaces = parameterHolder ? new Class[]{ CriteriaBuilder.class } : new Class[]{ WhereBuilder.class };
+        this.whereBuilder = (WhereBuilder<?>) Proxy.newProxyInstance(getClass().getClassLoader(), interfaces, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "whereExpressionSubqueries":
+                    whereExpressions.add((String) args[0]);
+                    return createMultipleSubqueryInitiator(proxy);
+                case "containsParameter":
+                    return containsParameter((String) args[0]);
+                case "setParameter":
+                    if (!containsParameter((String) args[0])) {
+                        throw new IllegalArgumentException("Parameter '" + args[0] + "' does not exist in the query");
+                    }
+                    parameters.put((String) args[0], args[1]);
+                    return proxy;
+                case "toString":
+                    return "RecordingQueryBuilder";
+                default:
+                    throw new UnsupportedOperationException(method.toString());
+            }
+        });
+    }
+
+    private MultipleSubqueryInitiator<?> createMultipleSubqueryInitiator(Object parent) {
+        return (MultipleSubqueryInitiator<?>) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{ MultipleSubqueryInitiator.class }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "with":
+                    subqueryAliases.add((String) args[0]);
+                    SubqueryInitiator<?> subqueryInitiator = (SubqueryInitiator<?>) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{ SubqueryInitiator.class }, (p, m, a) -> {
+                        throw new UnsupportedOperationException(m.toString());
+                    });
+                    subqueryInitiators.add(subqueryInitiator);
+                    return subqueryInitiator;
+                case "end":
+                    return parent;
+                default:
+                    throw new UnsupportedOperationException(method.toString());
+            }
+        });
+    }
+
+    private boolean containsParameter(String parameterName) {
+        String marker = ":" + parameterName;
+        for (String whereExpression : whereExpressions) {
+            int index = whereExpression.indexOf(marker);
+            while (index != -1) {
+                int end = index + marker.length();
+                if (end == whereExpression.length() || !Character.isLetterOrDigit(whereExpression.charAt(end)) && whereExpression.charAt(end) != '_') {
+                    return true;
+                }
+                index = whereExpression.indexOf(marker, end);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the query builder to serialize to.
+     *
+     * @return the query builder
+     */
+    public WhereBuilder<?> getWhereBuilder() {
+        return whereBuilder;
+    }
+
+    /**
+     * Returns the where expressions in the order they were added.
+     *
+     * @return the where expressions
+     */
+    public List<String> getWhereExpressions() {
+        return whereExpressions;
+    }
+
+    /**
+     * Returns the subquery aliases in the order the subqueries were created.
+     *
+     * @return the subquery aliases
+     */
+    public List<String> getSubqueryAliases() {
+        return subqueryAliases;
+    }
+
+    /**
+     * Returns the subquery initiators in the order the subqueries were created.
+     *
+     * @return the subquery initiators
+     */
+    public List<SubqueryInitiator<?>> getSubqueryInitiators() {
+        return subqueryInitiators;
+    }
+
+    /**
+     * Returns the bound parameters.
+     *
+     * @return the bound parameters
+     */
+    public Map<String, Object> getParameters() {
+        return parameters;
+    }
+}